@@ -0,0 +1,386 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.webgraph.ImmutableSequentialGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+
+/**
+ * Read arcs written by {@link ArcListWriter}. The arcs are read either one
+ * arc at a time ({@link #next()}, {@link #fromId()} and {@link #toId()}) or one
+ * source node with all successors at a time ({@link #nextBlock()}). The arc
+ * list can also be read as {@link ImmutableSequentialGraph}, see
+ * {@link #graph(long)}, and passed to
+ * {@link it.unimi.dsi.webgraph.BVGraph#store(it.unimi.dsi.webgraph.ImmutableGraph, CharSequence)}.
+ * Decoding is done on a large byte buffer without creating any objects per arc.
+ */
+public class ArcListReader extends ArcSorter.ArcIterator implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final ReadableByteChannel in;
+	private final Path indexFile;
+	private long[] index;
+	private final byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+	private final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+	private int pos = 0;
+	private int limit = 0;
+	private final long numNodes;
+
+	private long source = -1;
+	private long[] successors = LongArrays.EMPTY_ARRAY;
+	private int outdegree = 0;
+	private int successorPos = 0;
+	/* a block is read ahead (after seek) but not yet returned by nextBlock() */
+	private boolean pushedBack = false;
+	/* the source node of the next block is known (after seek) */
+	private long nextSource = -1;
+
+	/**
+	 * Read an arc list from a stream. Seeking is not supported.
+	 *
+	 * @param in input stream
+	 * @throws IOException if the header is invalid
+	 */
+	public ArcListReader(InputStream in) throws IOException {
+		this(Channels.newChannel(in), null);
+	}
+
+	private ArcListReader(ReadableByteChannel in, Path indexFile) throws IOException {
+		this.in = in;
+		this.indexFile = indexFile;
+		for (byte b : ArcListWriter.MAGIC) {
+			if (readByte() != b) {
+				throw new IOException("Not an arc list (invalid magic bytes)");
+			}
+		}
+		int version = readByte();
+		if (version != ArcListWriter.VERSION) {
+			throw new IOException("Unsupported arc list version: " + version);
+		}
+		numNodes = readVarLong() - 1;
+	}
+
+	/**
+	 * Open an arc list. Plain files are read using random access, seeking is
+	 * possible if the block index <code>&lt;input&gt;.idx</code> exists. Gzipped
+	 * files are decompressed on the fly.
+	 *
+	 * @param input input file or {@link MultiPartInput#STDIN}
+	 * @return arc list reader
+	 * @throws IOException if the file cannot be opened or is not an arc list
+	 */
+	public static ArcListReader open(String input) throws IOException {
+		if (input.equals(MultiPartInput.STDIN)) {
+			return new ArcListReader(System.in);
+		}
+		Path path = Paths.get(input);
+		if (MultiPartInput.isPlainFile(input)) {
+			Path indexFile = Paths.get(input + ArcListWriter.INDEX_SUFFIX);
+			return new ArcListReader(FileChannel.open(path), Files.exists(indexFile) ? indexFile : null);
+		}
+		return new ArcListReader(MultiPartInput.open(path));
+	}
+
+	/**
+	 * @return false if the end of the input is reached
+	 */
+	private boolean fill() throws IOException {
+		byteBuffer.clear();
+		int n;
+		do {
+			n = in.read(byteBuffer);
+		} while (n == 0);
+		pos = 0;
+		limit = Math.max(0, n);
+		return n > 0;
+	}
+
+	private int readByte() throws IOException {
+		if (pos == limit && !fill()) {
+			throw new EOFException("Unexpected end of arc list");
+		}
+		return buffer[pos++];
+	}
+
+	private long readVarLong() throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		while (((b = readByte()) & 0x80) != 0) {
+			value |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		}
+		return value | ((long) b << shift);
+	}
+
+	private boolean readBlock() throws IOException {
+		if (pos == limit && !fill()) {
+			return false;
+		}
+		long gap = readVarLong();
+		if (nextSource >= 0) {
+			source = nextSource;
+			nextSource = -1;
+		} else {
+			source += gap + 1;
+		}
+		long n = readVarLong();
+		if (n > Integer.MAX_VALUE - 8) {
+			throw new IOException("Invalid number of successors: " + n);
+		}
+		outdegree = (int) n;
+		if (successors.length < outdegree) {
+			successors = LongArrays.grow(successors, outdegree);
+		}
+		long diff = readVarLong();
+		long succ = source + ((diff >>> 1) ^ -(diff & 1));
+		successors[0] = succ;
+		for (int i = 1; i < outdegree; i++) {
+			succ += readVarLong();
+			successors[i] = succ;
+		}
+		successorPos = 0;
+		return true;
+	}
+
+	/**
+	 * Proceed to the next source node and read all its successors.
+	 *
+	 * @return false if there are no more arcs
+	 */
+	public boolean nextBlock() {
+		if (pushedBack) {
+			pushedBack = false;
+			successorPos = 0;
+			return true;
+		}
+		try {
+			return readBlock();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return current source node, see {@link #nextBlock()}
+	 */
+	public long source() {
+		return source;
+	}
+
+	/**
+	 * @return number of successors of the current source node
+	 */
+	public int outdegree() {
+		return outdegree;
+	}
+
+	/**
+	 * @return successors of the current source node, only the first
+	 *         {@link #outdegree()} elements are valid. The array is reused when
+	 *         reading the next block.
+	 */
+	public long[] successorArray() {
+		return successors;
+	}
+
+	@Override
+	public boolean next() {
+		while (successorPos == outdegree || pushedBack) {
+			if (!nextBlock()) {
+				return false;
+			}
+		}
+		fromId = source;
+		toId = successors[successorPos++];
+		return true;
+	}
+
+	/**
+	 * @return number of nodes stored in the header, -1 if unknown
+	 */
+	public long numNodes() {
+		return numNodes;
+	}
+
+	private void loadIndex() throws IOException {
+		if (indexFile == null) {
+			throw new UnsupportedOperationException("Seeking requires a plain arc list file and a block index");
+		}
+		long size = Files.size(indexFile);
+		index = new long[(int) (size / Long.BYTES)];
+		try (DataInputStream idx = new DataInputStream(MultiPartInput.open(indexFile))) {
+			for (int i = 0; i < index.length; i++) {
+				index[i] = idx.readLong();
+			}
+		}
+	}
+
+	/**
+	 * Position the reader so that the next call of {@link #nextBlock()} or
+	 * {@link #next()} returns the first source node equal to or greater than
+	 * <code>node</code>. Requires the block index.
+	 *
+	 * @param node source node ID to seek to
+	 * @throws IOException if the index or the arc list cannot be read
+	 */
+	public void seek(long node) throws IOException {
+		if (index == null) {
+			loadIndex();
+		}
+		/* find the last index entry with a source node not greater than node */
+		int lo = 0;
+		int hi = (index.length / 2) - 1;
+		int entry = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (index[2 * mid] <= node) {
+				entry = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		FileChannel channel = (FileChannel) in;
+		pushedBack = false;
+		outdegree = 0;
+		successorPos = 0;
+		pos = limit = 0;
+		if (index.length == 0) {
+			/* empty arc list */
+			channel.position(channel.size());
+			return;
+		}
+		if (entry == -1) {
+			/* node precedes the first block */
+			entry = 0;
+		}
+		channel.position(index[2 * entry + 1]);
+		nextSource = index[2 * entry];
+		while (readBlock()) {
+			if (source >= node) {
+				pushedBack = true;
+				return;
+			}
+		}
+		outdegree = 0;
+	}
+
+	/**
+	 * Get the arc list as graph, to be iterated only once. Node IDs must be
+	 * integers. Duplicate arcs are removed.
+	 *
+	 * @param numNodes number of nodes, if negative the number of nodes stored in
+	 *                 the header is used
+	 * @return graph view on the arcs
+	 */
+	public ImmutableSequentialGraph graph(long numNodes) {
+		if (numNodes < 0) {
+			numNodes = this.numNodes;
+		}
+		if (numNodes < 0) {
+			throw new IllegalStateException("Number of nodes unknown, must be passed explicitly");
+		}
+		if (numNodes > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Number of nodes exceeds integer range: " + numNodes);
+		}
+		return new ArcListGraph((int) numNodes);
+	}
+
+	private class ArcListGraph extends ImmutableSequentialGraph {
+
+		private final int numNodes;
+
+		private ArcListGraph(int numNodes) {
+			this.numNodes = numNodes;
+		}
+
+		@Override
+		public int numNodes() {
+			return numNodes;
+		}
+
+		@Override
+		public NodeIterator nodeIterator() {
+			return new NodeIterator() {
+				private int curr = -1;
+				private boolean hasBlock = nextBlock();
+				private int[] succ = IntArrays.EMPTY_ARRAY;
+				private int degree = 0;
+
+				@Override
+				public boolean hasNext() {
+					return (curr + 1) < numNodes;
+				}
+
+				@Override
+				public int nextInt() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					curr++;
+					degree = 0;
+					if (hasBlock && source < curr) {
+						throw new IllegalStateException("Source node " + source + " out of order");
+					}
+					if (hasBlock && source == curr) {
+						if (succ.length < outdegree) {
+							succ = IntArrays.grow(succ, outdegree);
+						}
+						for (int i = 0; i < outdegree; i++) {
+							long s = successors[i];
+							if (s >= numNodes) {
+								throw new IllegalArgumentException(
+										"Node ID " + s + " out of range, number of nodes: " + numNodes);
+							}
+							if (degree == 0 || succ[degree - 1] != s) {
+								succ[degree++] = (int) s;
+							}
+						}
+						hasBlock = nextBlock();
+					}
+					if (!hasNext() && hasBlock) {
+						throw new IllegalArgumentException(
+								"Node ID " + source + " out of range, number of nodes: " + numNodes);
+					}
+					return curr;
+				}
+
+				@Override
+				public int outdegree() {
+					return degree;
+				}
+
+				@Override
+				public int[] successorArray() {
+					return succ;
+				}
+			};
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
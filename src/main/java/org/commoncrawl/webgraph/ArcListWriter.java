@@ -0,0 +1,196 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * Write arcs in a compact binary format ("arc list"), replacing the text
+ * format <code>fromId \t toId</code> for edges passed between the tools. Arcs
+ * must be added sorted by fromId and toId.
+ *
+ * <p>
+ * Format: the header consists of the magic bytes {@link #MAGIC}, the format
+ * {@link #VERSION} and the number of nodes plus one (zero if unknown). It is
+ * followed by one block for every source node with at least one arc:
+ * </p>
+ * <ul>
+ * <li>the gap to the preceding source node minus one (the first source node is
+ * stored as is)</li>
+ * <li>the number of successors</li>
+ * <li>the difference between the first successor and the source node,
+ * zig-zag encoded</li>
+ * <li>the gaps between the remaining successors</li>
+ * </ul>
+ * <p>
+ * All numbers are variable-length integers, see
+ * {@link LineWriter#writeVarLong(long)}. If the output is a plain file, every
+ * {@link #DEFAULT_INDEX_INTERVAL} blocks the source node and the offset of the
+ * block are recorded in a block index, stored in the file
+ * <code>&lt;output&gt;.idx</code> as pairs of longs. The index allows to seek
+ * to a source node, see {@link ArcListReader#seek(long)}.
+ * </p>
+ */
+public class ArcListWriter implements Closeable {
+
+	public static final byte[] MAGIC = { 'C', 'C', 'A', 'L' };
+	public static final int VERSION = 1;
+
+	/** suffix of the block index file */
+	public static final String INDEX_SUFFIX = ".idx";
+
+	public static final int DEFAULT_INDEX_INTERVAL = 1 << 12;
+
+	private final LineWriter out;
+	private final Path indexFile;
+	private final int indexInterval;
+	private final LongArrayList index = new LongArrayList();
+
+	private final LongArrayList successors = new LongArrayList();
+	private long source = -1;
+	private long prevSource = -1;
+	private long numBlocks = 0;
+	private long numArcs = 0;
+
+	/**
+	 * Write an arc list without block index.
+	 *
+	 * @param out      output
+	 * @param numNodes number of nodes, -1 if unknown
+	 */
+	public ArcListWriter(LineWriter out, long numNodes) {
+		this(out, numNodes, null, DEFAULT_INDEX_INTERVAL);
+	}
+
+	/**
+	 * @param out           output
+	 * @param numNodes      number of nodes, -1 if unknown
+	 * @param indexFile     file to store the block index, null if no index is
+	 *                      written
+	 * @param indexInterval number of blocks between two index entries
+	 */
+	public ArcListWriter(LineWriter out, long numNodes, Path indexFile, int indexInterval) {
+		this.out = out;
+		this.indexFile = indexFile;
+		this.indexInterval = Math.max(1, indexInterval);
+		out.write(MAGIC);
+		out.write(VERSION);
+		out.writeVarLong(numNodes + 1);
+	}
+
+	/**
+	 * Open an arc list output file. A block index is written if the output is a
+	 * plain file (not compressed and not {@link LineWriter#STDOUT}).
+	 *
+	 * @param output   output file, see {@link LineWriter#open(String)}
+	 * @param numNodes number of nodes, -1 if unknown
+	 * @return arc list writer
+	 * @throws IOException if the file cannot be created
+	 */
+	public static ArcListWriter open(String output, long numNodes) throws IOException {
+		Path indexFile = null;
+		if (!output.equals(LineWriter.STDOUT) && !output.endsWith(".gz")) {
+			indexFile = Paths.get(output + INDEX_SUFFIX);
+		}
+		return new ArcListWriter(LineWriter.open(output), numNodes, indexFile, DEFAULT_INDEX_INTERVAL);
+	}
+
+	/**
+	 * Add an arc. Arcs must be added sorted by fromId and toId.
+	 *
+	 * @param fromId source node ID
+	 * @param toId   target node ID
+	 */
+	public void add(long fromId, long toId) {
+		if (fromId != source) {
+			if (fromId < source) {
+				throw new IllegalArgumentException("Arcs are not sorted by fromId: " + fromId + " after " + source);
+			}
+			writeBlock();
+			source = fromId;
+		} else if (toId < successors.getLong(successors.size() - 1)) {
+			throw new IllegalArgumentException(
+					"Arcs are not sorted by toId: " + fromId + " -> " + toId + " after " + fromId + " -> "
+							+ successors.getLong(successors.size() - 1));
+		}
+		if (toId < 0) {
+			throw new IllegalArgumentException("Negative node ID in arc " + fromId + " -> " + toId);
+		}
+		successors.add(toId);
+		numArcs++;
+	}
+
+	/**
+	 * Add all successors of a node.
+	 *
+	 * @param fromId    source node ID
+	 * @param succ      successors, sorted
+	 * @param outdegree number of successors
+	 */
+	public void add(long fromId, int[] succ, int outdegree) {
+		for (int i = 0; i < outdegree; i++) {
+			add(fromId, succ[i]);
+		}
+	}
+
+	private void writeBlock() {
+		if (successors.isEmpty()) {
+			return;
+		}
+		if ((numBlocks % indexInterval) == 0 && indexFile != null) {
+			index.add(source);
+			index.add(out.position());
+		}
+		out.writeVarLong(source - prevSource - 1);
+		int outdegree = successors.size();
+		out.writeVarLong(outdegree);
+		long prev = successors.getLong(0);
+		long diff = prev - source;
+		out.writeVarLong((diff << 1) ^ (diff >> 63));
+		for (int i = 1; i < outdegree; i++) {
+			long succ = successors.getLong(i);
+			out.writeVarLong(succ - prev);
+			prev = succ;
+		}
+		successors.clear();
+		prevSource = source;
+		numBlocks++;
+	}
+
+	/**
+	 * @return number of arcs written
+	 */
+	public long numArcs() {
+		return numArcs;
+	}
+
+	/**
+	 * Write the last block and the block index, and close the output.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			writeBlock();
+		} finally {
+			out.close();
+		}
+		if (indexFile != null) {
+			try (DataOutputStream idx = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(indexFile), 1 << 16))) {
+				for (int i = 0; i < index.size(); i++) {
+					idx.writeLong(index.getLong(i));
+				}
+			}
+		}
+	}
+}
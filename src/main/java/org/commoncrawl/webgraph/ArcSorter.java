@@ -0,0 +1,724 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableSequentialGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+
+/**
+ * External sorter for arc lists, pairs of &lt;fromId, toId&gt;. Replaces
+ * sorting the text edges by <code>sort -t$'\t' -k1,1n -k2,2n</code>.
+ *
+ * <p>
+ * Arcs are buffered in memory, up to a configurable number of arcs. If the
+ * buffer is full, the arcs are sorted by a parallel radix sort, optionally
+ * deduplicated, and spilled to a temporary file ("run"). Runs are stored
+ * delta-encoded as variable-length integers: the gap to the preceding fromId
+ * followed by the toId or, if the fromId is the same, the gap to the preceding
+ * toId. Once
+ * all arcs are added, the runs and the arcs remaining in memory are merged,
+ * see {@link #iterator()}. The sorted arcs are written as text
+ * ({@link #writeText(LineWriter)}), as binary pairs of longs
+ * ({@link #writeBinary(DataOutputStream)}) or stored as {@link BVGraph}
+ * ({@link #storeBVGraph(CharSequence, int)}).
+ * </p>
+ *
+ * <p>
+ * Node IDs must not be negative.
+ * </p>
+ */
+public class ArcSorter implements Closeable {
+
+	protected static Logger LOG = LoggerFactory.getLogger(ArcSorter.class);
+
+	/* max. size of a Java array */
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	/* max. number of runs merged at once */
+	private static final int MAX_RUNS = 256;
+
+	private final int maxArcsInMemory;
+	private final Path spillDir;
+	private boolean unique = false;
+
+	private long[] fromIds;
+	private long[] toIds;
+	private int size = 0;
+
+	private final List<Run> runs = new ArrayList<>();
+	private long numArcs = 0;
+	private long numSpilledArcs = 0;
+	private long maxNodeId = -1;
+	private boolean merging = false;
+
+	/**
+	 * @param maxArcsInMemory max. number of arcs held in memory. Every arc
+	 *                        requires 16 bytes of heap memory.
+	 * @param spillDir        directory to place temporary files, if null use the
+	 *                        default temporary-file directory
+	 */
+	public ArcSorter(int maxArcsInMemory, Path spillDir) {
+		this.maxArcsInMemory = Math.max(1, Math.min(maxArcsInMemory, MAX_ARRAY_SIZE));
+		this.spillDir = spillDir;
+		int initialSize = Math.min(this.maxArcsInMemory, 1 << 16);
+		fromIds = new long[initialSize];
+		toIds = new long[initialSize];
+	}
+
+	/**
+	 * @return max. number of arcs to be held in memory using half of the max.
+	 *         heap size
+	 */
+	public static int defaultMaxArcsInMemory() {
+		return (int) Math.min(MAX_ARRAY_SIZE, Runtime.getRuntime().maxMemory() / 32);
+	}
+
+	/**
+	 * @param unique if true remove duplicate arcs, same as <code>sort -u</code>.
+	 *               Must be called before arcs are added.
+	 */
+	public void setUnique(boolean unique) {
+		this.unique = unique;
+	}
+
+	/**
+	 * Add an arc.
+	 *
+	 * @param fromId source node ID
+	 * @param toId   target node ID
+	 */
+	public void add(long fromId, long toId) {
+		if (merging) {
+			throw new IllegalStateException("Arcs cannot be added once the merge has started");
+		}
+		if (fromId < 0 || toId < 0) {
+			throw new IllegalArgumentException("Negative node ID in arc " + fromId + " -> " + toId);
+		}
+		if (size == fromIds.length) {
+			if (size == maxArcsInMemory) {
+				spill();
+			} else {
+				int newSize = (int) Math.min(maxArcsInMemory, 2L * size);
+				fromIds = LongArrays.forceCapacity(fromIds, newSize, size);
+				toIds = LongArrays.forceCapacity(toIds, newSize, size);
+			}
+		}
+		fromIds[size] = fromId;
+		toIds[size] = toId;
+		size++;
+		numArcs++;
+		if (fromId > maxNodeId) {
+			maxNodeId = fromId;
+		}
+		if (toId > maxNodeId) {
+			maxNodeId = toId;
+		}
+	}
+
+	/**
+	 * Add the arcs read from text lines &lt;fromId&gt; \t &lt;toId&gt;. Further
+	 * fields are ignored, lines without a tab are skipped.
+	 *
+	 * @param in arcs input
+	 * @return number of lines skipped
+	 */
+	public long addAll(LineReader in) {
+		long skipped = 0;
+		while (in.next()) {
+			int sep = in.indexOf('\t');
+			if (sep == -1) {
+				skipped++;
+				continue;
+			}
+			int sep2 = in.indexOf('\t', sep + 1);
+			if (sep2 == -1) {
+				sep2 = in.end();
+			}
+			add(in.parseLong(in.start(), sep), in.parseLong(sep + 1, sep2));
+			if ((numArcs % 100000000) == 0) {
+				LOG.info("Read {} arcs", numArcs);
+			}
+		}
+		return skipped;
+	}
+
+	/**
+	 * Sort the arcs held in memory and remove duplicates if required.
+	 */
+	private void sortBuffer() {
+		LongArrays.parallelRadixSort(fromIds, toIds, 0, size);
+		if (unique && size > 0) {
+			int n = 1;
+			for (int i = 1; i < size; i++) {
+				if (fromIds[i] != fromIds[n - 1] || toIds[i] != toIds[n - 1]) {
+					fromIds[n] = fromIds[i];
+					toIds[n] = toIds[i];
+					n++;
+				}
+			}
+			size = n;
+		}
+	}
+
+	private void spill() {
+		sortBuffer();
+		try {
+			Run run = writeRun(new MemoryRun());
+			runs.add(run);
+			numSpilledArcs += run.length;
+			LOG.info("Spilled {} arcs to disk (run {}, {} bytes)", run.length, runs.size(), Files.size(run.file));
+			if (runs.size() >= MAX_RUNS) {
+				/* merge the runs to limit the number of files open during the final merge */
+				List<ArcIterator> sources = new ArrayList<>(runs);
+				Run merged = writeRun(new MergingIterator(sources));
+				close();
+				runs.add(merged);
+				LOG.info("Merged {} runs into one run of {} arcs ({} bytes)", sources.size(), merged.length,
+						Files.size(merged.file));
+			}
+		} catch (IOException e) {
+			LOG.error("Failed to spill arcs to disk", e);
+			throw new UncheckedIOException(e);
+		}
+		size = 0;
+	}
+
+	private Run writeRun(ArcIterator arcs) throws IOException {
+		Path file = spillDir == null ? Files.createTempFile("arcs-", ".bin")
+				: Files.createTempFile(spillDir, "arcs-", ".bin");
+		long n = 0;
+		try (LineWriter out = new LineWriter(Files.newOutputStream(file))) {
+			long prevFromId = 0;
+			long prevToId = 0;
+			while (arcs.next()) {
+				long fromId = arcs.fromId();
+				long toId = arcs.toId();
+				out.writeVarLong(fromId - prevFromId);
+				if (fromId == prevFromId) {
+					out.writeVarLong(toId - prevToId);
+				} else {
+					out.writeVarLong(toId);
+				}
+				prevFromId = fromId;
+				prevToId = toId;
+				n++;
+			}
+		}
+		return new Run(file, n);
+	}
+
+	/**
+	 * @return number of arcs added
+	 */
+	public long numArcs() {
+		return numArcs;
+	}
+
+	/**
+	 * @return highest node ID of all arcs added, -1 if no arcs were added
+	 */
+	public long maxNodeId() {
+		return maxNodeId;
+	}
+
+	/**
+	 * Iterator over the sorted arcs. The current arc is accessed by
+	 * {@link #fromId()} and {@link #toId()} after {@link #next()} returned true.
+	 */
+	public abstract static class ArcIterator {
+		protected long fromId;
+		protected long toId;
+
+		/**
+		 * Proceed to the next arc.
+		 *
+		 * @return false if there are no more arcs
+		 */
+		public abstract boolean next();
+
+		public long fromId() {
+			return fromId;
+		}
+
+		public long toId() {
+			return toId;
+		}
+	}
+
+	/**
+	 * Arcs held in memory, already sorted.
+	 */
+	private class MemoryRun extends ArcIterator {
+		private int pos = 0;
+
+		@Override
+		public boolean next() {
+			if (pos == size) {
+				return false;
+			}
+			fromId = fromIds[pos];
+			toId = toIds[pos];
+			pos++;
+			return true;
+		}
+	}
+
+	/**
+	 * Arcs spilled to a temporary file.
+	 */
+	private static class Run extends ArcIterator implements Closeable {
+		private final Path file;
+		private final long length;
+		private InputStream in;
+		private final byte[] buffer = new byte[1 << 16];
+		private int pos = 0;
+		private int limit = 0;
+		private long read = 0;
+
+		Run(Path file, long length) {
+			this.file = file;
+			this.length = length;
+		}
+
+		private int readByte() throws IOException {
+			if (pos == limit) {
+				if (in == null) {
+					in = Files.newInputStream(file);
+				}
+				limit = in.read(buffer, 0, buffer.length);
+				if (limit <= 0) {
+					throw new EOFException("Unexpected end of run " + file);
+				}
+				pos = 0;
+			}
+			return buffer[pos++];
+		}
+
+		private long readVarLong() throws IOException {
+			long value = 0;
+			int shift = 0;
+			int b;
+			while (((b = readByte()) & 0x80) != 0) {
+				value |= (long) (b & 0x7f) << shift;
+				shift += 7;
+			}
+			return value | ((long) b << shift);
+		}
+
+		@Override
+		public boolean next() {
+			if (read == length) {
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					in = null;
+				}
+				return false;
+			}
+			try {
+				long fromGap = readVarLong();
+				if (fromGap == 0) {
+					toId += readVarLong();
+				} else {
+					fromId += fromGap;
+					toId = readVarLong();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			read++;
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (in != null) {
+				in.close();
+			}
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * k-way merge of sorted arc iterators, removing duplicates if required.
+	 */
+	private class MergingIterator extends ArcIterator {
+		private final PriorityQueue<ArcIterator> queue;
+		private boolean first = true;
+
+		MergingIterator(List<ArcIterator> sources) {
+			queue = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> {
+				int c = Long.compare(a.fromId, b.fromId);
+				return c != 0 ? c : Long.compare(a.toId, b.toId);
+			});
+			for (ArcIterator source : sources) {
+				if (source.next()) {
+					queue.add(source);
+				}
+			}
+		}
+
+		@Override
+		public boolean next() {
+			while (!queue.isEmpty()) {
+				ArcIterator top = queue.poll();
+				long f = top.fromId;
+				long t = top.toId;
+				if (top.next()) {
+					queue.add(top);
+				}
+				if (unique && !first && f == fromId && t == toId) {
+					continue;
+				}
+				fromId = f;
+				toId = t;
+				first = false;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Finish adding arcs and merge the runs spilled to disk and the arcs held in
+	 * memory. Can be called only once.
+	 *
+	 * @return iterator over all arcs in sort order
+	 */
+	public ArcIterator iterator() {
+		if (merging) {
+			throw new IllegalStateException("Arcs are already merged");
+		}
+		merging = true;
+		sortBuffer();
+		if (runs.isEmpty()) {
+			return new MemoryRun();
+		}
+		LOG.info("Merging {} arcs held in memory and {} arcs spilled to disk in {} runs", size, numSpilledArcs,
+				runs.size());
+		List<ArcIterator> sources = new ArrayList<>(runs);
+		sources.add(new MemoryRun());
+		return new MergingIterator(sources);
+	}
+
+	/**
+	 * Write the sorted arcs as text lines &lt;fromId&gt; \t &lt;toId&gt;.
+	 *
+	 * @return number of arcs written
+	 */
+	public long writeText(LineWriter out) {
+		ArcIterator arcs = iterator();
+		long n = 0;
+		while (arcs.next()) {
+			out.print(arcs.fromId());
+			out.write('\t');
+			out.print(arcs.toId());
+			out.write('\n');
+			n++;
+		}
+		out.flush();
+		return n;
+	}
+
+	/**
+	 * Write the sorted arcs as binary pairs of longs (big-endian).
+	 *
+	 * @return number of arcs written
+	 */
+	public long writeBinary(DataOutputStream out) throws IOException {
+		ArcIterator arcs = iterator();
+		long n = 0;
+		while (arcs.next()) {
+			out.writeLong(arcs.fromId());
+			out.writeLong(arcs.toId());
+			n++;
+		}
+		out.flush();
+		return n;
+	}
+
+	/**
+	 * Write the sorted arcs in the binary arc list format, see
+	 * {@link ArcListWriter}.
+	 *
+	 * @return number of arcs written
+	 */
+	public long writeArcList(ArcListWriter out) {
+		ArcIterator arcs = iterator();
+		long n = 0;
+		while (arcs.next()) {
+			out.add(arcs.fromId(), arcs.toId());
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * @param numNodes number of nodes, if negative determined by the highest node
+	 *                 ID
+	 * @return the sorted arcs as graph to be passed to, eg.
+	 *         {@link BVGraph#store(it.unimi.dsi.webgraph.ImmutableGraph, CharSequence, ProgressLogger)}.
+	 *         Duplicate arcs are removed.
+	 */
+	public ImmutableSequentialGraph graph(int numNodes) {
+		return new SortedArcsGraph(numNodes < 0 ? maxNodeId + 1 : numNodes);
+	}
+
+	/**
+	 * Store the sorted arcs as {@link BVGraph}.
+	 *
+	 * @param basename base name of the graph
+	 * @param numNodes number of nodes, if negative determined by the highest node
+	 *                 ID
+	 */
+	public void storeBVGraph(CharSequence basename, int numNodes) throws IOException {
+		ProgressLogger pl = new ProgressLogger(LOG, "nodes");
+		BVGraph.store(graph(numNodes), basename, pl);
+	}
+
+	/**
+	 * View of the sorted arcs as sequential graph. Node IDs must be integers.
+	 */
+	private class SortedArcsGraph extends ImmutableSequentialGraph {
+
+		private final int numNodes;
+
+		private SortedArcsGraph(long numNodes) {
+			if (numNodes > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Number of nodes exceeds integer range: " + numNodes);
+			}
+			if (maxNodeId >= numNodes) {
+				throw new IllegalArgumentException(
+						"Node ID " + maxNodeId + " out of range, number of nodes: " + numNodes);
+			}
+			this.numNodes = (int) numNodes;
+		}
+
+		@Override
+		public int numNodes() {
+			return numNodes;
+		}
+
+		@Override
+		public NodeIterator nodeIterator() {
+			final ArcIterator arcs = iterator();
+			return new NodeIterator() {
+				private int curr = -1;
+				private boolean hasArc = arcs.next();
+				private int[] successors = IntArrays.EMPTY_ARRAY;
+				private int outdegree = 0;
+
+				@Override
+				public boolean hasNext() {
+					return (curr + 1) < numNodes;
+				}
+
+				@Override
+				public int nextInt() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					curr++;
+					outdegree = 0;
+					while (hasArc && arcs.fromId() == curr) {
+						int toId = (int) arcs.toId();
+						if (outdegree == 0 || successors[outdegree - 1] != toId) {
+							if (outdegree == successors.length) {
+								successors = IntArrays.grow(successors, outdegree + 1);
+							}
+							successors[outdegree++] = toId;
+						}
+						hasArc = arcs.next();
+					}
+					return curr;
+				}
+
+				@Override
+				public int outdegree() {
+					return outdegree;
+				}
+
+				@Override
+				public int[] successorArray() {
+					return successors;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Delete all temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException ex = null;
+		for (Run run : runs) {
+			try {
+				run.close();
+			} catch (IOException e) {
+				ex = e;
+			}
+		}
+		runs.clear();
+		if (ex != null) {
+			throw ex;
+		}
+	}
+
+	private static void showHelp() {
+		System.err.println("ArcSorter [options]... <edges_in> <edges_out>");
+		System.err.println("");
+		System.err.println("Sort arcs (lines <fromId> \\t <toId>) numerically by source and target ID,");
+		System.err.println("same as `sort -t$'\\t' -k1,1n -k2,2n'. Arcs are sorted in memory by a parallel");
+		System.err.println("radix sort, if the buffer is full sorted runs are spilled to temporary files");
+		System.err.println("and merged finally.");
+		System.err.println("");
+		System.err.println("Options:");
+		System.err.println(" -h\t(also -? or --help) show usage message and exit");
+		System.err.println(" -u\t(also --unique) remove duplicate arcs");
+		System.err.println(" --buffer-size <n>\tmax. number of arcs sorted in memory, 16 bytes per arc");
+		System.err.println("                  \t(default: use half of the max. heap size)");
+		System.err.println(" --spill-dir <dir>\tdirectory to place the temporary files of spilled runs");
+		System.err.println(" --binary\twrite arcs as pairs of binary longs (big-endian)");
+		System.err.println(" --arc-list\twrite arcs in the compact binary arc list format");
+		System.err.println("           \t(see ArcListWriter)");
+		System.err.println(" --bvgraph\tstore the arcs as BVGraph, <edges_out> is the base name");
+		System.err.println("          \tof the graph. Duplicate arcs are removed.");
+		System.err.println(" --num-nodes <n>\tnumber of nodes of the BVGraph or the arc list");
+		System.err.println("                \t(default: highest node ID + 1)");
+		System.err.println("");
+		System.err.println("The input <edges_in> may be gzip-compressed (suffix .gz), a directory");
+		System.err.println("holding multiple parts (part-*), a glob pattern (eg. 'edges/*.gz') or");
+		System.err.println("`-' to read from stdin. The output <edges_out> is gzip-compressed using");
+		System.err.println("multiple threads if the suffix is .gz, `-' writes to stdout.");
+	}
+
+	public static void main(String[] args) {
+		boolean unique = false;
+		int maxArcsInMemory = defaultMaxArcsInMemory();
+		Path spillDir = null;
+		boolean binaryOutput = false;
+		boolean arcListOutput = false;
+		boolean bvGraphOutput = false;
+		int numNodes = -1;
+		int argpos = 0;
+		while (argpos < args.length && args[argpos].startsWith("-") && args[argpos].length() > 1) {
+			switch (args[argpos]) {
+			case "-?":
+			case "-h":
+			case "--help":
+				showHelp();
+				System.exit(0);
+			case "-u":
+			case "--unique":
+				unique = true;
+				break;
+			case "--binary":
+				binaryOutput = true;
+				break;
+			case "--arc-list":
+				arcListOutput = true;
+				break;
+			case "--bvgraph":
+				bvGraphOutput = true;
+				break;
+			case "--buffer-size":
+			case "--num-nodes":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					int value = Integer.parseInt(args[argpos + 1]);
+					if (args[argpos].equals("--buffer-size")) {
+						maxArcsInMemory = value;
+					} else {
+						numNodes = value;
+					}
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos + 1]);
+					System.exit(1);
+				}
+				argpos++;
+				break;
+			case "--spill-dir":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				spillDir = Paths.get(args[++argpos]);
+				break;
+			default:
+				LOG.error("Unknown option: " + args[argpos]);
+				showHelp();
+				System.exit(1);
+			}
+			argpos++;
+		}
+		if ((args.length - argpos) < 2) {
+			showHelp();
+			System.exit(1);
+		}
+		if ((binaryOutput ? 1 : 0) + (arcListOutput ? 1 : 0) + (bvGraphOutput ? 1 : 0) > 1) {
+			LOG.error("Options --binary, --arc-list and --bvgraph are mutually exclusive");
+			System.exit(1);
+		}
+		String edgesIn = args[argpos++];
+		String edgesOut = args[argpos++];
+		try (ArcSorter sorter = new ArcSorter(maxArcsInMemory, spillDir)) {
+			sorter.setUnique(unique || bvGraphOutput);
+			try (LineReader in = MultiPartInput.reader(edgesIn)) {
+				long skipped = sorter.addAll(in);
+				LOG.info("Read {} arcs ({} invalid lines skipped), max. node ID: {}", sorter.numArcs(), skipped,
+						sorter.maxNodeId());
+			}
+			if (bvGraphOutput) {
+				sorter.storeBVGraph(edgesOut, numNodes);
+			} else if (arcListOutput) {
+				try (ArcListWriter out = ArcListWriter.open(edgesOut,
+						numNodes < 0 ? (sorter.maxNodeId() + 1) : numNodes)) {
+					LOG.info("Wrote {} sorted arcs", sorter.writeArcList(out));
+				}
+			} else if (binaryOutput) {
+				try (DataOutputStream out = new DataOutputStream(LineWriter.open(edgesOut))) {
+					LOG.info("Wrote {} sorted arcs", sorter.writeBinary(out));
+				}
+			} else {
+				try (LineWriter out = LineWriter.open(edgesOut)) {
+					LOG.info("Wrote {} sorted arcs", sorter.writeText(out));
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("Failed to sort arcs:", e);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.webgraph.BVGraph;
+
+/**
+ * Convert between the text representation of arcs (lines
+ * <code>fromId \t toId</code>) and the binary arc list format (see
+ * {@link ArcListWriter}), or store an arc list as {@link BVGraph}.
+ */
+public class ConvertArcList {
+
+	protected static Logger LOG = LoggerFactory.getLogger(ConvertArcList.class);
+
+	/**
+	 * Convert text arcs, sorted numerically by fromId and toId, to an arc list.
+	 * Further fields are ignored, lines without a tab are skipped.
+	 *
+	 * @param in  text input
+	 * @param out arc list output
+	 * @return number of arcs converted
+	 */
+	public static long textToArcList(LineReader in, ArcListWriter out) {
+		long n = 0;
+		while (in.next()) {
+			int sep = in.indexOf('\t');
+			if (sep == -1) {
+				continue;
+			}
+			int sep2 = in.indexOf('\t', sep + 1);
+			if (sep2 == -1) {
+				sep2 = in.end();
+			}
+			out.add(in.parseLong(in.start(), sep), in.parseLong(sep + 1, sep2));
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Convert an arc list to text arcs.
+	 *
+	 * @param in  arc list input
+	 * @param out text output
+	 * @return number of arcs converted
+	 */
+	public static long arcListToText(ArcListReader in, LineWriter out) {
+		long n = 0;
+		while (in.nextBlock()) {
+			long fromId = in.source();
+			long[] successors = in.successorArray();
+			int outdegree = in.outdegree();
+			for (int i = 0; i < outdegree; i++) {
+				out.print(fromId);
+				out.write('\t');
+				out.print(successors[i]);
+				out.write('\n');
+			}
+			n += outdegree;
+		}
+		out.flush();
+		return n;
+	}
+
+	private static void showHelp() {
+		System.err.println("ConvertArcList [options]... <in> <out>");
+		System.err.println("");
+		System.err.println("Convert arcs (lines <fromId> \\t <toId>, sorted numerically by fromId and toId)");
+		System.err.println("to the compact binary arc list format (see ArcListWriter), or vice versa.");
+		System.err.println("");
+		System.err.println("Options:");
+		System.err.println(" -h\t(also -? or --help) show usage message and exit");
+		System.err.println(" --to-text\tconvert the arc list <in> to text");
+		System.err.println(" --to-bvgraph\tstore the arc list <in> as BVGraph, <out> is the base name");
+		System.err.println("             \tof the graph. Duplicate arcs are removed.");
+		System.err.println(" --num-nodes <n>\tnumber of nodes, stored in the arc list header, or");
+		System.err.println("                \tnumber of nodes of the BVGraph (default: from arc list header)");
+		System.err.println("");
+		System.err.println("Gzipped input and output (suffix .gz) is decompressed resp. compressed.");
+		System.err.println("A block index (<out>.idx) is written if the arc list is a plain file.");
+	}
+
+	public static void main(String[] args) {
+		boolean toText = false;
+		boolean toBVGraph = false;
+		long numNodes = -1;
+		int argpos = 0;
+		while (argpos < args.length && args[argpos].startsWith("-") && args[argpos].length() > 1) {
+			switch (args[argpos]) {
+			case "-?":
+			case "-h":
+			case "--help":
+				showHelp();
+				System.exit(0);
+			case "--to-text":
+				toText = true;
+				break;
+			case "--to-bvgraph":
+				toBVGraph = true;
+				break;
+			case "--num-nodes":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					numNodes = Long.parseLong(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			default:
+				LOG.error("Unknown option: " + args[argpos]);
+				showHelp();
+				System.exit(1);
+			}
+			argpos++;
+		}
+		if ((args.length - argpos) < 2) {
+			showHelp();
+			System.exit(1);
+		}
+		if (toText && toBVGraph) {
+			LOG.error("Options --to-text and --to-bvgraph are mutually exclusive");
+			System.exit(1);
+		}
+		String input = args[argpos++];
+		String output = args[argpos++];
+		try {
+			if (toBVGraph) {
+				try (ArcListReader in = ArcListReader.open(input)) {
+					BVGraph.store(in.graph(numNodes), output, new ProgressLogger(LOG, "nodes"));
+				}
+				LOG.info("Stored arc list {} as BVGraph {}", input, output);
+			} else if (toText) {
+				try (ArcListReader in = ArcListReader.open(input); LineWriter out = LineWriter.open(output)) {
+					LOG.info("Converted {} arcs to text", arcListToText(in, out));
+				}
+			} else {
+				try (LineReader in = MultiPartInput.reader(input);
+						ArcListWriter out = ArcListWriter.open(output, numNodes)) {
+					LOG.info("Converted {} arcs to arc list", textToArcList(in, out));
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("Failed to convert arcs:", e);
+			System.exit(1);
+		}
+	}
+}
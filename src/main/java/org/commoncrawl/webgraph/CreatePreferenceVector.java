@@ -6,11 +6,7 @@ package org.commoncrawl.webgraph;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.Iterator;
-import java.util.Objects;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,10 +24,11 @@ public class CreatePreferenceVector {
 	protected static Logger LOG = LoggerFactory.getLogger(CreatePreferenceVector.class);
 
 	private long lastId = 0;
-	private Iterator<String> preferenceIterator;
+	private LineReader preferenceReader;
 	private LongList preferenceIds = new LongArrayList();
 	private double defaultPreferenceValue;
-	private String nextPreferenceName;
+	/* whether the preference reader is positioned on the next preference name */
+	private boolean hasNextPreferenceName;
 	long recordsProcessed;
 	long preferenceNamesFound;
 
@@ -40,41 +37,44 @@ public class CreatePreferenceVector {
 	}
 
 	private boolean nextPreferenceElement() {
-		if (preferenceIterator.hasNext()) {
-			nextPreferenceName = preferenceIterator.next();
-			return true;
-		} else {
-			nextPreferenceName = null;
-			return false;
-		}
+		hasNextPreferenceName = preferenceReader.next();
+		return hasNextPreferenceName;
 	}
 
-	private void setPrefSet(Stream<String> pref) {
-		preferenceIterator = pref.iterator();
+	private void setPrefSet(LineReader pref) {
+		preferenceReader = pref;
 		nextPreferenceElement();
 	}
 
+	/**
+	 * Compare a vertex name with the next preference name, both as UTF-8 bytes.
+	 */
+	private int compareToNextPreferenceName(byte[] name, int from, int to) {
+		return LineReader.compare(name, from, to, preferenceReader.buffer(), preferenceReader.start(),
+				preferenceReader.end());
+	}
+
 	private void logProgress() {
 		LOG.info("Processed {} nodes, found {} preference elements", recordsProcessed, preferenceNamesFound);
 	}
 
-	private long readJoinNode(String line) {
+	private long readJoinNode(LineReader line) {
 		int sep1 = line.indexOf('\t');
 		if (sep1 == -1) {
 			return -1;
 		}
-		lastId = Long.parseLong(line.substring(0, sep1));
+		lastId = line.parseLong(line.start(), sep1);
 		sep1++;
 		int sep2 = line.indexOf('\t', sep1);
 		if (sep2 == -1) {
-			sep2 = line.length();
+			sep2 = line.end();
 		}
-		String name = line.substring(sep1, sep2);
+		byte[] name = line.buffer();
 		long res = -1;
-		if (nextPreferenceName != null) {
-			int c = name.compareTo(nextPreferenceName);
+		if (hasNextPreferenceName) {
+			int c = compareToNextPreferenceName(name, sep1, sep2);
 			while (c > 0 && nextPreferenceElement()) {
-				c = name.compareTo(nextPreferenceName);
+				c = compareToNextPreferenceName(name, sep1, sep2);
 			}
 			if (c == 0) {
 				preferenceNamesFound++;
@@ -89,19 +89,20 @@ public class CreatePreferenceVector {
 		return res;
 	}
 
-	private Double convertNode(String line) {
+	private double convertNode(LineReader line) {
 		if (readJoinNode(line) < 0) {
 			return 0.0;
 		}
 		return defaultPreferenceValue;
 	}
 
-	private void read(Stream<String> in) {
-		in.map(this::readJoinNode).forEach(id -> {
+	private void read(LineReader in) {
+		while (in.next()) {
+			long id = readJoinNode(in);
 			if (id >= 0) {
-				preferenceIds.add((long) id);
+				preferenceIds.add(id);
 			}
-		});
+		}
 	}
 
 	private void write(DataOutputStream out) throws IOException {
@@ -131,15 +132,10 @@ public class CreatePreferenceVector {
 		}
 	}
 
-	private void convert(Stream<String> in, DataOutputStream out) {
-		in.map(this::convertNode).filter(Objects::nonNull).forEach(t -> {
-			try {
-				out.writeDouble(t);
-			} catch (IOException e) {
-				LOG.error("Failed to write preference vector:", e);
-				System.exit(1);
-			}
-		});
+	private void convert(LineReader in, DataOutputStream out) throws IOException {
+		while (in.next()) {
+			out.writeDouble(convertNode(in));
+		}
 	}
 
 	/**
@@ -177,6 +173,8 @@ public class CreatePreferenceVector {
 		System.err.println("Both input files, vertices and preference set, must be sorted");
 		System.err.println("lexicographically by vertex names, vertex ids are assigned");
 		System.err.println("in sequential order starting from 0.");
+		System.err.println("Input files may be gzipped, a directory of part-* files");
+		System.err.println("or a glob pattern, eg. 'vertices/*.gz'.");
 		System.err.println("");
 	}
 
@@ -213,14 +211,9 @@ public class CreatePreferenceVector {
 
 		CreatePreferenceVector converter = new CreatePreferenceVector(defaultPrefVal);
 
-		try (Stream<String> in = Files.lines(Paths.get(nodesIn));
-				Stream<String> pref = Files.lines(Paths.get(prefSet))) {
-			DataOutputStream out;
-			if (prefOut.equals("-")) {
-				out = new DataOutputStream(System.out);
-			} else {
-				out = new DataOutputStream(Files.newOutputStream(Paths.get(prefOut)));
-			}
+		try (LineReader in = MultiPartInput.reader(nodesIn);
+				LineReader pref = MultiPartInput.reader(prefSet);
+				DataOutputStream out = new DataOutputStream(LineWriter.open(prefOut))) {
 			converter.setPrefSet(pref);
 			if (inMemory) {
 				LOG.info("Reading preference vector...");
@@ -0,0 +1,181 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Create a start vector for the PageRank calculation of a new release of a
+ * web graph from the page rank vector of the previous release ("warm start").
+ * Most vertices carry over from one release to the next and their page rank
+ * changes little, so that the iterations converge much faster than starting
+ * from the uniform vector. The start vector is passed as "--start" to the LAW
+ * PageRank classes.
+ *
+ * <p>
+ * The vertex lists of both releases, sorted by name, are merge-joined (see
+ * {@link VertexMergeJoin}). The vertex IDs of the new release must be assigned
+ * in the order of vertex names, so that the start vector is written
+ * sequentially. Vertices carried over keep their relative page rank, vertices
+ * new in this release start with the uniform value 1/<i>n</i>. The vector is
+ * normalized to sum up to 1: the vertices carried over share the probability
+ * mass not assigned to new vertices.
+ * </p>
+ */
+public class CreateStartVector {
+
+	protected static Logger LOG = LoggerFactory.getLogger(CreateStartVector.class);
+
+	long oldVertices;
+	long newVertices;
+	long carriedOver;
+	/* sum of the previous page rank values of the vertices carried over */
+	double carriedOverMass;
+
+	/**
+	 * Write the start vector.
+	 *
+	 * @param oldVertices vertices of the previous release, sorted by name
+	 * @param oldValues   page rank values of the previous release by node ID
+	 * @param newVertices vertices of the new release, sorted by name, node IDs
+	 *                    ascending
+	 * @param output      output file, binary doubles (big-endian) indexed by the
+	 *                    node IDs of the new release
+	 * @throws IOException if the vertices are not sorted by name, or the node IDs
+	 *                     of the new release are not ascending
+	 */
+	public void create(LineReader oldVertices, LongToDoubleFunction oldValues, LineReader newVertices,
+			String output) throws IOException {
+		Path out = Path.of(output).toAbsolutePath();
+		Path tmp = Files.createTempFile(out.getParent(), "start-vector-", ".tmp");
+		try {
+			long numNodes = project(oldVertices, oldValues, newVertices, tmp);
+			normalize(tmp, numNodes, output);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Write the previous values of vertices carried over, NaN for new vertices.
+	 *
+	 * @return number of nodes of the new release
+	 */
+	private long project(LineReader oldVerticesIn, LongToDoubleFunction oldValues, LineReader newVerticesIn,
+			Path tmp) throws IOException {
+		final long[] nextId = new long[1];
+		try (DataOutputStream out = new DataOutputStream(LineWriter.open(tmp.toString(), 1))) {
+			VertexMergeJoin.join(oldVerticesIn, newVerticesIn, (oldId, newId, name, from, to) -> {
+				if (oldId >= 0) {
+					oldVertices++;
+				}
+				if (newId < 0) {
+					return;
+				}
+				newVertices++;
+				if (newId < nextId[0]) {
+					String vertex = new String(name, from, to - from, StandardCharsets.UTF_8);
+					throw new UncheckedIOException(new IOException(
+							"Node IDs of the new release not in the order of names: " + newId + " " + vertex));
+				}
+				try {
+					// node IDs without a vertex line are treated as new vertices
+					while (nextId[0] < newId) {
+						out.writeDouble(Double.NaN);
+						nextId[0]++;
+					}
+					if (oldId >= 0) {
+						double value = oldValues.applyAsDouble(oldId);
+						out.writeDouble(value);
+						carriedOver++;
+						carriedOverMass += value;
+					} else {
+						out.writeDouble(Double.NaN);
+					}
+					nextId[0]++;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				if ((newVertices % 10000000) == 0) {
+					LOG.info("Joined {} vertices of the new release, {} carried over", newVertices, carriedOver);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return nextId[0];
+	}
+
+	/**
+	 * Replace NaN by the uniform value and rescale the values carried over.
+	 */
+	private void normalize(Path tmp, long numNodes, String output) throws IOException {
+		double uniform = 1.0 / numNodes;
+		double scale = 0.0;
+		if (carriedOver > 0 && carriedOverMass > 0.0) {
+			scale = ((double) carriedOver / numNodes) / carriedOverMass;
+		}
+		LOG.info("{} of {} vertices carried over, previous page rank mass {}, scaled by {}", carriedOver, numNodes,
+				carriedOverMass, scale);
+		try (MappedArray values = MappedArray.map(tmp.toString(), MappedArray.Type.DOUBLE);
+				DataOutputStream out = new DataOutputStream(LineWriter.open(output, 1))) {
+			for (long id = 0; id < numNodes; id++) {
+				double value = values.getDouble(id);
+				if (Double.isNaN(value) || scale == 0.0) {
+					out.writeDouble(uniform);
+				} else {
+					out.writeDouble(value * scale);
+				}
+			}
+		}
+	}
+
+	private static void showHelp() {
+		System.err.println("CreateStartVector <old_vertices> <old_pagerank> <new_vertices> <start_vector>");
+		System.err.println("");
+		System.err.println("Create a start vector for the PageRank calculation from the page rank");
+		System.err.println("vector of the previous release, see --start of the LAW PageRank classes.");
+		System.err.println("");
+		System.err.println("Input / output parameters");
+		System.err.println(" <old_vertices>\tvertices of the previous release with format:");
+		System.err.println("               \t  <id> \\t <name> [ \\t <optionalfield>]...");
+		System.err.println(" <old_pagerank>\tpage rank vector of the previous release, binary doubles");
+		System.err.println("               \t(eg. <graph>-pagerank.ranks)");
+		System.err.println(" <new_vertices>\tvertices of the new release, same format");
+		System.err.println(" <start_vector>\toutput file, start vector as binary doubles");
+		System.err.println("Both vertex lists must be sorted lexicographically by vertex names,");
+		System.err.println("the vertex IDs of the new release must be assigned in the same order.");
+		System.err.println("Vertex lists may be gzipped, a directory of part-* files");
+		System.err.println("or a glob pattern, eg. 'vertices/*.gz'.");
+		System.err.println("");
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 4 || args[0].equals("-h") || args[0].equals("--help")) {
+			showHelp();
+			System.exit(1);
+		}
+		CreateStartVector creator = new CreateStartVector();
+		try (MappedArray oldValues = MappedArray.map(args[1], MappedArray.Type.DOUBLE);
+				LineReader oldVertices = MultiPartInput.reader(args[0]);
+				LineReader newVertices = MultiPartInput.reader(args[2])) {
+			creator.create(oldVertices, oldValues::getDouble, newVertices, args[3]);
+		} catch (IOException e) {
+			LOG.error("Failed to create start vector:", e);
+			System.exit(1);
+		}
+		LOG.info("Vertices: {} in previous release, {} in new release, {} carried over", creator.oldVertices,
+				creator.newVertices, creator.carriedOver);
+	}
+}
@@ -4,17 +4,42 @@
  */
 package org.commoncrawl.webgraph;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Properties;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -22,9 +47,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import crawlercommons.domains.EffectiveTldFinder;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongBigArrayBitVector;
 import it.unimi.dsi.fastutil.Arrays;
 import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.ints.IntMappedBigList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongBigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableSequentialGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+import it.unimi.dsi.webgraph.labelling.ArcLabelledImmutableSequentialGraph;
+import it.unimi.dsi.webgraph.labelling.ArcLabelledNodeIterator;
+import it.unimi.dsi.webgraph.labelling.BitStreamArcLabelledImmutableGraph;
+import it.unimi.dsi.webgraph.labelling.GammaCodedIntLabel;
+import it.unimi.dsi.webgraph.labelling.Label;
 
 /**
  * Convert host-level webgraph to domain-level webgraph. A webgraph is
@@ -55,7 +94,9 @@ import it.unimi.dsi.fastutil.longs.LongBigArrays;
  * (approx. 2^32 or {@link Arrays#MAX_ARRAY_SIZE}) {@link HostToDomainGraphBig}
  * (based on fastutils' {@link BigArrays}) is used if the array size limit is
  * hit by the number of hosts. This number (or an estimate) needs to be known
- * ahead.</li>
+ * ahead. Alternatively, the map is hold in a bit-packed array
+ * ({@link HostToDomainGraphPacked}) or memory-mapped from a file
+ * ({@link HostToDomainGraphMapped}).</li>
  * <li>the number of resulting domains is limited by Java's max. array size.
  * This shouldn't be a problem.</li>
  * <li>also the number of hosts per domain is limited by Java's max. array
@@ -75,6 +116,7 @@ public class HostToDomainGraph {
 	protected long maxSize;
 	private int[] ids;
 	protected long currentId = -1;
+	protected long numHosts = 0;
 	protected long lastFromId = -1;
 	protected long lastToId = -1;
 	private long numInputLinesNodes = 0;
@@ -84,9 +126,36 @@ public class HostToDomainGraph {
 	protected String lastOutputDomain = null;
 	private TreeMap<String, Domain> domainQueue = new TreeMap<>();
 	private int maxQueueUsed = 0;
+	/* host IDs of queued domains held in memory */
+	private long pendingHostIds = 0;
+	private long maxPendingHostIds = 0;
+	private long maxDomainPendingHostIds = 0;
+	private String maxDomainPendingHostIdsName = null;
+	/* spill host IDs of queued domains to disk, see setSpillThreshold(int, Path) */
+	protected int spillThreshold = 0;
+	protected Path spillDir = null;
+	private long numSpilledDomains = 0;
+	private long numSpilledHostIds = 0;
+	/* count host-level arcs per domain arc, see setCountArcs(boolean) */
+	protected boolean countArcs = false;
+	/* max. number of domain arcs buffered in memory, see setMaxBufferedArcs(long) */
+	protected long maxBufferedArcs = Long.MAX_VALUE;
+	/* size in bytes of the blocks of edge input lines, see convertEdgesParallel(...) */
+	protected int edgeBlockSize = 1 << 20;
+	/* min. number of host vertices per partition, see convertNodesParallel(...) */
+	protected int nodePartitionSize = 1 << 20;
+	/* highest host ID mapped to each domain, required to output sorted edges */
+	protected LongArrayList domainLastHostIds = null;
 
 	private static Pattern SPLIT_HOST_PATTERN = Pattern.compile("\\.");
 
+	protected PublicSuffixTrie suffixTrie = PublicSuffixTrie.getInstance();
+
+	/** label (key) of the arc counts, see {@link #setCountArcs(boolean)} */
+	public final static String ARC_COUNT_LABEL = "count";
+	/** suffix of the base name of the arc-labelled graph holding the arc counts */
+	public final static String ARC_COUNT_BASENAME_SUFFIX = "-counts";
+
 	public final static String AGGREGATION_HOST_WITHOUT_WWW = "host-without-www";
 	public final static String AGGREGATION_PRIVATE_DOMAIN = "private-domain";
 	public final static String AGGREGATION_REGISTERED_DOMAIN = "registered-domain";
@@ -94,29 +163,43 @@ public class HostToDomainGraph {
 	private final static List<String> ALLOWED_AGGREGATION_PARAMS = java.util.Arrays
 			.asList(AGGREGATION_REGISTERED_DOMAIN, AGGREGATION_PRIVATE_DOMAIN, AGGREGATION_HOST_WITHOUT_WWW);
 
-	private Consumer<? super String> reporterInputNodes = (String line) -> {
+	private Consumer<? super String> reporterInputNodes = (String line) -> reportProgressNodes();
+
+	private Consumer<? super String> reporterInputEdges = (String line) -> reportProgressEdges();
+
+	private void reportProgressNodes() {
 		if ((numInputLinesNodes % 500000) != 0 || numInputLinesNodes == 0) {
 			return;
 		}
 		LOG.info(
-				"Processed {} node input lines, mapped to {} domains, domain queue usage: {} (max. {})",
+				"Processed {} node input lines, mapped to {} domains, domain queue usage: {} (max. {}), "
+						+ "pending host IDs: {} (max. {})",
 				numInputLinesNodes,
 				(currentId + 1),
 				domainQueue.size(),
-				maxQueueUsed);
-	};
+				maxQueueUsed,
+				pendingHostIds,
+				maxPendingHostIds);
+	}
 
-	private Consumer<? super String> reporterInputEdges = (String line) -> {
+	private void reportProgressEdges() {
 		if ((numInputLinesEdges % 5000000) != 0 || numInputLinesEdges == 0) {
 			return;
 		}
 		LOG.info("Processed {} edge input lines, last edge from node id = {}", numInputLinesEdges, lastFromId);
-	};
+	}
 
 	private void reportConfig() {
 		LOG.info("{} with {} host vertices", this.getClass().getSimpleName(), maxSize);
 		LOG.info(" - map to {} domains", (privateDomains ? "private" : "ICANN"));
 		LOG.info(" - {}multi-part public suffixes as domains", (includeMultiPartSuffixes ? "" : "no "));
+		if (spillThreshold > 0) {
+			LOG.info(" - spill host IDs of domains with more than {} queued hosts to {}", spillThreshold,
+					(spillDir == null ? "temporary files" : spillDir));
+		}
+		if (countArcs) {
+			LOG.info(" - count host-level arcs per domain arc");
+		}
 	}
 
 	/**
@@ -131,7 +214,11 @@ public class HostToDomainGraph {
 		String revName;
 		long id;
 		long numberOfHosts;
-		List<Long> ids = new ArrayList<>();
+		LongArrayList ids = new LongArrayList();
+		/* temporary file holding host IDs spilled to disk */
+		Path spillFile = null;
+		DataOutputStream spillOut = null;
+		long numSpilled = 0;
 
 		public Domain(String name, String revName, long id, long numberOfHosts) {
 			this.name = name;
@@ -162,8 +249,61 @@ public class HostToDomainGraph {
 			numberOfHosts++;
 		}
 
+		/**
+		 * Move the host IDs held in memory to a temporary file.
+		 * 
+		 * @param dir directory to place the temporary file, null to use the
+		 *            default temporary-file directory
+		 */
+		void spill(Path dir) throws IOException {
+			if (spillOut == null) {
+				spillFile = dir == null ? Files.createTempFile("domain-hosts-", ".bin")
+						: Files.createTempFile(dir, "domain-hosts-", ".bin");
+				spillOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile), 1 << 16));
+			}
+			for (int i = 0; i < ids.size(); i++) {
+				spillOut.writeLong(ids.getLong(i));
+			}
+			numSpilled += ids.size();
+			ids.clear();
+			ids.trim();
+		}
+
+		/**
+		 * Read the host IDs spilled to disk and remove the temporary file.
+		 * 
+		 * @param consumer called for every spilled host ID
+		 */
+		void replay(LongConsumer consumer) throws IOException {
+			if (spillOut == null) {
+				return;
+			}
+			spillOut.close();
+			spillOut = null;
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Files.newInputStream(spillFile), 1 << 16))) {
+				for (long i = 0; i < numSpilled; i++) {
+					consumer.accept(in.readLong());
+				}
+			}
+			Files.delete(spillFile);
+			spillFile = null;
+			numSpilled = 0;
+		}
+
+		/**
+		 * @return number of host IDs waiting to be mapped to this domain (held in
+		 *         memory or spilled to disk)
+		 */
+		public long numPending() {
+			return ids.size() + numSpilled;
+		}
+
 		@Override
 		public String toString() {
+			if (name == null) {
+				name = reverseHost(revName);
+			}
 			return name;
 		}
 
@@ -258,6 +398,8 @@ public class HostToDomainGraph {
 	public HostToDomainGraph(int maxSize) {
 		this.maxSize = maxSize;
 		ids = new int[maxSize];
+		// host IDs without a vertex line are not mapped to any domain
+		java.util.Arrays.fill(ids, -1);
 	}
 
 	/**
@@ -300,6 +442,106 @@ public class HostToDomainGraph {
 		this.includeMultiPartSuffixes = include;
 	}
 
+	/**
+	 * @param sorted if true record for every domain the highest ID of all hosts
+	 *               mapped to this domain. Required to output the domain edges
+	 *               sorted and deduplicated, see {@link #domainGraph(LineReader)}.
+	 *               Must be called before the nodes are converted.
+	 */
+	public void setSortedEdgesOutput(boolean sorted) {
+		if (sorted) {
+			domainLastHostIds = new LongArrayList();
+		} else {
+			domainLastHostIds = null;
+		}
+	}
+
+	/**
+	 * Limit the memory required to queue domains with many hosts: if more than
+	 * <code>threshold</code> host IDs are waiting to be mapped to a domain, the
+	 * host IDs are spilled to a temporary file and replayed when the domain is
+	 * written to the output.
+	 * 
+	 * @param threshold max. number of host IDs per domain held in memory, 0 to
+	 *                  disable spilling
+	 * @param dir       directory to place temporary files, if null use the
+	 *                  default temporary-file directory
+	 */
+	public void setSpillThreshold(int threshold, Path dir) {
+		this.spillThreshold = threshold;
+		this.spillDir = dir;
+	}
+
+	/**
+	 * @param countArcs if true count the host-level arcs folded into every
+	 *                  domain arc. The counts are written as third column by
+	 *                  {@link #writeSortedEdges(Iterator, LineWriter)} or as
+	 *                  arc labels by {@link #storeBVGraph(LineReader, CharSequence)}.
+	 */
+	public void setCountArcs(boolean countArcs) {
+		this.countArcs = countArcs;
+	}
+
+	/**
+	 * Bound the memory required to sort and deduplicate the domain edges (see
+	 * {@link #domainGraph(LineReader)}) by spilling buffered arcs to temporary
+	 * files in the directory defined by {@link #setSpillThreshold(int, Path)}.
+	 * 
+	 * @param maxArcs max. number of arcs held in memory
+	 */
+	public void setMaxBufferedArcs(long maxArcs) {
+		this.maxBufferedArcs = maxArcs;
+	}
+
+	/**
+	 * @return max. number of domains held in the queue at any time
+	 */
+	public int getMaxQueueUsed() {
+		return maxQueueUsed;
+	}
+
+	/**
+	 * @return number of host IDs of queued domains currently held in memory
+	 */
+	public long getPendingHostIds() {
+		return pendingHostIds;
+	}
+
+	/**
+	 * @return max. number of host IDs of queued domains held in memory at any
+	 *         time
+	 */
+	public long getMaxPendingHostIds() {
+		return maxPendingHostIds;
+	}
+
+	/**
+	 * @return max. number of host IDs queued for a single domain (held in memory
+	 *         or spilled to disk)
+	 */
+	public long getMaxDomainPendingHostIds() {
+		return maxDomainPendingHostIds;
+	}
+
+	/**
+	 * @return number of domains whose host IDs were spilled to disk
+	 */
+	public long getNumSpilledDomains() {
+		return numSpilledDomains;
+	}
+
+	/**
+	 * @return number of host IDs queued (held in memory or spilled to disk) per
+	 *         reversed domain name of all domains currently in the queue
+	 */
+	public Map<String, Long> getPendingHostIdsPerDomain() {
+		Map<String, Long> pending = new LinkedHashMap<>();
+		for (Domain domain : domainQueue.values()) {
+			pending.put(domain.revName, domain.numPending());
+		}
+		return pending;
+	}
+
 	/**
 	 * @param stripWww if true the www. prefix is stripped
 	 */
@@ -336,14 +578,43 @@ public class HostToDomainGraph {
 	}
 
 	public String convertNode(String line) {
-		numInputLinesNodes++;
 		int sep = line.indexOf('\t');
 		if (sep == -1) {
+			numInputLinesNodes++;
 			LOG.warn("Skipping invalid line: <{}>", line);
 			return "";
 		}
-		long id = Long.parseLong(line.substring(0, sep));
-		String revHost = line.substring(sep + 1);
+		return convertNode(Long.parseLong(line.substring(0, sep)), line.substring(sep + 1));
+	}
+
+	/**
+	 * Convert the current line of a host vertices input, same as
+	 * {@link #convertNode(String)}. The host ID is parsed in place, only the
+	 * host name is decoded.
+	 * 
+	 * @param line line reader positioned on the host vertex
+	 * @return domain vertices which are safe to output (one per line), or null
+	 */
+	public String convertNode(LineReader line) {
+		int sep = line.indexOf('\t');
+		if (sep == -1) {
+			return convertNode(line.toString());
+		}
+		return convertNode(line.parseLong(line.start(), sep), line.toString(sep + 1, line.end()));
+	}
+
+	/**
+	 * Convert a host vertex.
+	 * 
+	 * @param id      host ID
+	 * @param revHost reversed host name
+	 * @return domain vertices which are safe to output (one per line), or null
+	 */
+	public String convertNode(long id, String revHost) {
+		numInputLinesNodes++;
+		if (id >= numHosts) {
+			numHosts = id + 1;
+		}
 		if (lastRevHost != null) {
 			if (lastRevHost.compareTo(revHost) >= 0) {
 				String msg = "Reversed host names in input are not properly sorted: " + lastRevHost + " <> " + revHost;
@@ -352,41 +623,53 @@ public class HostToDomainGraph {
 			}
 		}
 		lastRevHost = revHost;
-		String host = reverseHost(revHost);
-		String domain = null;
+		String revDomain = null;
 		StringBuilder sb = new StringBuilder();
 		if (this.stripWww) {
+			String host = reverseHost(revHost);
 			if (host.startsWith("www.") && host.indexOf('.', 4) != -1) {
 				// strip leading 'www' to reduce number of "duplicate" hosts,
 				// but leave at least 2 trailing parts (www.com is a valid domain)
 				host = host.substring(4);
 			}
-			domain = host;
+			revDomain = reverseHost(host);
 		} else {
-			domain = EffectiveTldFinder.getAssignedDomain(host, true, !privateDomains);
-			if (domain == null && includeMultiPartSuffixes) {
+			int length = suffixTrie.getRegisteredDomainLength(revHost, privateDomains);
+			if (length == PublicSuffixTrie.FALLBACK) {
+				String host = reverseHost(revHost);
+				String domain = EffectiveTldFinder.getAssignedDomain(host, true, !privateDomains);
+				if (domain != null) {
+					revDomain = reverseHost(domain);
+				}
+			} else if (length == revHost.length()) {
+				revDomain = revHost;
+			} else if (length > 0) {
+				revDomain = revHost.substring(0, length);
+			}
+			if (revDomain == null && includeMultiPartSuffixes) {
+				String host = reverseHost(revHost);
 				if (EffectiveTldFinder.getEffectiveTLDs().containsKey(host) && host.indexOf('.') != -1) {
 					LOG.info("Accepting public suffix (containing dot) as domain: {}", host);
 				}
-				domain = host;
+				revDomain = reverseHost(host);
 			}
 		}
-		if (domain == null) {
-			LOG.warn("No domain for host: {}", host);
+		if (revDomain == null) {
+			LOG.warn("No domain for host: {}", reverseHost(revHost));
 			setValue(id, -1);
 			return null;
 		}
-		if (lastDomain != null && domain.equals(lastDomain.name)) {
+		if (lastDomain != null && revDomain.equals(lastDomain.revName)) {
 			/*
 			 * short cut for the common case of many subsequent subdomains of the same
 			 * domain
 			 */
-			lastDomain.add(id);
+			addHost(lastDomain, id);
 			return null;
 		}
-		lastDomain = queueDomain(sb, domain);
+		lastDomain = queueDomain(sb, revDomain);
 		if (lastDomain != null) {
-			lastDomain.add(id);
+			addHost(lastDomain, id);
 		}
 		if (sb.length() == 0) {
 			return null;
@@ -394,17 +677,42 @@ public class HostToDomainGraph {
 		return sb.toString();
 	}
 
+	private void addHost(Domain domain, long hostId) {
+		domain.add(hostId);
+		pendingHostIds++;
+		if (pendingHostIds > maxPendingHostIds) {
+			maxPendingHostIds = pendingHostIds;
+		}
+		if (domain.numPending() > maxDomainPendingHostIds) {
+			maxDomainPendingHostIds = domain.numPending();
+			maxDomainPendingHostIdsName = domain.revName;
+		}
+		if (spillThreshold > 0 && domain.ids.size() > spillThreshold) {
+			if (domain.spillOut == null) {
+				numSpilledDomains++;
+				LOG.info("Spilling host IDs of domain {} to disk", domain.revName);
+			}
+			numSpilledHostIds += domain.ids.size();
+			pendingHostIds -= domain.ids.size();
+			try {
+				domain.spill(spillDir);
+			} catch (IOException e) {
+				LOG.error("Failed to spill host IDs of domain {} to disk", domain.revName, e);
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
 	/**
 	 * Add the domain name to the queue if it is not already queued. Flush the
 	 * queue, assuming properly sorted input.
 	 * 
-	 * @param sb         domains which are safe to print are added to this
-	 *                   StringBuilder.
-	 * @param domainName domain name to be queued
+	 * @param sb            domains which are safe to print are added to this
+	 *                      StringBuilder.
+	 * @param revDomainName reversed name of the domain to be queued
 	 * @return the queued domain object
 	 */
-	private Domain queueDomain(StringBuilder sb, String domainName) {
-		String revDomainName = reverseHost(domainName);
+	private Domain queueDomain(StringBuilder sb, String revDomainName) {
 		Domain domain = null;
 		// first, poll all queued domains safe to output
 		while (!domainQueue.isEmpty()) {
@@ -424,7 +732,7 @@ public class HostToDomainGraph {
 		if (domainQueue.containsKey(revDomainName)) {
 			domain = domainQueue.get(revDomainName);
 		} else {
-			domain = new Domain(domainName);
+			domain = new Domain(null, revDomainName);
 			domainQueue.put(revDomainName, domain);
 			if (domainQueue.size() > maxQueueUsed) {
 				maxQueueUsed = domainQueue.size();
@@ -443,21 +751,45 @@ public class HostToDomainGraph {
 		String domainName = null;
 		if (domain == null)
 			return;
-		if (domain.id >= 0 && domain.name != null) {
+		if (domain.id >= 0 && domain.revName != null) {
 			if (b.length() > 0) {
 				b.append('\n');
 			}
 			b.append(domain.id);
 			b.append('\t');
-			domainName = reverseHost(domain.name);
+			domainName = domain.revName;
 			b.append(domainName);
 			if (countHosts) {
 				b.append('\t');
 				b.append(domain.numberOfHosts);
 			}
 		}
-		for (Long hostId : domain.ids) {
-			setValue(hostId.longValue(), domain.id);
+		long lastHostId = -1;
+		for (int i = 0; i < domain.ids.size(); i++) {
+			long hostId = domain.ids.getLong(i);
+			setValue(hostId, domain.id);
+			if (hostId > lastHostId) {
+				lastHostId = hostId;
+			}
+		}
+		pendingHostIds -= domain.ids.size();
+		if (domain.numSpilled > 0) {
+			long[] lastSpilledHostId = { lastHostId };
+			try {
+				domain.replay((long hostId) -> {
+					setValue(hostId, domain.id);
+					if (hostId > lastSpilledHostId[0]) {
+						lastSpilledHostId[0] = hostId;
+					}
+				});
+			} catch (IOException e) {
+				LOG.error("Failed to read host IDs of domain {} spilled to disk", domain.revName, e);
+				throw new UncheckedIOException(e);
+			}
+			lastHostId = lastSpilledHostId[0];
+		}
+		if (domainLastHostIds != null && domain.id >= 0) {
+			domainLastHostIds.add(lastHostId);
 		}
 		if (lastOutputDomain != null && lastOutputDomain.compareTo(domainName) >= 0) {
 			String msg = "Output domains are not strictly monotonically sorted: " + lastOutputDomain + " <> "
@@ -469,110 +801,1510 @@ public class HostToDomainGraph {
 	}
 
 	public String convertEdge(String line) {
-		numInputLinesEdges++;
 		int sep = line.indexOf('\t');
 		if (sep == -1) {
+			numInputLinesEdges++;
 			return "";
 		}
-		long fromId = Long.parseLong(line.substring(0, sep));
-		long toId = Long.parseLong(line.substring(sep + 1));
+		return convertEdge(Long.parseLong(line.substring(0, sep)), Long.parseLong(line.substring(sep + 1)));
+	}
+
+	/**
+	 * Convert the current line of a host edges input and write the domain edge,
+	 * same as printing the result of {@link #convertEdge(String)} but without
+	 * creating any strings or other objects.
+	 * 
+	 * @param line line reader positioned on the host edge
+	 * @param out  output stream for domain-level edges
+	 */
+	public void convertEdge(LineReader line, LineWriter out) {
+		int sep = line.indexOf('\t');
+		if (sep == -1) {
+			numInputLinesEdges++;
+			out.println();
+			return;
+		}
+		numInputLinesEdges++;
+		if (mapEdge(line.parseLong(line.start(), sep), line.parseLong(sep + 1, line.end()))) {
+			writeArc(out, lastFromId, lastToId);
+		}
+	}
+
+	/**
+	 * Convert a host edge.
+	 * 
+	 * @param fromId ID of the source host
+	 * @param toId   ID of the target host
+	 * @return the domain edge, or null if the edge is a self-loop, a duplicate of
+	 *         the preceding edge or source or target are not mapped to a domain
+	 */
+	public String convertEdge(long fromId, long toId) {
+		numInputLinesEdges++;
+		if (mapEdge(fromId, toId)) {
+			return lastFromId + "\t" + lastToId;
+		}
+		return null;
+	}
+
+	/**
+	 * Write a domain edge as line &lt;fromId&gt; \t &lt;toId&gt;, formatting the
+	 * IDs without creating strings.
+	 */
+	private static void writeArc(LineWriter out, long fromId, long toId) {
+		out.print(fromId);
+		out.write('\t');
+		out.print(toId);
+		out.write('\n');
+	}
+
+	/**
+	 * Map a host edge to the domain edge held in {@link #lastFromId} and
+	 * {@link #lastToId}, see {@link #convertEdge(long, long)}.
+	 * 
+	 * @return true if the domain edge is to be written
+	 */
+	private boolean mapEdge(long fromId, long toId) {
 		fromId = getValue(fromId);
 		toId = getValue(toId);
 		if (fromId == toId || fromId == -1 || toId == -1 || (lastFromId == fromId && lastToId == toId)) {
-			return null;
+			return false;
 		}
 		lastFromId = fromId;
 		lastToId = toId;
-		return fromId + "\t" + toId;
+		return true;
 	}
 
-	public void convert(Function<String, String> func, Stream<String> in, PrintStream out) {
-		in.map(func).filter(Objects::nonNull).forEach(out::println);
+	/**
+	 * Store the host to domain mapping as binary file, one 4-byte signed integer
+	 * (big-endian) per host. The domain ID of host <i>i</i> is found at offset
+	 * <i>i</i> &times; 4, hosts not mapped to any domain are marked by
+	 * <code>-1</code>. The format is the same as read by
+	 * {@link it.unimi.dsi.fastutil.io.BinIO#loadInts(CharSequence)}, the file can
+	 * be memory-mapped using {@link IntMappedBigList} and is loaded by
+	 * {@link HostToDomainGraphMapped} to convert edges in a separate process.
+	 * 
+	 * @param mapFile path of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void storeMapping(String mapFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(Paths.get(mapFile)), 1 << 20))) {
+			for (long i = 0; i < numHosts; i++) {
+				out.writeInt((int) getValue(i));
+			}
+		}
+		LOG.info("Stored mapping of {} hosts to {} domains in {}", numHosts, (currentId + 1), mapFile);
 	}
 
-	public void convert(
-			Function<String, String> func,
-			Stream<String> in,
-			PrintStream out,
-			Consumer<? super String> reporter) {
-		convert(func, in.peek(reporter), out);
+	/**
+	 * Domain-level arcs mapped from a block of host-level edge lines, see
+	 * {@link HostToDomainGraph#mapEdgeBlock(LineReader)}.
+	 */
+	protected static class ArcBlock {
+		/** number of input lines in the block */
+		int lines;
+		/**
+		 * pairs of &lt;fromId, toId&gt;, invalid input lines are marked by the pair
+		 * &lt;-1, -1&gt;
+		 */
+		long[] arcs;
+		/** number of valid elements in {@link #arcs} */
+		int length;
 	}
 
-	public void finishNodes(PrintStream out) {
-		for (Domain domain : domainQueue.values()) {
-			domain.id = ++currentId;
-			out.println(getNodeLine(domain));
+	/**
+	 * Map a block of host-level edge lines to domain-level arcs. Self-loops, arcs
+	 * from or to hosts not mapped to a domain and consecutive duplicates within the
+	 * block are skipped. The method does not modify the state of the converter and
+	 * may be called concurrently, once the conversion of the nodes is finished.
+	 * 
+	 * @param block edge input lines
+	 * @return the mapped arcs. Invalid input lines are marked by the pair
+	 *         &lt;-1, -1&gt;, see {@link #convertEdge(String)}.
+	 */
+	protected ArcBlock mapEdgeBlock(LineReader block) {
+		ArcBlock res = new ArcBlock();
+		long[] arcs = new long[1024];
+		int n = 0;
+		long prevFromId = -1;
+		long prevToId = -1;
+		while (block.next()) {
+			res.lines++;
+			if ((n + 2) > arcs.length) {
+				arcs = java.util.Arrays.copyOf(arcs, 2 * arcs.length);
+			}
+			int sep = block.indexOf('\t');
+			if (sep == -1) {
+				arcs[n++] = -1;
+				arcs[n++] = -1;
+				continue;
+			}
+			long fromId = getValue(block.parseLong(block.start(), sep));
+			long toId = getValue(block.parseLong(sep + 1, block.end()));
+			if (fromId == toId || fromId == -1 || toId == -1 || (prevFromId == fromId && prevToId == toId)) {
+				continue;
+			}
+			prevFromId = fromId;
+			prevToId = toId;
+			arcs[n++] = fromId;
+			arcs[n++] = toId;
 		}
-		out.flush();
-		domainQueue.clear();
-		LOG.info("Number of input lines: {}", numInputLinesNodes);
-		LOG.info("Number of domain nodes: {}", currentId + 1);
-		LOG.info("Max. domain queue usage: {}", maxQueueUsed);
+		res.arcs = arcs;
+		res.length = n;
+		return res;
 	}
 
 	/**
-	 * Holds a host to domain graph mapping if the size of the host graph exceeds
-	 * {@link Arrays#MAX_ARRAY_SIZE}.
+	 * Write a block of mapped arcs, skipping the first arc if it duplicates the
+	 * last arc written.
 	 */
-	public static class HostToDomainGraphBig extends HostToDomainGraph {
-
-		private long[][] ids;
-
-		public HostToDomainGraphBig(long maxSize) {
-			this.maxSize = maxSize;
-			ids = LongBigArrays.newBigArray(maxSize);
+	private void writeEdgeBlock(ArcBlock block, LineWriter out) {
+		long[] arcs = block.arcs;
+		for (int i = 0; i < block.length; i += 2) {
+			long fromId = arcs[i];
+			long toId = arcs[i + 1];
+			if (fromId == -1) {
+				out.println();
+				continue;
+			}
+			if (lastFromId == fromId && lastToId == toId) {
+				continue;
+			}
+			lastFromId = fromId;
+			lastToId = toId;
+			writeArc(out, fromId, toId);
+		}
+		long reportedBlocks = numInputLinesEdges / 5000000;
+		numInputLinesEdges += block.lines;
+		if ((numInputLinesEdges / 5000000) > reportedBlocks) {
+			LOG.info("Processed {} edge input lines", numInputLinesEdges);
 		}
+	}
 
-		@Override
-		protected void setValue(long id, long value) {
-			BigArrays.set(ids, id, value);
+	/**
+	 * Convert edges using multiple threads, see
+	 * {@link #convertEdgesParallel(LineReader, LineWriter, int)}.
+	 */
+	public void convertEdgesParallel(Stream<String> in, LineWriter out, int threads) {
+		convertEdgesParallel(LineReader.of(in.iterator()), out, threads);
+	}
+
+	/**
+	 * Convert edges using multiple threads. The input is read in blocks of
+	 * {@link #edgeBlockSize} bytes, the blocks are parsed and mapped to
+	 * domain-level arcs by the worker threads and written in input order. The
+	 * output is the same as if the edges are converted line by line using
+	 * {@link #convertEdge(String)}.
+	 * 
+	 * @param in      host-level edges
+	 * @param out     output stream for domain-level edges
+	 * @param threads number of worker threads
+	 */
+	public void convertEdgesParallel(LineReader in, LineWriter out, int threads) {
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		final Future<ArcBlock> endOfInput = CompletableFuture.completedFuture(null);
+		final BlockingQueue<Future<ArcBlock>> queue = new ArrayBlockingQueue<>(2 * threads);
+		Future<?> writerResult = writer.submit(() -> {
+			Future<ArcBlock> block;
+			boolean failed = false;
+			try {
+				while ((block = queue.take()) != endOfInput) {
+					if (failed) {
+						// keep on consuming the queue, so that the reader is not blocked
+						block.cancel(true);
+						continue;
+					}
+					try {
+						writeEdgeBlock(block.get(), out);
+					} catch (ExecutionException e) {
+						LOG.error("Failed to convert block of edges:", e.getCause());
+						failed = true;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failed = true;
+			}
+			out.flush();
+			if (failed) {
+				throw new RuntimeException("Failed to convert edges");
+			}
+			return null;
+		});
+		try {
+			LineReader block;
+			while (!writerResult.isDone() && (block = in.nextBlock(edgeBlockSize)) != null) {
+				final LineReader lines = block;
+				queue.put(workers.submit(() -> mapEdgeBlock(lines)));
+			}
+			queue.put(endOfInput);
+			writerResult.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while converting edges", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			workers.shutdownNow();
+			writer.shutdownNow();
 		}
+	}
 
-		@Override
-		protected long getValue(long id) {
-			return BigArrays.get(ids, id);
+	/**
+	 * Convert nodes using multiple threads. The input is split into partitions of
+	 * about {@link #nodePartitionSize} host names. Partitions are cut only where
+	 * the first two labels of the reversed host names change (this includes all
+	 * top-level domain boundaries) and the prefixes are safe to output in
+	 * sequence, see {@link Domain#compareRevDomainsSafe(String, String)}. Every
+	 * partition is folded by a worker thread using partition-local domain IDs.
+	 * The partitions are stitched together in input order: domain IDs are
+	 * shifted by the number of domains of all preceding partitions and the
+	 * domains still queued at the end of the preceding partition are written
+	 * before those of the next partition. If the queued domains are not safe to
+	 * output given the first domain of the next partition, the latter is folded
+	 * again sequentially. The output and the host to domain mapping are the same
+	 * as if the nodes are converted line by line using
+	 * {@link #convertNode(String)}. {@link #finishNodes(LineWriter)} must be
+	 * called after this method.
+	 * 
+	 * @param in      host vertices
+	 * @param out     output stream for domain vertices
+	 * @param threads number of worker threads
+	 */
+	public void convertNodesParallel(Stream<String> in, LineWriter out, int threads) {
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		final Future<NodePartition> endOfInput = CompletableFuture.completedFuture(null);
+		final BlockingQueue<Future<NodePartition>> queue = new ArrayBlockingQueue<>(2 * threads);
+		Future<?> writerResult = writer.submit(() -> {
+			Future<NodePartition> partition;
+			boolean failed = false;
+			try {
+				while ((partition = queue.take()) != endOfInput) {
+					if (failed) {
+						// keep on consuming the queue, so that the reader is not blocked
+						partition.cancel(true);
+						continue;
+					}
+					try {
+						stitchPartition(partition.get(), out);
+					} catch (ExecutionException | RuntimeException e) {
+						LOG.error("Failed to convert partition of nodes:",
+								(e instanceof ExecutionException ? e.getCause() : e));
+						failed = true;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failed = true;
+			}
+			out.flush();
+			if (failed) {
+				throw new RuntimeException("Failed to convert nodes");
+			}
+			return null;
+		});
+		try {
+			Iterator<String> lines = in.iterator();
+			List<String> partition = new ArrayList<>();
+			String lastPrefix = null;
+			long numLines = 0;
+			while (lines.hasNext() && !writerResult.isDone()) {
+				String line = lines.next();
+				if (partition.size() >= nodePartitionSize) {
+					String prefix = getPartitionPrefix(line);
+					if (lastPrefix == null) {
+						lastPrefix = getPartitionPrefix(partition.get(partition.size() - 1));
+					}
+					if (prefix != null && lastPrefix != null && Domain.isSafeToOutput(lastPrefix, prefix)) {
+						final NodePartition p = new NodePartition(this, partition);
+						queue.put(workers.submit(() -> p.convert()));
+						partition = new ArrayList<>();
+						prefix = null;
+					}
+					lastPrefix = prefix;
+				}
+				partition.add(line);
+				numLines++;
+				if ((numLines % 5000000) == 0) {
+					LOG.info("Read {} node input lines", numLines);
+				}
+			}
+			if (!partition.isEmpty()) {
+				final NodePartition p = new NodePartition(this, partition);
+				queue.put(workers.submit(() -> p.convert()));
+			}
+			queue.put(endOfInput);
+			writerResult.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while converting nodes", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			workers.shutdownNow();
+			writer.shutdownNow();
 		}
 	}
 
-	private static void showHelp() {
-		System.err.println("HostToDomainGraph [options]... <maxSize> <nodes_in> <nodes_out> <edges_in> <edges_out>");
-		System.err.println("");
-		System.err.println("Convert host-level webgraph to domain-level webgraph.");
-		System.err.println("Both input and output must be UTF-8 or ASCII, the input is required");
-		System.err.println("to be sorted lexicographically by node labels given in reversed domain name notation.");
-		System.err.println("");
-		System.err.println("Options:");
-		System.err.println(" -h\t(also -? or --help) show usage message and exit");
-		System.err.println(" -c\tcount hosts per domain (additional column in <nodes_out>");
-		System.err.println(" --private-domains\t(deprecated - use --aggregation-level)");
-		System.err.println("                  \tconvert to private domains (include suffixes from the");
-		System.err.println("                  \tPRIVATE domains subdivision of the public suffix list,");
-		System.err.println("                  \tsee https://github.com/publicsuffix/list/wiki/Format#divisions)");
-		System.err.println(" --aggregation-level <level>\tdefine the strategy on which hosts are folded to domains.");
-		System.err
-				.println("                            \t<level> values: registered-domain (default), private-domain, ");
-		System.err.println("                            \thost-without-www. ");
-		System.err.println("                            \t- registered-domain: convert only the registered domains ");
-		System.err.println("                            \t- private-domain: convert to private domains ");
-		System.err.println(
-				"                  	        \t(include suffixes from the PRIVATE domains subdivision of the ");
-		System.err.println("                  	        \tpublic suffix list, ");
-		System.err.println(
-				"                  	        \tsee https://github.com/publicsuffix/list/wiki/Format#divisions)");
-		System.err.println("                            \t- host-without-www: strip the www. prefix (keep the ");
-		System.err.println("                            \tfull host otherwise)");
-		System.err.println(" --multipart-suffixes-as-domains\toutput host names which are equal to multi-part");
-		System.err.println("                                \tpublic suffixes (the suffix contains a dot) as domain");
-		System.err.println("                                \tnames, eg. `gov.uk', `freight.aero' or `altoadige.it'.");
-		System.err.println("                                \tNo further validation (DNS lookup) is performed.");
+	/**
+	 * @return the first two labels of the reversed host name in a node input
+	 *         line, or null if the line is not valid
+	 */
+	private static String getPartitionPrefix(String line) {
+		int sep = line.indexOf('\t');
+		if (sep == -1) {
+			return null;
+		}
+		int end = line.indexOf('.', sep + 1);
+		if (end != -1) {
+			end = line.indexOf('.', end + 1);
+		}
+		if (end == -1) {
+			end = line.length();
+		}
+		return line.substring(sep + 1, end);
 	}
 
-	public static void main(String[] args) {
-		boolean countHosts = false;
-		boolean includeMultiPartSuffixes = false;
-		boolean privateDomains = false;
+	/**
+	 * Append a partition folded by a worker thread to the output: shift its
+	 * domain IDs, add its host to domain mapping and take over its domain queue.
+	 * If the domains queued at the end of the preceding partition are not safe to
+	 * output before the first domain of this partition, the partition is folded
+	 * again sequentially, continuing with the state of the preceding partition.
+	 */
+	protected void stitchPartition(NodePartition p, LineWriter out) {
+		HostToDomainGraph state = p;
+		if (p.firstRevHost != null && lastRevHost != null && lastRevHost.compareTo(p.firstRevHost) >= 0) {
+			String msg = "Reversed host names in input are not properly sorted: " + lastRevHost + " <> "
+					+ p.firstRevHost;
+			LOG.error(msg);
+			throw new RuntimeException(msg);
+		}
+		if (p.firstRevDomain != null) {
+			for (String queued : domainQueue.keySet()) {
+				if (!Domain.isSafeToOutput(queued, p.firstRevDomain)) {
+					LOG.info("Cannot stitch partition starting with domain {} ({} still queued), folding it again",
+							p.firstRevDomain, queued);
+					// remove temporary files of spilled host IDs
+					for (Domain domain : state.domainQueue.values()) {
+						try {
+							domain.replay((long hostId) -> {
+							});
+						} catch (IOException e) {
+							LOG.warn("Failed to remove spilled host IDs of domain {}", domain.revName, e);
+						}
+					}
+					for (String line : p.lines) {
+						String res = convertNode(line);
+						if (res != null) {
+							out.println(res);
+						}
+					}
+					return;
+				}
+			}
+			// output all queued domains, same as done by queueDomain(...) for the first domain
+			StringBuilder sb = new StringBuilder();
+			while (!domainQueue.isEmpty()) {
+				Domain d = domainQueue.pollFirstEntry().getValue();
+				d.id = ++currentId;
+				getNodeLine(sb, d);
+			}
+			if (sb.length() > 0) {
+				out.println(sb);
+			}
+		}
+		final long offset = currentId + 1;
+		boolean first = true;
+		for (String res : p.output) {
+			if (first && !res.isEmpty()) {
+				String domainName = getNodeLineName(res);
+				if (lastOutputDomain != null && lastOutputDomain.compareTo(domainName) >= 0) {
+					String msg = "Output domains are not strictly monotonically sorted: " + lastOutputDomain
+							+ " <> " + domainName;
+					LOG.error(msg);
+					throw new RuntimeException(msg);
+				}
+				first = false;
+			}
+			writeNodeLines(res, offset, out);
+		}
+		for (int i = 0; i < p.localIds.length; i++) {
+			int value = p.localIds[i];
+			if (value == NodePartition.UNSET) {
+				continue;
+			}
+			setValue(p.firstHostId + i, value == -1 ? -1 : (value + offset));
+		}
+		if (domainLastHostIds != null) {
+			domainLastHostIds.addAll(p.domainLastHostIds);
+		}
+		currentId += p.currentId + 1;
+		if (p.lastRevHost != null) {
+			lastRevHost = p.lastRevHost;
+		}
+		if (p.lastOutputDomain != null) {
+			lastOutputDomain = p.lastOutputDomain;
+		}
+		if (p.firstRevDomain != null) {
+			domainQueue = state.domainQueue;
+			lastDomain = p.lastDomain;
+			pendingHostIds += state.pendingHostIds;
+		}
+		numInputLinesNodes += state.numInputLinesNodes;
+		numHosts = Math.max(numHosts, p.numHosts);
+		maxQueueUsed = Math.max(maxQueueUsed, state.maxQueueUsed);
+		maxPendingHostIds = Math.max(maxPendingHostIds, state.maxPendingHostIds);
+		if (state.maxDomainPendingHostIds > maxDomainPendingHostIds) {
+			maxDomainPendingHostIds = state.maxDomainPendingHostIds;
+			maxDomainPendingHostIdsName = state.maxDomainPendingHostIdsName;
+		}
+		numSpilledDomains += state.numSpilledDomains;
+		numSpilledHostIds += state.numSpilledHostIds;
+	}
+
+	/**
+	 * @return reversed domain name of the first line of domain vertices
+	 */
+	private static String getNodeLineName(String lines) {
+		int start = lines.indexOf('\t') + 1;
+		int end = start;
+		while (end < lines.length() && lines.charAt(end) != '\t' && lines.charAt(end) != '\n') {
+			end++;
+		}
+		return lines.substring(start, end);
+	}
+
+	/**
+	 * Write domain vertices (one or more lines) shifting the domain IDs by
+	 * <code>offset</code>.
+	 */
+	private static void writeNodeLines(String lines, long offset, LineWriter out) {
+		if (lines.isEmpty()) {
+			out.println();
+			return;
+		}
+		int start = 0;
+		while (start < lines.length()) {
+			int end = lines.indexOf('\n', start);
+			if (end == -1) {
+				end = lines.length();
+			}
+			int sep = lines.indexOf('\t', start);
+			out.print(Long.parseLong(lines, start, sep, 10) + offset);
+			out.print(lines, sep, end);
+			out.println();
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Convert edges line by line (same as {@link #convertEdge(String)}) and write
+	 * a checkpoint every <code>interval</code> input lines. If the checkpoint
+	 * holds the state of a previous, interrupted run, the conversion is resumed:
+	 * the output is truncated to the length recorded in the checkpoint and the
+	 * input is read starting from the recorded offset. Compressed or multi-part
+	 * input (see {@link MultiPartInput}) is read from the beginning, skipping the
+	 * lines converted before.
+	 * 
+	 * @param edgesIn    host-level edges
+	 * @param edgesOut   domain-level edges
+	 * @param checkpoint checkpoint to resume from and update
+	 * @param interval   number of input lines between two checkpoints
+	 * @throws IOException if reading or writing fails
+	 */
+	public void convertEdges(Path edgesIn, Path edgesOut, Checkpoint checkpoint, long interval) throws IOException {
+		if (checkpoint.edgesDone) {
+			LOG.info("Checkpoint: conversion of edges already done");
+			return;
+		}
+		long offset = checkpoint.edgesInputOffset;
+		OutputStream os;
+		if (checkpoint.edgesInputLines > 0) {
+			if (!Files.exists(edgesOut) || Files.size(edgesOut) < checkpoint.edgesOutputLength) {
+				throw new IOException("Edges output " + edgesOut + " missing or truncated since checkpoint");
+			}
+			try (FileChannel channel = FileChannel.open(edgesOut, StandardOpenOption.WRITE)) {
+				channel.truncate(checkpoint.edgesOutputLength);
+			}
+			os = Files.newOutputStream(edgesOut, StandardOpenOption.APPEND);
+			numInputLinesEdges = checkpoint.edgesInputLines;
+			lastFromId = checkpoint.lastFromId;
+			lastToId = checkpoint.lastToId;
+			LOG.info("Checkpoint: resuming conversion of edges at input line {} (offset {})", numInputLinesEdges,
+					offset);
+		} else {
+			os = Files.newOutputStream(edgesOut);
+		}
+		LineReader reader;
+		long startOffset = offset;
+		if (MultiPartInput.isPlainFile(edgesIn.toString())) {
+			FileChannel channel = FileChannel.open(edgesIn);
+			channel.position(offset);
+			reader = new LineReader(Channels.newInputStream(channel));
+		} else {
+			// compressed or multi-part input: skip the lines converted before
+			reader = MultiPartInput.reader(edgesIn.toString());
+			reader.skip(checkpoint.edgesInputLines);
+			startOffset = 0;
+		}
+		try (LineReader in = reader; LineWriter out = LineWriter.open(os, edgesOut.toString(),
+				Runtime.getRuntime().availableProcessors())) {
+			while (in.next()) {
+				offset = startOffset + in.position();
+				convertEdge(in, out);
+				reportProgressEdges();
+				if ((numInputLinesEdges % interval) == 0) {
+					out.flush();
+					checkpoint.edgesInputOffset = offset;
+					checkpoint.edgesInputLines = numInputLinesEdges;
+					checkpoint.edgesOutputLength = Files.size(edgesOut);
+					checkpoint.lastFromId = lastFromId;
+					checkpoint.lastToId = lastToId;
+					checkpoint.store();
+				}
+			}
+			out.flush();
+		}
+		checkpoint.edgesInputOffset = offset;
+		checkpoint.edgesInputLines = numInputLinesEdges;
+		checkpoint.edgesOutputLength = Files.size(edgesOut);
+		checkpoint.lastFromId = lastFromId;
+		checkpoint.lastToId = lastToId;
+		checkpoint.edgesDone = true;
+		checkpoint.store();
+		LOG.info("Checkpoint: conversion of edges done ({} input lines)", numInputLinesEdges);
+	}
+
+	/**
+	 * Store the domain graph as {@link BVGraph}, see
+	 * {@link #storeBVGraph(LineReader, CharSequence)}.
+	 */
+	public void storeBVGraph(Iterator<String> edges, CharSequence basename) throws IOException {
+		storeBVGraph(LineReader.of(edges), basename);
+	}
+
+	/**
+	 * Write the domain edges sorted, see
+	 * {@link #writeSortedEdges(LineReader, LineWriter)}.
+	 */
+	public void writeSortedEdges(Iterator<String> edges, LineWriter out) throws IOException {
+		writeSortedEdges(LineReader.of(edges), out);
+	}
+
+	/**
+	 * Get the domain graph as {@link ImmutableSequentialGraph}. The domain edges
+	 * are converted from the host-level edges while iterating over the domain
+	 * nodes, and can be directly compressed into a {@link BVGraph}, see
+	 * {@link #storeBVGraph(LineReader, CharSequence)}. Requires that the domain
+	 * nodes are converted with {@link #setSortedEdgesOutput(boolean)} enabled.
+	 * 
+	 * @param edges host-level edges
+	 * @return domain graph, to be iterated only once
+	 */
+	public DomainGraph domainGraph(LineReader edges) {
+		if (domainLastHostIds == null) {
+			throw new IllegalStateException("Domain nodes must be converted with sorted edges output enabled");
+		}
+		return new DomainGraph(edges);
+	}
+
+	/**
+	 * Convert the host-level edges and store the domain graph as {@link BVGraph}.
+	 * If arcs are counted (see {@link #setCountArcs(boolean)}), the number of
+	 * host-level arcs folded into every domain arc is stored as arc-labelled
+	 * graph ({@link BitStreamArcLabelledImmutableGraph}, label
+	 * {@value #ARC_COUNT_LABEL}) with the base name <code>basename</code> +
+	 * {@value #ARC_COUNT_BASENAME_SUFFIX}.
+	 * 
+	 * @param edges    host-level edges
+	 * @param basename base name of the BVGraph
+	 * @throws IOException if the graph cannot be written
+	 */
+	public void storeBVGraph(LineReader edges, CharSequence basename) throws IOException {
+		DomainGraph graph = domainGraph(edges);
+		ProgressLogger pl = new ProgressLogger(LOG, "domain nodes");
+		try {
+			if (countArcs) {
+				BVGraph.storeLabelled(new LabelledDomainGraph(graph), basename + ARC_COUNT_BASENAME_SUFFIX, basename,
+						pl);
+			} else {
+				BVGraph.store(graph, basename, pl);
+			}
+		} finally {
+			graph.buffer.close();
+		}
+		graph.reportBufferUsage();
+	}
+
+	/**
+	 * Convert the host-level edges and write the domain edges as text, sorted
+	 * numerically by fromId and toId and without duplicates. Replaces the
+	 * external sorting of the output of {@link #convertEdge(String)}. If arcs are
+	 * counted (see {@link #setCountArcs(boolean)}), the number of host-level arcs
+	 * folded into the domain arc is written in a third column.
+	 * 
+	 * @param edges host-level edges
+	 * @param out   output domain edges
+	 * @throws IOException if temporary files cannot be read or removed
+	 */
+	public void writeSortedEdges(LineReader edges, LineWriter out) throws IOException {
+		DomainGraph graph = domainGraph(edges);
+		try {
+			DomainGraph.DomainNodeIterator it = graph.nodeIterator();
+			while (it.hasNext()) {
+				int fromId = it.nextInt();
+				int[] successors = it.successorArray();
+				int[] counts = it.counts();
+				int outdegree = it.outdegree();
+				for (int i = 0; i < outdegree; i++) {
+					out.print(fromId);
+					out.write('\t');
+					out.print(successors[i]);
+					if (countArcs) {
+						out.write('\t');
+						out.print(counts[i]);
+					}
+					out.write('\n');
+				}
+			}
+			out.flush();
+		} finally {
+			graph.buffer.close();
+		}
+		graph.reportBufferUsage();
+	}
+
+	/**
+	 * Convert the host-level edges and write the domain edges sorted and without
+	 * duplicates in the binary arc list format, see {@link ArcListWriter}.
+	 * 
+	 * @param edges host-level edges
+	 * @param out   output domain edges
+	 * @throws IOException if temporary files cannot be read or removed
+	 */
+	public void writeArcList(LineReader edges, ArcListWriter out) throws IOException {
+		DomainGraph graph = domainGraph(edges);
+		try {
+			DomainGraph.DomainNodeIterator it = graph.nodeIterator();
+			while (it.hasNext()) {
+				int fromId = it.nextInt();
+				out.add(fromId, it.successorArray(), it.outdegree());
+			}
+		} finally {
+			graph.buffer.close();
+		}
+		graph.reportBufferUsage();
+	}
+
+	/**
+	 * Domain graph as {@link ImmutableSequentialGraph}. Host-level edges must be
+	 * sorted by fromId. Because domain IDs follow the order of the host IDs, all
+	 * arcs of one domain are contiguous in the input, except for interleaving
+	 * caused by domains queued for output (see {@link Domain#isSafeToOutput}).
+	 * Arcs are held in a {@link SuccessorBuffer} until all hosts of the domain are
+	 * processed, then they are sorted, deduplicated and passed to the graph
+	 * compression.
+	 */
+	public class DomainGraph extends ImmutableSequentialGraph {
+
+		private final LineReader edges;
+		private final int numNodes;
+		private final SuccessorBuffer buffer = new SuccessorBuffer();
+		private long currentFromHostId = -1;
+
+		private DomainGraph(LineReader edges) {
+			this.edges = edges;
+			this.numNodes = (int) (currentId + 1);
+			if (domainLastHostIds.size() != numNodes) {
+				throw new IllegalStateException("Domain nodes not completely converted");
+			}
+			buffer.setMaxArcsInMemory(maxBufferedArcs, spillDir);
+			buffer.setCountArcs(countArcs);
+		}
+
+		@Override
+		public int numNodes() {
+			return numNodes;
+		}
+
+		/**
+		 * Add the current edge to the buffer, unless it is an invalid line, a
+		 * self-loop, or one of the hosts is not mapped to a domain.
+		 */
+		private void readEdge() {
+			numInputLinesEdges++;
+			reportProgressEdges();
+			int sep = edges.indexOf('\t');
+			if (sep == -1) {
+				return;
+			}
+			long fromHostId = edges.parseLong(edges.start(), sep);
+			if (fromHostId < currentFromHostId) {
+				String msg = "Edges in input are not properly sorted: " + currentFromHostId + " <> " + fromHostId;
+				LOG.error(msg);
+				throw new RuntimeException(msg);
+			}
+			currentFromHostId = fromHostId;
+			long fromId = getValue(fromHostId);
+			long toId = getValue(edges.parseLong(sep + 1, edges.end()));
+			if (fromId == toId || fromId == -1 || toId == -1) {
+				return;
+			}
+			lastFromId = fromId;
+			buffer.add((int) fromId, (int) toId);
+		}
+
+		private void reportBufferUsage() {
+			LOG.info("Max. edge buffer usage: {} arcs from {} domains", buffer.maxArcs(), buffer.maxSources());
+			if (buffer.numRuns() > 0) {
+				LOG.info("Spilled {} arcs to disk in {} runs", buffer.numSpilledArcs(), buffer.numRuns());
+			}
+		}
+
+		@Override
+		public DomainNodeIterator nodeIterator() {
+			return new DomainNodeIterator();
+		}
+
+		/**
+		 * Iterator over the domain nodes and their successors. If arcs are counted
+		 * (see {@link HostToDomainGraph#setCountArcs(boolean)}), the number of
+		 * host-level arcs underlying each domain arc is available by
+		 * {@link #counts()}.
+		 */
+		public class DomainNodeIterator extends NodeIterator {
+
+			private int curr = -1;
+			private int[] successors;
+			private int[] counts;
+
+			@Override
+			public boolean hasNext() {
+				return (curr + 1) < numNodes;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				curr++;
+				/*
+				 * all arcs of the current domain are read if the input has proceeded to a host
+				 * ID above all hosts mapped to the domain
+				 */
+				long lastHostId = domainLastHostIds.getLong(curr);
+				while (currentFromHostId <= lastHostId && edges.next()) {
+					readEdge();
+				}
+				successors = buffer.take(curr);
+				if (countArcs) {
+					counts = buffer.counts();
+				}
+				return curr;
+			}
+
+			@Override
+			public int outdegree() {
+				return successors.length;
+			}
+
+			@Override
+			public int[] successorArray() {
+				return successors;
+			}
+
+			/**
+			 * @return number of host-level arcs for every successor of the current
+			 *         node
+			 */
+			public int[] counts() {
+				return counts;
+			}
+		}
+
+		@Override
+		public DomainGraph copy() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Domain graph with arcs labelled by the number of host-level arcs folded
+	 * into the domain arc, see {@link #storeBVGraph(LineReader, CharSequence)}.
+	 */
+	public class LabelledDomainGraph extends ArcLabelledImmutableSequentialGraph {
+
+		private final DomainGraph graph;
+		private final GammaCodedIntLabel prototype = new GammaCodedIntLabel(ARC_COUNT_LABEL);
+
+		private LabelledDomainGraph(DomainGraph graph) {
+			this.graph = graph;
+		}
+
+		@Override
+		public int numNodes() {
+			return graph.numNodes();
+		}
+
+		@Override
+		public Label prototype() {
+			return prototype;
+		}
+
+		@Override
+		public ArcLabelledNodeIterator nodeIterator() {
+			final DomainGraph.DomainNodeIterator nodeIterator = graph.nodeIterator();
+			return new ArcLabelledNodeIterator() {
+
+				@Override
+				public boolean hasNext() {
+					return nodeIterator.hasNext();
+				}
+
+				@Override
+				public int nextInt() {
+					return nodeIterator.nextInt();
+				}
+
+				@Override
+				public int outdegree() {
+					return nodeIterator.outdegree();
+				}
+
+				@Override
+				public int[] successorArray() {
+					return nodeIterator.successorArray();
+				}
+
+				@Override
+				public LabelledArcIterator successors() {
+					final int[] successors = nodeIterator.successorArray();
+					final int[] counts = nodeIterator.counts();
+					final int outdegree = nodeIterator.outdegree();
+					return new LabelledArcIterator() {
+						private int i = -1;
+						private final GammaCodedIntLabel label = prototype.copy();
+
+						@Override
+						public int nextInt() {
+							if (++i >= outdegree) {
+								return -1;
+							}
+							label.value = counts[i];
+							return successors[i];
+						}
+
+						@Override
+						public Label label() {
+							return label;
+						}
+
+						@Override
+						public int skip(int n) {
+							int skipped = Math.min(n, outdegree - i - 1);
+							i += skipped;
+							return skipped;
+						}
+					};
+				}
+			};
+		}
+
+		@Override
+		public LabelledDomainGraph copy() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	public void convert(Function<String, String> func, Stream<String> in, LineWriter out) {
+		in.map(func).filter(Objects::nonNull).forEach(out::println);
+		out.flush();
+	}
+
+	public void convert(
+			Function<String, String> func,
+			Stream<String> in,
+			LineWriter out,
+			Consumer<? super String> reporter) {
+		convert(func, in.peek(reporter), out);
+	}
+
+	/**
+	 * Convert host vertices line by line, see {@link #convertNode(LineReader)}.
+	 * {@link #finishNodes(LineWriter)} must be called afterwards.
+	 * 
+	 * @param in  host vertices
+	 * @param out output stream for domain vertices
+	 */
+	public void convertNodes(LineReader in, LineWriter out) {
+		while (in.next()) {
+			String res = convertNode(in);
+			reportProgressNodes();
+			if (res != null) {
+				out.println(res);
+			}
+		}
+	}
+
+	/**
+	 * Convert host edges line by line, see
+	 * {@link #convertEdge(LineReader, LineWriter)}.
+	 * 
+	 * @param in  host-level edges
+	 * @param out output stream for domain-level edges
+	 */
+	public void convertEdges(LineReader in, LineWriter out) {
+		while (in.next()) {
+			convertEdge(in, out);
+			reportProgressEdges();
+		}
+		out.flush();
+	}
+
+	public void finishNodes(LineWriter out) {
+		for (Domain domain : domainQueue.values()) {
+			domain.id = ++currentId;
+			out.println(getNodeLine(domain));
+		}
+		out.flush();
+		domainQueue.clear();
+		LOG.info("Number of input lines: {}", numInputLinesNodes);
+		LOG.info("Number of domain nodes: {}", currentId + 1);
+		LOG.info("Max. domain queue usage: {}", maxQueueUsed);
+		LOG.info("Max. host IDs pending in domain queue: {}", maxPendingHostIds);
+		LOG.info("Max. host IDs pending for a single domain: {} ({})", maxDomainPendingHostIds,
+				maxDomainPendingHostIdsName);
+		if (numSpilledDomains > 0) {
+			LOG.info("Host IDs spilled to disk: {} of {} domains", numSpilledHostIds, numSpilledDomains);
+		}
+	}
+
+	/**
+	 * Convert host vertices to domain vertices on multiple aggregation levels in
+	 * a single pass over the input. Every line of the input is parsed once and
+	 * passed to all converters, each holding its own host to domain mapping and
+	 * domain queue.
+	 * 
+	 * @param converters one converter per aggregation level
+	 * @param in         host vertices
+	 * @param out        domain vertices output, one per converter
+	 */
+	public static void convertNodes(List<HostToDomainGraph> converters, Stream<String> in, List<LineWriter> out) {
+		convertNodes(converters, LineReader.of(in.iterator()), out);
+	}
+
+	/**
+	 * Convert host vertices on multiple aggregation levels, see
+	 * {@link #convertNodes(List, Stream, List)}.
+	 */
+	public static void convertNodes(List<HostToDomainGraph> converters, LineReader in, List<LineWriter> out) {
+		final int n = converters.size();
+		while (in.next()) {
+			converters.get(0).reportProgressNodes();
+			int sep = in.indexOf('\t');
+			long id = -1;
+			String revHost = null;
+			if (sep != -1) {
+				id = in.parseLong(in.start(), sep);
+				revHost = in.toString(sep + 1, in.end());
+			}
+			for (int i = 0; i < n; i++) {
+				HostToDomainGraph converter = converters.get(i);
+				String res = sep == -1 ? converter.convertNode(in.toString()) : converter.convertNode(id, revHost);
+				if (res != null) {
+					out.get(i).println(res);
+				}
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			converters.get(i).finishNodes(out.get(i));
+		}
+	}
+
+	/**
+	 * Convert host edges to domain edges on multiple aggregation levels in a
+	 * single pass over the input, see
+	 * {@link #convertNodes(List, Stream, List)}.
+	 * 
+	 * @param converters one converter per aggregation level, all nodes
+	 *                   converted
+	 * @param in         host edges
+	 * @param out        domain edges output, one per converter
+	 */
+	public static void convertEdges(List<HostToDomainGraph> converters, Stream<String> in, List<LineWriter> out) {
+		convertEdges(converters, LineReader.of(in.iterator()), out);
+	}
+
+	/**
+	 * Convert host edges on multiple aggregation levels, see
+	 * {@link #convertEdges(List, Stream, List)}.
+	 */
+	public static void convertEdges(List<HostToDomainGraph> converters, LineReader in, List<LineWriter> out) {
+		final int n = converters.size();
+		while (in.next()) {
+			converters.get(0).reportProgressEdges();
+			int sep = in.indexOf('\t');
+			long fromId = -1, toId = -1;
+			if (sep != -1) {
+				fromId = in.parseLong(in.start(), sep);
+				toId = in.parseLong(sep + 1, in.end());
+			}
+			for (int i = 0; i < n; i++) {
+				HostToDomainGraph converter = converters.get(i);
+				converter.numInputLinesEdges++;
+				if (sep == -1) {
+					out.get(i).println();
+				} else if (converter.mapEdge(fromId, toId)) {
+					writeArc(out.get(i), converter.lastFromId, converter.lastToId);
+				}
+			}
+		}
+		for (LineWriter o : out) {
+			o.flush();
+		}
+	}
+
+	/**
+	 * Partition of the host vertices folded by a worker thread, see
+	 * {@link HostToDomainGraph#convertNodesParallel(Stream, LineWriter, int)}.
+	 * Domain IDs start with zero, the host to domain mapping is held locally for
+	 * the range of host IDs in the partition. The domains queued at the end of
+	 * the partition are not written.
+	 */
+	protected static class NodePartition extends HostToDomainGraph {
+
+		/** marks hosts not (yet) mapped in {@link #localIds} */
+		static final int UNSET = Integer.MIN_VALUE;
+
+		final List<String> lines;
+		final List<String> output = new ArrayList<>();
+		long firstHostId = 0;
+		int[] localIds = new int[0];
+		String firstRevHost = null;
+		String firstRevDomain = null;
+
+		NodePartition(HostToDomainGraph parent, List<String> lines) {
+			this.lines = lines;
+			countHosts = parent.countHosts;
+			privateDomains = parent.privateDomains;
+			stripWww = parent.stripWww;
+			includeMultiPartSuffixes = parent.includeMultiPartSuffixes;
+			spillThreshold = parent.spillThreshold;
+			spillDir = parent.spillDir;
+			if (parent.domainLastHostIds != null) {
+				domainLastHostIds = new LongArrayList();
+			}
+			suffixTrie = parent.suffixTrie;
+		}
+
+		NodePartition convert() {
+			long minId = Long.MAX_VALUE, maxId = -1;
+			for (String line : lines) {
+				int sep = line.indexOf('\t');
+				if (sep != -1) {
+					long id = Long.parseLong(line.substring(0, sep));
+					minId = Math.min(minId, id);
+					maxId = Math.max(maxId, id);
+				}
+			}
+			if (maxId >= 0) {
+				firstHostId = minId;
+				localIds = new int[Math.toIntExact(maxId - minId + 1)];
+				java.util.Arrays.fill(localIds, UNSET);
+			}
+			for (String line : lines) {
+				String res = convertNode(line);
+				if (firstRevHost == null) {
+					firstRevHost = lastRevHost;
+				}
+				if (firstRevDomain == null && lastDomain != null) {
+					firstRevDomain = lastDomain.revName;
+				}
+				if (res != null) {
+					output.add(res);
+				}
+			}
+			return this;
+		}
+
+		@Override
+		protected void setValue(long id, long value) {
+			localIds[(int) (id - firstHostId)] = (int) value;
+		}
+
+		@Override
+		protected long getValue(long id) {
+			return localIds[(int) (id - firstHostId)];
+		}
+	}
+
+	/**
+	 * Holds a host to domain graph mapping if the size of the host graph exceeds
+	 * {@link Arrays#MAX_ARRAY_SIZE}.
+	 */
+	public static class HostToDomainGraphBig extends HostToDomainGraph {
+
+		private long[][] ids;
+
+		public HostToDomainGraphBig(long maxSize) {
+			this.maxSize = maxSize;
+			ids = LongBigArrays.newBigArray(maxSize);
+			BigArrays.fill(ids, -1L);
+		}
+
+		@Override
+		protected void setValue(long id, long value) {
+			BigArrays.set(ids, id, value);
+		}
+
+		@Override
+		protected long getValue(long id) {
+			return BigArrays.get(ids, id);
+		}
+	}
+
+	/**
+	 * Holds the host to domain mapping in a bit-packed array using only as many
+	 * bits per host as required to represent the max. number of domains (plus one
+	 * value to mark hosts not mapped to any domain). For a host graph of 3 billion
+	 * hosts mapped to less than 2^30 domains, this requires 31 bits per host
+	 * instead of 64 bits used by {@link HostToDomainGraphBig}. The max. number of
+	 * domains must be known ahead, at worst it's the number of hosts.
+	 */
+	public static class HostToDomainGraphPacked extends HostToDomainGraph {
+
+		private LongBigList ids;
+		private long maxDomains;
+
+		/**
+		 * @param maxSize    max. number of hosts
+		 * @param maxDomains max. number of domains
+		 */
+		public HostToDomainGraphPacked(long maxSize, long maxDomains) {
+			this.maxSize = maxSize;
+			this.maxDomains = maxDomains;
+			int width = Math.max(1, Fast.length(maxDomains));
+			ids = LongBigArrayBitVector.ofLength(maxSize * width).asLongBigList(width);
+			LOG.info("Host to domain mapping packed using {} bits per host", width);
+		}
+
+		@Override
+		protected void setValue(long id, long value) {
+			if (value >= maxDomains) {
+				String msg = "Number of domains exceeds max. number of domains (" + maxDomains
+						+ ") representable by the packed host to domain mapping";
+				LOG.error(msg);
+				throw new RuntimeException(msg);
+			}
+			// shift values by one, zero is reserved for hosts not mapped to any domain
+			ids.set(id, value + 1);
+		}
+
+		@Override
+		protected long getValue(long id) {
+			return ids.getLong(id) - 1;
+		}
+	}
+
+	/**
+	 * Host to domain mapping memory-mapped from a file written by
+	 * {@link HostToDomainGraph#storeMapping(String)}. Allows to convert the edges
+	 * without repeating the conversion of the nodes, e.g., in a separate process
+	 * or in multiple processes, each converting a part of the edges. The mapping
+	 * cannot be modified.
+	 */
+	public static class HostToDomainGraphMapped extends HostToDomainGraph {
+
+		private IntMappedBigList ids;
+
+		public HostToDomainGraphMapped(String mapFile) throws IOException {
+			try (FileChannel channel = FileChannel.open(Paths.get(mapFile))) {
+				ids = IntMappedBigList.map(channel);
+			}
+			maxSize = ids.size64();
+			numHosts = maxSize;
+			LOG.info("Loaded mapping of {} hosts from {}", numHosts, mapFile);
+		}
+
+		/**
+		 * {@inheritDoc} The highest host ID per domain and the number of domains are
+		 * recovered from the mapping.
+		 */
+		@Override
+		public void setSortedEdgesOutput(boolean sorted) {
+			if (!sorted) {
+				domainLastHostIds = null;
+				return;
+			}
+			domainLastHostIds = new LongArrayList();
+			for (long i = 0; i < numHosts; i++) {
+				int domainId = ids.getInt(i);
+				if (domainId < 0) {
+					continue;
+				}
+				while (domainLastHostIds.size() <= domainId) {
+					domainLastHostIds.add(-1);
+				}
+				domainLastHostIds.set(domainId, i);
+			}
+			currentId = domainLastHostIds.size() - 1;
+		}
+
+		@Override
+		protected void setValue(long id, long value) {
+			throw new UnsupportedOperationException("Memory-mapped host to domain mapping is read-only");
+		}
+
+		@Override
+		protected long getValue(long id) {
+			return ids.getInt(id);
+		}
+	}
+
+	/**
+	 * Checkpoint of a conversion run, stored as properties file. Records the
+	 * completed conversion of the nodes (the host to domain mapping is stored
+	 * next to the checkpoint, see {@link #getMapFile()}) and the progress of the
+	 * conversion of the edges: the offset in the edge input, the length of the
+	 * edge output and the last edge written, required to skip consecutive
+	 * duplicates, see {@link HostToDomainGraph#convertEdge(long, long)}.
+	 */
+	public static class Checkpoint {
+
+		private final Path path;
+		/* command-line arguments, a run can be resumed only with the same arguments */
+		String config = "";
+		boolean nodesDone = false;
+		long numHosts = 0;
+		long numDomains = 0;
+		long nodesOutputLength = 0;
+		long edgesInputOffset = 0;
+		long edgesInputLines = 0;
+		long edgesOutputLength = 0;
+		long lastFromId = -1;
+		long lastToId = -1;
+		boolean edgesDone = false;
+
+		/**
+		 * @param path   checkpoint file
+		 * @param config configuration (command-line arguments) of the run
+		 */
+		public Checkpoint(Path path, String config) {
+			this.path = path;
+			this.config = config;
+		}
+
+		/**
+		 * Load a checkpoint from file.
+		 * 
+		 * @param path checkpoint file
+		 * @return the checkpoint
+		 * @throws IOException if the checkpoint cannot be read
+		 */
+		public static Checkpoint load(Path path) throws IOException {
+			Properties props = new Properties();
+			try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				props.load(reader);
+			}
+			Checkpoint checkpoint = new Checkpoint(path, props.getProperty("config", ""));
+			checkpoint.nodesDone = Boolean.parseBoolean(props.getProperty("nodes.done"));
+			checkpoint.numHosts = Long.parseLong(props.getProperty("nodes.hosts", "0"));
+			checkpoint.numDomains = Long.parseLong(props.getProperty("nodes.domains", "0"));
+			checkpoint.nodesOutputLength = Long.parseLong(props.getProperty("nodes.output.length", "0"));
+			checkpoint.edgesInputOffset = Long.parseLong(props.getProperty("edges.input.offset", "0"));
+			checkpoint.edgesInputLines = Long.parseLong(props.getProperty("edges.input.lines", "0"));
+			checkpoint.edgesOutputLength = Long.parseLong(props.getProperty("edges.output.length", "0"));
+			checkpoint.lastFromId = Long.parseLong(props.getProperty("edges.last.from", "-1"));
+			checkpoint.lastToId = Long.parseLong(props.getProperty("edges.last.to", "-1"));
+			checkpoint.edgesDone = Boolean.parseBoolean(props.getProperty("edges.done"));
+			return checkpoint;
+		}
+
+		/**
+		 * Write the checkpoint to a temporary file and atomically replace the
+		 * checkpoint file, so that a checkpoint is never left incomplete.
+		 * 
+		 * @throws IOException if the checkpoint cannot be written
+		 */
+		public void store() throws IOException {
+			Properties props = new Properties();
+			props.setProperty("config", config);
+			props.setProperty("nodes.done", Boolean.toString(nodesDone));
+			props.setProperty("nodes.hosts", Long.toString(numHosts));
+			props.setProperty("nodes.domains", Long.toString(numDomains));
+			props.setProperty("nodes.output.length", Long.toString(nodesOutputLength));
+			props.setProperty("edges.input.offset", Long.toString(edgesInputOffset));
+			props.setProperty("edges.input.lines", Long.toString(edgesInputLines));
+			props.setProperty("edges.output.length", Long.toString(edgesOutputLength));
+			props.setProperty("edges.last.from", Long.toString(lastFromId));
+			props.setProperty("edges.last.to", Long.toString(lastToId));
+			props.setProperty("edges.done", Boolean.toString(edgesDone));
+			Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				props.store(writer, "HostToDomainGraph checkpoint");
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		/**
+		 * @return path of the host to domain mapping stored with the checkpoint,
+		 *         see {@link HostToDomainGraph#storeMapping(String)}
+		 */
+		public Path getMapFile() {
+			return path.resolveSibling(path.getFileName() + ".map");
+		}
+
+		/**
+		 * Record the completed conversion of the nodes and store the checkpoint
+		 * together with the host to domain mapping.
+		 * 
+		 * @param converter converter which finished the conversion of the nodes
+		 * @param nodesOut  nodes output
+		 * @throws IOException if the checkpoint or the mapping cannot be written
+		 */
+		public void nodesDone(HostToDomainGraph converter, Path nodesOut) throws IOException {
+			converter.storeMapping(getMapFile().toString());
+			nodesDone = true;
+			numHosts = converter.numHosts;
+			numDomains = converter.currentId + 1;
+			nodesOutputLength = Files.size(nodesOut);
+			edgesInputOffset = edgesInputLines = edgesOutputLength = 0;
+			lastFromId = lastToId = -1;
+			edgesDone = false;
+			store();
+			LOG.info("Checkpoint: conversion of nodes done, stored in {}", path);
+		}
+
+		/**
+		 * Load the host to domain mapping stored with the checkpoint.
+		 * 
+		 * @param nodesOut nodes output, verified to be unchanged since the
+		 *                 checkpoint was written
+		 * @return converter holding the mapping
+		 * @throws IOException if the mapping cannot be loaded or the nodes output
+		 *                     has changed
+		 */
+		public HostToDomainGraph resumeNodes(Path nodesOut) throws IOException {
+			if (!Files.exists(nodesOut) || Files.size(nodesOut) != nodesOutputLength) {
+				throw new IOException("Nodes output " + nodesOut + " missing or modified since checkpoint");
+			}
+			HostToDomainGraph converter = new HostToDomainGraphMapped(getMapFile().toString());
+			converter.currentId = numDomains - 1;
+			LOG.info("Checkpoint: resuming with {} hosts mapped to {} domains", numHosts, numDomains);
+			return converter;
+		}
+	}
+
+	private static void showHelp() {
+		System.err.println("HostToDomainGraph [options]... <maxSize> <nodes_in> <nodes_out> <edges_in> <edges_out>");
+		System.err.println("HostToDomainGraph [options]... --save-map <map_file> <maxSize> <nodes_in> <nodes_out>");
+		System.err.println("HostToDomainGraph [options]... --load-map <map_file> <edges_in> <edges_out>");
+		System.err.println("HostToDomainGraph [options]... --output <level> <nodes_out> <edges_out>"
+				+ " [--output ...]... <maxSize> <nodes_in> <edges_in>");
+		System.err.println("");
+		System.err.println("Convert host-level webgraph to domain-level webgraph.");
+		System.err.println("Both input and output must be UTF-8 or ASCII, the input is required");
+		System.err.println("to be sorted lexicographically by node labels given in reversed domain name notation.");
+		System.err.println("");
+		System.err.println("Options:");
+		System.err.println(" -h\t(also -? or --help) show usage message and exit");
+		System.err.println(" -c\tcount hosts per domain (additional column in <nodes_out>");
+		System.err.println(" --private-domains\t(deprecated - use --aggregation-level)");
+		System.err.println("                  \tconvert to private domains (include suffixes from the");
+		System.err.println("                  \tPRIVATE domains subdivision of the public suffix list,");
+		System.err.println("                  \tsee https://github.com/publicsuffix/list/wiki/Format#divisions)");
+		System.err.println(" --aggregation-level <level>\tdefine the strategy on which hosts are folded to domains.");
+		System.err
+				.println("                            \t<level> values: registered-domain (default), private-domain, ");
+		System.err.println("                            \thost-without-www. ");
+		System.err.println("                            \t- registered-domain: convert only the registered domains ");
+		System.err.println("                            \t- private-domain: convert to private domains ");
+		System.err.println(
+				"                  	        \t(include suffixes from the PRIVATE domains subdivision of the ");
+		System.err.println("                  	        \tpublic suffix list, ");
+		System.err.println(
+				"                  	        \tsee https://github.com/publicsuffix/list/wiki/Format#divisions)");
+		System.err.println("                            \t- host-without-www: strip the www. prefix (keep the ");
+		System.err.println("                            \tfull host otherwise)");
+		System.err.println(" --multipart-suffixes-as-domains\toutput host names which are equal to multi-part");
+		System.err.println("                                \tpublic suffixes (the suffix contains a dot) as domain");
+		System.err.println("                                \tnames, eg. `gov.uk', `freight.aero' or `altoadige.it'.");
+		System.err.println("                                \tNo further validation (DNS lookup) is performed.");
+		System.err.println(" --threads <n>\tnumber of threads used to convert the nodes and edges (default: 1)");
+		System.err.println(" --bvgraph\twrite the domain edges as BVGraph, <edges_out> is the base name");
+		System.err.println("          \tof the graph. The edges are sorted and deduplicated in memory.");
+		System.err.println(" --sorted-edges\tsort and deduplicate the domain edges in memory, no external");
+		System.err.println("               \tsorting of <edges_out> is required");
+		System.err.println(" --arc-list\twrite the domain edges sorted and deduplicated in the compact");
+		System.err.println("           \tbinary arc list format (see ArcListWriter)");
+		System.err.println(" --count-arcs\tcount the host-level edges folded into every domain edge,");
+		System.err.println("             \twritten as third column of <edges_out> or, with --bvgraph,");
+		System.err.println("             \tas arc labels of the graph <edges_out>" + ARC_COUNT_BASENAME_SUFFIX + ".");
+		System.err.println("             \tImplies --sorted-edges if --bvgraph is not given.");
+		System.err.println(" --edge-buffer <n>\tmax. number of domain edges buffered in memory to sort them");
+		System.err.println("                  \t(--bvgraph or --sorted-edges), if exceeded edges are spilled");
+		System.err.println("                  \tto temporary files in --spill-dir (default: unlimited)");
+		System.err.println(" --mapping <type>\tdata structure to hold the mapping of host to domain IDs:");
+		System.err.println("                 \t- array: (big) array of integers, 4 or 8 bytes per host (default)");
+		System.err.println("                 \t- packed: bit-packed array, the number of bits per host is");
+		System.err.println("                 \t  determined by the max. number of domains");
+		System.err.println(" --max-domains <n>\tmax. number of domains, used to size the packed mapping");
+		System.err.println("                  \t(default: <maxSize>)");
+		System.err.println(" --spill-threshold <n>\tspill the host IDs of a queued domain to a temporary file");
+		System.err.println("                      \tif more than <n> host IDs are waiting to be mapped to");
+		System.err.println("                      \tthe domain (default: 0, never spill)");
+		System.err.println(" --spill-dir <dir>\tdirectory to place the temporary files of spilled host IDs");
+		System.err.println(" --save-map <map_file>\tstore the mapping of host to domain IDs in <map_file>");
+		System.err.println("                      \t(binary, 4-byte integers). If no edges are given,");
+		System.err.println("                      \tonly the nodes are converted.");
+		System.err.println(" --load-map <map_file>\tload the mapping of host to domain IDs from <map_file>");
+		System.err.println("                      \tand convert only the edges.");
+		System.err.println(" --checkpoint <file>\tcheckpoint the conversion to <file>: the host to domain");
+		System.err.println("                    \tmapping once the nodes are converted (stored in <file>.map)");
+		System.err.println("                    \tand the progress of the edge conversion");
+		System.err.println(" --checkpoint-interval <n>\tnumber of edge input lines between two checkpoints");
+		System.err.println("                          \t(default: 100000000)");
+		System.err.println(" --resume\tresume an interrupted run from the checkpoint given by --checkpoint");
+		System.err.println("         \t(requires the same arguments as the interrupted run)");
+		System.err.println(" --output <level> <nodes_out> <edges_out>");
+		System.err.println("                      \tconvert the graph on the aggregation level <level> and");
+		System.err.println("                      \twrite it to <nodes_out> and <edges_out>. Can be repeated");
+		System.err.println("                      \tto convert the graph on multiple levels in a single pass");
+		System.err.println("                      \tover the input (requires one mapping per level).");
+		System.err.println("");
+		System.err.println("Input files (<nodes_in>, <edges_in>) may be gzip-compressed (suffix .gz), a directory");
+		System.err.println("holding multiple parts (part-*) or a glob pattern (eg. 'edges/*.gz'). Multiple parts");
+		System.err.println("are decompressed in parallel and read in the order of their file names.");
+		System.err.println("Output files (<nodes_out>, <edges_out>) with the suffix .gz are gzip-compressed");
+		System.err.println("using multiple threads.");
+	}
+
+	public static void main(String[] args) {
+		boolean countHosts = false;
+		boolean includeMultiPartSuffixes = false;
+		boolean privateDomains = false;
 		String aggregationLevel = null;
 		boolean stripWww = false;
+		int threads = 1;
+		boolean bvGraphOutput = false;
+		boolean sortedEdges = false;
+		boolean arcListOutput = false;
+		boolean countArcs = false;
+		long maxBufferedArcs = Long.MAX_VALUE;
+		boolean packedMapping = false;
+		long maxDomains = -1;
+		int spillThreshold = 0;
+		Path spillDir = null;
+		String saveMapFile = null;
+		String loadMapFile = null;
+		String checkpointFile = null;
+		long checkpointInterval = 100000000L;
+		boolean resume = false;
+		List<String[]> outputs = new ArrayList<>();
 		int argpos = 0;
 		while (argpos < args.length && args[argpos].startsWith("-")) {
 			switch (args[argpos]) {
@@ -611,6 +2343,153 @@ public class HostToDomainGraph {
 				}
 				argpos++;
 				break;
+			case "--threads":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					threads = Integer.parseInt(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				if (threads < 1) {
+					LOG.error("Number of threads must be positive: " + threads);
+					System.exit(1);
+				}
+				break;
+			case "--bvgraph":
+				bvGraphOutput = true;
+				break;
+			case "--sorted-edges":
+				sortedEdges = true;
+				break;
+			case "--arc-list":
+				arcListOutput = true;
+				sortedEdges = true;
+				break;
+			case "--count-arcs":
+				countArcs = true;
+				break;
+			case "--edge-buffer":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					maxBufferedArcs = Long.parseLong(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--mapping":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				switch (args[++argpos]) {
+				case "array":
+					packedMapping = false;
+					break;
+				case "packed":
+					packedMapping = true;
+					break;
+				default:
+					LOG.error("Unknown value for option --mapping: " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				break;
+			case "--spill-threshold":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					spillThreshold = Integer.parseInt(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--spill-dir":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				spillDir = Paths.get(args[++argpos]);
+				break;
+			case "--max-domains":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					maxDomains = Long.parseLong(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--checkpoint":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				checkpointFile = args[++argpos];
+				break;
+			case "--checkpoint-interval":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					checkpointInterval = Long.parseLong(args[++argpos]);
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--resume":
+				resume = true;
+				break;
+			case "--output":
+				if ((argpos + 3) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				if (!ALLOWED_AGGREGATION_PARAMS.contains(args[argpos + 1])) {
+					LOG.error("Unknown aggregation level for option " + args[argpos] + ": " + args[argpos + 1]);
+					showHelp();
+					System.exit(1);
+				}
+				outputs.add(java.util.Arrays.copyOfRange(args, argpos + 1, argpos + 4));
+				argpos += 3;
+				break;
+			case "--save-map":
+			case "--load-map":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				if (args[argpos].equals("--save-map")) {
+					saveMapFile = args[++argpos];
+				} else {
+					loadMapFile = args[++argpos];
+				}
+				break;
 			default:
 				System.err.println("Unknown option " + args[argpos]);
 				showHelp();
@@ -618,10 +2497,111 @@ public class HostToDomainGraph {
 			}
 			argpos++;
 		}
-		if ((args.length - argpos) < 5) {
-			showHelp();
+		if (arcListOutput && (bvGraphOutput || countArcs)) {
+			LOG.error("Option --arc-list cannot be combined with --bvgraph or --count-arcs");
+			System.exit(1);
+		}
+		if (countArcs && !bvGraphOutput) {
+			sortedEdges = true;
+		}
+		if (resume && checkpointFile == null) {
+			LOG.error("Option --resume requires --checkpoint");
+			System.exit(1);
+		}
+		if (checkpointFile != null && (!outputs.isEmpty() || loadMapFile != null)) {
+			LOG.error("Option --checkpoint cannot be combined with --output or --load-map");
 			System.exit(1);
 		}
+		if (!outputs.isEmpty()) {
+			if ((args.length - argpos) < 3) {
+				showHelp();
+				System.exit(1);
+			}
+			if (aggregationLevel != null || privateDomains || bvGraphOutput || sortedEdges || countArcs
+					|| saveMapFile != null || loadMapFile != null) {
+				LOG.error("Option --output cannot be combined with --aggregation-level, --private-domains,"
+						+ " --bvgraph, --sorted-edges, --arc-list, --count-arcs, --save-map or --load-map");
+				System.exit(1);
+			}
+			if (threads > 1) {
+				LOG.warn("Option --threads is ignored if the graph is converted on multiple levels");
+			}
+			long maxSize = 0;
+			try {
+				maxSize = Long.parseLong(args[argpos + 0]);
+			} catch (NumberFormatException e) {
+				LOG.error("Invalid number: " + args[argpos + 0]);
+				System.exit(1);
+			}
+			List<HostToDomainGraph> converters = new ArrayList<>();
+			for (String[] output : outputs) {
+				HostToDomainGraph converter = createConverter(maxSize, packedMapping, maxDomains);
+				converter.doCount(countHosts);
+				converter.multiPartSuffixesAsDomains(includeMultiPartSuffixes);
+				converter.doPrivateDomains(output[0].equals(AGGREGATION_PRIVATE_DOMAIN));
+				converter.setStripWww(output[0].equals(AGGREGATION_HOST_WITHOUT_WWW));
+				converter.setSpillThreshold(spillThreshold, spillDir);
+				LOG.info("Aggregation level {}: {} {}", (Object[]) output);
+				converter.reportConfig();
+				converters.add(converter);
+			}
+			List<LineWriter> nodesOut = new ArrayList<>();
+			try (LineReader in = MultiPartInput.reader(args[argpos + 1])) {
+				for (String[] output : outputs) {
+					nodesOut.add(LineWriter.open(output[1]));
+				}
+				convertNodes(converters, in, nodesOut);
+				LOG.info("Finished conversion of nodes/vertices");
+			} catch (IOException e) {
+				LOG.error("Failed to convert nodes", e);
+				System.exit(1);
+			} finally {
+				nodesOut.forEach(LineWriter::close);
+			}
+			List<LineWriter> edgesOut = new ArrayList<>();
+			try (LineReader in = MultiPartInput.reader(args[argpos + 2])) {
+				for (String[] output : outputs) {
+					edgesOut.add(LineWriter.open(output[2]));
+				}
+				convertEdges(converters, in, edgesOut);
+				LOG.info("Finished conversion of edges");
+			} catch (IOException e) {
+				LOG.error("Failed to convert edges", e);
+				System.exit(1);
+			} finally {
+				edgesOut.forEach(LineWriter::close);
+			}
+			return;
+		}
+		if (loadMapFile != null) {
+			if ((args.length - argpos) < 2) {
+				showHelp();
+				System.exit(1);
+			}
+			HostToDomainGraph converter = null;
+			try {
+				converter = new HostToDomainGraphMapped(loadMapFile);
+			} catch (IOException e) {
+				LOG.error("Failed to load host to domain mapping", e);
+				System.exit(1);
+			}
+			converter.setSortedEdgesOutput(bvGraphOutput || sortedEdges);
+			converter.setSpillThreshold(spillThreshold, spillDir);
+			converter.setMaxBufferedArcs(maxBufferedArcs);
+			converter.setCountArcs(countArcs);
+			convertEdges(converter, args[argpos], args[argpos + 1], threads, bvGraphOutput, sortedEdges,
+					arcListOutput);
+			return;
+		}
+		boolean convertEdges = true;
+		if ((args.length - argpos) < 5) {
+			if (saveMapFile != null && (args.length - argpos) == 3) {
+				convertEdges = false;
+			} else {
+				showHelp();
+				System.exit(1);
+			}
+		}
 		long maxSize = 0;
 		try {
 			maxSize = Long.parseLong(args[argpos + 0]);
@@ -649,36 +2629,210 @@ public class HostToDomainGraph {
 			}
 		}
 
-		HostToDomainGraph converter;
-		if (maxSize <= Arrays.MAX_ARRAY_SIZE) {
-			converter = new HostToDomainGraph((int) maxSize);
+		String nodesIn = args[argpos + 1];
+		String nodesOut = args[argpos + 2];
+		Checkpoint checkpoint = null;
+		if (checkpointFile != null) {
+			// the configuration of a resumed run must not change
+			String config = String.join(" ",
+					java.util.Arrays.stream(args).filter(a -> !a.equals("--resume")).toArray(String[]::new));
+			Path checkpointPath = Paths.get(checkpointFile);
+			checkpoint = new Checkpoint(checkpointPath, config);
+			if (resume && Files.exists(checkpointPath)) {
+				try {
+					checkpoint = Checkpoint.load(checkpointPath);
+				} catch (IOException e) {
+					LOG.error("Failed to load checkpoint {}", checkpointFile, e);
+					System.exit(1);
+				}
+				if (!checkpoint.config.equals(config)) {
+					LOG.error("Cannot resume from checkpoint written with different arguments: {}",
+							checkpoint.config);
+					System.exit(1);
+				}
+			} else if (resume) {
+				LOG.warn("No checkpoint found in {}, starting from the beginning", checkpointFile);
+			}
+		}
+
+		HostToDomainGraph converter = null;
+		if (checkpoint != null && checkpoint.nodesDone) {
+			try {
+				converter = checkpoint.resumeNodes(Paths.get(nodesOut));
+			} catch (IOException e) {
+				LOG.error("Failed to resume from checkpoint {}", checkpointFile, e);
+				System.exit(1);
+			}
+			converter.setSortedEdgesOutput((bvGraphOutput || sortedEdges) && convertEdges);
+			converter.setSpillThreshold(spillThreshold, spillDir);
+			converter.setMaxBufferedArcs(maxBufferedArcs);
+			converter.setCountArcs(countArcs);
 		} else {
-			converter = new HostToDomainGraphBig(maxSize);
+			converter = convertNodes(createConverter(maxSize, packedMapping, maxDomains), nodesIn, nodesOut, threads,
+					countHosts, includeMultiPartSuffixes, privateDomains, stripWww,
+					(bvGraphOutput || sortedEdges) && convertEdges, spillThreshold, spillDir, maxBufferedArcs,
+					countArcs);
+			if (checkpoint != null) {
+				try {
+					checkpoint.nodesDone(converter, Paths.get(nodesOut));
+				} catch (IOException e) {
+					LOG.error("Failed to write checkpoint {}", checkpointFile, e);
+					System.exit(1);
+				}
+			}
+		}
+		if (saveMapFile != null) {
+			try {
+				converter.storeMapping(saveMapFile);
+			} catch (IOException e) {
+				LOG.error("Failed to store host to domain mapping", e);
+				System.exit(1);
+			}
+		}
+		if (!convertEdges) {
+			return;
+		}
+		if (checkpoint != null && checkpoint.edgesDone) {
+			LOG.info("Checkpoint: conversion of edges already done");
+			return;
+		}
+		if (checkpoint != null && !bvGraphOutput && !sortedEdges) {
+			if (threads > 1) {
+				LOG.warn("Option --threads is ignored if the conversion of edges is checkpointed");
+			}
+			try {
+				converter.convertEdges(Paths.get(args[argpos + 3]), Paths.get(args[argpos + 4]), checkpoint,
+						checkpointInterval);
+				LOG.info("Finished conversion of edges");
+			} catch (IOException e) {
+				LOG.error("Failed to convert edges", e);
+				System.exit(1);
+			}
+			return;
+		}
+		convertEdges(converter, args[argpos + 3], args[argpos + 4], threads, bvGraphOutput, sortedEdges,
+				arcListOutput);
+		if (checkpoint != null) {
+			// edges sorted in memory or stored as BVGraph are not checkpointed periodically
+			checkpoint.edgesDone = true;
+			try {
+				checkpoint.store();
+			} catch (IOException e) {
+				LOG.error("Failed to write checkpoint {}", checkpointFile, e);
+				System.exit(1);
+			}
 		}
+	}
 
+	private static HostToDomainGraph convertNodes(
+			HostToDomainGraph converter,
+			String nodesIn,
+			String nodesOut,
+			int threads,
+			boolean countHosts,
+			boolean includeMultiPartSuffixes,
+			boolean privateDomains,
+			boolean stripWww,
+			boolean sortedEdgesOutput,
+			int spillThreshold,
+			Path spillDir,
+			long maxBufferedArcs,
+			boolean countArcs) {
 		converter.doCount(countHosts);
 		converter.multiPartSuffixesAsDomains(includeMultiPartSuffixes);
 		converter.doPrivateDomains(privateDomains);
 		converter.setStripWww(stripWww);
+		converter.setSortedEdgesOutput(sortedEdgesOutput);
+		converter.setSpillThreshold(spillThreshold, spillDir);
+		converter.setMaxBufferedArcs(maxBufferedArcs);
+		converter.setCountArcs(countArcs);
 		converter.reportConfig();
-		String nodesIn = args[argpos + 1];
-		String nodesOut = args[argpos + 2];
-		try (Stream<String> in = Files.lines(Paths.get(nodesIn), StandardCharsets.UTF_8);
-				PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(nodesOut)), false,
-						StandardCharsets.UTF_8)) {
-			converter.convert(converter::convertNode, in, out, converter.reporterInputNodes);
+		try (LineWriter out = LineWriter.open(nodesOut)) {
+			if (threads > 1) {
+				LOG.info("Converting nodes using {} threads", threads);
+				try (Stream<String> in = MultiPartInput.lines(nodesIn)) {
+					converter.convertNodesParallel(in, out, threads);
+				}
+			} else {
+				try (LineReader in = MultiPartInput.reader(nodesIn)) {
+					converter.convertNodes(in, out);
+				}
+			}
 			converter.finishNodes(out);
 			LOG.info("Finished conversion of nodes/vertices");
 		} catch (IOException e) {
 			LOG.error("Failed to convert nodes", e);
 			System.exit(1);
 		}
-		String edgesIn = args[argpos + 3];
-		String edgesOut = args[argpos + 4];
-		try (Stream<String> in = Files.lines(Paths.get(edgesIn), StandardCharsets.UTF_8);
-				PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(edgesOut)), false,
-						StandardCharsets.UTF_8)) {
-			converter.convert(converter::convertEdge, in, out, converter.reporterInputEdges);
+		return converter;
+	}
+
+	private static HostToDomainGraph createConverter(long maxSize, boolean packedMapping, long maxDomains) {
+		if (packedMapping) {
+			if (maxDomains < 0) {
+				maxDomains = maxSize;
+			}
+			return new HostToDomainGraphPacked(maxSize, maxDomains);
+		} else if (maxSize <= Arrays.MAX_ARRAY_SIZE) {
+			return new HostToDomainGraph((int) maxSize);
+		}
+		return new HostToDomainGraphBig(maxSize);
+	}
+
+	private static void convertEdges(
+			HostToDomainGraph converter,
+			String edgesIn,
+			String edgesOut,
+			int threads,
+			boolean bvGraphOutput,
+			boolean sortedEdges,
+			boolean arcListOutput) {
+		if (sortedEdges && !bvGraphOutput) {
+			if (threads > 1) {
+				LOG.warn("Option --threads is ignored if the edges are sorted in memory");
+			}
+			if (arcListOutput) {
+				try (LineReader in = MultiPartInput.reader(edgesIn);
+						ArcListWriter out = ArcListWriter.open(edgesOut, converter.currentId + 1)) {
+					converter.writeArcList(in, out);
+					LOG.info("Finished conversion of edges, written as arc list");
+				} catch (IOException e) {
+					LOG.error("Failed to convert edges", e);
+					System.exit(1);
+				}
+				return;
+			}
+			try (LineReader in = MultiPartInput.reader(edgesIn);
+					LineWriter out = LineWriter.open(edgesOut)) {
+				converter.writeSortedEdges(in, out);
+				LOG.info("Finished conversion of edges, sorted and deduplicated");
+			} catch (IOException e) {
+				LOG.error("Failed to convert edges", e);
+				System.exit(1);
+			}
+			return;
+		}
+		if (bvGraphOutput) {
+			if (threads > 1) {
+				LOG.warn("Option --threads is ignored if the edges are written as BVGraph");
+			}
+			try (LineReader in = MultiPartInput.reader(edgesIn)) {
+				converter.storeBVGraph(in, edgesOut);
+				LOG.info("Finished conversion of edges, stored domain graph as BVGraph {}", edgesOut);
+			} catch (IOException e) {
+				LOG.error("Failed to convert edges", e);
+				System.exit(1);
+			}
+			return;
+		}
+		try (LineReader in = MultiPartInput.reader(edgesIn);
+				LineWriter out = LineWriter.open(edgesOut)) {
+			if (threads > 1) {
+				LOG.info("Converting edges using {} threads", threads);
+				converter.convertEdgesParallel(in, out, threads);
+			} else {
+				converter.convertEdges(in, out);
+			}
 			LOG.info("Finished conversion of edges");
 		} catch (IOException e) {
 			LOG.error("Failed to convert edges", e);
@@ -0,0 +1,370 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assign ranks to any number of node scores (binary files of int, long, float
+ * or double values, eg. degrees, harmonic centrality, page rank or component
+ * sizes) and join ranks and values with the node names. Generalization of
+ * {@link JoinSortRanks} for a configurable list of scores and output columns.
+ *
+ * <p>
+ * The score files are memory-mapped and the ranks are written to temporary
+ * memory-mapped files, see {@link RadixRanker#assignRanks(MappedArray,
+ * MappedArray)}, which switches to big arrays if there are more than 2^31
+ * nodes. The scores are ranked in parallel as long as the temporary memory of
+ * the running rankings fits into the free heap memory.
+ * </p>
+ */
+public class JoinScores implements Closeable {
+
+	protected static Logger LOG = LoggerFactory.getLogger(JoinScores.class);
+
+	/** Output columns per score */
+	public enum Column {
+		RANK, VALUE
+	}
+
+	private static class Score {
+		String file;
+		MappedArray values;
+		Column[] columns;
+		Path ranksFile;
+		MappedArray ranks;
+	}
+
+	private final List<Score> scores = new ArrayList<>();
+	private final Path tmpDir;
+	private long numNodes = -1;
+
+	/**
+	 * @param tmpDir directory to hold the temporary rank files
+	 */
+	public JoinScores(Path tmpDir) {
+		this.tmpDir = tmpDir;
+	}
+
+	/**
+	 * Add a score.
+	 *
+	 * @param file    binary file holding the values, indexed by node ID
+	 * @param type    type of the values
+	 * @param columns columns written for this score
+	 * @throws IOException if the file cannot be mapped or the number of values
+	 *                     differs from previously added scores
+	 */
+	public void addScore(String file, MappedArray.Type type, Column... columns) throws IOException {
+		if (type == MappedArray.Type.BYTE) {
+			throw new IllegalArgumentException("Unsupported type of values: " + type);
+		}
+		Score score = new Score();
+		score.file = file;
+		score.values = MappedArray.map(file, type);
+		score.columns = columns;
+		if (numNodes == -1) {
+			numNodes = score.values.length();
+		} else if (numNodes != score.values.length()) {
+			throw new IOException("Number of values in " + file + " (" + score.values.length()
+					+ ") differs from number of nodes (" + numNodes + ")");
+		}
+		scores.add(score);
+	}
+
+	public long numNodes() {
+		return numNodes;
+	}
+
+	private void assignRanks(Score score) {
+		LOG.info("Assigning ranks to {}", score.file);
+		try {
+			MappedArray.Type type = numNodes > Integer.MAX_VALUE ? MappedArray.Type.LONG : MappedArray.Type.INT;
+			score.ranksFile = Files.createTempFile(tmpDir, "ranks-", ".bin");
+			score.ranks = MappedArray.create(score.ranksFile.toString(), type, numNodes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		RadixRanker.assignRanks(score.values, score.ranks);
+	}
+
+	/**
+	 * Assign ranks to all scores. Scores are ranked in parallel if the temporary
+	 * memory required by the rankings (see
+	 * {@link RadixRanker#tempMemory(MappedArray)}) fits into the memory budget,
+	 * otherwise in multiple rounds. A single score is ranked even if it exceeds
+	 * the budget.
+	 *
+	 * @param memoryBudget heap memory (bytes) available for ranking
+	 */
+	public void assignRanks(long memoryBudget) {
+		List<CompletableFuture<Void>> running = new ArrayList<>();
+		long used = 0;
+		for (Score score : scores) {
+			long required = RadixRanker.tempMemory(score.values);
+			if (!running.isEmpty() && (used + required) > memoryBudget) {
+				CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+				running.clear();
+				used = 0;
+			}
+			running.add(CompletableFuture.runAsync(() -> assignRanks(score)));
+			used += required;
+		}
+		CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+	}
+
+	/**
+	 * Assign ranks to all scores, using three quarters of the free heap memory
+	 * as budget, see {@link #assignRanks(long)}.
+	 */
+	public void assignRanks() {
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		assignRanks(free / 4 * 3);
+	}
+
+	private long getRank(Score score, long id) {
+		if (score.ranks.type() == MappedArray.Type.INT) {
+			return score.ranks.getInt(id);
+		}
+		return score.ranks.getLong(id);
+	}
+
+	private void writeValue(Score score, long id, LineWriter out) {
+		switch (score.values.type()) {
+		case INT:
+			out.print(score.values.getInt(id));
+			break;
+		case LONG:
+			out.print(score.values.getLong(id));
+			break;
+		case FLOAT:
+			out.print(score.values.getFloat(id));
+			break;
+		default:
+			out.print(score.values.getDouble(id));
+		}
+	}
+
+	private void writeScores(long id, LineWriter out) {
+		boolean first = true;
+		for (Score score : scores) {
+			for (Column column : score.columns) {
+				if (!first) {
+					out.write('\t');
+				}
+				first = false;
+				if (column == Column.RANK) {
+					out.print(getRank(score, id));
+				} else {
+					writeValue(score, id, out);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Join the score columns with the node names line by line: the columns of all
+	 * scores are followed by the vertex line without the node ID. Lines without
+	 * a node ID are written as empty lines.
+	 *
+	 * @param in  vertex lines
+	 * @param out output
+	 */
+	public void convert(LineReader in, LineWriter out) {
+		while (in.next()) {
+			int sep = in.indexOf('\t');
+			if (sep == -1) {
+				out.println();
+				continue;
+			}
+			writeScores(in.parseLong(in.start(), sep), out);
+			out.write(in.buffer(), sep, in.end() - sep);
+			out.println();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Join the score columns with the node names and write the lines ordered by
+	 * the ranks of one score, see
+	 * {@link JoinSortRanks#convertSorted(LineReader, LineWriter, boolean, Path)}.
+	 *
+	 * @param in      vertex lines, sorted by node ID
+	 * @param out     output
+	 * @param orderBy index of the score (0-based) to order the output by
+	 */
+	public void convertSorted(LineReader in, LineWriter out, int orderBy) throws IOException {
+		Score score = scores.get(orderBy);
+		Path permFile = Files.createTempFile(tmpDir, "nodes-by-rank-", ".bin");
+		try (VertexNameStore names = VertexNameStore.build(in, numNodes, tmpDir);
+				MappedArray perm = MappedArray.create(permFile.toString(), score.ranks.type(), numNodes)) {
+			for (long id = 0; id < numNodes; id++) {
+				if (perm.type() == MappedArray.Type.INT) {
+					perm.setInt(getRank(score, id) - 1, (int) id);
+				} else {
+					perm.setLong(getRank(score, id) - 1, id);
+				}
+			}
+			LOG.info("Writing scores ordered by rank of {}", score.file);
+			for (long r = 0; r < numNodes; r++) {
+				long id = perm.type() == MappedArray.Type.INT ? perm.getInt(r) : perm.getLong(r);
+				if (names.contains(id)) {
+					writeScores(id, out);
+					names.write(id, out);
+					out.println();
+				}
+			}
+		} finally {
+			Files.deleteIfExists(permFile);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Delete the temporary rank files.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Score score : scores) {
+			if (score.ranksFile != null) {
+				Files.deleteIfExists(score.ranksFile);
+			}
+		}
+	}
+
+	private static void showHelp() {
+		System.err.println("JoinScores [options]... --score <type> <columns> <file> [--score ...]... <vertices> <out>");
+		System.err.println("");
+		System.err.println("Assign ranks to node scores and join ranks and values with node names.");
+		System.err.println("");
+		System.err.println("Options:");
+		System.err.println(" -h\t(also -? or --help) show usage message and exit");
+		System.err.println(" --score <type> <columns> <file>\tadd a score: binary file of values indexed by node ID");
+		System.err.println("                                \t  <type>    int, long, float or double");
+		System.err.println("                                \t  <columns> comma-separated list of output columns:");
+		System.err.println("                                \t            rank, value (eg. rank,value)");
+		System.err.println(" --order-by <n>\twrite the output ordered by the ranks of the n-th score (1-based)");
+		System.err.println("               \t(default: in the order of <vertices>)");
+		System.err.println(" --tmp-dir <dir>\tdirectory to hold temporary files (default: java.io.tmpdir)");
+		System.err.println("");
+		System.err.println("Input / output parameters (text must be UTF-8)");
+		System.err.println(" <vertices>\tvertices file with format:");
+		System.err.println("           \t  <id> \\t <name> [ \\t <optionalfield>]...");
+		System.err.println("           \t(gzipped, directory of part-* files or glob pattern)");
+		System.err.println(" <out>     \toutput, tab-separated: the columns of all scores followed by");
+		System.err.println("           \t  <name> <optionalfields>...");
+		System.err.println("           \t(gzip-compressed using multiple threads if the suffix is .gz)");
+		System.err.println("");
+		System.err.println("Ranks are assigned by decreasing value, ties are broken by node ID.");
+	}
+
+	private static Column[] parseColumns(String columns) {
+		String[] names = columns.split(",");
+		Column[] res = new Column[names.length];
+		for (int i = 0; i < names.length; i++) {
+			res[i] = Column.valueOf(names[i].toUpperCase(Locale.ROOT));
+		}
+		return res;
+	}
+
+	public static void main(String[] args) {
+		List<String[]> scoreArgs = new ArrayList<>();
+		int orderBy = -1;
+		Path tmpDir = Path.of(System.getProperty("java.io.tmpdir"));
+		int argpos = 0;
+		while (argpos < args.length && args[argpos].startsWith("-") && args[argpos].length() > 1) {
+			switch (args[argpos]) {
+			case "-?":
+			case "-h":
+			case "--help":
+				showHelp();
+				System.exit(0);
+			case "--score":
+				if ((argpos + 3) >= args.length) {
+					LOG.error("Missing values for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				scoreArgs.add(new String[] { args[++argpos], args[++argpos], args[++argpos] });
+				break;
+			case "--order-by":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					orderBy = Integer.parseInt(args[++argpos]) - 1;
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--tmp-dir":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				tmpDir = Path.of(args[++argpos]);
+				break;
+			default:
+				LOG.error("Unknown option: " + args[argpos]);
+				showHelp();
+				System.exit(1);
+			}
+			argpos++;
+		}
+		if ((args.length - argpos) < 2 || scoreArgs.isEmpty()) {
+			showHelp();
+			System.exit(1);
+		}
+		if (orderBy < -1 || orderBy >= scoreArgs.size()) {
+			LOG.error("Invalid score to order by: " + (orderBy + 1));
+			System.exit(1);
+		}
+		String verticesIn = args[argpos++];
+		String output = args[argpos++];
+		try (JoinScores joiner = new JoinScores(tmpDir); LineReader in = MultiPartInput.reader(verticesIn);
+				LineWriter out = LineWriter.open(output)) {
+			for (String[] score : scoreArgs) {
+				MappedArray.Type type;
+				Column[] columns;
+				try {
+					type = MappedArray.Type.valueOf(score[0].toUpperCase(Locale.ROOT));
+					columns = parseColumns(score[1]);
+				} catch (IllegalArgumentException e) {
+					LOG.error("Invalid type or columns of score: {} {}", score[0], score[1]);
+					showHelp();
+					System.exit(1);
+					return;
+				}
+				joiner.addScore(score[2], type, columns);
+			}
+			joiner.assignRanks();
+			if (orderBy >= 0) {
+				joiner.convertSorted(in, out, orderBy);
+			} else {
+				joiner.convert(in, out);
+			}
+			LOG.info("Finished joining {} scores", scoreArgs.size());
+		} catch (IOException e) {
+			LOG.error("Failed to join scores:", e);
+			System.exit(1);
+		}
+	}
+}
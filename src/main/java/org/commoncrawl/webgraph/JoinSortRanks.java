@@ -4,13 +4,16 @@
  */
 package org.commoncrawl.webgraph;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongToDoubleFunction;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
@@ -18,22 +21,27 @@ import org.slf4j.LoggerFactory;
 
 import it.unimi.dsi.fastutil.Arrays;
 import it.unimi.dsi.fastutil.BigArrays;
-import it.unimi.dsi.fastutil.ints.IntArrays;
-import it.unimi.dsi.fastutil.ints.IntComparator;
 import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.longs.LongBigArrays;
-import it.unimi.dsi.fastutil.longs.LongComparator;
 
 /**
  * Assign ranks to harmonic centrality and page rank values, join ranks with
  * node names and sort by decreasing harmonic centrality rank/score.
  * 
  * Sorting and joining is done in memory. For a graph with <i>n</i> nodes, the
- * required memory is 24 * <i>n</i> bytes, resp. 36 * <i>n</i> bytes if <i>n</i>
- * &gt; {@link Arrays#MAX_ARRAY_SIZE}. In practice, the requirements are higher
- * by about 50%.
+ * required memory is 40 * <i>n</i> bytes (values and ranks, plus temporary
+ * buffers of the radix sort, see {@link RadixRanker}), resp. 52 * <i>n</i>
+ * bytes if <i>n</i> &gt; {@link Arrays#MAX_ARRAY_SIZE}. In practice, the
+ * requirements are higher by about 50%. If more memory is available, the
+ * harmonic centrality and page rank ranks are assigned in parallel: 52 *
+ * <i>n</i> resp. 68 * <i>n</i> bytes. If the values and ranks are
+ * memory-mapped (see {@link JoinSortRanksMapped}), the heap needs to hold only
+ * the working set of the radix sort: 24 * <i>n</i> bytes, resp. 32 * <i>n</i>
+ * bytes for more than 2^31 nodes (40 * <i>n</i> resp. 56 * <i>n</i> bytes to
+ * assign both rankings in parallel).
  */
-public class JoinSortRanks {
+public class JoinSortRanks implements Closeable {
 
 	protected static Logger LOG = LoggerFactory.getLogger(JoinSortRanks.class);
 
@@ -42,7 +50,9 @@ public class JoinSortRanks {
 
 	private int[] harmonicCentralityRanks;
 	private int[] pageRankRanks;
-	private int[] indirectSortPerm;
+
+	/* prefix of the rank files written by writeRankFiles(String) */
+	private String rankFilesPrefix;
 
 	public void loadHarmonicCentrality(String ranksHC) throws IOException {
 		harmonicCentralityValues = BinIO.loadFloats(ranksHC);
@@ -54,61 +64,56 @@ public class JoinSortRanks {
 		pageRankRanks = new int[pageRankValues.length];
 	}
 
-	private int compareHarmonicCentralityIndirect(int k1, int k2) {
-		k1 = indirectSortPerm[k1];
-		k2 = indirectSortPerm[k2];
-		float f1 = harmonicCentralityValues[k1];
-		float f2 = harmonicCentralityValues[k2];
-		// sort in reverse order, higher values first
-		if (f1 < f2) {
-			return 1;
-		}
-		if (f1 > f2) {
-			return -1;
-		}
-		// secondary sorting by original order (node IDs)
-		return Integer.compare(k1, k2);
-	}
-
-	private int comparePageRankIndirect(int k1, int k2) {
-		k1 = indirectSortPerm[k1];
-		k2 = indirectSortPerm[k2];
-		double f1 = pageRankValues[k1];
-		double f2 = pageRankValues[k2];
-		// sort in reverse order, higher values first
-		if (f1 < f2) {
-			return 1;
-		}
-		if (f1 > f2) {
-			return -1;
-		}
-		// secondary sorting by original order (node IDs)
-		return Integer.compare(k1, k2);
+	/**
+	 * Assign ranks to the harmonic centrality values, highest value first, ties
+	 * ordered by node ID. See {@link RadixRanker}.
+	 */
+	public void assignHarmonicCentralityRank() {
+		RadixRanker.assignRanks(harmonicCentralityValues, harmonicCentralityRanks);
 	}
 
-	private void swapIndirect(int k1, int k2) {
-		IntArrays.swap(indirectSortPerm, k1, k2);
+	/**
+	 * Assign ranks to the page rank values, see
+	 * {@link #assignHarmonicCentralityRank()}.
+	 */
+	public void assignPageRankRank() {
+		RadixRanker.assignRanks(pageRankValues, pageRankRanks);
 	}
 
-	private void assignRank(int[] ranks, IntComparator comp) {
-		int length = ranks.length;
-		indirectSortPerm = new int[length];
-		for (int i = 0; i < length; i++) {
-			indirectSortPerm[i] = i;
-		}
-		Arrays.parallelQuickSort(0, length, comp, this::swapIndirect);
-		for (int i = 0; i < length;) {
-			ranks[indirectSortPerm[i]] = ++i;
-		}
-		indirectSortPerm = null;
+	protected long numNodes() {
+		return harmonicCentralityValues.length;
 	}
 
-	public void assignHarmonicCentralityRank() {
-		assignRank(harmonicCentralityRanks, this::compareHarmonicCentralityIndirect);
+	/**
+	 * @return temporary memory (bytes) required to assign both harmonic
+	 *         centrality and page rank ranks at the same time
+	 */
+	protected long tempMemoryRanking() {
+		return numNodes() * (RadixRanker.TEMP_BYTES_FLOAT + RadixRanker.TEMP_BYTES_DOUBLE);
 	}
 
-	public void assignPageRankRank() {
-		assignRank(pageRankRanks, this::comparePageRankIndirect);
+	/**
+	 * Assign harmonic centrality and page rank ranks. Both rankings run
+	 * concurrently if the free heap memory is sufficient to hold the temporary
+	 * buffers of both, otherwise one after the other. The values must be loaded
+	 * and the ranks arrays allocated before.
+	 */
+	public void assignRanks() {
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		long required = tempMemoryRanking();
+		// leave some headroom for the garbage collector
+		if (required < (free / 4 * 3)) {
+			LOG.info("Assigning harmonic centrality and page rank ranks in parallel");
+			CompletableFuture<Void> hc = CompletableFuture.runAsync(this::assignHarmonicCentralityRank);
+			assignPageRankRank();
+			hc.join();
+		} else {
+			LOG.info("Assigning harmonic centrality ranks");
+			assignHarmonicCentralityRank();
+			LOG.info("Assigning page rank ranks");
+			assignPageRankRank();
+		}
 	}
 
 	protected float getHarmonicCentralityValue(long id) {
@@ -127,8 +132,255 @@ public class JoinSortRanks {
 		return pageRankRanks[(int) id];
 	}
 
-	public void convert(Function<String, String> func, Stream<String> in, PrintStream out) {
+	/**
+	 * Release resources, write data held in memory-mapped files to disk.
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+
+	public void convert(Function<String, String> func, Stream<String> in, LineWriter out) {
 		in.map(func).forEach(out::println);
+		out.flush();
+	}
+
+	/**
+	 * Join ranks with the node names line by line, see
+	 * {@link #addRanks(LineReader, LineWriter)}.
+	 */
+	public void convert(LineReader in, LineWriter out) {
+		while (in.next()) {
+			addRanks(in, out);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the ranks and values of the node in the current line followed by the
+	 * node name and optional fields, same as {@link #addRanks(String)}. The node
+	 * ID is parsed in place and the remainder of the line is copied as bytes
+	 * without decoding it.
+	 * 
+	 * @param line line reader positioned on the vertex line
+	 * @param out  ranks output
+	 */
+	public void addRanks(LineReader line, LineWriter out) {
+		int sep = line.indexOf('\t');
+		if (sep == -1) {
+			out.println();
+			return;
+		}
+		long id = line.parseLong(line.start(), sep);
+		writeRanks(id, out);
+		out.write(line.buffer(), sep, line.end() - sep);
+		out.println();
+	}
+
+	private void writeRanks(long id, LineWriter out) {
+		out.print(getHarmonicCentralityRank(id));
+		out.write('\t');
+		out.print(getHarmonicCentralityValue(id));
+		out.write('\t');
+		out.print(getPageRankRank(id));
+		out.write('\t');
+		out.print(getPageRankValue(id));
+	}
+
+	/**
+	 * Invert the ranks: write the permutation of node IDs ordered by rank into a
+	 * memory-mapped file (binary ints, or longs if there are more than 2^31
+	 * nodes).
+	 *
+	 * @param byPageRank order by page rank instead of harmonic centrality rank
+	 * @param file       file to hold the permutation
+	 * @return the permutation, node IDs indexed by rank - 1
+	 */
+	public MappedArray nodesByRank(boolean byPageRank, String file) throws IOException {
+		final long numNodes = numNodes();
+		MappedArray.Type type = numNodes > Integer.MAX_VALUE ? MappedArray.Type.LONG : MappedArray.Type.INT;
+		MappedArray perm = MappedArray.create(file, type, numNodes);
+		forEachNode(id -> {
+			long rank = getRank(byPageRank, id);
+			if (type == MappedArray.Type.INT) {
+				perm.setInt(rank - 1, (int) id);
+			} else {
+				perm.setLong(rank - 1, id);
+			}
+		});
+		return perm;
+	}
+
+	private long getRank(boolean byPageRank, long id) {
+		return byPageRank ? getPageRankRank(id) : getHarmonicCentralityRank(id);
+	}
+
+	/* run the action for all node IDs, in parallel */
+	private void forEachNode(LongConsumer action) {
+		final long numNodes = numNodes();
+		final int chunks = Runtime.getRuntime().availableProcessors();
+		final long chunkSize = (numNodes + chunks - 1) / chunks;
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(numNodes, (c + 1) * chunkSize);
+			for (long id = c * chunkSize; id < end; id++) {
+				action.accept(id);
+			}
+		});
+	}
+
+	/**
+	 * Write the harmonic centrality and page rank ranks into {@link RankFile}s,
+	 * for each ranking the ranks by node ID and the node IDs by rank:
+	 * <code>&lt;prefix&gt;-harmonicc-ranks.bin</code>,
+	 * <code>&lt;prefix&gt;-harmonicc-ranked-ids.bin</code>,
+	 * <code>&lt;prefix&gt;-pagerank-ranks.bin</code> and
+	 * <code>&lt;prefix&gt;-pagerank-ranked-ids.bin</code>. The ranks must be
+	 * assigned before.
+	 *
+	 * @param prefix path prefix of the rank files
+	 */
+	public void writeRankFiles(String prefix) throws IOException {
+		writeRankFiles(prefix, true);
+	}
+
+	/**
+	 * @param prefix    path prefix of the rank files
+	 * @param ranksById if false write only the node IDs by rank, the ranks by
+	 *                  node ID are already held in the rank files
+	 */
+	protected void writeRankFiles(String prefix, boolean ranksById) throws IOException {
+		for (boolean byPageRank : new boolean[] { false, true }) {
+			String name = rankFileName(prefix, byPageRank, RankFile.Kind.ID_BY_RANK);
+			LOG.info("Writing rank file {}", name);
+			try (RankFile ids = RankFile.create(name, RankFile.Kind.ID_BY_RANK, numNodes())) {
+				if (!ranksById) {
+					forEachNode(id -> ids.set(getRank(byPageRank, id) - 1, id));
+					continue;
+				}
+				name = rankFileName(prefix, byPageRank, RankFile.Kind.RANK_BY_ID);
+				LOG.info("Writing rank file {}", name);
+				try (RankFile ranks = RankFile.create(name, RankFile.Kind.RANK_BY_ID, numNodes())) {
+					forEachNode(id -> {
+						long rank = getRank(byPageRank, id);
+						ranks.set(id, rank);
+						ids.set(rank - 1, id);
+					});
+				}
+			}
+		}
+		rankFilesPrefix = prefix;
+	}
+
+	/**
+	 * @return the path of the rank file, see {@link #writeRankFiles(String)}
+	 */
+	protected static String rankFileName(String prefix, boolean byPageRank, RankFile.Kind kind) {
+		return prefix + (byPageRank ? "-pagerank" : "-harmonicc") + kind.suffix;
+	}
+
+	/**
+	 * Join ranks with the node names and write the lines ordered by harmonic
+	 * centrality rank (or page rank), the same output as
+	 * {@link #convert(LineReader, LineWriter)} sorted numerically by the rank
+	 * column. The vertex names are held in a temporary {@link VertexNameStore}.
+	 * The node IDs ordered by rank are read from the rank file if written before
+	 * by {@link #writeRankFiles(String)}, otherwise they are obtained by inverting
+	 * the ranks into a temporary file. Lines without a node ID are skipped.
+	 *
+	 * @param in         vertex lines, sorted by node ID
+	 * @param out        ranks output
+	 * @param byPageRank order by page rank instead of harmonic centrality rank
+	 * @param tmpDir     directory to hold temporary files
+	 */
+	public void convertSorted(LineReader in, LineWriter out, boolean byPageRank, Path tmpDir) throws IOException {
+		long numNodes = numNodes();
+		Path permFile = null;
+		if (rankFilesPrefix == null) {
+			permFile = Files.createTempFile(tmpDir, "nodes-by-rank-", ".bin");
+		}
+		try (VertexNameStore names = VertexNameStore.build(in, numNodes, tmpDir);
+				RankFile rankedIds = permFile != null ? null
+						: RankFile.open(rankFileName(rankFilesPrefix, byPageRank, RankFile.Kind.ID_BY_RANK));
+				MappedArray inverted = permFile != null ? nodesByRank(byPageRank, permFile.toString()) : null) {
+			MappedArray perm = inverted != null ? inverted : rankedIds.array();
+			LOG.info("Writing ranks ordered by {} rank", byPageRank ? "page" : "harmonic centrality");
+			for (long r = 0; r < numNodes; r++) {
+				long id = perm.type() == MappedArray.Type.INT ? perm.getInt(r) : perm.getLong(r);
+				if (names.contains(id)) {
+					writeRanks(id, out);
+					names.write(id, out);
+					out.println();
+				}
+			}
+		} finally {
+			if (permFile != null) {
+				Files.deleteIfExists(permFile);
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the top <i>k</i> nodes by harmonic centrality (or page rank) in rank
+	 * order, the same lines as written by
+	 * {@link #convertSorted(LineReader, LineWriter, boolean, Path)} for the nodes
+	 * ranked 1 to <i>k</i>. The ranks
+	 * need not be assigned: the top nodes are selected and the ranks by the
+	 * other value are determined by {@link TopRanks}. Only the names of the
+	 * selected nodes are read from the vertex lines.
+	 *
+	 * @param in         vertex lines, sorted by node ID
+	 * @param out        ranks output
+	 * @param k          number of nodes to write
+	 * @param byPageRank select by page rank instead of harmonic centrality
+	 */
+	public void convertTopK(LineReader in, LineWriter out, int k, boolean byPageRank) {
+		long numNodes = numNodes();
+		LongToDoubleFunction hc = this::getHarmonicCentralityValue;
+		LongToDoubleFunction pr = this::getPageRankValue;
+		LOG.info("Selecting top {} nodes by {}", k, byPageRank ? "page rank" : "harmonic centrality");
+		long[] top = TopRanks.select(numNodes, byPageRank ? pr : hc, k);
+		LOG.info("Determining {} ranks of top {} nodes", byPageRank ? "harmonic centrality" : "page", top.length);
+		long[] otherRanks = TopRanks.ranks(numNodes, byPageRank ? hc : pr, top);
+
+		// join names: stream the vertices and pick the selected nodes in ID order
+		long[] ids = top.clone();
+		long[] positions = new long[top.length];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = i;
+		}
+		LongArrays.radixSort(ids, positions);
+		byte[][] names = new byte[top.length][];
+		int next = 0;
+		while (next < ids.length && in.next()) {
+			int sep = in.indexOf('\t');
+			if (sep == -1) {
+				continue;
+			}
+			long id = in.parseLong(in.start(), sep);
+			while (next < ids.length && ids[next] < id) {
+				next++;
+			}
+			if (next < ids.length && ids[next] == id) {
+				names[(int) positions[next++]] = java.util.Arrays.copyOfRange(in.buffer(), sep, in.end());
+			}
+		}
+
+		for (int i = 0; i < top.length; i++) {
+			if (names[i] == null) {
+				continue;
+			}
+			long id = top[i];
+			out.print(byPageRank ? otherRanks[i] : i + 1);
+			out.write('\t');
+			out.print(getHarmonicCentralityValue(id));
+			out.write('\t');
+			out.print(byPageRank ? i + 1 : otherRanks[i]);
+			out.write('\t');
+			out.print(getPageRankValue(id));
+			out.write(names[i], 0, names[i].length);
+			out.println();
+		}
+		out.flush();
 	}
 
 	public String addRanks(String line) {
@@ -171,7 +423,6 @@ public class JoinSortRanks {
 
 		private long[][] harmonicCentralityRanks;
 		private long[][] pageRankRanks;
-		private long[][] indirectSortPerm;
 
 		public void loadHarmonicCentrality(String ranksFile) throws IOException {
 			harmonicCentralityValues = BinIO.loadFloatsBig(ranksFile);
@@ -185,108 +436,274 @@ public class JoinSortRanks {
 			pageRankRanks = LongBigArrays.newBigArray(length);
 		}
 
-		private int compareHarmonicCentralityIndirect(long k1, long k2) {
-			k1 = BigArrays.get(indirectSortPerm, k1);
-			k2 = BigArrays.get(indirectSortPerm, k2);
-			float f1 = BigArrays.get(harmonicCentralityValues, k1);
-			float f2 = BigArrays.get(harmonicCentralityValues, k2);
-			// sort in reverse order, higher values first
-			if (f1 < f2) {
-				return 1;
-			}
-			if (f1 > f2) {
-				return -1;
-			}
-			// secondary sorting by original order (node IDs)
-			return Long.compare(k1, k2);
-		}
-
-		private int comparePageRankIndirect(long k1, long k2) {
-			k1 = BigArrays.get(indirectSortPerm, k1);
-			k2 = BigArrays.get(indirectSortPerm, k2);
-			double f1 = BigArrays.get(pageRankValues, k1);
-			double f2 = BigArrays.get(pageRankValues, k2);
-			// sort in reverse order, higher values first
-			if (f1 < f2) {
-				return 1;
-			}
-			if (f1 > f2) {
-				return -1;
-			}
-			// secondary sorting by original order (node IDs)
-			return Long.compare(k1, k2);
+		/**
+		 * Assign ranks to the harmonic centrality values, see
+		 * {@link RadixRanker#assignRanks(float[][], long[][])}.
+		 */
+		public void assignHarmonicCentralityRank() {
+			RadixRanker.assignRanks(harmonicCentralityValues, harmonicCentralityRanks);
 		}
 
-		private void swapIndirect(long k1, long k2) {
-			BigArrays.swap(indirectSortPerm, k1, k2);
+		/**
+		 * Assign ranks to the page rank values, see
+		 * {@link RadixRanker#assignRanks(double[][], long[][])}.
+		 */
+		public void assignPageRankRank() {
+			RadixRanker.assignRanks(pageRankValues, pageRankRanks);
 		}
 
-		private void assignRank(long[][] ranks, LongComparator comp) {
-			long length = BigArrays.length(ranks);
-			indirectSortPerm = LongBigArrays.newBigArray(length);
-			for (long i = 0; i < length; i++) {
-				BigArrays.set(indirectSortPerm, i, i);
-			}
-			BigArrays.quickSort(0, length, comp, this::swapIndirect);
-			for (long i = 0; i < length;) {
-				BigArrays.set(ranks, BigArrays.get(indirectSortPerm, i), ++i);
+		protected long numNodes() {
+			return BigArrays.length(harmonicCentralityValues);
+		}
+
+		protected long tempMemoryRanking() {
+			return numNodes() * (RadixRanker.TEMP_BYTES_FLOAT_BIG + RadixRanker.TEMP_BYTES_DOUBLE_BIG);
+		}
+
+		protected float getHarmonicCentralityValue(long id) {
+			return BigArrays.get(harmonicCentralityValues, id);
+		}
+
+		protected long getHarmonicCentralityRank(long id) {
+			return BigArrays.get(harmonicCentralityRanks, id);
+		}
+
+		protected double getPageRankValue(long id) {
+			return BigArrays.get(pageRankValues, id);
+		}
+
+		protected long getPageRankRank(long id) {
+			return BigArrays.get(pageRankRanks, id);
+		}
+
+	}
+
+	/**
+	 * Implementation of {@link JoinSortRanks} reading the values from
+	 * memory-mapped files and writing the ranks into memory-mapped
+	 * {@link RankFile}s holding the ranks by node ID:
+	 * <code>&lt;prefix&gt;-harmonicc-ranks.bin</code> and
+	 * <code>&lt;prefix&gt;-pagerank-ranks.bin</code>. Only the working set of the
+	 * radix sort is held on the heap, see
+	 * {@link RadixRanker#assignRanks(MappedArray, MappedArray)}. The rank files
+	 * are kept and can be reused. If {@link #writeRankFiles(String)} is called
+	 * with the same prefix, only the node IDs by rank are written.
+	 */
+	public static class JoinSortRanksMapped extends JoinSortRanks {
+
+		private final String ranksPrefix;
+
+		private MappedArray harmonicCentralityValues;
+		private MappedArray pageRankValues;
+
+		private RankFile harmonicCentralityRankFile;
+		private RankFile pageRankRankFile;
+		private MappedArray harmonicCentralityRanks;
+		private MappedArray pageRankRanks;
+
+		/**
+		 * @param ranksPrefix path prefix of the rank files holding the ranks by node
+		 *                    ID
+		 */
+		public JoinSortRanksMapped(String ranksPrefix) {
+			this.ranksPrefix = ranksPrefix;
+		}
+
+		private RankFile createRanks(boolean byPageRank, long length) {
+			try {
+				return RankFile.create(rankFileName(ranksPrefix, byPageRank, RankFile.Kind.RANK_BY_ID),
+						RankFile.Kind.RANK_BY_ID, length);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
 			}
-			indirectSortPerm = null;
 		}
 
+		public void loadHarmonicCentrality(String ranksFile) throws IOException {
+			harmonicCentralityValues = MappedArray.map(ranksFile, MappedArray.Type.FLOAT);
+		}
+
+		public void loadPageRank(String ranksFile) throws IOException {
+			pageRankValues = MappedArray.map(ranksFile, MappedArray.Type.DOUBLE);
+		}
+
+		/**
+		 * Assign ranks to the harmonic centrality values, the rank file is created
+		 * first.
+		 */
 		public void assignHarmonicCentralityRank() {
-			assignRank(harmonicCentralityRanks, this::compareHarmonicCentralityIndirect);
+			harmonicCentralityRankFile = createRanks(false, harmonicCentralityValues.length());
+			harmonicCentralityRanks = harmonicCentralityRankFile.array();
+			RadixRanker.assignRanks(harmonicCentralityValues, harmonicCentralityRanks);
 		}
 
+		/**
+		 * Assign ranks to the page rank values, the rank file is created first.
+		 */
 		public void assignPageRankRank() {
-			assignRank(pageRankRanks, this::comparePageRankIndirect);
+			pageRankRankFile = createRanks(true, pageRankValues.length());
+			pageRankRanks = pageRankRankFile.array();
+			RadixRanker.assignRanks(pageRankValues, pageRankRanks);
+		}
+
+		protected long numNodes() {
+			return harmonicCentralityValues.length();
+		}
+
+		protected long tempMemoryRanking() {
+			return RadixRanker.tempMemory(harmonicCentralityValues) + RadixRanker.tempMemory(pageRankValues);
 		}
 
 		protected float getHarmonicCentralityValue(long id) {
-			return BigArrays.get(harmonicCentralityValues, id);
+			return harmonicCentralityValues.getFloat(id);
 		}
 
 		protected long getHarmonicCentralityRank(long id) {
-			return BigArrays.get(harmonicCentralityRanks, id);
+			if (harmonicCentralityRanks.type() == MappedArray.Type.INT) {
+				return harmonicCentralityRanks.getInt(id);
+			}
+			return harmonicCentralityRanks.getLong(id);
 		}
 
 		protected double getPageRankValue(long id) {
-			return BigArrays.get(pageRankValues, id);
+			return pageRankValues.getDouble(id);
 		}
 
 		protected long getPageRankRank(long id) {
-			return BigArrays.get(pageRankRanks, id);
+			if (pageRankRanks.type() == MappedArray.Type.INT) {
+				return pageRankRanks.getInt(id);
+			}
+			return pageRankRanks.getLong(id);
+		}
+
+		/**
+		 * {@inheritDoc} The ranks by node ID are not written again if the prefix is
+		 * the same as that of the rank files holding the assigned ranks.
+		 */
+		@Override
+		public void writeRankFiles(String prefix) throws IOException {
+			boolean sameFiles = ranksPrefix != null
+					&& Path.of(prefix).toAbsolutePath().equals(Path.of(ranksPrefix).toAbsolutePath());
+			writeRankFiles(prefix, !sameFiles);
 		}
 
+		/**
+		 * Write the ranks to the rank files.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (harmonicCentralityRankFile != null) {
+				harmonicCentralityRankFile.close();
+			}
+			if (pageRankRankFile != null) {
+				pageRankRankFile.close();
+			}
+		}
 	}
 
 	private static void showHelp() {
-		System.err.println("JoinSortRanks [--big] <vertices> <hc.bin> <pr.bin> <ranks_out>");
+		System.err.println("JoinSortRanks [options]... <vertices> <hc.bin> <pr.bin> <ranks_out>");
 		System.err.println("");
 		System.err.println("Assign ranks to harmonic centrality and page rank values,");
 		System.err.println("and join ranks with node names.");
 		System.err.println("");
 		System.err.println("Options:");
 		System.err.println(" --big\tgraphs are \"big\" (more than 2^31 nodes)");
+		System.err.println(" --mmap <ranks_prefix>\tmemory-map the value files and write the ranks into");
+		System.err.println("                      \tmemory-mapped rank files by node ID (see RankFile):");
+		System.err.println("                      \t<ranks_prefix>-harmonicc-ranks.bin and");
+		System.err.println("                      \t<ranks_prefix>-pagerank-ranks.bin. Only the working set");
+		System.err.println("                      \tof the sort is held in the Java heap, --big is implied");
+		System.err.println("                      \tif required.");
+		System.err.println(" --order-by <harmonicc|pagerank>\twrite the output ordered by harmonic centrality");
+		System.err.println("                                \tor page rank (default: in the order of <vertices>)");
+		System.err.println(" --rank-files <prefix>\talso write the ranks into binary rank files, ranks by node ID");
+		System.err.println("                      \tand node IDs by rank, for fast lookups (see RankFile):");
+		System.err.println("                      \t<prefix>-harmonicc-ranks.bin, <prefix>-harmonicc-ranked-ids.bin,");
+		System.err.println("                      \t<prefix>-pagerank-ranks.bin, <prefix>-pagerank-ranked-ids.bin");
+		System.err.println("                      \t(ignored if --top-k is used). The ranks by node ID are not");
+		System.err.println("                      \twritten again if <prefix> is the same as <ranks_prefix>.");
+		System.err.println("                      \tThe node IDs by rank are also used by --order-by.");
+		System.err.println(" --top-k <n>\twrite only the top <n> nodes by harmonic centrality (or page rank");
+		System.err.println("            \tif --order-by pagerank) in rank order, without ranking all nodes");
+		System.err.println(" --tmp-dir <dir>\tdirectory to hold temporary files (vertex names and ranks");
+		System.err.println("                \tpermutation, if no --rank-files are written) if --order-by");
+		System.err.println("                \tis used (default: java.io.tmpdir)");
 		System.err.println("");
 		System.err.println("Input / output parameters (text must be UTF-8)");
 		System.err.println(" <vertices>\tvertices file with format:");
 		System.err.println("           \t  <id> \\t <name> [ \\t <optionalfield>]...");
+		System.err.println("           \t(gzipped, directory of part-* files or glob pattern)");
 		System.err.println(" <hc.bin>  \tharmonic centrality values, binary floats");
 		System.err.println(" <pr.bin>  \tpage rank values, binary doubles");
 		System.err.println(" <ranks_out>\tranks output, tab-separated:");
 		System.err.println("            \t   <hc_rank> <hc_val> <pr_rank> <pr_val> <name> <optfields>...");
+		System.err.println("            \t(gzip-compressed using multiple threads if the suffix is .gz)");
 		System.err.println("");
 	}
 
 	public static void main(String[] args) {
 		boolean useBigGraph = false;
+		String mmapRanksPrefix = null;
+		String rankFilesPrefix = null;
+		String orderBy = null;
+		int topK = -1;
+		Path tmpDir = Path.of(System.getProperty("java.io.tmpdir"));
 		int argpos = 0;
 		while (argpos < args.length && args[argpos].startsWith("-")) {
 			switch (args[argpos]) {
 			case "--big":
 				useBigGraph = true;
 				break;
+			case "--mmap":
+				if ((argpos + 1) >= args.length) {
+					System.err.println("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				mmapRanksPrefix = args[++argpos];
+				break;
+			case "--rank-files":
+				if ((argpos + 1) >= args.length) {
+					System.err.println("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				rankFilesPrefix = args[++argpos];
+				break;
+			case "--order-by":
+				if ((argpos + 1) >= args.length) {
+					System.err.println("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				orderBy = args[++argpos];
+				if (!orderBy.equals("harmonicc") && !orderBy.equals("pagerank")) {
+					System.err.println("Invalid value for option --order-by: " + orderBy);
+					showHelp();
+					System.exit(1);
+				}
+				break;
+			case "--top-k":
+				if ((argpos + 1) >= args.length) {
+					System.err.println("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					topK = Integer.parseInt(args[++argpos]);
+				} catch (NumberFormatException e) {
+					System.err.println("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			case "--tmp-dir":
+				if ((argpos + 1) >= args.length) {
+					System.err.println("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				tmpDir = Path.of(args[++argpos]);
+				break;
 			default:
 				System.err.println("Unknown option " + args[argpos]);
 				showHelp();
@@ -299,7 +716,9 @@ public class JoinSortRanks {
 			System.exit(1);
 		}
 		JoinSortRanks converter;
-		if (useBigGraph) {
+		if (mmapRanksPrefix != null) {
+			converter = new JoinSortRanksMapped(mmapRanksPrefix);
+		} else if (useBigGraph) {
 			converter = new JoinSortRanksBig();
 		} else {
 			converter = new JoinSortRanks();
@@ -309,24 +728,27 @@ public class JoinSortRanks {
 		String ranksHC = args[argpos++];
 		String ranksPR = args[argpos++];
 		String ranksOut = args[argpos++];
-		try (Stream<String> in = Files.lines(Paths.get(nodesIn), StandardCharsets.UTF_8)) {
-			OutputStream ranksOutStream;
-			if (ranksOut.equals("-")) {
-				ranksOutStream = System.out;
-			} else {
-				ranksOutStream = Files.newOutputStream(Paths.get(ranksOut));
-			}
-			PrintStream out = new PrintStream(ranksOutStream, false, StandardCharsets.UTF_8);
+		try (converter; LineReader in = MultiPartInput.reader(nodesIn);
+				LineWriter out = LineWriter.open(ranksOut)) {
 			LOG.info("Loading harmonic centrality values from {}", ranksHC);
 			converter.loadHarmonicCentrality(ranksHC);
 			LOG.info("Loading page rank values from {}", ranksPR);
 			converter.loadPageRank(ranksPR);
-			LOG.info("Assigning harmonic centrality ranks");
-			converter.assignHarmonicCentralityRank();
-			LOG.info("Assigning page rank ranks");
-			converter.assignPageRankRank();
+			if (topK >= 0) {
+				converter.convertTopK(in, out, topK, "pagerank".equals(orderBy));
+				LOG.info("Finished writing top {} ranks", topK);
+				return;
+			}
+			converter.assignRanks();
+			if (rankFilesPrefix != null) {
+				converter.writeRankFiles(rankFilesPrefix);
+			}
 			LOG.info("Joining ranks");
-			converter.convert(converter::addRanks, in, out);
+			if (orderBy != null) {
+				converter.convertSorted(in, out, orderBy.equals("pagerank"), tmpDir);
+			} else {
+				converter.convert(in, out);
+			}
 			LOG.info("Finished joining ranks");
 		} catch (IOException e) {
 			LOG.error("Failed to join ranks:", e);
@@ -0,0 +1,433 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Read lines of text as bytes without decoding them into strings. The input
+ * is read into a large buffer, lines are handed out as ranges of the buffer
+ * ({@link #buffer()}, {@link #start()}, {@link #end()}) which are valid until
+ * the next line is read. Numeric fields are parsed in place, see
+ * {@link #parseLong(int, int)}, so that reading the vertex and edge lists
+ * (&lt;id&gt; \t &lt;name&gt; resp. &lt;from&gt; \t &lt;to&gt;) does not create
+ * any objects per line.
+ *
+ * <p>
+ * Lines are terminated by a newline character (<code>\n</code>), an optional
+ * preceding carriage return (<code>\r</code>) is stripped. The last line of
+ * the input does not need to be terminated.
+ * </p>
+ */
+public class LineReader implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final InputStream in;
+	private byte[] buffer;
+	/* end of the valid data in the buffer */
+	private int limit;
+	/* start of the next line */
+	private int pos = 0;
+	/* current line */
+	private int start = 0;
+	private int end = 0;
+	private boolean eof;
+	/* number of bytes read from the input before the buffer start */
+	private long bufferOffset = 0;
+	private long lineNumber = 0;
+
+	public LineReader(InputStream in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	public LineReader(InputStream in, int bufferSize) {
+		this.in = in;
+		buffer = new byte[bufferSize];
+		limit = 0;
+		eof = false;
+	}
+
+	/**
+	 * Read the lines held in a byte array.
+	 *
+	 * @param data byte array
+	 * @param from start offset of the first line
+	 * @param to   end offset (exclusive) of the last line
+	 */
+	public LineReader(byte[] data, int from, int to) {
+		this.in = null;
+		buffer = data;
+		pos = from;
+		start = end = from;
+		limit = to;
+		eof = true;
+	}
+
+	/**
+	 * Read the lines provided by an iterator, eg. to pass a stream of strings
+	 * to a method expecting a {@link LineReader}.
+	 *
+	 * @param lines input lines, without line terminators
+	 * @return reader on the UTF-8 encoded lines
+	 */
+	public static LineReader of(Iterator<String> lines) {
+		return new LineReader(new InputStream() {
+			private byte[] line = new byte[0];
+			private int pos = 0;
+
+			private boolean nextLine() {
+				while (pos == line.length) {
+					if (!lines.hasNext()) {
+						return false;
+					}
+					line = (lines.next() + "\n").getBytes(StandardCharsets.UTF_8);
+					pos = 0;
+				}
+				return true;
+			}
+
+			@Override
+			public int read() {
+				if (!nextLine()) {
+					return -1;
+				}
+				return line[pos++] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) {
+				if (len == 0) {
+					return 0;
+				}
+				if (!nextLine()) {
+					return -1;
+				}
+				int n = Math.min(len, line.length - pos);
+				System.arraycopy(line, pos, b, off, n);
+				pos += n;
+				return n;
+			}
+		}, 1 << 16);
+	}
+
+	/**
+	 * Read more data into the buffer. The data of the current line and of the
+	 * lines not yet read is moved to the start of the buffer. The buffer is
+	 * grown if it is full.
+	 *
+	 * @return false if the end of the input is reached
+	 */
+	private boolean fill() {
+		if (eof) {
+			return false;
+		}
+		if (start > 0) {
+			int keep = start;
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			bufferOffset += keep;
+			limit -= keep;
+			pos -= keep;
+			end -= keep;
+			start = 0;
+		}
+		if (limit == buffer.length) {
+			buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+		}
+		try {
+			int n = in.read(buffer, limit, buffer.length - limit);
+			if (n == -1) {
+				eof = true;
+				return false;
+			}
+			limit += n;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Read the next line.
+	 *
+	 * @return false if there are no more lines
+	 * @throws UncheckedIOException if reading the input fails
+	 */
+	public boolean next() {
+		start = end = pos;
+		int i = pos;
+		while (true) {
+			for (; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					end = i;
+					pos = i + 1;
+					if (end > start && buffer[end - 1] == '\r') {
+						end--;
+					}
+					lineNumber++;
+					return true;
+				}
+			}
+			int scanned = i - start;
+			if (!fill()) {
+				break;
+			}
+			i = start + scanned;
+		}
+		if (start == limit) {
+			return false;
+		}
+		// last line without line terminator
+		end = pos = limit;
+		if (buffer[end - 1] == '\r') {
+			end--;
+		}
+		lineNumber++;
+		return true;
+	}
+
+	/**
+	 * Skip lines.
+	 *
+	 * @param n number of lines to skip
+	 * @return number of lines skipped, less than <code>n</code> if the end of
+	 *         the input is reached
+	 */
+	public long skip(long n) {
+		long skipped = 0;
+		while (skipped < n && next()) {
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/**
+	 * Take a block of complete lines from the input, eg. to parse the lines in
+	 * a different thread. The lines in the block are not counted in
+	 * {@link #lineNumber()}.
+	 *
+	 * @param size approx. size of the block in bytes. The block is smaller if
+	 *             the end of the input is reached, and larger only if a single
+	 *             line is longer.
+	 * @return a reader on a copy of the lines, or null if there are no more
+	 *         lines
+	 */
+	public LineReader nextBlock(int size) {
+		start = end = pos;
+		while ((limit - pos) < size && fill()) {
+			// fill the buffer (growing it if necessary) to hold a complete block
+		}
+		if (pos == limit) {
+			return null;
+		}
+		int blockEnd = -1;
+		if (eof && (limit - pos) <= size) {
+			blockEnd = limit;
+		} else {
+			for (int i = Math.min(limit, pos + size) - 1; i >= pos; i--) {
+				if (buffer[i] == '\n') {
+					blockEnd = i + 1;
+					break;
+				}
+			}
+		}
+		if (blockEnd == -1) {
+			// line longer than the block size
+			long lines = lineNumber;
+			next();
+			lineNumber = lines;
+			blockEnd = pos;
+		}
+		byte[] block = Arrays.copyOfRange(buffer, start, blockEnd);
+		start = end = pos = blockEnd;
+		return new LineReader(block, 0, block.length);
+	}
+
+	/**
+	 * @return the buffer holding the current line
+	 */
+	public byte[] buffer() {
+		return buffer;
+	}
+
+	/**
+	 * @return offset of the current line in the {@link #buffer()}
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return end offset (exclusive, without line terminator) of the current
+	 *         line in the {@link #buffer()}
+	 */
+	public int end() {
+		return end;
+	}
+
+	public int length() {
+		return end - start;
+	}
+
+	/**
+	 * @return number of lines read so far
+	 */
+	public long lineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return number of bytes read so far, up to and including the line
+	 *         terminator of the current line
+	 */
+	public long position() {
+		return bufferOffset + pos;
+	}
+
+	/**
+	 * @param c character (ASCII) to search for
+	 * @return offset of the first occurrence of the character in the current
+	 *         line, or -1 if not found
+	 */
+	public int indexOf(int c) {
+		return indexOf(c, start);
+	}
+
+	/**
+	 * @param c    character (ASCII) to search for
+	 * @param from offset in the {@link #buffer()} to start the search from
+	 * @return offset of the first occurrence of the character in the remainder
+	 *         of the current line, or -1 if not found
+	 */
+	public int indexOf(int c, int from) {
+		for (int i = from; i < end; i++) {
+			if (buffer[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parse a decimal number held in the current line, see
+	 * {@link #parseLong(byte[], int, int)}.
+	 */
+	public long parseLong(int from, int to) {
+		return parseLong(buffer, from, to);
+	}
+
+	/**
+	 * Parse a decimal number without creating a string. Same as
+	 * {@link Long#parseLong(String)} for ASCII input.
+	 *
+	 * @param bytes byte array
+	 * @param from  start offset of the number
+	 * @param to    end offset (exclusive) of the number
+	 * @return number
+	 * @throws NumberFormatException if the bytes do not represent a number or
+	 *                               the number overflows
+	 */
+	public static long parseLong(byte[] bytes, int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = (bytes[i] == '-');
+			i++;
+		}
+		if (i == to) {
+			throw numberFormatException(bytes, from, to);
+		}
+		// accumulate negatively to reach Long.MIN_VALUE, same as Long.parseLong
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multmin = limit / 10;
+		long result = 0;
+		for (; i < to; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9 || result < multmin) {
+				throw numberFormatException(bytes, from, to);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw numberFormatException(bytes, from, to);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Format a number as decimal ASCII digits without creating a string, the
+	 * inverse of {@link #parseLong(byte[], int, int)}.
+	 *
+	 * @param value number
+	 * @param bytes byte array, at least 20 bytes must be available
+	 * @param pos   offset in the byte array
+	 * @return offset after the last digit
+	 */
+	public static int formatLong(long value, byte[] bytes, int pos) {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				byte[] min = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+				System.arraycopy(min, 0, bytes, pos, min.length);
+				return pos + min.length;
+			}
+			bytes[pos++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (long p = 10; digits < 19 && value >= p; p *= 10) {
+			digits++;
+		}
+		int end = pos + digits;
+		for (int i = end - 1; i >= pos; i--) {
+			bytes[i] = (byte) ('0' + (value % 10));
+			value /= 10;
+		}
+		return end;
+	}
+
+	private static NumberFormatException numberFormatException(byte[] bytes, int from, int to) {
+		return new NumberFormatException(
+				"For input string: \"" + new String(bytes, from, to - from, StandardCharsets.UTF_8) + "\"");
+	}
+
+	/**
+	 * Compare two byte sequences lexicographically, bytes are compared as
+	 * unsigned values. For UTF-8 encoded text, the order is the same as the
+	 * order of Unicode code points, resp. the order obtained by sorting with
+	 * <code>LC_ALL=C</code>.
+	 */
+	public static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+		return Arrays.compareUnsigned(a, aFrom, aTo, b, bFrom, bTo);
+	}
+
+	/**
+	 * @return part of the current line decoded as string
+	 */
+	public String toString(int from, int to) {
+		return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the current line decoded as string
+	 */
+	@Override
+	public String toString() {
+		return toString(start, end);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Write lines of text (encoded in UTF-8) or binary data through a large byte
+ * buffer, the counterpart of {@link LineReader}. Numbers are formatted
+ * straight into the buffer, see {@link #print(long)}, so that writing the
+ * vertex and edge lists does not create any strings per line. Unlike
+ * {@link java.io.PrintStream}, the writer is not synchronized and errors are
+ * not swallowed but thrown as {@link UncheckedIOException}.
+ *
+ * <p>
+ * Outputs with the suffix <code>.gz</code> opened by {@link #open(String)} are
+ * compressed in parallel, see {@link ParallelGzipOutputStream}. Binary output
+ * is written by wrapping the writer into a
+ * {@link java.io.DataOutputStream}.
+ * </p>
+ */
+public class LineWriter extends OutputStream {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	/** write to standard output */
+	public static final String STDOUT = "-";
+
+	/* max. length of a formatted long value */
+	private static final int MAX_LONG_LENGTH = 20;
+	/* max. length of a formatted double value */
+	private static final int MAX_DOUBLE_LENGTH = 32;
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int pos = 0;
+	private long flushed = 0;
+
+	public LineWriter(OutputStream out) {
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	public LineWriter(OutputStream out, int bufferSize) {
+		this.out = out;
+		buffer = new byte[Math.max(bufferSize, MAX_DOUBLE_LENGTH)];
+	}
+
+	/**
+	 * Open an output file using one compressor thread per available processor.
+	 *
+	 * @see #open(String, int)
+	 */
+	public static LineWriter open(String output) throws IOException {
+		return open(output, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Open an output file. If the file name ends in <code>.gz</code>, the output
+	 * is gzip-compressed using multiple threads.
+	 *
+	 * @param output  output file, or {@link #STDOUT}
+	 * @param threads number of threads to compress the output
+	 * @return writer on the output file
+	 * @throws IOException if the file cannot be created
+	 */
+	public static LineWriter open(String output, int threads) throws IOException {
+		if (output.equals(STDOUT)) {
+			return new LineWriter(System.out);
+		}
+		return open(Files.newOutputStream(Paths.get(output)), output, threads);
+	}
+
+	/**
+	 * Write to an opened output file, compressing the output if the file name
+	 * ends in <code>.gz</code>, see {@link #open(String, int)}.
+	 *
+	 * @param out     output stream
+	 * @param name    name of the output file
+	 * @param threads number of threads to compress the output
+	 * @return writer on the output stream
+	 */
+	public static LineWriter open(OutputStream out, String name, int threads) {
+		if (name.endsWith(".gz")) {
+			out = new ParallelGzipOutputStream(out, threads);
+		}
+		return new LineWriter(out);
+	}
+
+	private void flushBuffer() {
+		if (pos > 0) {
+			try {
+				out.write(buffer, 0, pos);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			flushed += pos;
+			pos = 0;
+		}
+	}
+
+	@Override
+	public void write(int b) {
+		if (pos == buffer.length) {
+			flushBuffer();
+		}
+		buffer[pos++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b) {
+		write(b, 0, b.length);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		if (len > (buffer.length - pos)) {
+			flushBuffer();
+			if (len > buffer.length) {
+				try {
+					out.write(b, off, len);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				flushed += len;
+				return;
+			}
+		}
+		System.arraycopy(b, off, buffer, pos, len);
+		pos += len;
+	}
+
+	/**
+	 * @return number of bytes written so far (before compression)
+	 */
+	public long position() {
+		return flushed + pos;
+	}
+
+	/**
+	 * Write a number as decimal digits, same as
+	 * {@link java.io.PrintStream#print(long)}, but without creating a string.
+	 */
+	public void print(long value) {
+		if ((buffer.length - pos) < MAX_LONG_LENGTH) {
+			flushBuffer();
+		}
+		pos = LineReader.formatLong(value, buffer, pos);
+	}
+
+	/**
+	 * Write a floating-point number, same as
+	 * {@link java.io.PrintStream#print(double)}.
+	 */
+	public void print(double value) {
+		printAscii(Double.toString(value));
+	}
+
+	/**
+	 * Write a floating-point number, same as
+	 * {@link java.io.PrintStream#print(float)}.
+	 */
+	public void print(float value) {
+		printAscii(Float.toString(value));
+	}
+
+	private void printAscii(String s) {
+		int length = s.length();
+		if ((buffer.length - pos) < length) {
+			flushBuffer();
+		}
+		for (int i = 0; i < length; i++) {
+			buffer[pos++] = (byte) s.charAt(i);
+		}
+	}
+
+	/**
+	 * Write a character, same as {@link java.io.PrintStream#print(char)}.
+	 * Without this method, characters would be printed as numbers by
+	 * {@link #print(long)}.
+	 */
+	public void print(char c) {
+		if (c < 0x80) {
+			write(c);
+		} else {
+			print(String.valueOf(c));
+		}
+	}
+
+	/**
+	 * Write a character sequence encoded in UTF-8. Unpaired surrogates are
+	 * replaced by <code>?</code>, same as
+	 * {@link String#getBytes(java.nio.charset.Charset)}.
+	 */
+	public void print(CharSequence s) {
+		print(s, 0, s.length());
+	}
+
+	/**
+	 * Write part of a character sequence encoded in UTF-8, see
+	 * {@link #print(CharSequence)}.
+	 *
+	 * @param s     character sequence
+	 * @param start start index
+	 * @param end   end index (exclusive)
+	 */
+	public void print(CharSequence s, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if ((buffer.length - pos) < 4) {
+				flushBuffer();
+			}
+			if (c < 0x80) {
+				buffer[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[pos++] = (byte) (0xc0 | (c >> 6));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+			} else if (Character.isHighSurrogate(c) && (i + 1) < end
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				buffer[pos++] = (byte) (0xf0 | (cp >> 18));
+				buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				buffer[pos++] = (byte) (0x80 | (cp & 0x3f));
+			} else if (Character.isSurrogate(c)) {
+				buffer[pos++] = '?';
+			} else {
+				buffer[pos++] = (byte) (0xe0 | (c >> 12));
+				buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+				buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+			}
+		}
+	}
+
+	/**
+	 * Write a non-negative number as variable-length integer: 7 bits per byte,
+	 * least significant bits first, the highest bit is set on all bytes except
+	 * the last one.
+	 */
+	public void writeVarLong(long value) {
+		if ((buffer.length - pos) < 10) {
+			flushBuffer();
+		}
+		while ((value & ~0x7fL) != 0) {
+			buffer[pos++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[pos++] = (byte) value;
+	}
+
+	/**
+	 * Write a line terminator (<code>\n</code>).
+	 */
+	public void println() {
+		write('\n');
+	}
+
+	/**
+	 * Write a character sequence followed by a line terminator.
+	 */
+	public void println(CharSequence s) {
+		print(s);
+		write('\n');
+	}
+
+	/**
+	 * Write the buffered data to the underlying output stream and flush it.
+	 */
+	@Override
+	public void flush() {
+		flushBuffer();
+		try {
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			flushBuffer();
+		} finally {
+			try {
+				out.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped array of bytes or fixed-width numbers (int, long, float or
+ * double),
+ * stored in big-endian byte order without any header, the same format as
+ * written by {@link it.unimi.dsi.fastutil.io.BinIO} (eg.
+ * {@link it.unimi.dsi.fastutil.io.BinIO#storeFloats(float[], String)}) or by
+ * the WebGraph/LAW ranking tools.
+ *
+ * <p>
+ * The file is mapped in segments of 1 GiB, so that arrays may hold more than
+ * 2<sup>31</sup> elements. Only the pages accessed are loaded into memory
+ * (the OS page cache), nothing is held on the Java heap. Absolute reads and
+ * writes of different elements may be done by multiple threads concurrently.
+ * </p>
+ */
+public class MappedArray implements Closeable {
+
+	/** Element types and the number of bytes per element */
+	public enum Type {
+		BYTE(Byte.BYTES), INT(Integer.BYTES), LONG(Long.BYTES), FLOAT(Float.BYTES), DOUBLE(Double.BYTES);
+
+		public final int bytes;
+
+		private Type(int bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	/* size of mapped segments: 2^30 bytes, a multiple of every element size */
+	static final int DEFAULT_SEGMENT_SHIFT = 30;
+
+	private final Type type;
+	private final long length;
+	private final int segmentShift;
+	private final long segmentMask;
+	private final MappedByteBuffer[] segments;
+	private final boolean writable;
+
+	private MappedArray(FileChannel channel, Type type, long offset, long length, boolean writable,
+			int segmentShift) throws IOException {
+		this.type = type;
+		this.length = length;
+		this.writable = writable;
+		this.segmentShift = segmentShift;
+		long segmentSize = 1L << segmentShift;
+		segmentMask = segmentSize - 1;
+		long size = length * type.bytes;
+		int numSegments = (int) ((size + segmentSize - 1) >>> segmentShift);
+		segments = new MappedByteBuffer[numSegments];
+		MapMode mode = writable ? MapMode.READ_WRITE : MapMode.READ_ONLY;
+		for (int i = 0; i < numSegments; i++) {
+			long start = (long) i << segmentShift;
+			segments[i] = channel.map(mode, offset + start, Math.min(segmentSize, size - start));
+		}
+	}
+
+	/**
+	 * Map an existing file read-only.
+	 *
+	 * @param file path of the file
+	 * @param type type of the elements
+	 * @return mapped array, the length is determined by the file size
+	 * @throws IOException if the file cannot be mapped or the file size is not a
+	 *                     multiple of the element size
+	 */
+	public static MappedArray map(String file, Type type) throws IOException {
+		return map(file, type, DEFAULT_SEGMENT_SHIFT);
+	}
+
+	static MappedArray map(String file, Type type, int segmentShift) throws IOException {
+		return map(file, type, 0, segmentShift);
+	}
+
+	/**
+	 * Map an existing file read-only, skipping a header of <code>offset</code>
+	 * bytes. The offset must be a multiple of the element size.
+	 */
+	static MappedArray map(String file, Type type, long offset, int segmentShift) throws IOException {
+		try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+			long size = channel.size() - offset;
+			if (size < 0) {
+				throw new IOException("File " + file + " is shorter than the header (" + offset + " bytes)");
+			}
+			if ((size % type.bytes) != 0) {
+				throw new IOException("Size of " + file + " (" + size + " bytes) is not a multiple of "
+						+ type.bytes + " bytes per " + type);
+			}
+			return new MappedArray(channel, type, offset, size / type.bytes, false, segmentShift);
+		}
+	}
+
+	/**
+	 * Create a file of the given length, initially filled with zeros, and map it
+	 * for reading and writing. An existing file is overwritten.
+	 *
+	 * @param file   path of the file
+	 * @param type   type of the elements
+	 * @param length number of elements
+	 * @return mapped array
+	 * @throws IOException if the file cannot be created or mapped
+	 */
+	public static MappedArray create(String file, Type type, long length) throws IOException {
+		return create(file, type, length, DEFAULT_SEGMENT_SHIFT);
+	}
+
+	static MappedArray create(String file, Type type, long length, int segmentShift) throws IOException {
+		return create(file, type, 0, length, segmentShift);
+	}
+
+	/**
+	 * Create a file and map it for reading and writing, leaving space for a
+	 * header of <code>offset</code> bytes (filled with zeros) in front of the
+	 * elements. The offset must be a multiple of the element size.
+	 */
+	static MappedArray create(String file, Type type, long offset, long length, int segmentShift)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return new MappedArray(channel, type, offset, length, true, segmentShift);
+		}
+	}
+
+	public Type type() {
+		return type;
+	}
+
+	/**
+	 * @return number of elements
+	 */
+	public long length() {
+		return length;
+	}
+
+	private MappedByteBuffer segment(long index) {
+		return segments[(int) ((index * type.bytes) >>> segmentShift)];
+	}
+
+	private int position(long index) {
+		return (int) ((index * type.bytes) & segmentMask);
+	}
+
+	public byte getByte(long index) {
+		return segment(index).get(position(index));
+	}
+
+	/**
+	 * Bulk read of bytes, the range may span multiple segments.
+	 *
+	 * @param index  index of the first byte
+	 * @param dst    destination array
+	 * @param offset offset in dst
+	 * @param length number of bytes to read
+	 */
+	public void getBytes(long index, byte[] dst, int offset, int length) {
+		while (length > 0) {
+			int pos = position(index);
+			int n = (int) Math.min(length, (segmentMask + 1) - pos);
+			// duplicate to read without changing the position of the shared buffer
+			segment(index).duplicate().position(pos).get(dst, offset, n);
+			index += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	public int getInt(long index) {
+		return segment(index).getInt(position(index));
+	}
+
+	public long getLong(long index) {
+		return segment(index).getLong(position(index));
+	}
+
+	public float getFloat(long index) {
+		return segment(index).getFloat(position(index));
+	}
+
+	public double getDouble(long index) {
+		return segment(index).getDouble(position(index));
+	}
+
+	public void setInt(long index, int value) {
+		segment(index).putInt(position(index), value);
+	}
+
+	public void setLong(long index, long value) {
+		segment(index).putLong(position(index), value);
+	}
+
+	public void setFloat(long index, float value) {
+		segment(index).putFloat(position(index), value);
+	}
+
+	public void setDouble(long index, double value) {
+		segment(index).putDouble(position(index), value);
+	}
+
+	/**
+	 * Write changes back to the file. The memory is unmapped once the array is
+	 * garbage-collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (writable) {
+			for (MappedByteBuffer segment : segments) {
+				segment.force();
+			}
+		}
+	}
+}
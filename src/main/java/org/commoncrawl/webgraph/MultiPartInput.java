@@ -0,0 +1,340 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read text input (UTF-8) given as a single file, a glob pattern or a
+ * directory holding multiple parts (eg. <code>part-00000.gz</code>,
+ * <code>part-00001.gz</code>, ...). Gzip-compressed files (suffix
+ * <code>.gz</code>) are decompressed on the fly. The parts are read and
+ * decompressed concurrently by a pool of threads, but the lines are returned
+ * as a single stream (of strings, or of bytes, see {@link LineReader}) in the
+ * order of the parts sorted by file name. Replaces
+ * piping the input through <code>zcat</code>, which limits the throughput to
+ * what a single core can decompress.
+ */
+public class MultiPartInput {
+
+	protected static Logger LOG = LoggerFactory.getLogger(MultiPartInput.class);
+
+	/** name of the parts in a directory, other files are ignored */
+	public static final String PART_GLOB = "part-*";
+
+	/** read from standard input */
+	public static final String STDIN = "-";
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final int BLOCK_SIZE = 1 << 18;
+	private static final int QUEUED_BLOCKS = 8;
+
+	/* marks the end of a part */
+	private static final byte[] END_OF_PART = new byte[0];
+
+	/**
+	 * List the files of the input.
+	 *
+	 * @param input a file, a directory holding files matching {@link #PART_GLOB}
+	 *              (all files if no file matches) or a glob pattern, eg.
+	 *              <code>edges/*.gz</code>. Glob characters are allowed only in
+	 *              the file name, not in the directory path.
+	 * @return input files sorted by name
+	 * @throws IOException if no input file is found
+	 */
+	public static List<Path> listParts(String input) throws IOException {
+		List<Path> parts = new ArrayList<>();
+		Path path = Paths.get(input);
+		if (Files.isDirectory(path)) {
+			parts = listDirectory(path, PART_GLOB);
+			if (parts.isEmpty()) {
+				parts = listDirectory(path, "*");
+			}
+		} else if (!Files.exists(path) && isGlob(path.getFileName().toString())) {
+			Path dir = path.getParent();
+			parts = listDirectory(dir == null ? Paths.get("") : dir, path.getFileName().toString());
+		} else if (Files.exists(path)) {
+			parts.add(path);
+		} else {
+			throw new NoSuchFileException(input);
+		}
+		if (parts.isEmpty()) {
+			throw new IOException("No input files found: " + input);
+		}
+		return parts;
+	}
+
+	private static boolean isGlob(String name) {
+		for (char c : new char[] { '*', '?', '[', '{' }) {
+			if (name.indexOf(c) != -1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<Path> listDirectory(Path dir, String glob) throws IOException {
+		List<Path> parts = new ArrayList<>();
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path file : files) {
+				if (Files.isRegularFile(file) && matcher.matches(file.getFileName())) {
+					parts.add(file);
+				}
+			}
+		}
+		Collections.sort(parts);
+		return parts;
+	}
+
+	/**
+	 * @param input input file, see {@link #listParts(String)}
+	 * @return true if the input is a single, uncompressed file which can be read
+	 *         using random access
+	 */
+	public static boolean isPlainFile(String input) {
+		Path path = Paths.get(input);
+		return Files.isRegularFile(path) && !isGzip(path);
+	}
+
+	private static boolean isGzip(Path path) {
+		return path.getFileName().toString().endsWith(".gz");
+	}
+
+	/**
+	 * Open an input part, decompress it if it is gzipped.
+	 *
+	 * @param path input file
+	 * @return input stream
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static InputStream open(Path path) throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+		if (isGzip(path)) {
+			// GZIPInputStream reads concatenated gzip members
+			in = new GZIPInputStream(in, BUFFER_SIZE);
+		}
+		return in;
+	}
+
+	/**
+	 * Read all lines of the input using one thread per available processor.
+	 *
+	 * @see #lines(String, int)
+	 */
+	public static Stream<String> lines(String input) throws IOException {
+		return lines(input, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Read all lines of the input. The parts of the input are read and
+	 * decompressed by up to <code>threads</code> threads ahead of the consumer
+	 * of the stream. The stream must be closed to release the threads.
+	 *
+	 * @param input   input, see {@link #listParts(String)}, or {@link #STDIN}
+	 * @param threads max. number of parts read concurrently
+	 * @return lines of all parts in order
+	 * @throws IOException if no input file is found
+	 */
+	public static Stream<String> lines(String input, int threads) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(open(input, threads), StandardCharsets.UTF_8),
+				BUFFER_SIZE);
+		return reader.lines().onClose(() -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Read all lines of the input as bytes using one thread per available
+	 * processor.
+	 *
+	 * @see #reader(String, int)
+	 */
+	public static LineReader reader(String input) throws IOException {
+		return reader(input, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Read all lines of the input as bytes, see {@link LineReader}. The parts of
+	 * the input are read and decompressed the same way as by
+	 * {@link #lines(String, int)}. The reader must be closed to release the
+	 * threads.
+	 *
+	 * @param input   input, see {@link #listParts(String)}, or {@link #STDIN}
+	 * @param threads max. number of parts read concurrently
+	 * @return line reader on all parts in order
+	 * @throws IOException if no input file is found
+	 */
+	public static LineReader reader(String input, int threads) throws IOException {
+		return new LineReader(open(input, threads), BUFFER_SIZE);
+	}
+
+	/**
+	 * Open the input as single stream of bytes, all parts concatenated. A line
+	 * terminator is added if a part does not end with one.
+	 *
+	 * @param input   input, see {@link #listParts(String)}, or {@link #STDIN}
+	 * @param threads max. number of parts read concurrently
+	 * @return input stream
+	 * @throws IOException if no input file is found
+	 */
+	public static InputStream open(String input, int threads) throws IOException {
+		if (input.equals(STDIN)) {
+			return System.in;
+		}
+		List<Path> parts = listParts(input);
+		if (parts.size() > 1) {
+			LOG.info("Reading {} input files from {} using {} threads", parts.size(), input,
+					Math.min(threads, parts.size()));
+		}
+		return new PartInputStream(parts, Math.max(1, Math.min(threads, parts.size())));
+	}
+
+	/**
+	 * Concatenates the content of all parts. Every part is read by a task of the
+	 * thread pool, passing blocks of bytes to the consumer through a bounded
+	 * queue. Tasks are executed in the order of the parts, so that the part
+	 * consumed is always read by a running task.
+	 */
+	private static class PartInputStream extends InputStream {
+
+		private final List<Path> parts;
+		private final List<BlockingQueue<byte[]>> queues = new ArrayList<>();
+		private final ExecutorService readers;
+		private int currentPart = 0;
+		private byte[] block = null;
+		private int pos = 0;
+		private volatile IOException error = null;
+
+		PartInputStream(List<Path> parts, int threads) {
+			this.parts = parts;
+			readers = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "input-reader");
+				t.setDaemon(true);
+				return t;
+			});
+			for (Path part : parts) {
+				BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+				queues.add(queue);
+				readers.submit(() -> read(part, queue));
+			}
+			readers.shutdown();
+		}
+
+		private void read(Path part, BlockingQueue<byte[]> queue) {
+			try (InputStream in = open(part)) {
+				int last = '\n';
+				while (true) {
+					byte[] bytes = new byte[BLOCK_SIZE];
+					int n = in.readNBytes(bytes, 0, BLOCK_SIZE);
+					if (n == 0) {
+						break;
+					}
+					last = bytes[n - 1];
+					queue.put(n == BLOCK_SIZE ? bytes : java.util.Arrays.copyOf(bytes, n));
+				}
+				if (last != '\n') {
+					// do not join the last line of this part with the first line of the next one
+					queue.put(new byte[] { '\n' });
+				}
+			} catch (IOException e) {
+				LOG.error("Failed to read input file {}", part, e);
+				error = e;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			try {
+				queue.put(END_OF_PART);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * @return false if all parts are consumed
+		 */
+		private boolean nextBlock() throws IOException {
+			while (block == null || pos == block.length) {
+				if (currentPart == parts.size()) {
+					return false;
+				}
+				try {
+					block = queues.get(currentPart).take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while reading input");
+				}
+				pos = 0;
+				if (block == END_OF_PART) {
+					if (error != null) {
+						throw error;
+					}
+					// release memory held by the queue
+					queues.set(currentPart, null);
+					currentPart++;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!nextBlock()) {
+				return -1;
+			}
+			return block[pos++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextBlock()) {
+				return -1;
+			}
+			int n = Math.min(len, block.length - pos);
+			System.arraycopy(block, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		@Override
+		public void close() {
+			readers.shutdownNow();
+		}
+	}
+}
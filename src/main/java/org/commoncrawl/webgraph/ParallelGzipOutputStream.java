@@ -0,0 +1,159 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compress the output using multiple threads. The output is split into
+ * blocks, every block is compressed by a task of the thread pool as a separate
+ * gzip member, the members are written in order. The result is a valid
+ * multi-member gzip file, which is read by <code>zcat</code> and
+ * {@link java.util.zip.GZIPInputStream} the same as a single-member file.
+ * Replaces piping the output through <code>gzip</code>, which limits the
+ * throughput to what a single core can compress.
+ *
+ * <p>
+ * {@link #flush()} completes the current gzip member: the output written so
+ * far is a valid gzip file, and more members can be appended later, eg. when
+ * resuming from a checkpoint.
+ * </p>
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+	private final OutputStream out;
+	private final ExecutorService compressors;
+	private final int blockSize;
+	private final int maxPendingBlocks;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private byte[] block;
+	private int pos = 0;
+	private boolean written = false;
+	private boolean closed = false;
+
+	public ParallelGzipOutputStream(OutputStream out, int threads) {
+		this(out, threads, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param out       output stream to write the compressed data to
+	 * @param threads   number of compressor threads
+	 * @param blockSize size of uncompressed blocks
+	 */
+	public ParallelGzipOutputStream(OutputStream out, int threads, int blockSize) {
+		this.out = out;
+		this.blockSize = blockSize;
+		maxPendingBlocks = 2 * threads;
+		block = new byte[blockSize];
+		compressors = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "gzip-compressor");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 4 + 64);
+		try (GZIPOutputStream gz = new GZIPOutputStream(bytes, 1 << 16)) {
+			gz.write(data, 0, length);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Pass the current block to the compressor threads. Waits for the oldest
+	 * blocks to be compressed and written if too many blocks are pending.
+	 */
+	private void submitBlock() throws IOException {
+		if (pos == 0) {
+			return;
+		}
+		final byte[] data = block;
+		final int length = pos;
+		pending.add(compressors.submit(() -> compress(data, length)));
+		block = new byte[blockSize];
+		pos = 0;
+		while (pending.size() > maxPendingBlocks) {
+			writeNextBlock();
+		}
+	}
+
+	private void writeNextBlock() throws IOException {
+		try {
+			out.write(pending.poll().get());
+			written = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing output");
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to compress block", e.getCause());
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (pos == block.length) {
+			submitBlock();
+		}
+		block[pos++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (pos == block.length) {
+				submitBlock();
+			}
+			int n = Math.min(len, block.length - pos);
+			System.arraycopy(b, off, block, pos, n);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Compress and write all data passed to this stream so far, completing the
+	 * current gzip member.
+	 */
+	@Override
+	public void flush() throws IOException {
+		submitBlock();
+		while (!pending.isEmpty()) {
+			writeNextBlock();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+			if (!written) {
+				// an empty output must still be a valid gzip file
+				out.write(compress(block, 0));
+			}
+		} finally {
+			compressors.shutdownNow();
+			out.close();
+		}
+	}
+}
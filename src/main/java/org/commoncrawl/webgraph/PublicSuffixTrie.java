@@ -0,0 +1,293 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crawlercommons.domains.EffectiveTldFinder;
+import crawlercommons.domains.EffectiveTldFinder.EffectiveTLD;
+import it.unimi.dsi.fastutil.HashCommon;
+
+/**
+ * Trie of the labels of the public suffixes, walked top-down along the labels
+ * of host names in <a href=
+ * "https://en.wikipedia.org/wiki/Reverse_domain_name_notation">reverse domain
+ * name notation</a> (<code>com.example.www</code>). Determines the registered
+ * domain of a reversed host name as prefix of the input without creating
+ * intermediate strings.
+ *
+ * <p>
+ * The trie is built from the public suffix list shipped with crawler-commons.
+ * The results are identical to those of
+ * {@link EffectiveTldFinder#getAssignedDomain(String, boolean, boolean)} in
+ * strict mode. Host names not consisting of lowercase ASCII letters, digits,
+ * hyphens and underscores, host names with empty labels and host names below an
+ * exception rule (eg. <code>!www.ck</code>) are not handled by the trie:
+ * {@link #FALLBACK} is returned and the caller is expected to use
+ * {@link EffectiveTldFinder} instead.
+ * </p>
+ */
+public class PublicSuffixTrie {
+
+	private static Logger LOG = LoggerFactory.getLogger(PublicSuffixTrie.class);
+
+	/** returned if no registered domain can be assigned to a host name */
+	public static final int NO_DOMAIN = -1;
+
+	/**
+	 * returned if the host name cannot be handled by the trie, use
+	 * {@link EffectiveTldFinder} instead
+	 */
+	public static final int FALLBACK = -2;
+
+	private static final byte ICANN = 1;
+	private static final byte PRIVATE = 2;
+	private static final byte WILDCARD = 4;
+	private static final byte EXCEPTION = 8;
+
+	private static final int ROOT = 0;
+	private static final int MAX_LABEL_LENGTH = EffectiveTldFinder.MAX_DOMAIN_LENGTH_PART;
+
+	private static PublicSuffixTrie instance = null;
+
+	/* nodes: parent node, label and rule flags */
+	private int[] parents = new int[1024];
+	private String[] labels = new String[1024];
+	private byte[] flags = new byte[1024];
+	private int numNodes = 1;
+
+	/* open-addressing hash table: (parent node, label) -> child node */
+	private int[] table = new int[2048];
+	private int mask = table.length - 1;
+
+	private int numRules = 0;
+
+	/**
+	 * @return trie built from the public suffix list used by
+	 *         {@link EffectiveTldFinder}
+	 */
+	public static synchronized PublicSuffixTrie getInstance() {
+		if (instance == null) {
+			URL url = EffectiveTldFinder.class.getResource(EffectiveTldFinder.ETLD_DATA);
+			if (url == null) {
+				throw new IllegalStateException("Public suffix list not found: " + EffectiveTldFinder.ETLD_DATA);
+			}
+			try (InputStream in = url.openStream()) {
+				instance = new PublicSuffixTrie(in);
+			} catch (IOException e) {
+				LOG.error("Failed to load public suffix list {}", url, e);
+				throw new UncheckedIOException(e);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Build the trie from a public suffix list. The list is parsed the same way
+	 * as done by {@link EffectiveTldFinder#initialize(InputStream)}.
+	 *
+	 * @param in public suffix list
+	 * @throws IOException if reading the list fails
+	 */
+	public PublicSuffixTrie(InputStream in) throws IOException {
+		Arrays.fill(table, -1);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		boolean isPrivate = false;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.trim().isEmpty()) {
+				continue;
+			} else if (line.startsWith(EffectiveTldFinder.COMMENT)) {
+				if (line.contains("===BEGIN PRIVATE DOMAINS===")) {
+					isPrivate = true;
+				} else if (line.contains("===END PRIVATE DOMAINS===")) {
+					isPrivate = false;
+				}
+				continue;
+			}
+			EffectiveTLD etld = new EffectiveTLD(line, isPrivate);
+			byte ruleFlags = isPrivate ? PRIVATE : ICANN;
+			if (etld.isException()) {
+				ruleFlags |= EXCEPTION;
+			} else if (etld.isWildcard()) {
+				ruleFlags |= WILDCARD;
+			}
+			for (String suffix : etld.getNameVariants()) {
+				add(suffix, ruleFlags);
+			}
+			numRules++;
+		}
+		LOG.info("Public suffix trie built from {} rules: {} nodes", numRules, numNodes);
+	}
+
+	private void add(String suffix, byte ruleFlags) {
+		int node = ROOT;
+		int end = suffix.length();
+		while (end > 0) {
+			int start = suffix.lastIndexOf(EffectiveTldFinder.DOT, end - 1) + 1;
+			int child = getChild(node, suffix, start, end);
+			if (child == -1) {
+				child = addChild(node, suffix.substring(start, end));
+			}
+			node = child;
+			end = start - 1;
+		}
+		// a later rule for the same suffix replaces the former one
+		flags[node] = ruleFlags;
+	}
+
+	private static int hash(int parent, CharSequence s, int start, int end) {
+		int h = parent;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.charAt(i);
+		}
+		return HashCommon.mix(h);
+	}
+
+	private int getChild(int parent, CharSequence s, int start, int end) {
+		int length = end - start;
+		for (int pos = hash(parent, s, start, end) & mask;; pos = (pos + 1) & mask) {
+			int node = table[pos];
+			if (node == -1) {
+				return -1;
+			}
+			if (parents[node] != parent) {
+				continue;
+			}
+			String label = labels[node];
+			if (label.length() != length) {
+				continue;
+			}
+			int i = 0;
+			while (i < length && label.charAt(i) == s.charAt(start + i)) {
+				i++;
+			}
+			if (i == length) {
+				return node;
+			}
+		}
+	}
+
+	private int addChild(int parent, String label) {
+		if (numNodes == parents.length) {
+			parents = Arrays.copyOf(parents, 2 * numNodes);
+			labels = Arrays.copyOf(labels, 2 * numNodes);
+			flags = Arrays.copyOf(flags, 2 * numNodes);
+		}
+		int node = numNodes++;
+		parents[node] = parent;
+		labels[node] = label;
+		if (2 * numNodes > table.length) {
+			table = new int[2 * table.length];
+			mask = table.length - 1;
+			Arrays.fill(table, -1);
+			for (int n = 1; n < node; n++) {
+				insert(n);
+			}
+		}
+		insert(node);
+		return node;
+	}
+
+	private void insert(int node) {
+		String label = labels[node];
+		int pos = hash(parents[node], label, 0, label.length()) & mask;
+		while (table[pos] != -1) {
+			pos = (pos + 1) & mask;
+		}
+		table[pos] = node;
+	}
+
+	/**
+	 * Determine the registered domain of a host name in reverse domain name
+	 * notation. The registered domain is returned as length of the prefix of the
+	 * input, eg. 11 (<code>com.example</code>) for
+	 * <code>com.example.www</code>.
+	 *
+	 * @param revHost        host name in reverse domain name notation
+	 * @param privateDomains if true use also the suffixes in the division of
+	 *                       "private domains" of the public suffix list
+	 * @return length of the reversed registered domain (a prefix of the input),
+	 *         {@link #NO_DOMAIN} if there is no registered domain, or
+	 *         {@link #FALLBACK} if the host name cannot be handled by the trie
+	 */
+	public int getRegisteredDomainLength(CharSequence revHost, boolean privateDomains) {
+		final int length = revHost.length();
+		final byte eligible = privateDomains ? (ICANN | PRIVATE) : ICANN;
+		if (length == 0 || revHost.charAt(length - 1) == EffectiveTldFinder.DOT) {
+			return FALLBACK;
+		}
+		int node = ROOT;
+		int suffixEnd = -1;
+		int start = 0;
+		while (start < length) {
+			int end = start;
+			char c;
+			while (end < length && (c = revHost.charAt(end)) != EffectiveTldFinder.DOT) {
+				if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+					return FALLBACK;
+				}
+				end++;
+			}
+			if (end == start) {
+				// empty label
+				return FALLBACK;
+			}
+			if (node != -1) {
+				node = getChild(node, revHost, start, end);
+				if (node != -1) {
+					byte f = flags[node];
+					if ((f & EXCEPTION) != 0) {
+						return FALLBACK;
+					}
+					if ((f & eligible) != 0) {
+						if ((f & WILDCARD) == 0) {
+							suffixEnd = end;
+						} else if (end < length) {
+							// wildcard: the suffix includes the following label
+							suffixEnd = nextLabelEnd(revHost, end + 1);
+						}
+					}
+				}
+			}
+			start = end + 1;
+		}
+		if (suffixEnd == -1 || suffixEnd == length) {
+			// no public suffix or host name is a public suffix
+			return NO_DOMAIN;
+		}
+		int domainEnd = nextLabelEnd(revHost, suffixEnd + 1);
+		if ((domainEnd - suffixEnd - 1) > MAX_LABEL_LENGTH) {
+			return NO_DOMAIN;
+		}
+		return domainEnd;
+	}
+
+	private static int nextLabelEnd(CharSequence s, int start) {
+		int length = s.length();
+		int i = start;
+		while (i < length && s.charAt(i) != EffectiveTldFinder.DOT) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * @return number of rules in the public suffix list
+	 */
+	public int numRules() {
+		return numRules;
+	}
+}
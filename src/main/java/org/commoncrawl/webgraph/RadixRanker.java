@@ -0,0 +1,563 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.commoncrawl.webgraph.MappedArray.Type;
+
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.ints.IntBigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+
+/**
+ * Assign ranks to node values (harmonic centrality, page rank, etc.): the node
+ * with the highest value gets rank 1, ties are broken by ascending node ID.
+ *
+ * <p>
+ * The nodes are sorted by a parallel LSD (least-significant digit first) radix
+ * sort on keys derived from the bits of the values, see
+ * {@link #descendingKey(float)} and {@link #descendingKey(double)}. Every pass
+ * sorts by one byte of the keys: the array is split into chunks, every chunk is
+ * counted and scattered to its place by a separate task. Because every pass is
+ * stable and the node IDs are initially in ascending order, nodes with equal
+ * values remain ordered by ID. Passes where all keys share the same byte are
+ * skipped, eg. the sign and the high exponent bits of page rank values. Unlike
+ * a comparison sort over a permutation of node IDs, the keys and IDs are read
+ * and written sequentially, except for the scattering into 256 buckets.
+ * </p>
+ *
+ * <p>
+ * Memory: in addition to the values and the ranks, 12 bytes per node are
+ * required to rank float values and 20 bytes per node for double values. The
+ * ranks array is used as temporary buffer while sorting. Values and ranks held
+ * in big arrays (more than 2^31 nodes) require 16 resp. 24 bytes per node, see
+ * {@link #assignRanks(float[][], long[][])}. If values and ranks are
+ * memory-mapped files, only the keys and node IDs are held on the heap, see
+ * {@link #tempMemory(MappedArray)}.
+ * </p>
+ */
+public class RadixRanker {
+
+	/* number of bits per pass */
+	private static final int DIGIT_BITS = 8;
+	private static final int DIGIT_MASK = (1 << DIGIT_BITS) - 1;
+	private static final int NUM_BUCKETS = 1 << DIGIT_BITS;
+
+	/* arrays below this size are sorted by a single task */
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Sortable key of a float value: the order of the keys (unsigned comparison)
+	 * is the reverse order of the values, higher values first. Negative zero is
+	 * equal to zero, NaN values are sorted last.
+	 */
+	public static int descendingKey(float value) {
+		if (value != value) {
+			return -1; // NaN
+		}
+		if (value == 0.0f) {
+			value = 0.0f; // -0.0
+		}
+		int bits = Float.floatToIntBits(value);
+		// ascending (signed) order: flip all bits except the sign bit of negative values
+		bits ^= (bits >> 31) & 0x7fffffff;
+		// descending (unsigned) order
+		return ~(bits ^ 0x80000000);
+	}
+
+	/**
+	 * Sortable key of an int value, see {@link #descendingKey(float)}.
+	 */
+	public static int descendingKey(int value) {
+		return ~(value ^ 0x80000000);
+	}
+
+	/**
+	 * Sortable key of a long value, see {@link #descendingKey(float)}.
+	 */
+	public static long descendingKey(long value) {
+		return ~(value ^ Long.MIN_VALUE);
+	}
+
+	/**
+	 * Sortable key of a double value, see {@link #descendingKey(float)}.
+	 */
+	public static long descendingKey(double value) {
+		if (value != value) {
+			return -1L; // NaN
+		}
+		if (value == 0.0) {
+			value = 0.0; // -0.0
+		}
+		long bits = Double.doubleToLongBits(value);
+		bits ^= (bits >> 63) & Long.MAX_VALUE;
+		return ~(bits ^ Long.MIN_VALUE);
+	}
+
+	/** Temporary memory (bytes per node) required to rank float values */
+	public static final int TEMP_BYTES_FLOAT = 12;
+	/** Temporary memory (bytes per node) required to rank double values */
+	public static final int TEMP_BYTES_DOUBLE = 20;
+	/** Temporary memory (bytes per node) required to rank float big arrays */
+	public static final int TEMP_BYTES_FLOAT_BIG = 16;
+	/** Temporary memory (bytes per node) required to rank double big arrays */
+	public static final int TEMP_BYTES_DOUBLE_BIG = 24;
+
+	static int numChunks(long length) {
+		return (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), length / MIN_CHUNK_SIZE));
+	}
+
+	/**
+	 * Compute the offsets where every chunk writes the elements of every bucket.
+	 *
+	 * @return false if all elements fall into the same bucket and the pass can
+	 *         be skipped
+	 */
+	private static boolean offsets(int[][] counts, int length) {
+		int pos = 0;
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			int total = 0;
+			for (int[] count : counts) {
+				int c = count[b];
+				count[b] = pos;
+				pos += c;
+				total += c;
+			}
+			if (total == length) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean offsets(long[][] counts, long length) {
+		long pos = 0;
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			long total = 0;
+			for (long[] count : counts) {
+				long c = count[b];
+				count[b] = pos;
+				pos += c;
+				total += c;
+			}
+			if (total == length) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sort keys and node IDs by the keys, see {@link RadixRanker}.
+	 *
+	 * @return the buffer holding the sorted node IDs, either ids or idsTmp
+	 */
+	private static int[] sort(int[] keys, int[] keysTmp, int[] ids, int[] idsTmp, int chunks, int chunkSize) {
+		final int length = keys.length;
+		int[][] counts = new int[chunks][NUM_BUCKETS];
+		for (int shift = 0; shift < Integer.SIZE; shift += DIGIT_BITS) {
+			final int s = shift;
+			final int[] srcKeys = keys, srcIds = ids, dstKeys = keysTmp, dstIds = idsTmp;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] count = counts[c];
+				Arrays.fill(count, 0);
+				int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					count[(srcKeys[i] >>> s) & DIGIT_MASK]++;
+				}
+			});
+			if (!offsets(counts, length)) {
+				continue;
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] offset = counts[c];
+				int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					int p = offset[(srcKeys[i] >>> s) & DIGIT_MASK]++;
+					dstKeys[p] = srcKeys[i];
+					dstIds[p] = srcIds[i];
+				}
+			});
+			keysTmp = keys;
+			keys = dstKeys;
+			idsTmp = ids;
+			ids = dstIds;
+		}
+		return ids;
+	}
+
+	private static int[] sort(long[] keys, long[] keysTmp, int[] ids, int[] idsTmp, int chunks, int chunkSize) {
+		final int length = keys.length;
+		int[][] counts = new int[chunks][NUM_BUCKETS];
+		for (int shift = 0; shift < Long.SIZE; shift += DIGIT_BITS) {
+			final int s = shift;
+			final long[] srcKeys = keys, dstKeys = keysTmp;
+			final int[] srcIds = ids, dstIds = idsTmp;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] count = counts[c];
+				Arrays.fill(count, 0);
+				int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					count[(int) (srcKeys[i] >>> s) & DIGIT_MASK]++;
+				}
+			});
+			if (!offsets(counts, length)) {
+				continue;
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int[] offset = counts[c];
+				int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					int p = offset[(int) (srcKeys[i] >>> s) & DIGIT_MASK]++;
+					dstKeys[p] = srcKeys[i];
+					dstIds[p] = srcIds[i];
+				}
+			});
+			keysTmp = keys;
+			keys = dstKeys;
+			idsTmp = ids;
+			ids = dstIds;
+		}
+		return ids;
+	}
+
+	private static long[][] sort(int[][] keys, int[][] keysTmp, long[][] ids, long[][] idsTmp, int chunks,
+			long chunkSize) {
+		final long length = BigArrays.length(keys);
+		long[][] counts = new long[chunks][NUM_BUCKETS];
+		for (int shift = 0; shift < Integer.SIZE; shift += DIGIT_BITS) {
+			final int s = shift;
+			final int[][] srcKeys = keys, dstKeys = keysTmp;
+			final long[][] srcIds = ids, dstIds = idsTmp;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long[] count = counts[c];
+				Arrays.fill(count, 0);
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					count[(BigArrays.get(srcKeys, i) >>> s) & DIGIT_MASK]++;
+				}
+			});
+			if (!offsets(counts, length)) {
+				continue;
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long[] offset = counts[c];
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					int key = BigArrays.get(srcKeys, i);
+					long p = offset[(key >>> s) & DIGIT_MASK]++;
+					BigArrays.set(dstKeys, p, key);
+					BigArrays.set(dstIds, p, BigArrays.get(srcIds, i));
+				}
+			});
+			keysTmp = keys;
+			keys = dstKeys;
+			idsTmp = ids;
+			ids = dstIds;
+		}
+		return ids;
+	}
+
+	static long[][] sort(long[][] keys, long[][] keysTmp, long[][] ids, long[][] idsTmp, int chunks,
+			long chunkSize) {
+		final long length = BigArrays.length(keys);
+		long[][] counts = new long[chunks][NUM_BUCKETS];
+		for (int shift = 0; shift < Long.SIZE; shift += DIGIT_BITS) {
+			final int s = shift;
+			final long[][] srcKeys = keys, dstKeys = keysTmp, srcIds = ids, dstIds = idsTmp;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long[] count = counts[c];
+				Arrays.fill(count, 0);
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					count[(int) (BigArrays.get(srcKeys, i) >>> s) & DIGIT_MASK]++;
+				}
+			});
+			if (!offsets(counts, length)) {
+				continue;
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long[] offset = counts[c];
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					long key = BigArrays.get(srcKeys, i);
+					long p = offset[(int) (key >>> s) & DIGIT_MASK]++;
+					BigArrays.set(dstKeys, p, key);
+					BigArrays.set(dstIds, p, BigArrays.get(srcIds, i));
+				}
+			});
+			keysTmp = keys;
+			keys = dstKeys;
+			idsTmp = ids;
+			ids = dstIds;
+		}
+		return ids;
+	}
+
+	/**
+	 * Assign ranks to float values.
+	 *
+	 * @param values values, indexed by node ID
+	 * @param ranks  array to hold the ranks, same length as values
+	 */
+	public static void assignRanks(float[] values, int[] ranks) {
+		final int length = values.length;
+		final int chunks = numChunks(length);
+		final int chunkSize = (int) (((long) length + chunks - 1) / chunks);
+		final int[] keys = new int[length];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+			for (int i = c * chunkSize; i < end; i++) {
+				keys[i] = descendingKey(values[i]);
+				ranks[i] = i;
+			}
+		});
+		int[] idsTmp = new int[length];
+		int[] ids = sort(keys, new int[length], ranks, idsTmp, chunks, chunkSize);
+		scatterRanks(ids, ids == ranks ? idsTmp : ranks, ranks, chunks, chunkSize);
+	}
+
+	/**
+	 * Assign ranks to double values.
+	 *
+	 * @param values values, indexed by node ID
+	 * @param ranks  array to hold the ranks, same length as values
+	 */
+	public static void assignRanks(double[] values, int[] ranks) {
+		final int length = values.length;
+		final int chunks = numChunks(length);
+		final int chunkSize = (int) (((long) length + chunks - 1) / chunks);
+		final long[] keys = new long[length];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+			for (int i = c * chunkSize; i < end; i++) {
+				keys[i] = descendingKey(values[i]);
+				ranks[i] = i;
+			}
+		});
+		int[] idsTmp = new int[length];
+		int[] ids = sort(keys, new long[length], ranks, idsTmp, chunks, chunkSize);
+		scatterRanks(ids, ids == ranks ? idsTmp : ranks, ranks, chunks, chunkSize);
+	}
+
+	/**
+	 * Write the ranks: the node at position <i>i</i> of the sorted IDs gets rank
+	 * <i>i</i> + 1.
+	 *
+	 * @param ids   sorted node IDs
+	 * @param other the other ID buffer
+	 * @param ranks ranks array, one of the ID buffers
+	 */
+	private static void scatterRanks(int[] ids, int[] other, int[] ranks, int chunks, int chunkSize) {
+		final int length = ranks.length;
+		final int[] sorted;
+		if (ids == ranks) {
+			// the sorted IDs must not be overwritten by the ranks
+			System.arraycopy(ids, 0, other, 0, length);
+			sorted = other;
+		} else {
+			sorted = ids;
+		}
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+			for (int i = c * chunkSize; i < end; i++) {
+				ranks[sorted[i]] = i + 1;
+			}
+		});
+	}
+
+	/**
+	 * Assign ranks to float values held in a big array, for graphs with more than
+	 * 2^31 nodes. Same as {@link #assignRanks(float[], int[])}, the chunks of
+	 * every pass span over the segments of the big arrays.
+	 *
+	 * @param values values, indexed by node ID
+	 * @param ranks  big array to hold the ranks, same length as values
+	 */
+	public static void assignRanks(float[][] values, long[][] ranks) {
+		final long length = BigArrays.length(values);
+		final int chunks = numChunks(length);
+		final long chunkSize = (length + chunks - 1) / chunks;
+		final int[][] keys = IntBigArrays.newBigArray(length);
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			for (long i = c * chunkSize; i < end; i++) {
+				BigArrays.set(keys, i, descendingKey(BigArrays.get(values, i)));
+				BigArrays.set(ranks, i, i);
+			}
+		});
+		long[][] idsTmp = LongBigArrays.newBigArray(length);
+		long[][] ids = sort(keys, IntBigArrays.newBigArray(length), ranks, idsTmp, chunks, chunkSize);
+		scatterRanks(ids, ids == ranks ? idsTmp : ranks, ranks, chunks, chunkSize);
+	}
+
+	/**
+	 * Assign ranks to double values held in a big array, see
+	 * {@link #assignRanks(float[][], long[][])}.
+	 *
+	 * @param values values, indexed by node ID
+	 * @param ranks  big array to hold the ranks, same length as values
+	 */
+	public static void assignRanks(double[][] values, long[][] ranks) {
+		final long length = BigArrays.length(values);
+		final int chunks = numChunks(length);
+		final long chunkSize = (length + chunks - 1) / chunks;
+		final long[][] keys = LongBigArrays.newBigArray(length);
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			for (long i = c * chunkSize; i < end; i++) {
+				BigArrays.set(keys, i, descendingKey(BigArrays.get(values, i)));
+				BigArrays.set(ranks, i, i);
+			}
+		});
+		long[][] idsTmp = LongBigArrays.newBigArray(length);
+		long[][] ids = sort(keys, LongBigArrays.newBigArray(length), ranks, idsTmp, chunks, chunkSize);
+		scatterRanks(ids, ids == ranks ? idsTmp : ranks, ranks, chunks, chunkSize);
+	}
+
+	private static void scatterRanks(long[][] ids, long[][] other, long[][] ranks, int chunks, long chunkSize) {
+		final long length = BigArrays.length(ranks);
+		final long[][] sorted;
+		if (ids == ranks) {
+			BigArrays.copy(ids, 0, other, 0, length);
+			sorted = other;
+		} else {
+			sorted = ids;
+		}
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			for (long i = c * chunkSize; i < end; i++) {
+				BigArrays.set(ranks, BigArrays.get(sorted, i), i + 1);
+			}
+		});
+	}
+
+	/**
+	 * Temporary heap memory required by {@link #assignRanks(MappedArray, MappedArray)}.
+	 *
+	 * @param values memory-mapped values
+	 * @return bytes required
+	 */
+	public static long tempMemory(MappedArray values) {
+		long length = values.length();
+		// two buffers for the keys and two for the node IDs
+		int idBytes = length > it.unimi.dsi.fastutil.Arrays.MAX_ARRAY_SIZE ? Long.BYTES : Integer.BYTES;
+		return 2 * length * (values.type().bytes + idBytes);
+	}
+
+	private static void setRank(MappedArray ranks, long id, long rank) {
+		if (ranks.type() == Type.INT) {
+			ranks.setInt(id, (int) rank);
+		} else {
+			ranks.setLong(id, rank);
+		}
+	}
+
+	/* key of a 4-byte value (int or float) */
+	private static int intKey(MappedArray values, long index) {
+		if (values.type() == Type.INT) {
+			return descendingKey(values.getInt(index));
+		}
+		return descendingKey(values.getFloat(index));
+	}
+
+	/* key of an 8-byte value (long or double) */
+	private static long longKey(MappedArray values, long index) {
+		if (values.type() == Type.LONG) {
+			return descendingKey(values.getLong(index));
+		}
+		return descendingKey(values.getDouble(index));
+	}
+
+	/**
+	 * Assign ranks to values read from a memory-mapped file and write the ranks
+	 * into a memory-mapped file. Only the keys and node IDs are sorted on the
+	 * heap, see {@link #tempMemory(MappedArray)}. Big arrays are used if the
+	 * number of nodes exceeds {@link it.unimi.dsi.fastutil.Arrays#MAX_ARRAY_SIZE}.
+	 *
+	 * @param values int, long, float or double values, indexed by node ID
+	 * @param ranks  int or long array to hold the ranks, same length as values
+	 */
+	public static void assignRanks(MappedArray values, MappedArray ranks) {
+		final long length = values.length();
+		if (ranks.length() != length) {
+			throw new IllegalArgumentException("Length of values and ranks differs");
+		}
+		if (values.type() == Type.BYTE) {
+			throw new IllegalArgumentException("Unsupported type of values: " + values.type());
+		}
+		if (ranks.type() != Type.LONG && (ranks.type() != Type.INT || length > Integer.MAX_VALUE)) {
+			throw new IllegalArgumentException("Ranks must be of type long or int: " + ranks.type());
+		}
+		final int chunks = numChunks(length);
+		if (length <= it.unimi.dsi.fastutil.Arrays.MAX_ARRAY_SIZE) {
+			final int chunkSize = (int) ((length + chunks - 1) / chunks);
+			final int[] ids = new int[(int) length];
+			final int[] sorted;
+			if (values.type().bytes == Integer.BYTES) {
+				final int[] keys = new int[(int) length];
+				IntStream.range(0, chunks).parallel().forEach(c -> {
+					int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+					for (int i = c * chunkSize; i < end; i++) {
+						keys[i] = intKey(values, i);
+						ids[i] = i;
+					}
+				});
+				sorted = sort(keys, new int[(int) length], ids, new int[(int) length], chunks, chunkSize);
+			} else {
+				final long[] keys = new long[(int) length];
+				IntStream.range(0, chunks).parallel().forEach(c -> {
+					int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+					for (int i = c * chunkSize; i < end; i++) {
+						keys[i] = longKey(values, i);
+						ids[i] = i;
+					}
+				});
+				sorted = sort(keys, new long[(int) length], ids, new int[(int) length], chunks, chunkSize);
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int end = (int) Math.min(length, (long) (c + 1) * chunkSize);
+				for (int i = c * chunkSize; i < end; i++) {
+					setRank(ranks, sorted[i], i + 1);
+				}
+			});
+		} else {
+			final long chunkSize = (length + chunks - 1) / chunks;
+			final long[][] ids = LongBigArrays.newBigArray(length);
+			final long[][] sorted;
+			if (values.type().bytes == Integer.BYTES) {
+				final int[][] keys = IntBigArrays.newBigArray(length);
+				IntStream.range(0, chunks).parallel().forEach(c -> {
+					long end = Math.min(length, (c + 1) * chunkSize);
+					for (long i = c * chunkSize; i < end; i++) {
+						BigArrays.set(keys, i, intKey(values, i));
+						BigArrays.set(ids, i, i);
+					}
+				});
+				sorted = sort(keys, IntBigArrays.newBigArray(length), ids, LongBigArrays.newBigArray(length), chunks,
+						chunkSize);
+			} else {
+				final long[][] keys = LongBigArrays.newBigArray(length);
+				IntStream.range(0, chunks).parallel().forEach(c -> {
+					long end = Math.min(length, (c + 1) * chunkSize);
+					for (long i = c * chunkSize; i < end; i++) {
+						BigArrays.set(keys, i, longKey(values, i));
+						BigArrays.set(ids, i, i);
+					}
+				});
+				sorted = sort(keys, LongBigArrays.newBigArray(length), ids, LongBigArrays.newBigArray(length), chunks,
+						chunkSize);
+			}
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					setRank(ranks, BigArrays.get(sorted, i), i + 1);
+				}
+			});
+		}
+	}
+}
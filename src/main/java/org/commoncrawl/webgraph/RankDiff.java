@@ -0,0 +1,375 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the ranks of two releases of a web graph: the vertex lists of both
+ * releases, sorted by name, are merge-joined (see {@link VertexMergeJoin}) and
+ * the ranks are looked up in the {@link RankFile}s of both releases. For every
+ * vertex the ranks and the rank movement are written, together with summary
+ * statistics collected in the same sequential pass in constant memory.
+ */
+public class RankDiff {
+
+	protected static Logger LOG = LoggerFactory.getLogger(RankDiff.class);
+
+	public static final long[] DEFAULT_TOP_N = { 10, 100, 1000, 10000, 100000, 1000000 };
+
+	/* written instead of a rank or delta if the vertex is missing in one release */
+	private static final byte[] MISSING = { '-' };
+
+	/**
+	 * Summary statistics of the rank differences.
+	 *
+	 * <p>
+	 * The rank correlation is the Pearson correlation of the old and new ranks
+	 * of vertices contained in both releases, ie. Spearman's rank correlation
+	 * except that the ranks are not reassigned among the common vertices. It is
+	 * computed by a numerically stable online algorithm.
+	 * </p>
+	 */
+	public static class Summary {
+		private final long[] topN;
+		private final long[] topOverlap;
+		private long oldVertices;
+		private long newVertices;
+		private long common;
+		private long unchanged;
+		private long movedUp;
+		private double sumAbsDelta;
+		/* running means and co-moments of old and new ranks */
+		private double meanOld;
+		private double meanNew;
+		private double m2Old;
+		private double m2New;
+		private double coMoment;
+
+		public Summary(long[] topN) {
+			this.topN = topN;
+			topOverlap = new long[topN.length];
+		}
+
+		/**
+		 * Add a vertex.
+		 *
+		 * @param oldRank rank in the old release, or -1 if not contained
+		 * @param newRank rank in the new release, or -1 if not contained
+		 */
+		public void add(long oldRank, long newRank) {
+			if (oldRank >= 0) {
+				oldVertices++;
+			}
+			if (newRank >= 0) {
+				newVertices++;
+			}
+			if (oldRank < 0 || newRank < 0) {
+				return;
+			}
+			common++;
+			long delta = oldRank - newRank;
+			if (delta == 0) {
+				unchanged++;
+			} else if (delta > 0) {
+				movedUp++;
+			}
+			sumAbsDelta += Math.abs(delta);
+			double dOld = oldRank - meanOld;
+			meanOld += dOld / common;
+			double dNew = newRank - meanNew;
+			meanNew += dNew / common;
+			m2Old += dOld * (oldRank - meanOld);
+			m2New += dNew * (newRank - meanNew);
+			coMoment += dOld * (newRank - meanNew);
+			long maxRank = Math.max(oldRank, newRank);
+			for (int i = 0; i < topN.length; i++) {
+				if (maxRank <= topN[i]) {
+					topOverlap[i]++;
+				}
+			}
+		}
+
+		public long oldVertices() {
+			return oldVertices;
+		}
+
+		public long newVertices() {
+			return newVertices;
+		}
+
+		/**
+		 * @return number of vertices contained in both releases
+		 */
+		public long common() {
+			return common;
+		}
+
+		/**
+		 * @return number of vertices only contained in the new release
+		 */
+		public long appeared() {
+			return newVertices - common;
+		}
+
+		/**
+		 * @return number of vertices only contained in the old release
+		 */
+		public long disappeared() {
+			return oldVertices - common;
+		}
+
+		public long unchanged() {
+			return unchanged;
+		}
+
+		/**
+		 * @return number of common vertices with a better (lower) rank in the new
+		 *         release
+		 */
+		public long movedUp() {
+			return movedUp;
+		}
+
+		public long movedDown() {
+			return common - unchanged - movedUp;
+		}
+
+		/**
+		 * @return mean absolute rank movement of the common vertices
+		 */
+		public double meanAbsoluteDelta() {
+			return common == 0 ? Double.NaN : sumAbsDelta / common;
+		}
+
+		/**
+		 * @return rank correlation of the common vertices, NaN if undefined
+		 */
+		public double rankCorrelation() {
+			return coMoment / Math.sqrt(m2Old * m2New);
+		}
+
+		/**
+		 * @param i index of the top-N limit
+		 * @return number of vertices ranked within the top N in both releases
+		 */
+		public long topOverlap(int i) {
+			return topOverlap[i];
+		}
+
+		/**
+		 * Write the statistics as tab-separated key-value pairs, one per line.
+		 */
+		public void write(LineWriter out) {
+			println(out, "vertices_old", oldVertices);
+			println(out, "vertices_new", newVertices);
+			println(out, "common", common);
+			println(out, "appeared", appeared());
+			println(out, "disappeared", disappeared());
+			println(out, "unchanged", unchanged);
+			println(out, "moved_up", movedUp);
+			println(out, "moved_down", movedDown());
+			out.print("mean_abs_delta\t");
+			out.print(meanAbsoluteDelta());
+			out.println();
+			out.print("rank_correlation\t");
+			out.print(rankCorrelation());
+			out.println();
+			for (int i = 0; i < topN.length; i++) {
+				out.print("top_overlap_");
+				out.print(topN[i]);
+				out.write('\t');
+				out.print(topOverlap[i]);
+				out.write('\t');
+				out.print((double) topOverlap[i] / topN[i]);
+				out.println();
+			}
+			out.flush();
+		}
+
+		private static void println(LineWriter out, String key, long value) {
+			out.print(key);
+			out.write('\t');
+			out.print(value);
+			out.println();
+		}
+	}
+
+	private final long[] topN;
+
+	/**
+	 * @param topN limits N of the ranks to compute the top-N overlap
+	 */
+	public RankDiff(long[] topN) {
+		this.topN = topN;
+	}
+
+	private static void printRank(long rank, LineWriter out) {
+		if (rank < 0) {
+			out.write(MISSING);
+		} else {
+			out.print(rank);
+		}
+	}
+
+	/**
+	 * Join two releases and write the rank differences, one line per vertex
+	 * contained in any of both releases, in the order of vertex names:
+	 * <code>&lt;old_rank&gt; \t &lt;new_rank&gt; \t &lt;delta&gt; \t
+	 * &lt;name&gt;</code>. The delta is the old rank minus the new rank, positive
+	 * if the vertex moved up. The rank and the delta are <code>-</code> if the
+	 * vertex is missing in one release.
+	 *
+	 * @param oldVertices vertices of the old release, sorted by name
+	 * @param oldRanks    ranks of the old release by node ID
+	 * @param newVertices vertices of the new release, sorted by name
+	 * @param newRanks    ranks of the new release by node ID
+	 * @param out         output of the rank differences, may be null
+	 * @return summary statistics
+	 * @throws IOException if the vertices are not sorted by name
+	 */
+	public Summary diff(LineReader oldVertices, LongUnaryOperator oldRanks, LineReader newVertices,
+			LongUnaryOperator newRanks, LineWriter out) throws IOException {
+		Summary summary = new Summary(topN);
+		VertexMergeJoin.join(oldVertices, newVertices, (oldId, newId, name, from, to) -> {
+			long oldRank = oldId < 0 ? -1 : oldRanks.applyAsLong(oldId);
+			long newRank = newId < 0 ? -1 : newRanks.applyAsLong(newId);
+			summary.add(oldRank, newRank);
+			if (out == null) {
+				return;
+			}
+			printRank(oldRank, out);
+			out.write('\t');
+			printRank(newRank, out);
+			out.write('\t');
+			if (oldRank < 0 || newRank < 0) {
+				out.write(MISSING);
+			} else {
+				out.print(oldRank - newRank);
+			}
+			out.write('\t');
+			out.write(name, from, to - from);
+			out.println();
+		});
+		if (out != null) {
+			out.flush();
+		}
+		return summary;
+	}
+
+	private static void showHelp() {
+		System.err.println(
+				"RankDiff [options]... <old_vertices> <old_ranks> <new_vertices> <new_ranks> <diff_out>");
+		System.err.println("");
+		System.err.println("Compare the ranks of two releases of a web graph.");
+		System.err.println("");
+		System.err.println("Options:");
+		System.err.println(" --summary <file>\twrite summary statistics into <file>");
+		System.err.println("                 \t(in addition to logging them)");
+		System.err.println(" --top-n <n>,...\tlimits N to calculate the overlap of the top N vertices");
+		System.err.println("                \t(default: 10,100,1000,10000,100000,1000000)");
+		System.err.println("");
+		System.err.println("Input / output parameters (text must be UTF-8)");
+		System.err.println(" <old_vertices>\tvertices of the old release with format:");
+		System.err.println("               \t  <id> \\t <name> [ \\t <optionalfield>]...");
+		System.err.println("               \tsorted by <name> (gzipped, directory of part-* files or glob pattern)");
+		System.err.println(" <old_ranks>   \tranks of the old release by vertex ID, a rank file");
+		System.err.println("               \t(eg. <graph>-harmonicc-ranks.bin, see JoinSortRanks --rank-files)");
+		System.err.println(" <new_vertices>\tvertices of the new release, same format");
+		System.err.println(" <new_ranks>   \tranks of the new release by vertex ID");
+		System.err.println(" <diff_out>    \trank differences, tab-separated, in the order of <name>:");
+		System.err.println("               \t  <old_rank> <new_rank> <delta> <name>");
+		System.err.println("               \twith delta = old_rank - new_rank and '-' for missing ranks");
+		System.err.println("               \t(gzip-compressed using multiple threads if the suffix is .gz)");
+		System.err.println("");
+	}
+
+	public static void main(String[] args) {
+		String summaryOut = null;
+		long[] topN = DEFAULT_TOP_N;
+		int argpos = 0;
+		while (argpos < args.length && args[argpos].startsWith("-") && args[argpos].length() > 1) {
+			switch (args[argpos]) {
+			case "-?":
+			case "-h":
+			case "--help":
+				showHelp();
+				System.exit(0);
+			case "--summary":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				summaryOut = args[++argpos];
+				break;
+			case "--top-n":
+				if ((argpos + 1) >= args.length) {
+					LOG.error("Missing value for option " + args[argpos]);
+					showHelp();
+					System.exit(1);
+				}
+				try {
+					topN = Arrays.stream(args[++argpos].split(",")).mapToLong(Long::parseLong).toArray();
+				} catch (NumberFormatException e) {
+					LOG.error("Invalid number: " + args[argpos]);
+					System.exit(1);
+				}
+				break;
+			default:
+				LOG.error("Unknown option: " + args[argpos]);
+				showHelp();
+				System.exit(1);
+			}
+			argpos++;
+		}
+		if ((args.length - argpos) < 5) {
+			showHelp();
+			System.exit(1);
+		}
+		String oldVerticesIn = args[argpos++];
+		String oldRanksIn = args[argpos++];
+		String newVerticesIn = args[argpos++];
+		String newRanksIn = args[argpos++];
+		String diffOut = args[argpos++];
+
+		RankDiff differ = new RankDiff(topN);
+		Summary summary;
+		// both vertex lists are read and decompressed concurrently
+		try (RankFile oldRanks = RankFile.open(oldRanksIn);
+				RankFile newRanks = RankFile.open(newRanksIn);
+				LineReader oldVertices = MultiPartInput.reader(oldVerticesIn);
+				LineReader newVertices = MultiPartInput.reader(newVerticesIn);
+				LineWriter out = LineWriter.open(diffOut)) {
+			summary = differ.diff(oldVertices, oldRanks::rank, newVertices, newRanks::rank, out);
+		} catch (IOException e) {
+			LOG.error("Failed to compare ranks:", e);
+			System.exit(1);
+			return;
+		}
+		LOG.info("Vertices: {} old, {} new, {} in both releases, {} appeared, {} disappeared",
+				summary.oldVertices(), summary.newVertices(), summary.common(), summary.appeared(),
+				summary.disappeared());
+		LOG.info("Rank movement: {} unchanged, {} up, {} down, mean absolute delta {}", summary.unchanged(),
+				summary.movedUp(), summary.movedDown(), summary.meanAbsoluteDelta());
+		LOG.info("Rank correlation: {}", summary.rankCorrelation());
+		for (int i = 0; i < topN.length; i++) {
+			LOG.info("Overlap of top {}: {}", topN[i], summary.topOverlap(i));
+		}
+		if (summaryOut != null) {
+			try (LineWriter out = LineWriter.open(summaryOut)) {
+				summary.write(out);
+			} catch (IOException e) {
+				LOG.error("Failed to write summary:", e);
+				System.exit(1);
+			}
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped binary file holding either the ranks of all nodes indexed by
+ * node ID or the node IDs ordered by rank (the inverse permutation). Both allow
+ * lookups in constant time without loading the data into the Java heap: the
+ * rank of a node, resp. the nodes in a range of ranks.
+ *
+ * <p>
+ * The file starts with a header of 16 bytes, followed by the elements as
+ * big-endian ints, or longs if there are more than 2^31 nodes:
+ * </p>
+ * <table>
+ * <caption>File header</caption>
+ * <tr><th>bytes</th><th>content</th></tr>
+ * <tr><td>0-3</td><td>magic <code>CCRK</code></td></tr>
+ * <tr><td>4</td><td>format version (1)</td></tr>
+ * <tr><td>5</td><td>kind: 0 = ranks by node ID, 1 = node IDs by rank</td></tr>
+ * <tr><td>6</td><td>bytes per element: 4 (int) or 8 (long)</td></tr>
+ * <tr><td>7</td><td>reserved (0)</td></tr>
+ * <tr><td>8-15</td><td>number of elements (long)</td></tr>
+ * </table>
+ * <p>
+ * Ranks start with 1. The node ID of rank <i>r</i> is stored at index
+ * <i>r</i> - 1. The header is written when a newly created file is closed, so
+ * that incomplete files are rejected.
+ * </p>
+ */
+public class RankFile implements Closeable {
+
+	/** Content of rank files and the file name suffix used by convention */
+	public enum Kind {
+		RANK_BY_ID("-ranks.bin"), ID_BY_RANK("-ranked-ids.bin");
+
+		public final String suffix;
+
+		private Kind(String suffix) {
+			this.suffix = suffix;
+		}
+	}
+
+	static final int HEADER_SIZE = 16;
+	private static final int MAGIC = ('C' << 24) | ('C' << 16) | ('R' << 8) | 'K';
+	private static final byte VERSION = 1;
+
+	private final String file;
+	private final Kind kind;
+	private final MappedArray array;
+	private final boolean writable;
+
+	private RankFile(String file, Kind kind, MappedArray array, boolean writable) {
+		this.file = file;
+		this.kind = kind;
+		this.array = array;
+		this.writable = writable;
+	}
+
+	/**
+	 * Create a rank file and map it for writing.
+	 *
+	 * @param file   path of the file, an existing file is overwritten
+	 * @param kind   ranks by node ID or node IDs by rank
+	 * @param length number of nodes
+	 * @return rank file, elements are ints if the length does not exceed
+	 *         {@link Integer#MAX_VALUE}, otherwise longs
+	 * @throws IOException if the file cannot be created or mapped
+	 */
+	public static RankFile create(String file, Kind kind, long length) throws IOException {
+		return create(file, kind, length, MappedArray.DEFAULT_SEGMENT_SHIFT);
+	}
+
+	static RankFile create(String file, Kind kind, long length, int segmentShift) throws IOException {
+		MappedArray.Type type = length > Integer.MAX_VALUE ? MappedArray.Type.LONG : MappedArray.Type.INT;
+		MappedArray array = MappedArray.create(file, type, HEADER_SIZE, length, segmentShift);
+		return new RankFile(file, kind, array, true);
+	}
+
+	/**
+	 * Map an existing rank file read-only.
+	 *
+	 * @param file path of the file
+	 * @return rank file
+	 * @throws IOException if the file cannot be mapped or the header is invalid
+	 *                     or does not match the file size
+	 */
+	public static RankFile open(String file) throws IOException {
+		return open(file, MappedArray.DEFAULT_SEGMENT_SHIFT);
+	}
+
+	static RankFile open(String file, int segmentShift) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+			while (header.hasRemaining() && channel.read(header) != -1) {
+			}
+		}
+		if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+			throw new IOException("Not a rank file: " + file);
+		}
+		if (header.get(4) != VERSION) {
+			throw new IOException("Unsupported version of rank file " + file + ": " + header.get(4));
+		}
+		int kind = header.get(5);
+		if (kind < 0 || kind >= Kind.values().length) {
+			throw new IOException("Invalid kind of rank file " + file + ": " + kind);
+		}
+		MappedArray.Type type;
+		switch (header.get(6)) {
+		case Integer.BYTES:
+			type = MappedArray.Type.INT;
+			break;
+		case Long.BYTES:
+			type = MappedArray.Type.LONG;
+			break;
+		default:
+			throw new IOException("Invalid element size of rank file " + file + ": " + header.get(6));
+		}
+		MappedArray array = MappedArray.map(file, type, HEADER_SIZE, segmentShift);
+		long length = header.getLong(8);
+		if (array.length() != length) {
+			throw new IOException("Length of rank file " + file + " (" + array.length()
+					+ ") differs from length in header (" + length + ")");
+		}
+		return new RankFile(file, Kind.values()[kind], array, false);
+	}
+
+	public Kind kind() {
+		return kind;
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public long length() {
+		return array.length();
+	}
+
+	/**
+	 * @return the underlying array, without header
+	 */
+	MappedArray array() {
+		return array;
+	}
+
+	/**
+	 * @param index element index: node ID, or rank - 1
+	 * @return the element value: rank, or node ID
+	 */
+	public long get(long index) {
+		if (array.type() == MappedArray.Type.INT) {
+			return array.getInt(index);
+		}
+		return array.getLong(index);
+	}
+
+	/**
+	 * @param index element index: node ID, or rank - 1
+	 * @param value rank, or node ID
+	 */
+	public void set(long index, long value) {
+		if (array.type() == MappedArray.Type.INT) {
+			array.setInt(index, (int) value);
+		} else {
+			array.setLong(index, value);
+		}
+	}
+
+	private void checkKind(Kind expected) {
+		if (kind != expected) {
+			throw new IllegalStateException("Rank file " + file + " holds " + kind + ", not " + expected);
+		}
+	}
+
+	/**
+	 * @param id node ID
+	 * @return the rank of the node
+	 */
+	public long rank(long id) {
+		checkKind(Kind.RANK_BY_ID);
+		return get(id);
+	}
+
+	/**
+	 * @param rank rank, starting with 1
+	 * @return the ID of the node with this rank
+	 */
+	public long id(long rank) {
+		checkKind(Kind.ID_BY_RANK);
+		return get(rank - 1);
+	}
+
+	/**
+	 * @param fromRank first rank (inclusive, starting with 1)
+	 * @param toRank   last rank (inclusive), limited to the number of nodes
+	 * @return the IDs of the nodes ranked <code>fromRank</code> to
+	 *         <code>toRank</code>, in rank order
+	 */
+	public long[] ids(long fromRank, long toRank) {
+		checkKind(Kind.ID_BY_RANK);
+		fromRank = Math.max(1, fromRank);
+		toRank = Math.min(length(), toRank);
+		if (toRank < fromRank) {
+			return new long[0];
+		}
+		long[] ids = new long[Math.toIntExact(toRank - fromRank + 1)];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = get(fromRank - 1 + i);
+		}
+		return ids;
+	}
+
+	/**
+	 * Write a newly created file to disk and complete it by writing the header.
+	 */
+	@Override
+	public void close() throws IOException {
+		array.close();
+		if (writable) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.put(VERSION);
+			header.put((byte) kind.ordinal());
+			header.put((byte) array.type().bytes);
+			header.put((byte) 0);
+			header.putLong(array.length());
+			header.flip();
+			try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.WRITE)) {
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+				channel.force(false);
+			}
+		}
+	}
+}
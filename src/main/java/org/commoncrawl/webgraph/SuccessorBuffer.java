@@ -0,0 +1,455 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+/**
+ * Buffer holding the successor lists of nodes whose arcs are not received in
+ * the order of the source node IDs. Arcs are added in arbitrary order. The
+ * successors of a node are sorted and deduplicated when the successor list is
+ * taken from the buffer.
+ *
+ * <p>
+ * The number of arcs held in memory can be bounded, see
+ * {@link #setMaxArcsInMemory(long, Path)}: if the limit is hit, the buffered
+ * successor lists are sorted, deduplicated and spilled to a temporary file
+ * ("run"). The runs are merged when the successor lists are taken, which
+ * requires that successor lists are taken in increasing order of the source
+ * node IDs. If the number of runs reaches a limit, the runs are merged into a
+ * single run, so that the number of open files and the memory used by the
+ * read buffers of the runs stay bounded.
+ * </p>
+ */
+public class SuccessorBuffer implements Closeable {
+
+	private static Logger LOG = LoggerFactory.getLogger(SuccessorBuffer.class);
+
+	/* max. number of runs, merged into a single run if reached */
+	private static final int MAX_RUNS = 256;
+
+	private final Int2ObjectOpenHashMap<IntArrayList> successors = new Int2ObjectOpenHashMap<>();
+
+	/* short cut for the common case of subsequent arcs from the same source */
+	private int lastSource = -1;
+	private IntArrayList lastSuccessors = null;
+
+	private long numArcs = 0;
+	private long maxArcs = 0;
+	private int maxSources = 0;
+
+	private boolean countArcs = false;
+	private int[] counts = IntArrays.EMPTY_ARRAY;
+
+	private long maxArcsInMemory = Long.MAX_VALUE;
+	private Path spillDir = null;
+	/* runs ordered by the next source node ID */
+	private final PriorityQueue<Run> runs = new PriorityQueue<>(
+			(a, b) -> Integer.compare(a.nextSource, b.nextSource));
+	private long numSpilledArcs = 0;
+	private int numRuns = 0;
+
+	/**
+	 * Successor lists spilled to a temporary file, sorted by source node ID.
+	 */
+	private static class Run implements Closeable {
+		private final Path file;
+		private final DataInputStream in;
+		private int nextSource;
+
+		Run(Path file) throws IOException {
+			this.file = file;
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+			readNextSource();
+		}
+
+		private void readNextSource() throws IOException {
+			try {
+				nextSource = in.readInt();
+			} catch (EOFException e) {
+				nextSource = -1;
+				close();
+			}
+		}
+
+		/**
+		 * read the successors (and their counts if count is not null) of the next
+		 * source and append them to the lists
+		 */
+		void readSuccessors(IntArrayList succ, IntArrayList count) throws IOException {
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				succ.add(in.readInt());
+				if (count != null) {
+					count.add(in.readInt());
+				}
+			}
+			readNextSource();
+		}
+
+		boolean isExhausted() {
+			return nextSource == -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * @param countArcs if true count the number of occurrences of every arc, see
+	 *                  {@link #counts()}. Must be called before arcs are added.
+	 */
+	public void setCountArcs(boolean countArcs) {
+		this.countArcs = countArcs;
+	}
+
+	/**
+	 * Bound the number of arcs held in memory. If more arcs are added, all
+	 * buffered successor lists are spilled to a temporary file.
+	 *
+	 * @param maxArcsInMemory max. number of arcs held in memory
+	 * @param dir             directory to place temporary files, if null use the
+	 *                        default temporary-file directory
+	 */
+	public void setMaxArcsInMemory(long maxArcsInMemory, Path dir) {
+		this.maxArcsInMemory = maxArcsInMemory;
+		this.spillDir = dir;
+	}
+
+	/**
+	 * Add an arc to the buffer.
+	 *
+	 * @param source source node ID
+	 * @param target target node ID
+	 */
+	public void add(int source, int target) {
+		if (source != lastSource || lastSuccessors == null) {
+			lastSuccessors = successors.get(source);
+			if (lastSuccessors == null) {
+				lastSuccessors = new IntArrayList();
+				successors.put(source, lastSuccessors);
+				if (successors.size() > maxSources) {
+					maxSources = successors.size();
+				}
+			}
+			lastSource = source;
+		}
+		lastSuccessors.add(target);
+		numArcs++;
+		if (numArcs > maxArcs) {
+			maxArcs = numArcs;
+		}
+		if (numArcs >= maxArcsInMemory) {
+			try {
+				spill();
+			} catch (IOException e) {
+				LOG.error("Failed to spill successor lists to disk", e);
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void spill() throws IOException {
+		int[] sources = successors.keySet().toIntArray();
+		IntArrays.unstableSort(sources);
+		Path file = spillDir == null ? Files.createTempFile("successors-", ".bin")
+				: Files.createTempFile(spillDir, "successors-", ".bin");
+		long n = 0;
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			IntArrayList count = countArcs ? new IntArrayList() : null;
+			for (int source : sources) {
+				int[] succ = sortUnique(successors.get(source), count);
+				writeSuccessors(out, source, succ, succ.length, count);
+				n += succ.length;
+				if (count != null) {
+					count.clear();
+				}
+			}
+		}
+		LOG.info("Spilled {} arcs ({} unique) from {} nodes to disk", numArcs, n, sources.length);
+		numSpilledArcs += n;
+		numRuns++;
+		successors.clear();
+		successors.trim();
+		lastSource = -1;
+		lastSuccessors = null;
+		numArcs = 0;
+		addRun(new Run(file));
+		if (runs.size() >= MAX_RUNS) {
+			mergeRuns();
+		}
+	}
+
+	private static void writeSuccessors(DataOutputStream out, int source, int[] succ, int length,
+			IntArrayList count) throws IOException {
+		out.writeInt(source);
+		out.writeInt(length);
+		for (int i = 0; i < length; i++) {
+			out.writeInt(succ[i]);
+			if (count != null) {
+				out.writeInt(count.getInt(i));
+			}
+		}
+	}
+
+	private void addRun(Run run) {
+		if (!run.isExhausted()) {
+			runs.add(run);
+		}
+	}
+
+	/**
+	 * Merge the remaining successor lists of all runs into a single run, to limit
+	 * the number of files open and read concurrently.
+	 */
+	private void mergeRuns() throws IOException {
+		int numMerged = runs.size();
+		Path file = spillDir == null ? Files.createTempFile("successors-", ".bin")
+				: Files.createTempFile(spillDir, "successors-", ".bin");
+		long n = 0;
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			IntArrayList succ = new IntArrayList();
+			IntArrayList count = countArcs ? new IntArrayList() : null;
+			while (!runs.isEmpty()) {
+				int source = runs.peek().nextSource;
+				readSpilled(source, succ, count);
+				int length;
+				if (count != null) {
+					length = sumCounts(succ, count);
+				} else {
+					length = sortUnique(succ, null).length;
+				}
+				writeSuccessors(out, source, succ.elements(), length, count);
+				n += length;
+				succ.clear();
+				if (count != null) {
+					count.clear();
+				}
+			}
+		}
+		addRun(new Run(file));
+		LOG.info("Merged {} runs into one run of {} arcs ({} bytes)", numMerged, n, Files.size(file));
+	}
+
+	/**
+	 * Remove the successors of a node from the buffer.
+	 *
+	 * @param source source node ID
+	 * @return sorted and deduplicated successors of the node, an empty array if
+	 *         no arcs from the node have been buffered
+	 */
+	public int[] take(int source) {
+		IntArrayList succ = successors.remove(source);
+		if (source == lastSource) {
+			lastSource = -1;
+			lastSuccessors = null;
+		}
+		if (succ != null) {
+			numArcs -= succ.size();
+		}
+		if (countArcs) {
+			return takeCounted(source, succ);
+		}
+		if (!runs.isEmpty()) {
+			succ = takeSpilled(source, succ, null);
+		}
+		if (succ == null) {
+			return IntArrays.EMPTY_ARRAY;
+		}
+		return sortUnique(succ, null);
+	}
+
+	private int[] takeCounted(int source, IntArrayList succ) {
+		IntArrayList count = new IntArrayList();
+		int[] targets = IntArrays.EMPTY_ARRAY;
+		if (succ != null) {
+			targets = sortUnique(succ, count);
+		}
+		if (!runs.isEmpty()) {
+			IntArrayList spilled = takeSpilled(source, new IntArrayList(targets), count);
+			if (spilled.size() > targets.length) {
+				// merge successors and counts held in memory and spilled to disk
+				targets = IntArrays.trim(spilled.elements(), sumCounts(spilled, count));
+			}
+		}
+		counts = count.toIntArray();
+		return targets;
+	}
+
+	private IntArrayList takeSpilled(int source, IntArrayList succ, IntArrayList count) {
+		if (runs.peek().nextSource < source) {
+			throw new IllegalStateException(
+					"Successor lists not taken in increasing order: " + source + " > " + runs.peek().nextSource);
+		}
+		if (runs.peek().nextSource != source) {
+			return succ;
+		}
+		if (succ == null) {
+			succ = new IntArrayList();
+		}
+		try {
+			readSpilled(source, succ, count);
+		} catch (IOException e) {
+			LOG.error("Failed to read successor lists spilled to disk", e);
+			throw new UncheckedIOException(e);
+		}
+		return succ;
+	}
+
+	/**
+	 * Read the successors of a source from all runs whose next source it is, and
+	 * append them (and their counts if count is not null) to the lists.
+	 */
+	private void readSpilled(int source, IntArrayList succ, IntArrayList count) throws IOException {
+		while (!runs.isEmpty() && runs.peek().nextSource == source) {
+			Run run = runs.poll();
+			run.readSuccessors(succ, count);
+			addRun(run);
+		}
+	}
+
+	/**
+	 * Sort successors and their counts, sum up the counts of duplicate successors.
+	 *
+	 * @param succ  successors, modified in place
+	 * @param count counts of the successors, modified in place
+	 * @return number of unique successors, the lists are truncated to this size
+	 */
+	private static int sumCounts(IntArrayList succ, IntArrayList count) {
+		int[] t = succ.elements();
+		int[] c = count.elements();
+		int length = succ.size();
+		IntArrays.quickSort(t, c, 0, length);
+		int n = 0;
+		for (int i = 0; i < length; i++) {
+			if (n > 0 && t[n - 1] == t[i]) {
+				c[n - 1] += c[i];
+			} else {
+				t[n] = t[i];
+				c[n] = c[i];
+				n++;
+			}
+		}
+		succ.size(n);
+		count.size(n);
+		return n;
+	}
+
+	/**
+	 * Sort and deduplicate successors.
+	 *
+	 * @param succ  successors, modified in place
+	 * @param count if not null the number of occurrences of every successor is
+	 *              appended to this list
+	 * @return sorted and deduplicated successors
+	 */
+	private static int[] sortUnique(IntArrayList succ, IntArrayList count) {
+		int[] a = succ.elements();
+		int length = succ.size();
+		IntArrays.unstableSort(a, 0, length);
+		int n = 0;
+		for (int i = 0; i < length; i++) {
+			if (n == 0 || a[n - 1] != a[i]) {
+				a[n++] = a[i];
+				if (count != null) {
+					count.add(1);
+				}
+			} else if (count != null) {
+				count.set(n - 1, count.getInt(n - 1) + 1);
+			}
+		}
+		return IntArrays.trim(a, n);
+	}
+
+	/**
+	 * @return the number of occurrences (multiplicity) of each successor returned
+	 *         by the last call of {@link #take(int)}, requires that counting is
+	 *         enabled, see {@link #setCountArcs(boolean)}
+	 */
+	public int[] counts() {
+		return counts;
+	}
+
+	/**
+	 * @return the number of arcs held in the buffer (including duplicates)
+	 */
+	public long numArcs() {
+		return numArcs;
+	}
+
+	/**
+	 * @return the number of nodes with successors held in the buffer
+	 */
+	public int numSources() {
+		return successors.size();
+	}
+
+	/**
+	 * @return the max. number of arcs held in the buffer at any time
+	 */
+	public long maxArcs() {
+		return maxArcs;
+	}
+
+	/**
+	 * @return the max. number of nodes with successors held in the buffer at any
+	 *         time
+	 */
+	public int maxSources() {
+		return maxSources;
+	}
+
+	/**
+	 * @return the number of arcs spilled to disk (after deduplication)
+	 */
+	public long numSpilledArcs() {
+		return numSpilledArcs;
+	}
+
+	/**
+	 * @return the number of times the buffer was spilled to disk
+	 */
+	public int numRuns() {
+		return numRuns;
+	}
+
+	public boolean isEmpty() {
+		return successors.isEmpty() && runs.isEmpty();
+	}
+
+	/**
+	 * Remove all temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Run run : runs) {
+			run.close();
+		}
+		runs.clear();
+	}
+
+}
@@ -0,0 +1,238 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongToDoubleFunction;
+import java.util.stream.IntStream;
+
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+/**
+ * Select the top <i>k</i> nodes by value without sorting all nodes, and
+ * determine the ranks of a few nodes. The order and the ranks are the same as
+ * assigned by {@link RadixRanker}: higher values first, ties broken by
+ * ascending node ID.
+ *
+ * <p>
+ * The selection is a parallel radix select on the keys of
+ * {@link RadixRanker#descendingKey(double)}: every pass counts the next 16 bits
+ * of the keys sharing the prefix of the <i>k</i>-th node, until few enough
+ * candidates share the prefix. The nodes before the prefix and the candidates
+ * are then collected and sorted. Float values are passed as double, which
+ * preserves their order.
+ * </p>
+ */
+public class TopRanks {
+
+	/* number of key bits resolved per selection pass */
+	private static final int DIGIT_BITS = 16;
+	private static final int NUM_BUCKETS = 1 << DIGIT_BITS;
+
+	/* stop refining the prefix of the k-th node if not more nodes share it */
+	private static final int MAX_CANDIDATES = 1 << 20;
+
+	private static long prefix(long key, int bits) {
+		return bits == 0 ? 0 : key >>> (Long.SIZE - bits);
+	}
+
+	/**
+	 * Select the top <i>k</i> nodes.
+	 *
+	 * @param length number of nodes
+	 * @param values values by node ID
+	 * @param k      number of nodes to select
+	 * @return node IDs of the top <i>k</i> nodes (or all nodes, if fewer) in
+	 *         rank order
+	 */
+	public static long[] select(long length, LongToDoubleFunction values, int k) {
+		return select(length, values, k, MAX_CANDIDATES);
+	}
+
+	static long[] select(long length, LongToDoubleFunction values, int k, int maxCandidates) {
+		if (k < 0 || k > (it.unimi.dsi.fastutil.Arrays.MAX_ARRAY_SIZE - maxCandidates)) {
+			throw new IllegalArgumentException("Invalid number of nodes to select: " + k);
+		}
+		k = (int) Math.min(k, length);
+		if (k == 0) {
+			return new long[0];
+		}
+		final int chunks = RadixRanker.numChunks(length);
+		final long chunkSize = (length + chunks - 1) / chunks;
+
+		// determine the key prefix of the k-th node
+		long prefix = 0;
+		int bits = 0;
+		long needed = k; // nodes to select among the candidates sharing the prefix
+		long candidates = length;
+		long[][] counts = new long[chunks][];
+		while (bits < Long.SIZE && candidates > Math.max(needed, maxCandidates)) {
+			final long p = prefix;
+			final int b = bits;
+			final int shift = Long.SIZE - bits - DIGIT_BITS;
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				long[] count = new long[NUM_BUCKETS];
+				long end = Math.min(length, (c + 1) * chunkSize);
+				for (long i = c * chunkSize; i < end; i++) {
+					long key = RadixRanker.descendingKey(values.applyAsDouble(i));
+					if (prefix(key, b) == p) {
+						count[(int) (key >>> shift) & (NUM_BUCKETS - 1)]++;
+					}
+				}
+				counts[c] = count;
+			});
+			int bucket = 0;
+			while (true) {
+				long total = 0;
+				for (long[] count : counts) {
+					total += count[bucket];
+				}
+				if (total >= needed) {
+					candidates = total;
+					break;
+				}
+				needed -= total;
+				bucket++;
+			}
+			prefix = (prefix << DIGIT_BITS) | bucket;
+			bits += DIGIT_BITS;
+		}
+
+		// count and collect the nodes before the prefix and the candidates
+		final long p = prefix;
+		final int b = bits;
+		final long[] before = new long[chunks];
+		final long[] take = new long[chunks];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			for (long i = c * chunkSize; i < end; i++) {
+				long key = prefix(RadixRanker.descendingKey(values.applyAsDouble(i)), b);
+				int cmp = Long.compareUnsigned(key, p);
+				if (cmp < 0) {
+					before[c]++;
+				} else if (cmp == 0) {
+					take[c]++;
+				}
+			}
+		});
+		long remaining = needed;
+		final long[] offset = new long[chunks + 1];
+		for (int c = 0; c < chunks; c++) {
+			if (bits == Long.SIZE) {
+				// all candidates are ties: take the ones with the lowest node IDs
+				take[c] = Math.min(take[c], remaining);
+				remaining -= take[c];
+			}
+			offset[c + 1] = offset[c] + before[c] + take[c];
+		}
+		final int n = (int) offset[chunks];
+		final long[] keys = new long[n];
+		final long[] ids = new long[n];
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			int pos = (int) offset[c];
+			long taken = 0;
+			for (long i = c * chunkSize; i < end; i++) {
+				long key = RadixRanker.descendingKey(values.applyAsDouble(i));
+				int cmp = Long.compareUnsigned(prefix(key, b), p);
+				if (cmp < 0 || (cmp == 0 && taken++ < take[c])) {
+					keys[pos] = key;
+					ids[pos++] = i;
+				}
+			}
+		});
+
+		// the collected nodes are in ascending ID order, sort them by key
+		long[][] sorted = sort(keys, ids);
+		long[] top = new long[k];
+		for (int i = 0; i < k; i++) {
+			top[i] = BigArrays.get(sorted, i);
+		}
+		return top;
+	}
+
+	/**
+	 * Stable sort by the keys.
+	 *
+	 * @return the IDs, sorted by the keys
+	 */
+	private static long[][] sort(long[] keys, long[] ids) {
+		int n = keys.length;
+		int chunks = RadixRanker.numChunks(n);
+		long chunkSize = ((long) n + chunks - 1) / chunks;
+		return RadixRanker.sort(BigArrays.wrap(keys), BigArrays.wrap(new long[n]), BigArrays.wrap(ids),
+				BigArrays.wrap(new long[n]), chunks, chunkSize);
+	}
+
+	/**
+	 * Determine the ranks of the given nodes by a single pass over all values:
+	 * every node is counted in front of the first given node it precedes in rank
+	 * order.
+	 *
+	 * @param length number of nodes
+	 * @param values values by node ID
+	 * @param ids    node IDs
+	 * @return the ranks of the nodes in ids
+	 */
+	public static long[] ranks(long length, LongToDoubleFunction values, long[] ids) {
+		final int m = ids.length;
+		// sort the given nodes in rank order
+		long[] byId = Arrays.copyOf(ids, m);
+		long[] positions = new long[m];
+		for (int i = 0; i < m; i++) {
+			positions[i] = i;
+		}
+		LongArrays.radixSort(byId, positions);
+		long[] keys = new long[m];
+		long[] indexes = new long[m];
+		for (int i = 0; i < m; i++) {
+			keys[i] = RadixRanker.descendingKey(values.applyAsDouble(byId[i]));
+			indexes[i] = i;
+		}
+		long[][] sorted = sort(keys, indexes);
+		final long[] sortedKeys = new long[m];
+		final long[] sortedIds = new long[m];
+		for (int i = 0; i < m; i++) {
+			int index = (int) BigArrays.get(sorted, i);
+			sortedIds[i] = byId[index];
+			sortedKeys[i] = RadixRanker.descendingKey(values.applyAsDouble(sortedIds[i]));
+		}
+
+		AtomicLongArray counts = new AtomicLongArray(m);
+		final int chunks = RadixRanker.numChunks(length);
+		final long chunkSize = (length + chunks - 1) / chunks;
+		IntStream.range(0, chunks).parallel().forEach(c -> {
+			long end = Math.min(length, (c + 1) * chunkSize);
+			for (long i = c * chunkSize; i < end; i++) {
+				long key = RadixRanker.descendingKey(values.applyAsDouble(i));
+				// first given node after node i in rank order
+				int lo = 0, hi = m;
+				while (lo < hi) {
+					int mid = (lo + hi) >>> 1;
+					int cmp = Long.compareUnsigned(sortedKeys[mid], key);
+					if (cmp < 0 || (cmp == 0 && sortedIds[mid] <= i)) {
+						lo = mid + 1;
+					} else {
+						hi = mid;
+					}
+				}
+				if (lo < m) {
+					counts.incrementAndGet(lo);
+				}
+			}
+		});
+
+		long[] ranks = new long[m];
+		long rank = 1;
+		for (int i = 0; i < m; i++) {
+			rank += counts.get(i);
+			int index = (int) BigArrays.get(sorted, i);
+			ranks[(int) positions[index]] = rank;
+		}
+		return ranks;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.IOException;
+
+/**
+ * Merge-join two vertex lists (eg. of two releases of the web graph) by vertex
+ * name. Both lists (<code>&lt;id&gt; \t &lt;name&gt; [\t
+ * &lt;optionalfield&gt;]...</code>) must be sorted lexicographically by name,
+ * the order of the vertex IDs is irrelevant. The lists are read in a single
+ * sequential pass in constant memory, lines without a node ID are skipped.
+ */
+public class VertexMergeJoin {
+
+	/** Receives the joined vertices in the order of names */
+	public interface Handler {
+		/**
+		 * @param oldId node ID in the first ("old") list, -1 if the name is only
+		 *              contained in the second list
+		 * @param newId node ID in the second ("new") list, -1 if the name is only
+		 *              contained in the first list
+		 * @param name  buffer holding the name as UTF-8 bytes, valid only during
+		 *              the call
+		 * @param from  start of the name in the buffer
+		 * @param to    end of the name (exclusive)
+		 */
+		void accept(long oldId, long newId, byte[] name, int from, int to);
+	}
+
+	/* current vertex line of one list */
+	private static class Cursor {
+		private final LineReader in;
+		private final String label;
+		private long id;
+		private int nameFrom;
+		private int nameTo;
+		private boolean valid;
+		/* previous name, to verify the sort order */
+		private byte[] prev = new byte[256];
+		private int prevLength = -1;
+
+		private Cursor(LineReader in, String label) {
+			this.in = in;
+			this.label = label;
+		}
+
+		private boolean next() throws IOException {
+			while (in.next()) {
+				int sep = in.indexOf('\t');
+				if (sep == -1) {
+					continue;
+				}
+				id = in.parseLong(in.start(), sep);
+				nameFrom = sep + 1;
+				nameTo = in.indexOf('\t', nameFrom);
+				if (nameTo == -1) {
+					nameTo = in.end();
+				}
+				int length = nameTo - nameFrom;
+				if (prevLength >= 0 && LineReader.compare(prev, 0, prevLength, in.buffer(), nameFrom, nameTo) >= 0) {
+					throw new IOException("Vertices (" + label + ") not sorted by name or duplicate name in line "
+							+ in.lineNumber() + ": " + in.toString(nameFrom, nameTo));
+				}
+				if (length > prev.length) {
+					prev = new byte[Math.max(length, 2 * prev.length)];
+				}
+				System.arraycopy(in.buffer(), nameFrom, prev, 0, length);
+				prevLength = length;
+				return valid = true;
+			}
+			return valid = false;
+		}
+
+		private int compareTo(Cursor other) {
+			return LineReader.compare(in.buffer(), nameFrom, nameTo, other.in.buffer(), other.nameFrom, other.nameTo);
+		}
+	}
+
+	/**
+	 * Join two vertex lists sorted by name.
+	 *
+	 * @param oldVertices first vertex list
+	 * @param newVertices second vertex list
+	 * @param handler     called for every name contained in one or both lists,
+	 *                    in the order of names
+	 * @return number of names contained in both lists
+	 * @throws IOException if a list is not sorted by name or contains duplicate
+	 *                     names
+	 */
+	public static long join(LineReader oldVertices, LineReader newVertices, Handler handler) throws IOException {
+		Cursor o = new Cursor(oldVertices, "old");
+		Cursor n = new Cursor(newVertices, "new");
+		o.next();
+		n.next();
+		long common = 0;
+		while (o.valid || n.valid) {
+			int cmp = !o.valid ? 1 : !n.valid ? -1 : o.compareTo(n);
+			if (cmp < 0) {
+				handler.accept(o.id, -1, o.in.buffer(), o.nameFrom, o.nameTo);
+				o.next();
+			} else if (cmp > 0) {
+				handler.accept(-1, n.id, n.in.buffer(), n.nameFrom, n.nameTo);
+				n.next();
+			} else {
+				handler.accept(o.id, n.id, n.in.buffer(), n.nameFrom, n.nameTo);
+				common++;
+				o.next();
+				n.next();
+			}
+		}
+		return common;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Temporary random-access store of vertex names: the remainder of vertex lines
+ * <code>&lt;id&gt; \t &lt;name&gt; [\t &lt;optionalfield&gt;]...</code> after
+ * the node ID, including the leading tab, is copied as bytes into a data file.
+ * A second file holds the offsets of the names indexed by node ID. Both files
+ * are memory-mapped for reading and deleted on {@link #close()}.
+ *
+ * <p>
+ * The vertex lines must be sorted by ascending node ID. Node IDs without a
+ * vertex line are allowed and stored with an empty name.
+ * </p>
+ */
+public class VertexNameStore implements Closeable {
+
+	protected static Logger LOG = LoggerFactory.getLogger(VertexNameStore.class);
+
+	private final Path dataFile;
+	private final Path offsetsFile;
+	private final MappedArray data;
+	private final MappedArray offsets;
+	private final long numNodes;
+
+	private byte[] buffer = new byte[1024];
+
+	private VertexNameStore(Path dataFile, Path offsetsFile, long numNodes) throws IOException {
+		this.dataFile = dataFile;
+		this.offsetsFile = offsetsFile;
+		this.numNodes = numNodes;
+		data = MappedArray.map(dataFile.toString(), MappedArray.Type.BYTE);
+		offsets = MappedArray.map(offsetsFile.toString(), MappedArray.Type.LONG);
+	}
+
+	/**
+	 * Read vertex lines and store the names.
+	 *
+	 * @param in       vertex lines, sorted by node ID
+	 * @param numNodes number of nodes, all node IDs must be lower
+	 * @param dir      directory to hold the temporary files
+	 * @return store of vertex names
+	 * @throws IOException if writing the temporary files fails
+	 */
+	public static VertexNameStore build(LineReader in, long numNodes, Path dir) throws IOException {
+		Path dataFile = Files.createTempFile(dir, "vertex-names-", ".bin");
+		Path offsetsFile = Files.createTempFile(dir, "vertex-names-", ".offsets");
+		try {
+			long pos = 0;
+			long lines = 0;
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dataFile), 1 << 16);
+					MappedArray offsets = MappedArray.create(offsetsFile.toString(), MappedArray.Type.LONG,
+							numNodes + 1)) {
+				long nextId = 0;
+				while (in.next()) {
+					int sep = in.indexOf('\t');
+					if (sep == -1) {
+						continue;
+					}
+					long id = in.parseLong(in.start(), sep);
+					if (id < nextId || id >= numNodes) {
+						throw new IOException("Vertices not sorted by node ID or node ID out of range: " + id);
+					}
+					// nodes without vertex line get an empty name
+					while (nextId <= id) {
+						offsets.setLong(nextId++, pos);
+					}
+					int len = in.end() - sep;
+					out.write(in.buffer(), sep, len);
+					pos += len;
+					lines++;
+				}
+				while (nextId <= numNodes) {
+					offsets.setLong(nextId++, pos);
+				}
+			}
+			LOG.info("Stored names of {} vertices ({} bytes)", lines, pos);
+			return new VertexNameStore(dataFile, offsetsFile, numNodes);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(dataFile);
+			Files.deleteIfExists(offsetsFile);
+			throw e;
+		}
+	}
+
+	public long numNodes() {
+		return numNodes;
+	}
+
+	/**
+	 * @param id node ID
+	 * @return true if there is a vertex line for this node
+	 */
+	public boolean contains(long id) {
+		return offsets.getLong(id) < offsets.getLong(id + 1);
+	}
+
+	/**
+	 * Write the name of a node, including the leading tab and optional fields.
+	 * Nothing is written if there is no vertex line for this node.
+	 *
+	 * @param id  node ID
+	 * @param out output to write the name to
+	 */
+	public void write(long id, LineWriter out) {
+		long start = offsets.getLong(id);
+		int len = (int) (offsets.getLong(id + 1) - start);
+		if (len > buffer.length) {
+			buffer = new byte[Math.max(len, 2 * buffer.length)];
+		}
+		data.getBytes(start, buffer, 0, len);
+		out.write(buffer, 0, len);
+	}
+
+	/**
+	 * Delete the temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+		Files.deleteIfExists(dataFile);
+		Files.deleteIfExists(offsetsFile);
+	}
+}
@@ -20,6 +20,7 @@ import java.util.stream.Stream;
 
 import org.commoncrawl.webgraph.CountingMergedIntIterator;
 import org.commoncrawl.webgraph.HostToDomainGraph;
+import org.commoncrawl.webgraph.RankFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +60,12 @@ public class Graph {
 	protected GOV4Function<String> vertexMapMph;
 	protected LiterallySignedStringMap vertexMapLmap;
 
+	/* Ranks by vertex ID and vertex IDs by rank, see RankFile */
+	protected RankFile harmonicCentralityRanks;
+	protected RankFile harmonicCentralityRankedIds;
+	protected RankFile pageRankRanks;
+	protected RankFile pageRankRankedIds;
+
 	private static int LAZY_INT_ITERATOR_EMPTY_VALUE = LazyIntIterators.EMPTY_ITERATOR.nextInt();
 
 	public Graph(String name) throws Exception {
@@ -92,6 +99,10 @@ public class Graph {
 			} else {
 				LOG.error("No vertex mapping found, cannot translate from vertex names to IDs.");
 			}
+			harmonicCentralityRanks = loadRankFile(name + "-harmonicc" + RankFile.Kind.RANK_BY_ID.suffix);
+			harmonicCentralityRankedIds = loadRankFile(name + "-harmonicc" + RankFile.Kind.ID_BY_RANK.suffix);
+			pageRankRanks = loadRankFile(name + "-pagerank" + RankFile.Kind.RANK_BY_ID.suffix);
+			pageRankRankedIds = loadRankFile(name + "-pagerank" + RankFile.Kind.ID_BY_RANK.suffix);
 		} catch (IOException | ClassNotFoundException e) {
 			LOG.error("Failed to load graph {}:", name, e);
 			throw e;
@@ -99,6 +110,14 @@ public class Graph {
 		LOG.info("Loaded graph {}.graph", name);
 	}
 
+	private static RankFile loadRankFile(String file) throws IOException {
+		if (Files.exists(Paths.get(file))) {
+			LOG.info("Loading rank file {}", file);
+			return RankFile.open(file);
+		}
+		return null;
+	}
+
 	public String vertexIdToLabel(long id) {
 		if (vertexMap != null) {
 			return vertexMap.list().get((int) id).toString();
@@ -125,6 +144,72 @@ public class Graph {
 		}
 	}
 
+	public long harmonicCentralityRank(long vertexId) {
+		return harmonicCentralityRank(vertexId, "ID " + vertexId);
+	}
+
+	public long harmonicCentralityRank(String vertexLabel) {
+		return harmonicCentralityRank(vertexLabelToId(vertexLabel), vertexLabel);
+	}
+
+	private long harmonicCentralityRank(long vertexId, String vertex) {
+		if (harmonicCentralityRanks == null) {
+			throw new RuntimeException("No harmonic centrality ranks loaded.");
+		}
+		return rank(harmonicCentralityRanks, vertexId, vertex);
+	}
+
+	public long pageRankRank(long vertexId) {
+		return pageRankRank(vertexId, "ID " + vertexId);
+	}
+
+	public long pageRankRank(String vertexLabel) {
+		return pageRankRank(vertexLabelToId(vertexLabel), vertexLabel);
+	}
+
+	private long pageRankRank(long vertexId, String vertex) {
+		if (pageRankRanks == null) {
+			throw new RuntimeException("No page rank ranks loaded.");
+		}
+		return rank(pageRankRanks, vertexId, vertex);
+	}
+
+	/*
+	 * look up the rank, vertex IDs out of range (eg. -1 returned by the vertex
+	 * map for unknown labels) are rejected
+	 */
+	private static long rank(RankFile ranks, long vertexId, String vertex) {
+		if (vertexId < 0 || vertexId >= ranks.length()) {
+			throw new IllegalArgumentException("Unknown vertex: " + vertex);
+		}
+		return ranks.rank(vertexId);
+	}
+
+	/**
+	 * Get the vertices in a range of harmonic centrality ranks.
+	 * 
+	 * @param fromRank first rank (inclusive, the top-ranked vertex has rank 1)
+	 * @param toRank   last rank (inclusive)
+	 * @return vertex IDs in rank order
+	 */
+	public long[] verticesByHarmonicCentralityRank(long fromRank, long toRank) {
+		if (harmonicCentralityRankedIds == null) {
+			throw new RuntimeException("No vertex IDs ordered by harmonic centrality rank loaded.");
+		}
+		return harmonicCentralityRankedIds.ids(fromRank, toRank);
+	}
+
+	/**
+	 * Get the vertices in a range of page rank ranks, see
+	 * {@link #verticesByHarmonicCentralityRank(long, long)}.
+	 */
+	public long[] verticesByPageRankRank(long fromRank, long toRank) {
+		if (pageRankRankedIds == null) {
+			throw new RuntimeException("No vertex IDs ordered by page rank rank loaded.");
+		}
+		return pageRankRankedIds.ids(fromRank, toRank);
+	}
+
 	public boolean isArc(long fromId, long toId) {
 		final LazyIntIterator succors = graph.successors((int) fromId);
 		for (int s; (s = succors.nextInt()) != -1;) {
@@ -5,7 +5,7 @@
 package org.commoncrawl.webgraph.explore;
 
 import java.io.IOException;
-import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -20,6 +20,7 @@ import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import org.commoncrawl.webgraph.CountingMergedIntIterator;
+import org.commoncrawl.webgraph.LineWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -215,51 +216,47 @@ public class GraphExplorer {
 
 	public void saveVerticesToFile(IntStream vertexIDs, String fileName) {
 		AtomicLong count = new AtomicLong();
-		try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(fileName)), false,
-				StandardCharsets.UTF_8)) {
-			vertexIDs.forEach(id -> {
+		try (LineWriter out = LineWriter.open(fileName)) {
+			vertexIDs.mapToObj(g::vertexIdToLabel).forEachOrdered(label -> {
 				count.incrementAndGet();
-				out.println(g.vertexIdToLabel(id));
+				out.println(label);
 			});
 			LOG.info("Saved {} vertices to file {}.", count.get(), fileName);
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			LOG.error("Failed to write vertices to file {}", fileName, e);
 		}
 	}
 
 	public void saveVerticesToFile(LongStream vertexIDs, String fileName) {
 		AtomicLong count = new AtomicLong();
-		try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(fileName)), false,
-				StandardCharsets.UTF_8)) {
-			vertexIDs.forEach(id -> {
+		try (LineWriter out = LineWriter.open(fileName)) {
+			vertexIDs.mapToObj(g::vertexIdToLabel).forEachOrdered(label -> {
 				count.incrementAndGet();
-				out.println(g.vertexIdToLabel(id));
+				out.println(label);
 			});
 			LOG.info("Saved {} vertices to file {}.", count.get(), fileName);
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			LOG.error("Failed to write vertices to file {}", fileName, e);
 		}
 	}
 
 	public void saveToFile(Stream<String> strings, String fileName) {
-		try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(fileName)), false,
-				StandardCharsets.UTF_8)) {
-			strings.forEach(out::println);
-		} catch (IOException e) {
+		try (LineWriter out = LineWriter.open(fileName)) {
+			strings.forEachOrdered(out::println);
+		} catch (IOException | UncheckedIOException e) {
 			LOG.error("Failed to write strings to file {}", fileName, e);
 		}
 	}
 
 	public void saveCountsToFile(Stream<Entry<String, Long>> counts, String fileName) {
-		try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(fileName)), false,
-				StandardCharsets.UTF_8)) {
-			counts.forEach(c -> {
+		try (LineWriter out = LineWriter.open(fileName)) {
+			counts.forEachOrdered(c -> {
 				out.print(c.getValue());
-				out.print('\t');
+				out.write('\t');
 				out.print(c.getKey());
-				out.print('\n');
+				out.write('\n');
 			});
-		} catch (IOException e) {
+		} catch (IOException | UncheckedIOException e) {
 			LOG.error("Failed to write counts to file {}", fileName, e);
 		}
 	}
@@ -4,20 +4,70 @@
 # Copyright (C) 2022 Common Crawl and contributors
 
 FLAGS=()
+CHECKPOINT_FLAGS=()
+OUTPUT_LEVELS=()
 PROPERTIES=()
+BVGRAPH_OUTPUT=false
+SORTED_EDGES=false
+ARC_LIST_OUTPUT=false
+COUNT_ARCS=false
 while true; do
     case "$1" in
         "-D"* )
             PROPERTIES=("${PROPERTIES[@]}" "$1")
             shift
             ;;
-        "--aggregation-level" )
+        "--aggregation-level" | "--threads" | "--edge-buffer" | "--mapping" | "--max-domains" \
+        | "--spill-threshold" | "--spill-dir" | "--save-map" | "--load-map" )
             FLAGS=("${FLAGS[@]}" "$1")
             shift
             # takes one argument
             FLAGS=("${FLAGS[@]}" "$1")
             shift
             ;;
+        "--checkpoint" | "--checkpoint-interval" )
+            # checkpoint the conversion of the nodes and edges, see below
+            CHECKPOINT_FLAGS=("${CHECKPOINT_FLAGS[@]}" "$1")
+            shift
+            # takes one argument
+            CHECKPOINT_FLAGS=("${CHECKPOINT_FLAGS[@]}" "$1")
+            shift
+            ;;
+        "--resume" )
+            # resume an interrupted run from the checkpoint
+            CHECKPOINT_FLAGS=("${CHECKPOINT_FLAGS[@]}" "$1")
+            shift
+            ;;
+        "--output" )
+            # takes three arguments: <level> <vertices_out> <edges_out>
+            # (convert the graph on multiple aggregation levels in one pass)
+            OUTPUT_LEVELS=("${OUTPUT_LEVELS[@]}" "$2" "$3" "$4")
+            shift 4
+            ;;
+        "--bvgraph" )
+            # write domain edges as BVGraph (no text output, no sorting required)
+            BVGRAPH_OUTPUT=true
+            FLAGS=("${FLAGS[@]}" "$1")
+            shift
+            ;;
+        "--arc-list" )
+            # domain edges are sorted and deduplicated in memory and
+            # written in the binary arc list format to edges.arcs
+            ARC_LIST_OUTPUT=true
+            SORTED_EDGES=true
+            FLAGS=("${FLAGS[@]}" "$1")
+            shift
+            ;;
+        "--sorted-edges" | "--count-arcs" )
+            # domain edges are sorted and deduplicated in memory
+            # (--count-arcs: with host-level edge counts as third column)
+            SORTED_EDGES=true
+            if [ "$1" == "--count-arcs" ]; then
+                COUNT_ARCS=true
+            fi
+            FLAGS=("${FLAGS[@]}" "$1")
+            shift
+            ;;
         "-"* )
             FLAGS=("${FLAGS[@]}" "$1")
             shift
@@ -28,10 +78,27 @@ while true; do
     esac
 done
 
+# check the combinations of options before any work starts
+if [ ${#OUTPUT_LEVELS[@]} -gt 0 ] && [ ${#CHECKPOINT_FLAGS[@]} -gt 0 ]; then
+    echo "Options --checkpoint and --resume cannot be combined with --output:" >&2
+    echo "the conversion on multiple levels cannot be checkpointed" >&2
+    exit 1
+fi
+if [ ${#OUTPUT_LEVELS[@]} -gt 0 ] && ($BVGRAPH_OUTPUT || $SORTED_EDGES); then
+    echo "Option --output cannot be combined with --bvgraph, --sorted-edges, --arc-list or --count-arcs" >&2
+    exit 1
+fi
+
 JAR=target/cc-webgraph-0.1-SNAPSHOT-jar-with-dependencies.jar
 
 if [ $# -lt 3 ]; then
 	echo "$0 [<flags>...] <number_of_vertices> <input_dir> <output_dir> [<tmp_dir>]" >&2
+    echo "" >&2
+    echo "Options --checkpoint <file> [--checkpoint-interval <n>] [--resume] allow" >&2
+    echo "to resume an interrupted conversion, see HostToDomainGraph." >&2
+    echo "With --output <level> <vertices_out> <edges_out> (repeatable) the graph is" >&2
+    echo "converted on multiple levels and written to the given paths instead." >&2
+    echo "The conversion on multiple levels cannot be checkpointed." >&2
     if [ ${#FLAGS[@]} -gt 0 ]; then
         echo ""
         echo "Calling HostToDomainGraph with provided flags (${FLAGS[*]}):"
@@ -46,8 +113,19 @@ INPUTDIR="$2"
 OUTPUTDIR="$3"
 TMPDIR=${4:-./tmp/}
 
-MAIN_MEM_GB=16
-PARALLEL_SORT_THREADS=2
+# main memory (GiB) available to the Java heaps
+MAIN_MEM_GB=${MAIN_MEM_GB:-16}
+# number of processes to convert the edges in parallel, requires
+# that the edges input is a directory holding multiple edges files
+EDGE_CONVERSION_PROCESSES=${EDGE_CONVERSION_PROCESSES:-1}
+# spill the host IDs of domains with many hosts (more than the
+# threshold) to temporary files in $TMPDIR, 0 = never spill
+SPILL_THRESHOLD=${SPILL_THRESHOLD:-0}
+if [ $SPILL_THRESHOLD -gt 0 ]; then
+    FLAGS=("${FLAGS[@]}" --spill-threshold $SPILL_THRESHOLD)
+fi
+# temporary files (spilled host IDs and domain edges) are placed in $TMPDIR
+FLAGS=("${FLAGS[@]}" --spill-dir "$TMPDIR")
 
 # Reduce host-level web graph to domain-level graph
 # - running HostToDomainGraph which has low memory requirements
@@ -174,8 +252,13 @@ PARALLEL_SORT_THREADS=2
 
 export LC_ALL=C
 
-# sort with large buffers, merge sort over many files if possible
-SORTOPTS="--batch-size 128 --buffer-size $((1+MAIN_MEM_GB/5))g --parallel=$PARALLEL_SORT_THREADS --temporary-directory $TMPDIR" # --compress-program=gzip
+# sort and deduplicate the domain edges in the JVM (parallel radix sort,
+# sorted runs exceeding half of the heap are spilled to $TMPDIR and merged),
+# the heap size is defined by ARCSORTER_XMX (see below)
+arcsorter() {
+    "$JAVA_HOME"/bin/java -Xmx${ARCSORTER_XMX}g -cp "$CLASSPATH":"$JAR" \
+                        org.commoncrawl.webgraph.ArcSorter --unique --spill-dir "$TMPDIR" "$@"
+}
 
 BIN=$(dirname $0)
 source $BIN/workflow_lib.sh
@@ -184,6 +267,11 @@ LOG__ "Starting aggregation of host-level graph on the domain level"
 
 set -exo pipefail
 
+# The input files (gzipped, single file or glob pattern matching multiple
+# files) are read and decompressed by HostToDomainGraph using multiple threads.
+# Output files with the suffix .gz are compressed by HostToDomainGraph
+# using multiple threads as well.
+
 test -d "$TMPDIR" || mkdir "$TMPDIR"
 
 
@@ -204,8 +292,8 @@ if [ -e "$_VERTICES" ]; then
     echo "Found single vertices file: $_VERTICES"
 elif [ -d "$INPUTDIR"/vertices/ ]; then
     # vertices is a directory with multiple vertices files
-    echo "Found vertices directory, using: $_VERTICES"
     _VERTICES="$INPUTDIR/vertices/*.gz"
+    echo "Found vertices directory, using: $_VERTICES"
 else
     echo "Input vertices file(s) not found"
     exit 1
@@ -229,18 +317,168 @@ if [ "$SIZE" -gt $((2**31-1024)) ]; then
     JXMX=$((8+1+10*SIZE/2**30))
 fi
 
-"$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
-                    "${PROPERTIES[@]}" \
-                    org.commoncrawl.webgraph.HostToDomainGraph \
-                    "${FLAGS[@]}" \
-                    $SIZE \
-                    <(zcat $_VERTICES) \
-                    >(gzip >"$OUTPUTDIR"/vertices.txt.gz) \
-                    <(zcat $_EDGES) \
-                    >(sort $SORTOPTS -t$'\t' -k1,1n -k2,2n -s -u | gzip >"$OUTPUTDIR"/edges.txt.gz)
+# Heap size of ArcSorter:
+# - if ArcSorter runs after HostToDomainGraph has finished: half of the main memory
+# - if it sorts the edges piped from HostToDomainGraph (default, see below),
+#   both JVMs run concurrently and ArcSorter gets the main memory not used
+#   by HostToDomainGraph (at least 1 GiB), so that the combined peak heap
+#   size is JXMX + ARCSORTER_XMX = MAIN_MEM_GB
+ARCSORTER_XMX=$((1+MAIN_MEM_GB/2))
+
+if $BVGRAPH_OUTPUT; then
+    # The domain edges are sorted and deduplicated in memory and written
+    # as BVGraph "$OUTPUTDIR"/edges.{graph,offsets,properties}.
+    # The graph can be passed as <edges> to process_webgraph.sh.
+    # Requires additional memory to buffer the edges of domains queued
+    # for output.
+    JXMX=$((JXMX+4))
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" "${CHECKPOINT_FLAGS[@]}" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$OUTPUTDIR"/vertices.txt.gz \
+                        "$_EDGES" \
+                        "$OUTPUTDIR"/edges
+
+    LOG__ "Finished aggregation of host-level graph on the domain level:"
+    ls -l "$OUTPUTDIR"/vertices.txt.gz "$OUTPUTDIR"/edges.*
+    exit 0
+fi
+
+if [ ${#OUTPUT_LEVELS[@]} -gt 0 ]; then
+    # Convert the graph on multiple aggregation levels in a single pass over
+    # the input. The domain edges of every level are written to $TMPDIR and
+    # sorted afterwards. Requires one host to domain mapping per level.
+    # The conversion on multiple levels cannot be checkpointed.
+    JXMX=$((JXMX*${#OUTPUT_LEVELS[@]}/3))
+    _OUTPUT_ARGS=()
+    for ((i = 0; i < ${#OUTPUT_LEVELS[@]}; i += 3)); do
+        _OUTPUT_ARGS=("${_OUTPUT_ARGS[@]}" --output "${OUTPUT_LEVELS[i]}" "${OUTPUT_LEVELS[i+1]}" \
+                      "$TMPDIR"/domain-edges-${OUTPUT_LEVELS[i]}.txt.gz)
+    done
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" \
+                        "${_OUTPUT_ARGS[@]}" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$_EDGES"
+    for ((i = 0; i < ${#OUTPUT_LEVELS[@]}; i += 3)); do
+        arcsorter "$TMPDIR"/domain-edges-${OUTPUT_LEVELS[i]}.txt.gz "${OUTPUT_LEVELS[i+2]}"
+        rm "$TMPDIR"/domain-edges-${OUTPUT_LEVELS[i]}.txt.gz
+    done
+
+    LOG__ "Finished aggregation of host-level graph on multiple levels:"
+    for ((i = 0; i < ${#OUTPUT_LEVELS[@]}; i += 3)); do
+        ls -l "${OUTPUT_LEVELS[i+1]}" "${OUTPUT_LEVELS[i+2]}"
+    done
+    exit 0
+fi
+
+if [ $EDGE_CONVERSION_PROCESSES -gt 1 ] && [ -d "$INPUTDIR"/edges/ ]; then
+    # Convert the nodes and store the mapping of host to domain IDs,
+    # then convert the edges files in parallel processes, loading
+    # the memory-mapped host to domain mapping.
+    # The domain edges of all edges files are merged and sorted by ArcSorter,
+    # which cannot sum up the host-level arc counts (--count-arcs).
+    if $COUNT_ARCS; then
+        echo "Option --count-arcs is not supported with EDGE_CONVERSION_PROCESSES > 1" >&2
+        exit 1
+    fi
+    _MAP="$TMPDIR"/host-domain-map.bin
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" "${CHECKPOINT_FLAGS[@]}" \
+                        --save-map "$_MAP" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$OUTPUTDIR"/vertices.txt.gz
+
+    # Every process writes the domain edges of one edges file as text,
+    # the arc list (--arc-list) is written by ArcSorter when merging them.
+    _PART_FLAGS=()
+    for _FLAG in "${FLAGS[@]}"; do
+        if [ "$_FLAG" != "--arc-list" ]; then
+            _PART_FLAGS=("${_PART_FLAGS[@]}" "$_FLAG")
+        fi
+    done
+    mkdir -p "$TMPDIR"/domain-edges/
+    export JAVA_HOME CLASSPATH JAR _MAP TMPDIR
+    ls "$INPUTDIR"/edges/*.gz \
+        | xargs -P $EDGE_CONVERSION_PROCESSES -I{} \
+                bash -c 'set -eo pipefail; _IN="$1"; shift; _OUT="$TMPDIR"/domain-edges/$(basename "$_IN");
+                         "$JAVA_HOME"/bin/java -Xmx2g -cp "$CLASSPATH":"$JAR" \
+                             org.commoncrawl.webgraph.HostToDomainGraph "$@" --load-map "$_MAP" \
+                             "$_IN" "$_OUT"' _ {} "${_PART_FLAGS[@]}"
+
+    if $ARC_LIST_OUTPUT; then
+        # The arc list "$OUTPUTDIR"/edges.arcs can be passed as <edges>
+        # to process_webgraph.sh. The number of nodes is the number of
+        # domain vertices, including domains without any arcs.
+        _NUM_DOMAINS=$(zcat "$OUTPUTDIR"/vertices.txt.gz | wc -l)
+        arcsorter --arc-list --num-nodes $_NUM_DOMAINS \
+                  "$TMPDIR/domain-edges/*.gz" "$OUTPUTDIR"/edges.arcs
+    else
+        arcsorter "$TMPDIR/domain-edges/*.gz" "$OUTPUTDIR"/edges.txt.gz
+    fi
+    rm -r "$TMPDIR"/domain-edges/ "$_MAP"
+elif $SORTED_EDGES; then
+    # The domain edges are sorted and deduplicated in memory, arcs exceeding
+    # the buffer size (--edge-buffer) are spilled to $TMPDIR.
+    _EDGES_OUT="$OUTPUTDIR"/edges.txt.gz
+    if $ARC_LIST_OUTPUT; then
+        # The arc list "$OUTPUTDIR"/edges.arcs can be passed as <edges>
+        # to process_webgraph.sh.
+        _EDGES_OUT="$OUTPUTDIR"/edges.arcs
+    fi
+    JXMX=$((JXMX+4))
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" "${CHECKPOINT_FLAGS[@]}" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$OUTPUTDIR"/vertices.txt.gz \
+                        "$_EDGES" \
+                        "$_EDGES_OUT"
+elif [ ${#CHECKPOINT_FLAGS[@]} -gt 0 ]; then
+    # The conversion of the edges can be resumed only if the domain edges
+    # are written to a file: write them to $TMPDIR and sort them afterwards.
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" "${CHECKPOINT_FLAGS[@]}" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$OUTPUTDIR"/vertices.txt.gz \
+                        "$_EDGES" \
+                        "$TMPDIR"/domain-edges.txt.gz
+
+    arcsorter "$TMPDIR"/domain-edges.txt.gz "$OUTPUTDIR"/edges.txt.gz
+    rm "$TMPDIR"/domain-edges.txt.gz
+else
+    # HostToDomainGraph and ArcSorter run concurrently: share the main memory
+    ARCSORTER_XMX=$((MAIN_MEM_GB-JXMX))
+    if [ $ARCSORTER_XMX -lt 1 ]; then
+        ARCSORTER_XMX=1
+    fi
+    "$JAVA_HOME"/bin/java -Xmx${JXMX}g -cp "$CLASSPATH":"$JAR" \
+                        "${PROPERTIES[@]}" \
+                        org.commoncrawl.webgraph.HostToDomainGraph \
+                        "${FLAGS[@]}" \
+                        $SIZE \
+                        "$_VERTICES" \
+                        "$OUTPUTDIR"/vertices.txt.gz \
+                        "$_EDGES" \
+                        >(arcsorter - "$OUTPUTDIR"/edges.txt.gz)
+fi
 
 LOG__ "Waiting for data to be written to disk..."
 wait # for subshells to finish
 
 LOG__ "Finished aggregation of host-level graph on the domain level:"
-ls -l "$OUTPUTDIR"/{vertices,edges}.txt.gz
+ls -l "$OUTPUTDIR"/vertices.txt.gz "$OUTPUTDIR"/edges.*
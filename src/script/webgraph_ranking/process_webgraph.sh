@@ -126,21 +126,30 @@ function join_ranks_in_memory() (
         # _VERT is a directory with multiple vertices files
         _VERT="$_VERT/*.gz"
     fi
-    OPTS=""
+    # values and ranks are memory-mapped, ranks by vertex ID are kept in
+    # the rank files $FULLNAME-harmonicc-ranks.bin and $FULLNAME-pagerank-ranks.bin
+    OPTS="--mmap $FULLNAME"
+    # add the vertex IDs by rank for lookups by rank (used by explore.Graph
+    # and to write the output ordered by rank):
+    # $FULLNAME-{harmonicc,pagerank}-ranked-ids.bin
+    OPTS="$OPTS --rank-files $FULLNAME"
     # heuristics to set Java heap memory
-    # bytes required per node (in theory, 60% more in practice)
+    # bytes required per node by the working set of the sort
+    # (in theory, 60% more in practice)
     BYTES_MEM_REQUIRED=24
     if $USE_WEBGRAPH_BIG; then
-        OPTS="--big"
-        BYTES_MEM_REQUIRED=36
+        OPTS="$OPTS --big"
+        BYTES_MEM_REQUIRED=32
     fi
     BYTES_MEM_REQUIRED=$(($BYTES_MEM_REQUIRED*$GRAPH_SIZE_NODES*16/10))
     JAVA_HEAP_GB=$((($BYTES_MEM_REQUIRED/2**30)+1))
     JAVAOPTS="-Xmx${JAVA_HEAP_GB}g"
-    SORTOPTS="$SORT_PARALLEL_THREADS_OPT --batch-size=$SORT_BATCHES --buffer-size=$SORT_BUFFER_SIZE --compress-program=gzip"
+    # output ordered by harmonic centrality rank, vertex names are held
+    # in temporary files in the output directory
+    OPTS="$OPTS --order-by harmonicc --tmp-dir $OUTPUTDIR"
     (echo -e "$HEADER";
-     JAVA_OPTS=$JAVA_OPTS $WG org.commoncrawl.webgraph.JoinSortRanks $OPTS <(zcat $_VERT) $_HC $_PR -) \
-      | sort $SORTOPTS -t$'\t' -k1,1n --stable | gzip >$_OUT
+     JAVA_OPTS="$JAVA_OPTS $JAVAOPTS" $WG org.commoncrawl.webgraph.JoinSortRanks $OPTS "$_VERT" $_HC $_PR -) \
+      | gzip >$_OUT
 )
 
 function join_degrees() (
@@ -201,7 +210,20 @@ function degree_distrib() (
 
 set -exo pipefail
 
-if [ -d $EDGES ]; then
+if [ -e $EDGES.graph ]; then
+    # edges are already compressed as BVGraph, see `host2domaingraph.sh --bvgraph`
+    _step bvgraph \
+          bash -c "for s in graph offsets properties; do cp $EDGES.\$s $FULLNAME.\$s; done"
+elif [ -e $EDGES.arcs ]; then
+    # edges are stored in the binary arc list format, see `host2domaingraph.sh --arc-list`
+    if ${USE_WEBGRAPH_BIG:-false}; then
+        _step bvgraph \
+              bash -c "$WG org.commoncrawl.webgraph.ConvertArcList --to-text $EDGES.arcs - | $WG $WGP.BVGraph --once -g $WGP.ArcListASCIIGraph - $FULLNAME"
+    else
+        _step bvgraph \
+              $WG org.commoncrawl.webgraph.ConvertArcList --to-bvgraph $EDGES.arcs $FULLNAME
+    fi
+elif [ -d $EDGES ]; then
     # edges is a directory with multiple files
     sort_input=""
     for e in $EDGES/part-*.gz; do
@@ -225,8 +247,10 @@ if [ -d $EDGES ]; then
         _step bvgraph \
               bash -c "eval \"sort --batch-size=$SORT_BATCHES -t$'\t' -k1,1n -k2,2n --stable --merge $sort_input\" | $WG $WGP.BVGraph --once -g $WGP.ArcListASCIIGraph - $FULLNAME"
     else
+        # read the edges files in parallel, sort them in the JVM
+        # and store the sorted arcs directly as BVGraph
         _step bvgraph \
-              bash -c "$WG $WGP.BVGraph --threads $THREADS -g $WGP.ArcListASCIIGraph <(eval \"sort --batch-size=$SORT_BATCHES -t$'\t' -k1,1n -k2,2n --stable --merge $sort_input\") $FULLNAME"
+              $WG org.commoncrawl.webgraph.ArcSorter --bvgraph --spill-dir $OUTPUTDIR "$EDGES" $FULLNAME
     fi
 else
     if ${USE_WEBGRAPH_BIG:-false}; then
@@ -234,7 +258,7 @@ else
               bash -c "zcat $EDGES | $WG $WGP.BVGraph --once -g $WGP.ArcListASCIIGraph - $FULLNAME"
     else
         _step bvgraph \
-              $WG $WGP.BVGraph --threads $THREADS -g $WGP.ArcListASCIIGraph <(zcat $EDGES) $FULLNAME
+              $WG org.commoncrawl.webgraph.ArcSorter --bvgraph --spill-dir $OUTPUTDIR $EDGES $FULLNAME
     fi
 fi
 
@@ -256,12 +280,20 @@ _step hyperball \
       $WG $WGP.algo.HyperBall --threads $THREADS --offline --log2m $HYPERBALL_REGISTERS \
       --harmonic-centrality $FULLNAME-harmonicc.bin $FULLNAME-t $FULLNAME
 
+PAGERANK_OPTS=""
+if [ -n "$PREVIOUS_VERTICES" ] && [ -n "$PREVIOUS_PAGERANK" ]; then
+    # warm start from the page rank vector of the previous release
+    _step pagerank_start \
+          $WG org.commoncrawl.webgraph.CreateStartVector "$PREVIOUS_VERTICES" $PREVIOUS_PAGERANK "$VERTICES" $FULLNAME-pagerank-start.bin
+    PAGERANK_OPTS="--start $FULLNAME-pagerank-start.bin"
+fi
+
 if ${USE_WEBGRAPH_BIG:-false}; then
     _step pagerank \
-          $LW it.unimi.dsi.law.big.rank.PageRankParallelGaussSeidel      --mapped --threads $THREADS $FULLNAME-t $FULLNAME-pagerank
+          $LW it.unimi.dsi.law.big.rank.PageRankParallelGaussSeidel      --mapped --threads $THREADS $PAGERANK_OPTS $FULLNAME-t $FULLNAME-pagerank
 else
     _step pagerank \
-          $LW it.unimi.dsi.law.rank.PageRankParallelGaussSeidel --expand --mapped --threads $THREADS $FULLNAME-t $FULLNAME-pagerank
+          $LW it.unimi.dsi.law.rank.PageRankParallelGaussSeidel --expand --mapped --threads $THREADS $PAGERANK_OPTS $FULLNAME-t $FULLNAME-pagerank
 fi
 
 _step_bg connected 15 \
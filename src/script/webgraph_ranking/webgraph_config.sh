@@ -10,6 +10,14 @@ USE_WEBGRAPH_BIG=${USE_WEBGRAPH_BIG:-false}
 # join node names and ranks in memory
 JOIN_RANKS_IN_MEMORY=${JOIN_RANKS_IN_MEMORY:-true}
 
+# warm start of the PageRank calculation from the previous release:
+# vertices (sorted by name) and page rank vector (<graph>-pagerank.ranks)
+# of the previous release. If both are defined, the previous page rank
+# vector is mapped onto the vertices of the new graph and passed as start
+# vector to the PageRank calculation.
+PREVIOUS_VERTICES=${PREVIOUS_VERTICES:-}
+PREVIOUS_PAGERANK=${PREVIOUS_PAGERANK:-}
+
 
 # number of registers used for Hyperball / harmonic centrality calculation
 #
@@ -0,0 +1,136 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the plain array-based host to domain mappings with the bit-packed
+ * mapping: time to look up the domain IDs of random hosts and to convert the
+ * edges of a synthetic host graph.
+ *
+ * Not run as part of the unit tests, run with
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dbenchmark.hosts=10000000
+ * </pre>
+ */
+public class BenchmarkHostToDomainMapping {
+
+	protected static Logger LOG = LoggerFactory.getLogger(BenchmarkHostToDomainMapping.class);
+
+	static final int numHosts = Integer.getInteger("benchmark.hosts", 2000000);
+	static final int hostsPerDomain = Integer.getInteger("benchmark.hostsPerDomain", 4);
+	static final int numEdges = Integer.getInteger("benchmark.edges", 4 * numHosts);
+	static final int numLookups = Integer.getInteger("benchmark.lookups", 50000000);
+	static final int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+	static List<String> hostGraphNodes;
+	static List<String> hostGraphEdges;
+	static long numDomains;
+
+	@BeforeAll
+	static void init() {
+		hostGraphNodes = new ArrayList<>(numHosts);
+		for (int i = 0; i < numHosts; i++) {
+			int domain = i / hostsPerDomain;
+			int host = i % hostsPerDomain;
+			String name = String.format("com.domain%09d", domain);
+			if (host > 0) {
+				name = String.format("%s.host%04d", name, host);
+			}
+			hostGraphNodes.add(i + "\t" + name);
+		}
+		numDomains = (numHosts + hostsPerDomain - 1) / hostsPerDomain;
+		SplittableRandom random = new SplittableRandom(42);
+		long[] arcs = LongStream.generate(() -> random.nextLong()).limit(numEdges).toArray();
+		hostGraphEdges = new ArrayList<>(numEdges);
+		IntStream.range(0, numEdges).forEach(i -> {
+			int from = (int) (((double) i / numEdges) * numHosts);
+			int to = (int) Math.floorMod(arcs[i], (long) numHosts);
+			hostGraphEdges.add(from + "\t" + to);
+		});
+		LOG.info("Synthetic host graph: {} hosts, {} domains, {} edges", numHosts, numDomains, numEdges);
+	}
+
+	private HostToDomainGraph[] getConverters() {
+		HostToDomainGraph[] converters = { //
+				new HostToDomainGraph(numHosts), //
+				new HostToDomainGraph.HostToDomainGraphBig(numHosts), //
+				new HostToDomainGraph.HostToDomainGraphPacked(numHosts, numDomains) //
+		};
+		for (HostToDomainGraph converter : converters) {
+			LineWriter out = new LineWriter(OutputStream.nullOutputStream());
+			converter.convert(converter::convertNode, hostGraphNodes.stream(), out);
+			converter.finishNodes(out);
+		}
+		return converters;
+	}
+
+	@Test
+	void benchmarkLookup() {
+		HostToDomainGraph[] converters = getConverters();
+		long[] checksums = new long[converters.length];
+		for (int round = 0; round < rounds; round++) {
+			for (int c = 0; c < converters.length; c++) {
+				HostToDomainGraph converter = converters[c];
+				SplittableRandom random = new SplittableRandom(round);
+				long checksum = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < numLookups; i++) {
+					checksum += converter.getValue(random.nextInt(numHosts));
+				}
+				long elapsed = System.nanoTime() - start;
+				LOG.info("Round {}: {} random lookups in {} ms ({} ns/lookup) using {}", round, numLookups,
+						elapsed / 1000000, String.format("%.2f", (double) elapsed / numLookups),
+						converter.getClass().getSimpleName());
+				checksums[c] = checksum;
+			}
+			for (int c = 1; c < converters.length; c++) {
+				assertEquals(checksums[0], checksums[c]);
+			}
+		}
+	}
+
+	@Test
+	void benchmarkConvertEdges() {
+		HostToDomainGraph[] converters = getConverters();
+		String[] reference = null;
+		for (int round = 0; round < rounds; round++) {
+			for (HostToDomainGraph converter : converters) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				LineWriter out = new LineWriter(bytes);
+				long start = System.nanoTime();
+				converter.convert(converter::convertEdge, hostGraphEdges.stream(), out);
+				out.flush();
+				long elapsed = System.nanoTime() - start;
+				LOG.info("Round {}: converted {} edges in {} ms using {}", round, numEdges, elapsed / 1000000,
+						converter.getClass().getSimpleName());
+				String[] output = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+				if (reference == null) {
+					reference = output;
+				} else {
+					assertArrayEquals(reference, output);
+				}
+			}
+		}
+	}
+
+}
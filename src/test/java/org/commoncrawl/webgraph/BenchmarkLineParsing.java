@@ -0,0 +1,112 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare the conversion of host-level edges parsed from strings (decoded
+ * lines, {@link String#substring(int, int)} and {@link Long#parseLong(String)})
+ * with the byte-level parsing by {@link LineReader}.
+ *
+ * Not run as part of the unit tests, run with
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=BenchmarkLineParsing -Dbenchmark.hosts=10000000
+ * </pre>
+ */
+public class BenchmarkLineParsing {
+
+	protected static Logger LOG = LoggerFactory.getLogger(BenchmarkLineParsing.class);
+
+	static final int numHosts = Integer.getInteger("benchmark.hosts", 2000000);
+	static final int numEdges = Integer.getInteger("benchmark.edges", 10 * numHosts);
+	static final int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+	static HostToDomainGraph converter;
+	static byte[] hostGraphEdges;
+
+	@BeforeAll
+	static void init() {
+		converter = new HostToDomainGraph(numHosts);
+		LineWriter nodesOut = new LineWriter(OutputStream.nullOutputStream());
+		for (int i = 0; i < numHosts; i++) {
+			// four hosts per domain
+			String name = String.format("com.domain%09d", i / 4);
+			if ((i % 4) > 0) {
+				name = String.format("%s.host%d", name, i % 4);
+			}
+			String res = converter.convertNode(i, name);
+			if (res != null) {
+				nodesOut.println(res);
+			}
+		}
+		converter.finishNodes(nodesOut);
+		SplittableRandom random = new SplittableRandom(42);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes);
+		for (int i = 0; i < numEdges; i++) {
+			out.print((int) (((double) i / numEdges) * numHosts));
+			out.print('\t');
+			out.println(random.nextInt(numHosts));
+		}
+		out.flush();
+		hostGraphEdges = bytes.toByteArray();
+		LOG.info("Synthetic host graph: {} hosts, {} edges ({} bytes)", numHosts, numEdges, hostGraphEdges.length);
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += gc.getCollectionTime();
+		}
+		return time;
+	}
+
+	private static byte[] run(int round, String name, BiConsumer<ByteArrayInputStream, LineWriter> conversion) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(hostGraphEdges.length);
+		LineWriter out = new LineWriter(bytes);
+		long gcStart = gcTime();
+		long start = System.nanoTime();
+		conversion.accept(new ByteArrayInputStream(hostGraphEdges), out);
+		out.flush();
+		long elapsed = System.nanoTime() - start;
+		LOG.info("Round {}: converted {} edges in {} ms ({} ns/edge, GC {} ms) using {}", round, numEdges,
+				elapsed / 1000000, String.format("%.2f", (double) elapsed / numEdges), (gcTime() - gcStart), name);
+		return bytes.toByteArray();
+	}
+
+	@Test
+	void benchmarkConvertEdges() {
+		for (int round = 0; round < rounds; round++) {
+			byte[] reference = run(round, "strings", (in, out) -> {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 20);
+				converter.convert(converter::convertEdge, reader.lines(), out);
+			});
+			byte[] output = run(round, "LineReader", (in, out) -> {
+				converter.convertEdges(new LineReader(in), out);
+			});
+			assertArrayEquals(reference, output);
+		}
+	}
+
+}
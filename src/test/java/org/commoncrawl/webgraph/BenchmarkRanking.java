@@ -0,0 +1,180 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+import it.unimi.dsi.fastutil.longs.LongComparator;
+
+/**
+ * Compare the assignment of ranks by an indirect parallel quicksort over a
+ * permutation of node IDs (the former implementation of
+ * {@link JoinSortRanks}) with the parallel radix sort by {@link RadixRanker}.
+ * For big arrays, the former implementation of
+ * {@link JoinSortRanks.JoinSortRanksBig} (a single-threaded indirect
+ * quicksort) is compared with the radix sort on big arrays.
+ *
+ * Not run as part of the unit tests, run with
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=BenchmarkRanking -Dbenchmark.nodes=100000000
+ * </pre>
+ *
+ * (requires about 40 bytes heap memory per node)
+ */
+public class BenchmarkRanking {
+
+	protected static Logger LOG = LoggerFactory.getLogger(BenchmarkRanking.class);
+
+	static final int numNodes = Integer.getInteger("benchmark.nodes", 20000000);
+	static final int rounds = Integer.getInteger("benchmark.rounds", 3);
+
+	static float[] harmonicCentralityValues;
+	static double[] pageRankValues;
+
+	@BeforeAll
+	static void init() {
+		SplittableRandom random = new SplittableRandom(42);
+		harmonicCentralityValues = new float[numNodes];
+		pageRankValues = new double[numNodes];
+		for (int i = 0; i < numNodes; i++) {
+			/*
+			 * power-law distributed: few nodes with high values, a long tail of nodes with
+			 * the minimum value (page rank) or small values with many ties (harmonic
+			 * centrality)
+			 */
+			double u = random.nextDouble();
+			if (random.nextInt(4) == 0) {
+				harmonicCentralityValues[i] = 0.0f;
+				pageRankValues[i] = 0.15 / numNodes;
+			} else {
+				harmonicCentralityValues[i] = (float) Math.floor(1e6 * Math.pow(u, 8)) / 16.0f;
+				pageRankValues[i] = (0.15 + 1e4 * Math.pow(u, 16)) / numNodes;
+			}
+		}
+		LOG.info("Synthetic harmonic centrality and page rank values of {} nodes", numNodes);
+	}
+
+	private static int[] run(int round, String name, Consumer<int[]> ranking) {
+		int[] ranks = new int[numNodes];
+		long start = System.nanoTime();
+		ranking.accept(ranks);
+		long elapsed = System.nanoTime() - start;
+		LOG.info("Round {}: ranked {} nodes in {} ms ({} ns/node) using {}", round, numNodes, elapsed / 1000000,
+				String.format("%.2f", (double) elapsed / numNodes), name);
+		return ranks;
+	}
+
+	/**
+	 * Rank by an indirect parallel quicksort, higher values first, ties ordered
+	 * by node ID.
+	 */
+	private static void quickSortRanks(int[] ranks, IntComparator valueComparator) {
+		int length = ranks.length;
+		int[] perm = new int[length];
+		for (int i = 0; i < length; i++) {
+			perm[i] = i;
+		}
+		Arrays.parallelQuickSort(0, length, (k1, k2) -> {
+			int c = valueComparator.compare(perm[k1], perm[k2]);
+			return c != 0 ? c : Integer.compare(perm[k1], perm[k2]);
+		}, (k1, k2) -> IntArrays.swap(perm, k1, k2));
+		for (int i = 0; i < length;) {
+			ranks[perm[i]] = ++i;
+		}
+	}
+
+	@Test
+	void benchmarkHarmonicCentralityRanks() {
+		float[] values = harmonicCentralityValues;
+		for (int round = 0; round < rounds; round++) {
+			int[] reference = run(round, "indirect quicksort (float)", ranks -> quickSortRanks(ranks, (i, j) -> {
+				// sort in reverse order, higher values first
+				return values[i] < values[j] ? 1 : (values[i] > values[j] ? -1 : 0);
+			}));
+			int[] ranks = run(round, "radix sort (float)", r -> RadixRanker.assignRanks(values, r));
+			assertArrayEquals(reference, ranks);
+		}
+	}
+
+	@Test
+	void benchmarkPageRankRanks() {
+		double[] values = pageRankValues;
+		for (int round = 0; round < rounds; round++) {
+			int[] reference = run(round, "indirect quicksort (double)", ranks -> quickSortRanks(ranks, (i, j) -> {
+				// sort in reverse order, higher values first
+				return values[i] < values[j] ? 1 : (values[i] > values[j] ? -1 : 0);
+			}));
+			int[] ranks = run(round, "radix sort (double)", r -> RadixRanker.assignRanks(values, r));
+			assertArrayEquals(reference, ranks);
+		}
+	}
+
+	private static long[][] runBig(int round, String name, Consumer<long[][]> ranking) {
+		long[][] ranks = LongBigArrays.newBigArray(numNodes);
+		long start = System.nanoTime();
+		ranking.accept(ranks);
+		long elapsed = System.nanoTime() - start;
+		LOG.info("Round {}: ranked {} nodes in {} ms ({} ns/node) using {}", round, numNodes, elapsed / 1000000,
+				String.format("%.2f", (double) elapsed / numNodes), name);
+		return ranks;
+	}
+
+	/**
+	 * Rank by an indirect quicksort on big arrays, higher values first, ties
+	 * ordered by node ID.
+	 */
+	private static void quickSortRanksBig(long[][] ranks, LongComparator valueComparator) {
+		long length = BigArrays.length(ranks);
+		long[][] perm = LongBigArrays.newBigArray(length);
+		for (long i = 0; i < length; i++) {
+			BigArrays.set(perm, i, i);
+		}
+		BigArrays.quickSort(0, length, (k1, k2) -> {
+			long i1 = BigArrays.get(perm, k1), i2 = BigArrays.get(perm, k2);
+			int c = valueComparator.compare(i1, i2);
+			return c != 0 ? c : Long.compare(i1, i2);
+		}, (k1, k2) -> BigArrays.swap(perm, k1, k2));
+		for (long i = 0; i < length;) {
+			BigArrays.set(ranks, BigArrays.get(perm, i), ++i);
+		}
+	}
+
+	@Test
+	void benchmarkBigArrayRanks() {
+		float[][] hcValues = BigArrays.wrap(harmonicCentralityValues);
+		double[][] prValues = BigArrays.wrap(pageRankValues);
+		for (int round = 0; round < rounds; round++) {
+			long[][] reference = runBig(round, "indirect quicksort (float big array)",
+					ranks -> quickSortRanksBig(ranks, (i, j) -> {
+						float a = BigArrays.get(hcValues, i), b = BigArrays.get(hcValues, j);
+						return a < b ? 1 : (a > b ? -1 : 0);
+					}));
+			long[][] ranks = runBig(round, "radix sort (float big array)", r -> RadixRanker.assignRanks(hcValues, r));
+			assertTrue(BigArrays.equals(reference, ranks));
+			reference = runBig(round, "indirect quicksort (double big array)",
+					r -> quickSortRanksBig(r, (i, j) -> {
+						double a = BigArrays.get(prValues, i), b = BigArrays.get(prValues, j);
+						return a < b ? 1 : (a > b ? -1 : 0);
+					}));
+			ranks = runBig(round, "radix sort (double big array)", r -> RadixRanker.assignRanks(prValues, r));
+			assertTrue(BigArrays.equals(reference, ranks));
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+
+/**
+ * Compare the number of iterations and the time required to compute the page
+ * rank of a new release of a graph, starting from the uniform vector and from
+ * the start vector created by {@link CreateStartVector} from the page rank of
+ * the previous release.
+ *
+ * Two synthetic releases are generated from a common universe of vertex names:
+ * about 85% of the vertices of the previous release carry over into the new
+ * one, and 5% of the links of vertices carried over are rewired. The page
+ * rank is computed by a parallel power iteration until the L1 norm of the
+ * difference between two iterations drops below the threshold.
+ *
+ * Not run as part of the unit tests, run with
+ *
+ * <pre>
+ * mvn test -Pbenchmark -Dtest=BenchmarkWarmStart -Dbenchmark.nodes=10000000 -Dbenchmark.rewired=0.05
+ * </pre>
+ */
+public class BenchmarkWarmStart {
+
+	protected static Logger LOG = LoggerFactory.getLogger(BenchmarkWarmStart.class);
+
+	static final int numNames = Integer.getInteger("benchmark.nodes", 2000000) * 6 / 5;
+	static final double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "1e-9"));
+	/* fraction of links of vertices carried over which are rewired in the new release */
+	static final double rewired = Double.parseDouble(System.getProperty("benchmark.rewired", "0.05"));
+	static final double alpha = 0.85;
+
+	@TempDir
+	Path tempDir;
+
+	/** A release of the synthetic graph */
+	static class Release {
+		/* vertex ID by name index, -1 if not contained */
+		int[] ids = new int[numNames];
+		int numNodes;
+		int[] outdegree;
+		/* predecessors in compressed sparse row format */
+		int[] predOffsets;
+		int[] pred;
+		byte[] vertices;
+
+		Release(int release) {
+			for (int k = 0; k < numNames; k++) {
+				double u = random(k, 0).nextDouble();
+				boolean contained;
+				if (release == 0) {
+					contained = u < 5.0 / 6;
+				} else {
+					double v = random(k, 1).nextDouble();
+					contained = u < 5.0 / 6 ? v < 0.85 : v < 0.6;
+				}
+				ids[k] = contained ? numNodes++ : -1;
+			}
+			outdegree = new int[numNodes];
+			predOffsets = new int[numNodes + 1];
+			forEachArc(release, (from, to) -> {
+				outdegree[from]++;
+				predOffsets[to + 1]++;
+			});
+			for (int i = 0; i < numNodes; i++) {
+				predOffsets[i + 1] += predOffsets[i];
+			}
+			pred = new int[predOffsets[numNodes]];
+			int[] pos = Arrays.copyOf(predOffsets, numNodes);
+			forEachArc(release, (from, to) -> pred[pos[to]++] = from);
+		}
+
+		static SplittableRandom random(long k, int salt) {
+			return new SplittableRandom(k * 0x9E3779B97F4A7C15L + salt);
+		}
+
+		interface ArcConsumer {
+			void accept(int from, int to);
+		}
+
+		/*
+		 * arcs between names: 10% of the names without outgoing links, otherwise
+		 * about 10 links, mostly to names nearby (same site), some to names drawn
+		 * from a skewed distribution
+		 */
+		void forEachArc(int release, ArcConsumer consumer) {
+			for (int k = 0; k < numNames; k++) {
+				if (ids[k] < 0) {
+					continue;
+				}
+				SplittableRandom random = random(k, 2);
+				SplittableRandom rewire = random(k, 3 + release);
+				if (random.nextInt(10) == 0) {
+					continue;
+				}
+				int degree = 1 + (int) (-9 * Math.log(1.0 - random.nextDouble()));
+				for (int j = 0; j < degree; j++) {
+					int target = target(k, random);
+					if (release > 0 && rewire.nextDouble() < rewired) {
+						target = target(k, rewire);
+					}
+					if (target >= 0 && target < numNames && ids[target] >= 0 && target != k) {
+						consumer.accept(ids[k], ids[target]);
+					}
+				}
+			}
+		}
+
+		static int target(int k, SplittableRandom random) {
+			if (random.nextBoolean()) {
+				return k - 100 + random.nextInt(201);
+			}
+			return (int) (numNames * Math.pow(random.nextDouble(), 4));
+		}
+
+		/* vertex lines, names sorted lexicographically */
+		LineReader vertices() {
+			if (vertices == null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				LineWriter out = new LineWriter(bytes);
+				for (int k = 0; k < numNames; k++) {
+					if (ids[k] >= 0) {
+						out.print(ids[k]);
+						out.print("\tcom.example.host");
+						out.print(1000000000 + k);
+						out.println();
+					}
+				}
+				out.flush();
+				vertices = bytes.toByteArray();
+			}
+			return new LineReader(vertices, 0, vertices.length);
+		}
+
+		/**
+		 * Compute the page rank by a parallel power iteration.
+		 *
+		 * @return number of iterations
+		 */
+		int pageRank(double[] rank) {
+			final int n = numNodes;
+			final double[] contribution = new double[n];
+			final double[] next = new double[n];
+			int iterations = 0;
+			double delta;
+			do {
+				double dangling = IntStream.range(0, n).parallel().mapToDouble(i -> {
+					if (outdegree[i] == 0) {
+						contribution[i] = 0;
+						return rank[i];
+					}
+					contribution[i] = rank[i] / outdegree[i];
+					return 0;
+				}).sum();
+				final double base = (1.0 - alpha) / n + alpha * dangling / n;
+				delta = IntStream.range(0, n).parallel().mapToDouble(i -> {
+					double sum = 0;
+					for (int j = predOffsets[i]; j < predOffsets[i + 1]; j++) {
+						sum += contribution[pred[j]];
+					}
+					next[i] = base + alpha * sum;
+					return Math.abs(next[i] - rank[i]);
+				}).sum();
+				System.arraycopy(next, 0, rank, 0, n);
+				iterations++;
+			} while (delta > threshold);
+			return iterations;
+		}
+	}
+
+	@Test
+	void benchmarkWarmStart() throws IOException {
+		Release previous = new Release(0);
+		Release current = new Release(1);
+		// vertex lines are held in memory, not part of the measured time
+		previous.vertices();
+		current.vertices();
+		LOG.info("Previous release: {} nodes, {} arcs", previous.numNodes, previous.pred.length);
+		LOG.info("New release: {} nodes, {} arcs", current.numNodes, current.pred.length);
+
+		double[] previousRank = new double[previous.numNodes];
+		Arrays.fill(previousRank, 1.0 / previous.numNodes);
+		int iterations = previous.pageRank(previousRank);
+		LOG.info("Page rank of previous release: {} iterations", iterations);
+
+		double[] coldRank = new double[current.numNodes];
+		Arrays.fill(coldRank, 1.0 / current.numNodes);
+		long start = System.nanoTime();
+		int coldIterations = current.pageRank(coldRank);
+		long coldTime = System.nanoTime() - start;
+		LOG.info("Cold start (uniform vector): {} iterations in {} ms", coldIterations, coldTime / 1000000);
+
+		String startVector = tempDir.resolve("start.bin").toString();
+		start = System.nanoTime();
+		new CreateStartVector().create(previous.vertices(), id -> previousRank[(int) id], current.vertices(),
+				startVector);
+		long createTime = System.nanoTime() - start;
+		double[] warmRank = BinIO.loadDoubles(startVector);
+		start = System.nanoTime();
+		int warmIterations = current.pageRank(warmRank);
+		long warmTime = System.nanoTime() - start;
+		LOG.info("Warm start (previous release): {} iterations in {} ms (+ {} ms to create the start vector)",
+				warmIterations, warmTime / 1000000, createTime / 1000000);
+		LOG.info("Saved {}% of iterations, {}% of time",
+				String.format("%.1f", 100.0 * (coldIterations - warmIterations) / coldIterations),
+				String.format("%.1f", 100.0 * (coldTime - warmTime - createTime) / coldTime));
+
+		double distance = 0;
+		for (int i = 0; i < current.numNodes; i++) {
+			distance += Math.abs(coldRank[i] - warmRank[i]);
+		}
+		LOG.info("L1 distance between cold and warm start results: {}", distance);
+		assertTrue(warmIterations < coldIterations);
+		assertTrue(distance < 100 * threshold);
+	}
+}
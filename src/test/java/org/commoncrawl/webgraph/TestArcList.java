@@ -0,0 +1,154 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.webgraph.NodeIterator;
+
+public class TestArcList {
+
+	@TempDir
+	Path tempDir;
+
+	private static final int NUM_NODES = 100000;
+
+	/**
+	 * @return random arcs, sorted, including successors far away from the source
+	 *         node and duplicates
+	 */
+	private static List<long[]> randomArcs() {
+		Random random = new Random(3);
+		List<long[]> arcs = new ArrayList<>();
+		for (long fromId = 0; fromId < NUM_NODES; fromId++) {
+			if (random.nextInt(3) == 0) {
+				continue;
+			}
+			long[] successors = new long[random.nextInt(5)];
+			for (int i = 0; i < successors.length; i++) {
+				successors[i] = random.nextInt(3) == 0 ? (random.nextLong() & Long.MAX_VALUE)
+						: Math.max(0, fromId + random.nextInt(200) - 100);
+			}
+			Arrays.sort(successors);
+			for (long toId : successors) {
+				arcs.add(new long[] { fromId, toId });
+			}
+		}
+		return arcs;
+	}
+
+	@Test
+	void testWriteRead() throws IOException {
+		List<long[]> arcs = randomArcs();
+		for (String name : new String[] { "edges.arcs", "edges.arcs.gz" }) {
+			String file = tempDir.resolve(name).toString();
+			try (ArcListWriter out = ArcListWriter.open(file, NUM_NODES)) {
+				for (long[] arc : arcs) {
+					out.add(arc[0], arc[1]);
+				}
+				assertEquals(arcs.size(), out.numArcs());
+			}
+			try (ArcListReader in = ArcListReader.open(file)) {
+				assertEquals(NUM_NODES, in.numNodes());
+				for (long[] arc : arcs) {
+					assertTrue(in.next());
+					assertArrayEquals(arc, new long[] { in.fromId(), in.toId() });
+				}
+				assertFalse(in.next());
+			}
+		}
+	}
+
+	@Test
+	void testSeek() throws IOException {
+		List<long[]> arcs = randomArcs();
+		String file = tempDir.resolve("edges.arcs").toString();
+		try (ArcListWriter out = ArcListWriter.open(file, NUM_NODES)) {
+			for (long[] arc : arcs) {
+				out.add(arc[0], arc[1]);
+			}
+		}
+		assertTrue(Files.exists(Path.of(file + ArcListWriter.INDEX_SUFFIX)));
+		try (ArcListReader in = ArcListReader.open(file)) {
+			for (long node : new long[] { 99999, 0, 5, 4097, 50000, 12345, 3, NUM_NODES }) {
+				in.seek(node);
+				int i = 0;
+				while (i < arcs.size() && arcs.get(i)[0] < node) {
+					i++;
+				}
+				for (int n = 0; n < 100 && i < arcs.size(); n++, i++) {
+					assertTrue(in.next());
+					assertArrayEquals(arcs.get(i), new long[] { in.fromId(), in.toId() }, "seek to " + node);
+				}
+				if (i == arcs.size()) {
+					assertFalse(in.next());
+				}
+			}
+		}
+	}
+
+	@Test
+	void testGraph() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ArcListWriter out = new ArcListWriter(new LineWriter(bytes), -1)) {
+			out.add(0, 3);
+			out.add(0, 3);
+			out.add(0, 5);
+			out.add(2, 1);
+			out.add(4, 0);
+		}
+		int[][] successors = { { 3, 5 }, {}, { 1 }, {}, { 0 }, {} };
+		try (ArcListReader in = new ArcListReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(-1, in.numNodes());
+			NodeIterator it = in.graph(6).nodeIterator();
+			for (int i = 0; i < successors.length; i++) {
+				assertEquals(i, it.nextInt());
+				assertArrayEquals(successors[i], Arrays.copyOf(it.successorArray(), it.outdegree()));
+			}
+			assertFalse(it.hasNext());
+		}
+	}
+
+	@Test
+	void testConvert() throws IOException {
+		String text = "0\t1\n0\t7\n1\t0\n3\t2\t17\n3\t4\n1000000000000\t0\n";
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (LineReader in = new LineReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+				ArcListWriter out = new ArcListWriter(new LineWriter(bytes), -1)) {
+			assertEquals(6, ConvertArcList.textToArcList(in, out));
+		}
+		ByteArrayOutputStream converted = new ByteArrayOutputStream();
+		try (ArcListReader in = new ArcListReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertEquals(6, ConvertArcList.arcListToText(in, new LineWriter(converted)));
+		}
+		assertEquals(text.replace("\t17", ""), converted.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testUnsorted() {
+		ArcListWriter out = new ArcListWriter(new LineWriter(new ByteArrayOutputStream()), -1);
+		out.add(3, 1);
+		assertThrows(IllegalArgumentException.class, () -> out.add(3, 0));
+		assertThrows(IllegalArgumentException.class, () -> out.add(2, 1));
+	}
+}
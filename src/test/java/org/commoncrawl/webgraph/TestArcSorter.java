@@ -0,0 +1,149 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+
+public class TestArcSorter {
+
+	@TempDir
+	Path tempDir;
+
+	private static List<long[]> randomArcs(int n, long seed) {
+		Random random = new Random(seed);
+		List<long[]> arcs = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			long toId = (i % 3) == 0 ? (random.nextLong() & Long.MAX_VALUE) : random.nextInt(300);
+			arcs.add(new long[] { random.nextInt(500), toId });
+		}
+		return arcs;
+	}
+
+	private static List<long[]> sorted(List<long[]> arcs, boolean unique) {
+		List<long[]> res = new ArrayList<>();
+		arcs.stream().sorted((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]))
+				.forEachOrdered(arc -> {
+					if (!unique || res.isEmpty() || !Arrays.equals(res.get(res.size() - 1), arc)) {
+						res.add(arc);
+					}
+				});
+		return res;
+	}
+
+	@Test
+	void testSort() throws IOException {
+		List<long[]> arcs = randomArcs(20000, 42);
+		for (boolean unique : new boolean[] { false, true }) {
+			List<long[]> expected = sorted(arcs, unique);
+			// small buffer sizes force spilling (and merging) of many runs
+			for (int bufferSize : new int[] { 1, 7, 1000, 100000 }) {
+				try (ArcSorter sorter = new ArcSorter(bufferSize, tempDir)) {
+					sorter.setUnique(unique);
+					for (long[] arc : arcs) {
+						sorter.add(arc[0], arc[1]);
+					}
+					assertEquals(arcs.size(), sorter.numArcs());
+					ArcSorter.ArcIterator it = sorter.iterator();
+					for (long[] arc : expected) {
+						it.next();
+						assertArrayEquals(arc, new long[] { it.fromId(), it.toId() },
+								"buffer size " + bufferSize + ", unique " + unique);
+					}
+					assertFalse(it.next());
+				}
+				try (Stream<Path> files = Files.list(tempDir)) {
+					assertEquals(0, files.count(), "temporary files not deleted");
+				}
+			}
+		}
+	}
+
+	@Test
+	void testText() throws IOException {
+		List<long[]> arcs = randomArcs(5000, 7);
+		String input = arcs.stream().map(arc -> arc[0] + "\t" + arc[1] + "\n").collect(Collectors.joining())
+				+ "invalid line\n";
+		String expected = sorted(arcs, true).stream().map(arc -> arc[0] + "\t" + arc[1] + "\n")
+				.collect(Collectors.joining());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ArcSorter sorter = new ArcSorter(100, tempDir);
+				LineReader in = new LineReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)))) {
+			sorter.setUnique(true);
+			assertEquals(1, sorter.addAll(in));
+			sorter.writeText(new LineWriter(bytes));
+		}
+		assertEquals(expected, bytes.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testBinary() throws IOException {
+		List<long[]> arcs = randomArcs(5000, 11);
+		List<long[]> expected = sorted(arcs, false);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ArcSorter sorter = new ArcSorter(100, tempDir)) {
+			for (long[] arc : arcs) {
+				sorter.add(arc[0], arc[1]);
+			}
+			assertEquals(expected.size(), sorter.writeBinary(new DataOutputStream(bytes)));
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (long[] arc : expected) {
+			assertArrayEquals(arc, new long[] { in.readLong(), in.readLong() });
+		}
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	void testGraph() throws IOException {
+		long[][] arcs = { { 2, 1 }, { 0, 3 }, { 2, 1 }, { 0, 1 }, { 3, 0 }, { 0, 3 } };
+		int[][] successors = { { 1, 3 }, {}, { 1 }, { 0 }, {} };
+		try (ArcSorter sorter = new ArcSorter(2, tempDir)) {
+			for (long[] arc : arcs) {
+				sorter.add(arc[0], arc[1]);
+			}
+			ImmutableGraph graph = sorter.graph(5);
+			assertEquals(5, graph.numNodes());
+			NodeIterator it = graph.nodeIterator();
+			for (int i = 0; i < successors.length; i++) {
+				assertEquals(i, it.nextInt());
+				assertArrayEquals(successors[i], Arrays.copyOf(it.successorArray(), it.outdegree()));
+			}
+			assertFalse(it.hasNext());
+		}
+	}
+
+	@Test
+	void testInvalid() throws IOException {
+		try (ArcSorter sorter = new ArcSorter(10, tempDir)) {
+			assertThrows(IllegalArgumentException.class, () -> sorter.add(-1, 0));
+			sorter.add(7, 0);
+			assertThrows(IllegalArgumentException.class, () -> sorter.graph(5));
+		}
+	}
+}
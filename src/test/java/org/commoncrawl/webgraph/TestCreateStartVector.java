@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+
+public class TestCreateStartVector {
+
+	@TempDir
+	Path tempDir;
+
+	private static LineReader reader(String... lines) {
+		return LineReader.of(Arrays.asList(lines).iterator());
+	}
+
+	@Test
+	void testCreate() throws IOException {
+		double[] oldValues = { 0.5, 0.3, 0.2 };
+		String output = tempDir.resolve("start.bin").toString();
+		CreateStartVector creator = new CreateStartVector();
+		// node 3 without vertex line
+		creator.create(reader("0\tcom.a", "1\tcom.b", "2\tcom.c"), id -> oldValues[(int) id],
+				reader("0\tcom.a", "1\tcom.c", "2\tcom.d", "4\tcom.e"), output);
+		assertEquals(3, creator.oldVertices);
+		assertEquals(4, creator.newVertices);
+		assertEquals(2, creator.carriedOver);
+		double[] start = BinIO.loadDoubles(output);
+		assertEquals(5, start.length);
+		// vertices carried over share 2/5 of the mass in the previous proportion
+		assertEquals(0.4 * 0.5 / 0.7, start[0], 1e-15);
+		assertEquals(0.4 * 0.2 / 0.7, start[1], 1e-15);
+		assertEquals(0.2, start[2], 1e-15);
+		assertEquals(0.2, start[3], 1e-15);
+		assertEquals(0.2, start[4], 1e-15);
+		assertEquals(1.0, Arrays.stream(start).sum(), 1e-12);
+	}
+
+	@Test
+	void testIdsNotInNameOrder() {
+		String output = tempDir.resolve("start.bin").toString();
+		assertThrows(IOException.class, () -> new CreateStartVector().create(reader("0\tcom.a"), id -> 1.0,
+				reader("1\tcom.a", "0\tcom.b"), output));
+	}
+}
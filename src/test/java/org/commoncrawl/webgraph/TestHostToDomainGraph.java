@@ -5,20 +5,41 @@
 package org.commoncrawl.webgraph;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 import org.commoncrawl.webgraph.HostToDomainGraph.Domain;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import crawlercommons.domains.EffectiveTldFinder;
+
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+import it.unimi.dsi.webgraph.labelling.ArcLabelledImmutableGraph;
+import it.unimi.dsi.webgraph.labelling.ArcLabelledNodeIterator;
+import it.unimi.dsi.webgraph.labelling.ArcLabelledNodeIterator.LabelledArcIterator;
+import it.unimi.dsi.webgraph.labelling.BitStreamArcLabelledImmutableGraph;
+
 class TestHostToDomainGraph {
 
 	protected static Logger LOG = LoggerFactory.getLogger(TestHostToDomainGraph.class);
@@ -197,6 +218,23 @@ class TestHostToDomainGraph {
 			"6\tname.hit\t1", //
 	};
 
+	String[] hostGraphEdges = { //
+			"0\t1", // self-loop com.example -> com.example
+			"0\t3", //
+			"1\t3", // duplicate com.example -> org.example
+			"2\t0", //
+			"2\t3", // duplicate com.example -> org.example
+			"3", // invalid line
+			"3\t0", //
+			"3\t1", // duplicate org.example -> com.example
+			"3\t2", // duplicate org.example -> com.example
+	};
+	String[] domainGraphEdges = { //
+			"0\t1", //
+			"", //
+			"1\t0", //
+	};
+
 	@BeforeEach
 	void init() {
 		converter = new HostToDomainGraph(maxGraphNodes);
@@ -213,12 +251,32 @@ class TestHostToDomainGraph {
 
 	private String[] convert(HostToDomainGraph converter, String[] hostGraph) {
 		ByteArrayOutputStream domainBytes = new ByteArrayOutputStream();
-		PrintStream domainOut = new PrintStream(domainBytes);
+		LineWriter domainOut = new LineWriter(domainBytes);
 		converter.convert(converter::convertNode, Arrays.stream(hostGraph), domainOut);
 		converter.finishNodes(domainOut);
 		return new String(domainBytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
 	}
 
+	private String[] convertNodesParallel(HostToDomainGraph converter, String[] hostGraph, int threads) {
+		ByteArrayOutputStream domainBytes = new ByteArrayOutputStream();
+		LineWriter domainOut = new LineWriter(domainBytes);
+		converter.convertNodesParallel(Arrays.stream(hostGraph), domainOut, threads);
+		converter.finishNodes(domainOut);
+		return new String(domainBytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+	}
+
+	private String[] convertEdges(HostToDomainGraph converter, String[] hostGraphEdges, int threads) {
+		ByteArrayOutputStream edgeBytes = new ByteArrayOutputStream();
+		LineWriter edgeOut = new LineWriter(edgeBytes);
+		if (threads > 1) {
+			converter.convertEdgesParallel(Arrays.stream(hostGraphEdges), edgeOut, threads);
+		} else {
+			converter.convert(converter::convertEdge, Arrays.stream(hostGraphEdges), edgeOut);
+		}
+		edgeOut.flush();
+		return new String(edgeBytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+	}
+
 	private String[] stripCounts(String[] domainGraph) {
 		return Arrays.stream(domainGraph).map(s -> s.replaceFirst("\\t[^\\t]*$", "")).toArray(String[]::new);
 	}
@@ -374,4 +432,510 @@ class TestHostToDomainGraph {
 		assertArrayEquals(expectedDomainGraph, convert);
 	}
 
+	@Test
+	void testConvertEdges() {
+		convert(converter, hostGraphSimple);
+		assertArrayEquals(domainGraphEdges, convertEdges(converter, hostGraphEdges, 1));
+	}
+
+	@Test
+	void testConvertLineReader() {
+		HostToDomainGraph reference = new HostToDomainGraph(maxGraphNodes);
+		String[] expectedNodes = convert(reference, hostGraphSimple);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		LineWriter out = new LineWriter(bytes);
+		converter.convertNodes(LineReader.of(Arrays.asList(hostGraphSimple).iterator()), out);
+		converter.finishNodes(out);
+		assertArrayEquals(expectedNodes, new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+
+		// invalid lines are passed as empty lines
+		List<String> edges = new ArrayList<>(Arrays.asList(hostGraphEdges));
+		edges.add(1, "invalid line");
+		String[] expectedEdges = convertEdges(reference, edges.toArray(new String[0]), 1);
+		bytes = new ByteArrayOutputStream();
+		out = new LineWriter(bytes);
+		converter.convertEdges(LineReader.of(edges.iterator()), out);
+		assertArrayEquals(expectedEdges, new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+		assertTrue(Arrays.asList(expectedEdges).contains(""));
+	}
+
+	@Test
+	void testConvertEdgesParallel() {
+		int inputLength = String.join("\n", hostGraphEdges).length() + 1;
+		for (int blockSize = 1; blockSize <= inputLength; blockSize++) {
+			for (HostToDomainGraph conv : new HostToDomainGraph[] { new HostToDomainGraph(maxGraphNodes),
+					new HostToDomainGraph.HostToDomainGraphBig(maxGraphNodes),
+					new HostToDomainGraph.HostToDomainGraphPacked(maxGraphNodes, maxGraphNodes) }) {
+				convert(conv, hostGraphSimple);
+				conv.edgeBlockSize = blockSize;
+				assertArrayEquals(domainGraphEdges, convertEdges(conv, hostGraphEdges, 3));
+			}
+		}
+	}
+
+	/**
+	 * All pairs of host IDs (excluding self-loops), sorted by fromId and toId
+	 */
+	private String[] getAllHostEdges(String[] hostGraph) {
+		List<String> edges = new ArrayList<>();
+		for (int i = 0; i < hostGraph.length; i++) {
+			for (int j = 0; j < hostGraph.length; j++) {
+				if (i != j) {
+					edges.add(i + "\t" + j);
+				}
+			}
+		}
+		return edges.toArray(new String[0]);
+	}
+
+	/**
+	 * Expected domain edges given the host-level edges and the host-domain
+	 * mapping, i.e. the output of {@link HostToDomainGraph#convertEdge(String)}
+	 * sorted numerically and deduplicated
+	 */
+	private List<String> getExpectedDomainEdges(HostToDomainGraph conv, String[] hostEdges) {
+		TreeSet<long[]> arcs = new TreeSet<>(
+				(a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		for (String edge : hostEdges) {
+			String[] ids = edge.split("\t");
+			long fromId = conv.getValue(Long.parseLong(ids[0]));
+			long toId = conv.getValue(Long.parseLong(ids[1]));
+			if (fromId != toId && fromId != -1 && toId != -1) {
+				arcs.add(new long[] { fromId, toId });
+			}
+		}
+		List<String> res = new ArrayList<>();
+		arcs.forEach(a -> res.add(a[0] + "\t" + a[1]));
+		return res;
+	}
+
+	/**
+	 * Expected domain edges as {@link #getExpectedDomainEdges(HostToDomainGraph, String[])}
+	 * with the number of host-level edges folded into the domain edge as third
+	 * column
+	 */
+	private List<String> getExpectedDomainEdgeCounts(HostToDomainGraph conv, String[] hostEdges) {
+		TreeMap<long[], Integer> arcs = new TreeMap<>(
+				(a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		for (String edge : hostEdges) {
+			String[] ids = edge.split("\t");
+			long fromId = conv.getValue(Long.parseLong(ids[0]));
+			long toId = conv.getValue(Long.parseLong(ids[1]));
+			if (fromId != toId && fromId != -1 && toId != -1) {
+				arcs.merge(new long[] { fromId, toId }, 1, Integer::sum);
+			}
+		}
+		List<String> res = new ArrayList<>();
+		arcs.forEach((a, count) -> res.add(a[0] + "\t" + a[1] + "\t" + count));
+		return res;
+	}
+
+	private List<String> getArcs(ImmutableGraph graph) {
+		List<String> res = new ArrayList<>();
+		NodeIterator iter = graph.nodeIterator();
+		while (iter.hasNext()) {
+			int node = iter.nextInt();
+			int[] succ = iter.successorArray();
+			for (int i = 0; i < iter.outdegree(); i++) {
+				res.add(node + "\t" + succ[i]);
+			}
+		}
+		return res;
+	}
+
+	@Test
+	void testDomainGraph(@TempDir Path tempDir) throws IOException {
+		for (String[] hostGraph : new String[][] { hostGraphSimple, hostGraphDomainInSuffixA, hostGraphDomainInSuffixB,
+				hostGraphHyphenatedDomains, hostGraphDuplicatedDomains, hostGraphPrivateDomains }) {
+			String[] hostEdges = getAllHostEdges(hostGraph);
+			converter = new HostToDomainGraph(maxGraphNodes);
+			converter.setSortedEdgesOutput(true);
+			String[] domainGraph = convert(converter, hostGraph);
+			List<String> expected = getExpectedDomainEdges(converter, hostEdges);
+			String basename = tempDir.resolve("graph").toString();
+			converter.storeBVGraph(Arrays.asList(hostEdges).iterator(), basename);
+			ImmutableGraph graph = BVGraph.load(basename);
+			assertEquals(domainGraph.length, graph.numNodes());
+			assertEquals(expected, getArcs(graph));
+		}
+	}
+
+	@Test
+	void testStoreLoadMapping(@TempDir Path tempDir) throws IOException {
+		String mapFile = tempDir.resolve("host-domain-map.bin").toString();
+		String[] hostEdges = getAllHostEdges(hostGraphDomainInSuffixA);
+		converter.setSortedEdgesOutput(true);
+		convert(converter, hostGraphDomainInSuffixA);
+		converter.storeMapping(mapFile);
+		String[] expected = convertEdges(converter, hostEdges, 1);
+
+		HostToDomainGraph mapped = new HostToDomainGraph.HostToDomainGraphMapped(mapFile);
+		for (long i = 0; i < hostGraphDomainInSuffixA.length; i++) {
+			assertEquals(converter.getValue(i), mapped.getValue(i));
+		}
+		assertArrayEquals(expected, convertEdges(mapped, hostEdges, 1));
+
+		mapped = new HostToDomainGraph.HostToDomainGraphMapped(mapFile);
+		mapped.edgeBlockSize = 5;
+		assertArrayEquals(expected, convertEdges(mapped, hostEdges, 2));
+
+		mapped = new HostToDomainGraph.HostToDomainGraphMapped(mapFile);
+		mapped.setSortedEdgesOutput(true);
+		assertEquals(converter.domainLastHostIds, mapped.domainLastHostIds);
+		String basename = tempDir.resolve("graph").toString();
+		mapped.storeBVGraph(Arrays.asList(hostEdges).iterator(), basename);
+		assertEquals(getExpectedDomainEdges(converter, hostEdges), getArcs(BVGraph.load(basename)));
+	}
+
+	@Test
+	void testStoreMappingUnsetHostIds(@TempDir Path tempDir) throws IOException {
+		String mapFile = tempDir.resolve("host-domain-map.bin").toString();
+		// host ID 1 without vertex line
+		String[] hostGraph = { "0\tcom.example", "2\torg.example" };
+		String[] hostEdges = { "0\t2", "1\t0", "2\t1" };
+		convert(converter, hostGraph);
+		assertEquals(-1, converter.getValue(1));
+		converter.storeMapping(mapFile);
+		String[] expected = { "0\t1" };
+		assertArrayEquals(expected, convertEdges(converter, hostEdges, 1));
+
+		HostToDomainGraph mapped = new HostToDomainGraph.HostToDomainGraphMapped(mapFile);
+		assertEquals(-1, mapped.getValue(1));
+		assertArrayEquals(expected, convertEdges(mapped, hostEdges, 1));
+	}
+
+	@Test
+	void testPackedMapping() {
+		String[] expected = convert(converter, hostGraphPrivateDomains);
+		int numDomains = expected.length;
+		for (long maxDomains = numDomains; maxDomains <= 4 * numDomains; maxDomains++) {
+			HostToDomainGraph packed = new HostToDomainGraph.HostToDomainGraphPacked(maxGraphNodes, maxDomains);
+			assertArrayEquals(expected, convert(packed, hostGraphPrivateDomains));
+			for (long i = 0; i < converter.numHosts; i++) {
+				assertEquals(converter.getValue(i), packed.getValue(i));
+			}
+		}
+		HostToDomainGraph packed = new HostToDomainGraph.HostToDomainGraphPacked(maxGraphNodes, numDomains - 1);
+		assertThrows(RuntimeException.class, () -> convert(packed, hostGraphPrivateDomains));
+	}
+
+	@Test
+	void testSpillHostIds(@TempDir Path tempDir) throws IOException {
+		for (String[] hostGraph : new String[][] { hostGraphSimple, hostGraphDomainInSuffixA, hostGraphDomainInSuffixB,
+				hostGraphHyphenatedDomains, hostGraphDuplicatedDomains, hostGraphPrivateDomains }) {
+			converter = new HostToDomainGraph(maxGraphNodes);
+			converter.doCount(true);
+			converter.setSortedEdgesOutput(true);
+			String[] expected = convert(converter, hostGraph);
+			for (int threshold = 1; threshold <= 3; threshold++) {
+				HostToDomainGraph spilling = new HostToDomainGraph(maxGraphNodes);
+				spilling.doCount(true);
+				spilling.setSortedEdgesOutput(true);
+				spilling.setSpillThreshold(threshold, tempDir);
+				assertArrayEquals(expected, convert(spilling, hostGraph));
+				for (long i = 0; i < converter.numHosts; i++) {
+					assertEquals(converter.getValue(i), spilling.getValue(i));
+				}
+				assertEquals(converter.domainLastHostIds, spilling.domainLastHostIds);
+				assertTrue(spilling.getMaxPendingHostIds() <= converter.getMaxPendingHostIds());
+				assertEquals(converter.getMaxDomainPendingHostIds(), spilling.getMaxDomainPendingHostIds());
+				assertEquals(0, spilling.getPendingHostIds());
+				try (Stream<Path> files = Files.list(tempDir)) {
+					assertEquals(0, files.count(), "Temporary files not removed");
+				}
+			}
+			// spill only if more than threshold host IDs are queued
+			HostToDomainGraph spilling = new HostToDomainGraph(maxGraphNodes);
+			spilling.doCount(true);
+			spilling.setSpillThreshold((int) converter.getMaxDomainPendingHostIds(), tempDir);
+			assertArrayEquals(expected, convert(spilling, hostGraph));
+			assertEquals(0, spilling.getNumSpilledDomains());
+		}
+	}
+
+	@Test
+	void testPendingHostIds() {
+		converter.convertNode(hostGraphSimple[0]);
+		converter.convertNode(hostGraphSimple[1]);
+		converter.convertNode(hostGraphSimple[2]);
+		assertEquals(3, converter.getPendingHostIds());
+		assertEquals(1, converter.getPendingHostIdsPerDomain().size());
+		assertEquals(3L, converter.getPendingHostIdsPerDomain().get("com.example"));
+		converter.convertNode(hostGraphSimple[3]);
+		assertEquals(1, converter.getPendingHostIds());
+		assertEquals(3, converter.getMaxPendingHostIds());
+		assertEquals(3, converter.getMaxDomainPendingHostIds());
+		assertEquals(1, converter.getMaxQueueUsed());
+	}
+
+	private HostToDomainGraph getConverter(String aggregationLevel) {
+		HostToDomainGraph conv = new HostToDomainGraph(maxGraphNodes);
+		conv.doCount(true);
+		conv.doPrivateDomains(aggregationLevel.equals(HostToDomainGraph.AGGREGATION_PRIVATE_DOMAIN));
+		conv.setStripWww(aggregationLevel.equals(HostToDomainGraph.AGGREGATION_HOST_WITHOUT_WWW));
+		return conv;
+	}
+
+	@Test
+	void testConvertMultiLevel() {
+		String[] levels = { HostToDomainGraph.AGGREGATION_REGISTERED_DOMAIN,
+				HostToDomainGraph.AGGREGATION_PRIVATE_DOMAIN, HostToDomainGraph.AGGREGATION_HOST_WITHOUT_WWW };
+		for (String[] hostGraph : new String[][] { hostGraphPrivateDomains, hostGraphWithWwwDomains,
+				hostGraphDuplicatedDomains }) {
+			String[] hostEdges = getAllHostEdges(hostGraph);
+			List<HostToDomainGraph> converters = new ArrayList<>();
+			List<ByteArrayOutputStream> nodesBytes = new ArrayList<>();
+			List<ByteArrayOutputStream> edgesBytes = new ArrayList<>();
+			List<LineWriter> nodesOut = new ArrayList<>();
+			List<LineWriter> edgesOut = new ArrayList<>();
+			for (String level : levels) {
+				converters.add(getConverter(level));
+				nodesBytes.add(new ByteArrayOutputStream());
+				nodesOut.add(new LineWriter(nodesBytes.get(nodesBytes.size() - 1)));
+				edgesBytes.add(new ByteArrayOutputStream());
+				edgesOut.add(new LineWriter(edgesBytes.get(edgesBytes.size() - 1)));
+			}
+			HostToDomainGraph.convertNodes(converters, Arrays.stream(hostGraph), nodesOut);
+			HostToDomainGraph.convertEdges(converters, Arrays.stream(hostEdges), edgesOut);
+			for (int i = 0; i < levels.length; i++) {
+				HostToDomainGraph conv = getConverter(levels[i]);
+				String[] expectedNodes = convert(conv, hostGraph);
+				String[] expectedEdges = convertEdges(conv, hostEdges, 1);
+				assertArrayEquals(expectedNodes,
+						new String(nodesBytes.get(i).toByteArray(), StandardCharsets.UTF_8).split("\n"));
+				assertArrayEquals(expectedEdges,
+						new String(edgesBytes.get(i).toByteArray(), StandardCharsets.UTF_8).split("\n"));
+			}
+		}
+	}
+
+	@Test
+	void testWriteSortedEdges(@TempDir Path tempDir) throws IOException {
+		for (String[] hostGraph : new String[][] { hostGraphSimple, hostGraphDomainInSuffixA, hostGraphDomainInSuffixB,
+				hostGraphHyphenatedDomains, hostGraphDuplicatedDomains, hostGraphPrivateDomains }) {
+			String[] hostEdges = getAllHostEdges(hostGraph);
+			for (long maxBufferedArcs : new long[] { 1, 2, 3, 10, Long.MAX_VALUE }) {
+				converter = new HostToDomainGraph(maxGraphNodes);
+				converter.setSortedEdgesOutput(true);
+				converter.setSpillThreshold(0, tempDir);
+				converter.setMaxBufferedArcs(maxBufferedArcs);
+				convert(converter, hostGraph);
+				List<String> expected = getExpectedDomainEdges(converter, hostEdges);
+				ByteArrayOutputStream edgeBytes = new ByteArrayOutputStream();
+				LineWriter edgeOut = new LineWriter(edgeBytes);
+				converter.writeSortedEdges(Arrays.asList(hostEdges).iterator(), edgeOut);
+				String output = new String(edgeBytes.toByteArray(), StandardCharsets.UTF_8);
+				assertEquals(expected, output.isEmpty() ? List.of() : Arrays.asList(output.split("\n")));
+				try (Stream<Path> files = Files.list(tempDir)) {
+					assertEquals(0, files.count(), "Temporary files not removed");
+				}
+			}
+		}
+	}
+
+	@Test
+	void testCountArcs(@TempDir Path tempDir) throws IOException {
+		Path spillDir = Files.createDirectory(tempDir.resolve("spill"));
+		for (String[] hostGraph : new String[][] { hostGraphSimple, hostGraphDomainInSuffixA, hostGraphDomainInSuffixB,
+				hostGraphHyphenatedDomains, hostGraphDuplicatedDomains, hostGraphPrivateDomains }) {
+			String[] hostEdges = getAllHostEdges(hostGraph);
+			// duplicated host-level edges are counted as well
+			String[] hostEdgesDuplicated = new String[2 * hostEdges.length];
+			System.arraycopy(hostEdges, 0, hostEdgesDuplicated, 0, hostEdges.length);
+			System.arraycopy(hostEdges, 0, hostEdgesDuplicated, hostEdges.length, hostEdges.length);
+			Arrays.sort(hostEdgesDuplicated, (a, b) -> Long.compare(Long.parseLong(a.split("\t")[0]),
+					Long.parseLong(b.split("\t")[0])));
+			for (String[] edges : new String[][] { hostEdges, hostEdgesDuplicated }) {
+				for (long maxBufferedArcs : new long[] { 1, 2, 3, 10, Long.MAX_VALUE }) {
+					converter = new HostToDomainGraph(maxGraphNodes);
+					converter.setSortedEdgesOutput(true);
+					converter.setCountArcs(true);
+					converter.setSpillThreshold(0, spillDir);
+					converter.setMaxBufferedArcs(maxBufferedArcs);
+					convert(converter, hostGraph);
+					List<String> expected = getExpectedDomainEdgeCounts(converter, edges);
+					ByteArrayOutputStream edgeBytes = new ByteArrayOutputStream();
+					LineWriter edgeOut = new LineWriter(edgeBytes);
+					converter.writeSortedEdges(Arrays.asList(edges).iterator(), edgeOut);
+					String output = new String(edgeBytes.toByteArray(), StandardCharsets.UTF_8);
+					assertEquals(expected, output.isEmpty() ? List.of() : Arrays.asList(output.split("\n")));
+					try (Stream<Path> files = Files.list(spillDir)) {
+						assertEquals(0, files.count(), "Temporary files not removed");
+					}
+				}
+			}
+
+			converter = new HostToDomainGraph(maxGraphNodes);
+			converter.setSortedEdgesOutput(true);
+			converter.setCountArcs(true);
+			convert(converter, hostGraph);
+			List<String> expected = getExpectedDomainEdgeCounts(converter, hostEdges);
+			String basename = tempDir.resolve("graph").toString();
+			converter.storeBVGraph(Arrays.asList(hostEdges).iterator(), basename);
+			assertEquals(getExpectedDomainEdges(converter, hostEdges), getArcs(BVGraph.load(basename)));
+			ArcLabelledImmutableGraph labelled = BitStreamArcLabelledImmutableGraph
+					.load(basename + HostToDomainGraph.ARC_COUNT_BASENAME_SUFFIX);
+			List<String> arcCounts = new ArrayList<>();
+			ArcLabelledNodeIterator iter = labelled.nodeIterator();
+			while (iter.hasNext()) {
+				int node = iter.nextInt();
+				LabelledArcIterator succ = iter.successors();
+				for (int s; (s = succ.nextInt()) != -1;) {
+					arcCounts.add(node + "\t" + s + "\t" + succ.label().getInt());
+				}
+			}
+			assertEquals(expected, arcCounts);
+		}
+	}
+
+	/**
+	 * Host names built from the public suffix list, including hyphenated names
+	 * and names below multi-part suffixes, sorted in reverse domain name notation
+	 */
+	private String[] getPublicSuffixHostGraph() {
+		TreeSet<String> revHosts = new TreeSet<>();
+		for (String suffix : EffectiveTldFinder.getEffectiveTLDs().keySet()) {
+			if (!suffix.matches("[a-z0-9.-]+")) {
+				continue;
+			}
+			for (String prefix : new String[] { "example.", "www.example.", "example-domain.", "www.", "e-" }) {
+				revHosts.add(HostToDomainGraph.reverseHost(prefix + suffix));
+			}
+		}
+		String[] hostGraph = new String[revHosts.size()];
+		int i = 0;
+		for (String revHost : revHosts) {
+			hostGraph[i] = i + "\t" + revHost;
+			i++;
+		}
+		return hostGraph;
+	}
+
+	@Test
+	void testConvertNodesParallel(@TempDir Path tempDir) {
+		String[] publicSuffixHosts = getPublicSuffixHostGraph();
+		for (String[] hostGraph : new String[][] { hostGraphSimple, hostGraphDomainInSuffixA, hostGraphDomainInSuffixB,
+				hostGraphHyphenatedDomains, hostGraphDuplicatedDomains, hostGraphPrivateDomains, publicSuffixHosts }) {
+			for (boolean privateDomains : new boolean[] { false, true }) {
+				HostToDomainGraph sequential = new HostToDomainGraph(hostGraph.length);
+				sequential.doCount(true);
+				sequential.doPrivateDomains(privateDomains);
+				sequential.setSortedEdgesOutput(true);
+				String[] expected = convert(sequential, hostGraph);
+				boolean small = hostGraph.length < 1000;
+				int[] partitionSizes = small ? new int[] { 1, 2, 3, 10 } : new int[] { 100, 5000 };
+				for (int partitionSize : partitionSizes) {
+					for (int threads : new int[] { 2, 3 }) {
+						HostToDomainGraph parallel = new HostToDomainGraph.HostToDomainGraphPacked(hostGraph.length,
+								hostGraph.length);
+						parallel.doCount(true);
+						parallel.doPrivateDomains(privateDomains);
+						parallel.setSortedEdgesOutput(true);
+						if (small) {
+							parallel.setSpillThreshold(2, tempDir);
+						}
+						parallel.nodePartitionSize = partitionSize;
+						assertArrayEquals(expected, convertNodesParallel(parallel, hostGraph, threads));
+						for (long i = 0; i < hostGraph.length; i++) {
+							assertEquals(sequential.getValue(i), parallel.getValue(i), "Domain ID of host " + i);
+						}
+						assertEquals(sequential.domainLastHostIds, parallel.domainLastHostIds);
+						assertEquals(sequential.numHosts, parallel.numHosts);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testStitchPartitions() {
+		for (String[] hostGraph : new String[][] { hostGraphHyphenatedDomains, hostGraphDomainInSuffixA,
+				hostGraphDomainInSuffixB, hostGraphPrivateDomains }) {
+			HostToDomainGraph sequential = new HostToDomainGraph(maxGraphNodes);
+			sequential.setSortedEdgesOutput(true);
+			String[] expected = convert(sequential, hostGraph);
+			// split at every position, including those not safe to stitch
+			for (int split = 0; split <= hostGraph.length; split++) {
+				HostToDomainGraph stitched = new HostToDomainGraph(maxGraphNodes);
+				stitched.setSortedEdgesOutput(true);
+				ByteArrayOutputStream domainBytes = new ByteArrayOutputStream();
+				LineWriter domainOut = new LineWriter(domainBytes);
+				List<String> lines = Arrays.asList(hostGraph);
+				for (List<String> part : List.of(lines.subList(0, split), lines.subList(split, lines.size()))) {
+					stitched.stitchPartition(new HostToDomainGraph.NodePartition(stitched, part).convert(), domainOut);
+				}
+				stitched.finishNodes(domainOut);
+				assertArrayEquals(expected,
+						new String(domainBytes.toByteArray(), StandardCharsets.UTF_8).split("\n"),
+						"Split at " + split);
+				for (long i = 0; i < hostGraph.length; i++) {
+					assertEquals(sequential.getValue(i), stitched.getValue(i));
+				}
+				assertEquals(sequential.domainLastHostIds, stitched.domainLastHostIds);
+			}
+		}
+	}
+
+	@Test
+	void testConvertNodesParallelNotSorted() {
+		converter.nodePartitionSize = 1;
+		assertThrows(RuntimeException.class, () -> convertNodesParallel(converter, hostGraphNamesNotSorted, 2));
+	}
+
+	@Test
+	void testCheckpointResume(@TempDir Path tempDir) throws IOException {
+		String[] hostGraph = hostGraphHyphenatedDomains;
+		List<String> hostEdges = new ArrayList<>(Arrays.asList(getAllHostEdges(hostGraph)));
+		hostEdges.add(5, "invalid line");
+		hostEdges.add(7, "1\t2");
+		Path edgesIn = tempDir.resolve("edges.txt");
+		Files.write(edgesIn, hostEdges, StandardCharsets.UTF_8);
+		converter.setSortedEdgesOutput(false);
+		Path nodesOut = tempDir.resolve("domain-vertices.txt");
+		Files.write(nodesOut, Arrays.asList(convert(converter, hostGraph)), StandardCharsets.UTF_8);
+		List<String> expected = Arrays.asList(convertEdges(converter, hostEdges.toArray(new String[0]), 1));
+
+		for (long interval : new long[] { 1, 3, 7, 1000 }) {
+			for (int failAt = 1; failAt <= 4; failAt++) {
+				Path checkpointFile = tempDir.resolve("checkpoint-" + interval + "-" + failAt);
+				Path edgesOut = tempDir.resolve("edges-" + interval + "-" + failAt + ".txt");
+				final int failAfterStores = failAt;
+				HostToDomainGraph.Checkpoint checkpoint = new HostToDomainGraph.Checkpoint(checkpointFile, "test") {
+					int stored = 0;
+
+					@Override
+					public void store() throws IOException {
+						super.store();
+						if (++stored > failAfterStores) {
+							throw new IOException("Simulated failure");
+						}
+					}
+				};
+				HostToDomainGraph conv = new HostToDomainGraph(maxGraphNodes);
+				convert(conv, hostGraph);
+				checkpoint.nodesDone(conv, nodesOut);
+				try {
+					conv.convertEdges(edgesIn, edgesOut, checkpoint, interval);
+				} catch (IOException e) {
+					if (!checkpoint.edgesDone) {
+						// simulated failure, append output not covered by the checkpoint
+						Files.write(edgesOut, List.of("0\t0", "1\t1"), StandardOpenOption.APPEND);
+					}
+				}
+
+				HostToDomainGraph.Checkpoint resumed = HostToDomainGraph.Checkpoint.load(checkpointFile);
+				assertEquals("test", resumed.config);
+				assertTrue(resumed.nodesDone);
+				HostToDomainGraph mapped = resumed.resumeNodes(nodesOut);
+				for (long i = 0; i < hostGraph.length; i++) {
+					assertEquals(conv.getValue(i), mapped.getValue(i));
+				}
+				mapped.convertEdges(edgesIn, edgesOut, resumed, interval);
+				assertEquals(expected, Files.readAllLines(edgesOut, StandardCharsets.UTF_8),
+						"Resumed with checkpoint interval " + interval + ", failure after " + failAt + " checkpoints");
+				assertTrue(HostToDomainGraph.Checkpoint.load(checkpointFile).edgesDone);
+			}
+		}
+	}
+
 }
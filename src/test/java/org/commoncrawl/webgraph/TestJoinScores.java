@@ -0,0 +1,117 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+
+public class TestJoinScores {
+
+	@TempDir
+	Path tempDir;
+
+	String indegree, outdegree, hc, pr;
+
+	// node 4 without vertex line, one line without node ID
+	String[] vertices = { "0\tcom.a", "1\tcom.b\textra", "2\tde.bücher", "3\tcom.d", "" };
+
+	@BeforeEach
+	void storeScores() throws IOException {
+		indegree = tempDir.resolve("indegree.bin").toString();
+		outdegree = tempDir.resolve("outdegree.bin").toString();
+		hc = tempDir.resolve("hc.bin").toString();
+		pr = tempDir.resolve("pr.bin").toString();
+		BinIO.storeInts(new int[] { 7, 2, 7, 0, 9 }, indegree);
+		BinIO.storeLongs(new long[] { 1L, 1L << 40, 3L, 2L, 0L }, outdegree);
+		BinIO.storeFloats(new float[] { 1.5f, 3.0f, 0.0f, 3.0f, 2.0f }, hc);
+		BinIO.storeDoubles(new double[] { 0.1, 0.4, 0.2, 0.3, 0.0 }, pr);
+	}
+
+	private JoinScores joiner() throws IOException {
+		JoinScores joiner = new JoinScores(tempDir);
+		joiner.addScore(indegree, MappedArray.Type.INT, JoinScores.Column.VALUE, JoinScores.Column.RANK);
+		joiner.addScore(outdegree, MappedArray.Type.LONG, JoinScores.Column.RANK);
+		joiner.addScore(hc, MappedArray.Type.FLOAT, JoinScores.Column.RANK, JoinScores.Column.VALUE);
+		joiner.addScore(pr, MappedArray.Type.DOUBLE, JoinScores.Column.VALUE);
+		return joiner;
+	}
+
+	private static String[] lines(ByteArrayOutputStream bytes) {
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n", -1);
+	}
+
+	@Test
+	void testConvert() throws IOException {
+		String[] expected = { //
+				"7\t2\t4\t4\t1.5\t0.1\tcom.a", //
+				"2\t4\t1\t1\t3.0\t0.4\tcom.b\textra", //
+				"7\t3\t2\t5\t0.0\t0.2\tde.bücher", //
+				"0\t5\t3\t2\t3.0\t0.3\tcom.d", //
+				"", "" };
+		for (long budget : new long[] { 0, Long.MAX_VALUE }) {
+			try (JoinScores joiner = joiner()) {
+				joiner.assignRanks(budget);
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				joiner.convert(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes));
+				assertArrayEquals(expected, lines(bytes));
+			}
+		}
+		try (var files = Files.list(tempDir)) {
+			assertEquals(4, files.count(), "temporary files not deleted");
+		}
+	}
+
+	@Test
+	void testConvertSorted() throws IOException {
+		String[] expected = { //
+				"7\t2\t4\t4\t1.5\t0.1\tcom.a", //
+				"2\t4\t1\t1\t3.0\t0.4\tcom.b\textra", //
+				"7\t3\t2\t5\t0.0\t0.2\tde.bücher", //
+				"0\t5\t3\t2\t3.0\t0.3\tcom.d" };
+		int[][] orders = { //
+				{ 0, 2, 1, 3 }, // indegree, node 4 ranked first
+				{ 1, 2, 3, 0 }, // outdegree
+				{ 1, 3, 0, 2 }, // harmonic centrality
+				{ 1, 3, 2, 0 } }; // page rank
+		for (int orderBy = 0; orderBy < orders.length; orderBy++) {
+			try (JoinScores joiner = joiner()) {
+				joiner.assignRanks();
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				joiner.convertSorted(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes),
+						orderBy);
+				String[] lines = Arrays.copyOf(expected, expected.length + 1);
+				for (int i = 0; i < expected.length; i++) {
+					lines[i] = expected[orders[orderBy][i]];
+				}
+				lines[expected.length] = "";
+				assertArrayEquals(lines, lines(bytes), "order by score " + orderBy);
+			}
+		}
+	}
+
+	@Test
+	void testNumberOfValuesDiffers() throws IOException {
+		String other = tempDir.resolve("other.bin").toString();
+		BinIO.storeInts(new int[] { 1, 2, 3 }, other);
+		try (JoinScores joiner = joiner()) {
+			assertThrows(IOException.class,
+					() -> joiner.addScore(other, MappedArray.Type.INT, JoinScores.Column.RANK));
+		}
+	}
+}
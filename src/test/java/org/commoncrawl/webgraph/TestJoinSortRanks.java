@@ -4,14 +4,20 @@
  */
 package org.commoncrawl.webgraph;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +27,159 @@ public class TestJoinSortRanks {
 
 	protected static Logger LOG = LoggerFactory.getLogger(TestJoinSortRanks.class);
 
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testAddRanks() throws IOException {
+		String hc = tempDir.resolve("hc.bin").toString();
+		String pr = tempDir.resolve("pr.bin").toString();
+		BinIO.storeFloats(new float[] { 1.5f, 3.0f, 0.0f, 3.0f }, hc);
+		BinIO.storeDoubles(new double[] { 0.1, 0.4, 0.2, 0.3 }, pr);
+		String[] vertices = { "0\tcom.a", "1\tcom.b\textra", "2\tde.bücher", "3\tcom.d" };
+		String[] expected = { //
+				"3\t1.5\t4\t0.1\tcom.a", //
+				"1\t3.0\t1\t0.4\tcom.b\textra", //
+				"4\t0.0\t3\t0.2\tde.bücher", //
+				"2\t3.0\t2\t0.3\tcom.d" };
+		String ranksPrefix = tempDir.resolve("graph").toString();
+		for (JoinSortRanks converter : new JoinSortRanks[] { new JoinSortRanks(),
+				new JoinSortRanks.JoinSortRanksBig(), new JoinSortRanks.JoinSortRanksMapped(ranksPrefix) }) {
+			converter.loadHarmonicCentrality(hc);
+			converter.loadPageRank(pr);
+			converter.assignRanks();
+			assertArrayEquals(expected, Arrays.stream(vertices).map(converter::addRanks).toArray(String[]::new));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			converter.convert(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes));
+			assertArrayEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+			converter.close();
+		}
+		try (RankFile hcRanks = RankFile.open(ranksPrefix + "-harmonicc" + RankFile.Kind.RANK_BY_ID.suffix);
+				RankFile prRanks = RankFile.open(ranksPrefix + "-pagerank" + RankFile.Kind.RANK_BY_ID.suffix)) {
+			assertArrayEquals(new long[] { 3, 1, 4, 2 }, new long[] { hcRanks.rank(0), hcRanks.rank(1),
+					hcRanks.rank(2), hcRanks.rank(3) });
+			assertArrayEquals(new long[] { 4, 1, 3, 2 }, new long[] { prRanks.rank(0), prRanks.rank(1),
+					prRanks.rank(2), prRanks.rank(3) });
+		}
+	}
+
+	@Test
+	void testWriteRankFiles() throws IOException {
+		String hc = tempDir.resolve("hc.bin").toString();
+		String pr = tempDir.resolve("pr.bin").toString();
+		BinIO.storeFloats(new float[] { 1.5f, 3.0f, 0.0f, 3.0f }, hc);
+		BinIO.storeDoubles(new double[] { 0.1, 0.4, 0.2, 0.3 }, pr);
+		String prefix = tempDir.resolve("graph").toString();
+		try (JoinSortRanks converter = new JoinSortRanks()) {
+			converter.loadHarmonicCentrality(hc);
+			converter.loadPageRank(pr);
+			converter.assignRanks();
+			converter.writeRankFiles(prefix);
+		}
+		long[][] expectedRanks = { { 3, 1, 4, 2 }, { 4, 1, 3, 2 } };
+		long[][] expectedIds = { { 1, 3, 0, 2 }, { 1, 3, 2, 0 } };
+		String[] names = { "-harmonicc", "-pagerank" };
+		for (int i = 0; i < names.length; i++) {
+			try (RankFile ranks = RankFile.open(prefix + names[i] + RankFile.Kind.RANK_BY_ID.suffix);
+					RankFile ids = RankFile.open(prefix + names[i] + RankFile.Kind.ID_BY_RANK.suffix)) {
+				for (int id = 0; id < 4; id++) {
+					assertEquals(expectedRanks[i][id], ranks.rank(id), names[i]);
+				}
+				assertArrayEquals(expectedIds[i], ids.ids(1, 4), names[i]);
+			}
+		}
+	}
+
+	@Test
+	void testConvertSorted() throws IOException {
+		String hc = tempDir.resolve("hc.bin").toString();
+		String pr = tempDir.resolve("pr.bin").toString();
+		BinIO.storeFloats(new float[] { 1.5f, 3.0f, 0.0f, 3.0f, 2.0f }, hc);
+		BinIO.storeDoubles(new double[] { 0.1, 0.4, 0.2, 0.3, 0.0 }, pr);
+		// node 4 without vertex line, one line without node ID
+		String[] vertices = { "0\tcom.a", "1\tcom.b\textra", "2\tde.bücher", "3\tcom.d", "" };
+		String[] expectedHC = { //
+				"1\t3.0\t1\t0.4\tcom.b\textra", //
+				"2\t3.0\t2\t0.3\tcom.d", //
+				"4\t1.5\t4\t0.1\tcom.a", //
+				"5\t0.0\t3\t0.2\tde.bücher" };
+		String[] expectedPR = { expectedHC[0], expectedHC[1], expectedHC[3], expectedHC[2] };
+		for (JoinSortRanks converter : new JoinSortRanks[] { new JoinSortRanks(),
+				new JoinSortRanks.JoinSortRanksBig() }) {
+			converter.loadHarmonicCentrality(hc);
+			converter.loadPageRank(pr);
+			converter.assignRanks();
+			for (boolean byPageRank : new boolean[] { false, true }) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				converter.convertSorted(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes),
+						byPageRank, tempDir);
+				assertArrayEquals(byPageRank ? expectedPR : expectedHC,
+						new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+			}
+		}
+		// temporary files are removed
+		assertEquals(2, tempDir.toFile().list().length);
+		// top-k output holds the lines of the nodes ranked 1 to k
+		for (boolean byPageRank : new boolean[] { false, true }) {
+			int rankColumn = byPageRank ? 2 : 0;
+			for (int k = 0; k <= 6; k++) {
+				JoinSortRanks converter = new JoinSortRanks.JoinSortRanksMapped(null);
+				converter.loadHarmonicCentrality(hc);
+				converter.loadPageRank(pr);
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				converter.convertTopK(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes), k,
+						byPageRank);
+				final int maxRank = k;
+				String[] expected = Arrays.stream(byPageRank ? expectedPR : expectedHC)
+						.filter(line -> Integer.parseInt(line.split("\t")[rankColumn]) <= maxRank)
+						.toArray(String[]::new);
+				String output = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+				assertArrayEquals(expected, output.isEmpty() ? new String[0] : output.split("\n"));
+			}
+		}
+	}
+
+	@Test
+	void testConvertSortedRankFiles() throws IOException {
+		String hc = tempDir.resolve("hc.bin").toString();
+		String pr = tempDir.resolve("pr.bin").toString();
+		BinIO.storeFloats(new float[] { 1.5f, 3.0f, 0.0f, 3.0f }, hc);
+		BinIO.storeDoubles(new double[] { 0.1, 0.4, 0.2, 0.3 }, pr);
+		String[] vertices = { "0\tcom.a", "1\tcom.b\textra", "2\tde.bücher", "3\tcom.d" };
+		String[] expectedHC = { //
+				"1\t3.0\t1\t0.4\tcom.b\textra", //
+				"2\t3.0\t2\t0.3\tcom.d", //
+				"3\t1.5\t4\t0.1\tcom.a", //
+				"4\t0.0\t3\t0.2\tde.bücher" };
+		String[] expectedPR = { expectedHC[0], expectedHC[1], expectedHC[3], expectedHC[2] };
+		String prefix = tempDir.resolve("graph").toString();
+		// ranks by node ID are written once, the node IDs by rank are reused
+		try (JoinSortRanks converter = new JoinSortRanks.JoinSortRanksMapped(prefix)) {
+			converter.loadHarmonicCentrality(hc);
+			converter.loadPageRank(pr);
+			converter.assignRanks();
+			converter.writeRankFiles(prefix);
+			for (boolean byPageRank : new boolean[] { false, true }) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				converter.convertSorted(LineReader.of(Arrays.asList(vertices).iterator()), new LineWriter(bytes),
+						byPageRank, tempDir);
+				assertArrayEquals(byPageRank ? expectedPR : expectedHC,
+						new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+			}
+		}
+		// value files and four rank files, no temporary files
+		assertEquals(6, tempDir.toFile().list().length);
+		long[][] expectedIds = { { 1, 3, 0, 2 }, { 1, 3, 2, 0 } };
+		String[] names = { "-harmonicc", "-pagerank" };
+		for (int i = 0; i < names.length; i++) {
+			try (RankFile ranks = RankFile.open(prefix + names[i] + RankFile.Kind.RANK_BY_ID.suffix);
+					RankFile ids = RankFile.open(prefix + names[i] + RankFile.Kind.ID_BY_RANK.suffix)) {
+				assertEquals(4, ranks.length());
+				assertArrayEquals(expectedIds[i], ids.ids(1, 4), names[i]);
+			}
+		}
+	}
+
 	/**
 	 * Reproduce issue in fastutil 8.5.8 loading (double) arrays from files of size
 	 * 2^31 bytes or more.
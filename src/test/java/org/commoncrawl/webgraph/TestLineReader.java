@@ -0,0 +1,155 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestLineReader {
+
+	static final String[] lines = { //
+			"0\tcom.example", //
+			"1\tcom.example.www", //
+			"", //
+			"2\tde.bücher\textra", //
+			"18446744073709551615\tinvalid", //
+			"-9223372036854775808\t9223372036854775807", //
+			"3\tcom.example.a-very-long-host-name-exceeding-the-buffer-size-of-the-reader", //
+	};
+
+	private static LineReader reader(String text, int bufferSize) {
+		return new LineReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), bufferSize);
+	}
+
+	private static List<String> readAll(LineReader in) {
+		List<String> res = new ArrayList<>();
+		while (in.next()) {
+			res.add(in.toString());
+		}
+		return res;
+	}
+
+	@Test
+	void testLines() {
+		String text = String.join("\n", lines);
+		for (int bufferSize = 1; bufferSize < 128; bufferSize++) {
+			assertEquals(Arrays.asList(lines), readAll(reader(text, bufferSize)));
+			assertEquals(Arrays.asList(lines), readAll(reader(text + "\n", bufferSize)));
+			assertEquals(Arrays.asList(lines), readAll(reader(String.join("\r\n", lines) + "\r\n", bufferSize)));
+		}
+		assertFalse(reader("", 16).next());
+		assertEquals(Arrays.asList(""), readAll(reader("\n", 16)));
+		assertEquals(Arrays.asList(lines), readAll(LineReader.of(Arrays.asList(lines).iterator())));
+	}
+
+	@Test
+	void testPosition() {
+		String text = String.join("\n", lines) + "\n";
+		LineReader in = reader(text, 8);
+		long position = 0;
+		while (in.next()) {
+			position += in.toString().getBytes(StandardCharsets.UTF_8).length + 1;
+			assertEquals(position, in.position());
+		}
+		assertEquals(lines.length, in.lineNumber());
+		in = reader(text, 8);
+		assertEquals(3, in.skip(3));
+		assertTrue(in.next());
+		assertEquals(lines[3], in.toString());
+		assertEquals(lines.length - 4, in.skip(lines.length));
+	}
+
+	@Test
+	void testFields() {
+		LineReader in = LineReader.of(Arrays.asList(lines).iterator());
+		assertTrue(in.next());
+		int sep = in.indexOf('\t');
+		assertEquals(0, in.parseLong(in.start(), sep));
+		assertEquals("com.example", in.toString(sep + 1, in.end()));
+		assertEquals(-1, in.indexOf('\t', sep + 1));
+		assertTrue(in.next());
+		assertEquals(1, in.parseLong(in.start(), in.indexOf('\t')));
+		assertTrue(in.next());
+		assertEquals(-1, in.indexOf('\t'));
+		assertTrue(in.next());
+		sep = in.indexOf('\t');
+		int sep2 = in.indexOf('\t', sep + 1);
+		assertEquals("de.bücher", in.toString(sep + 1, sep2));
+		assertTrue(in.next());
+		LineReader overflow = in;
+		assertThrows(NumberFormatException.class,
+				() -> overflow.parseLong(overflow.start(), overflow.indexOf('\t')));
+		assertThrows(NumberFormatException.class, () -> overflow.parseLong(overflow.start(), overflow.end()));
+		assertTrue(in.next());
+		sep = in.indexOf('\t');
+		assertEquals(Long.MIN_VALUE, in.parseLong(in.start(), sep));
+		assertEquals(Long.MAX_VALUE, in.parseLong(sep + 1, in.end()));
+	}
+
+	@Test
+	void testParseLong() {
+		for (String number : new String[] { "0", "7", "+7", "-7", "2147483648", "9223372036854775807",
+				"-9223372036854775808", "000123" }) {
+			byte[] bytes = number.getBytes(StandardCharsets.US_ASCII);
+			assertEquals(Long.parseLong(number), LineReader.parseLong(bytes, 0, bytes.length), number);
+		}
+		for (String number : new String[] { "", "-", "+", "1a", " 1", "1 ", "9223372036854775808",
+				"-9223372036854775809", "99999999999999999999" }) {
+			byte[] bytes = number.getBytes(StandardCharsets.US_ASCII);
+			assertThrows(NumberFormatException.class, () -> Long.parseLong(number));
+			assertThrows(NumberFormatException.class, () -> LineReader.parseLong(bytes, 0, bytes.length), number);
+		}
+	}
+
+	@Test
+	void testCompare() {
+		String[] names = { "", "a", "ab", "a-b", "a.b", "bücher", "b\ufffd", "b\ud83d\ude00" };
+		for (String a : names) {
+			for (String b : names) {
+				byte[] x = a.getBytes(StandardCharsets.UTF_8);
+				byte[] y = b.getBytes(StandardCharsets.UTF_8);
+				int expected = Integer.signum(Arrays.compare(a.codePoints().toArray(), b.codePoints().toArray()));
+				assertEquals(expected, Integer.signum(LineReader.compare(x, 0, x.length, y, 0, y.length)),
+						a + " <> " + b);
+			}
+		}
+	}
+
+	@Test
+	void testBlocks() {
+		String text = String.join("\n", lines) + "\n";
+		for (int blockSize = 1; blockSize <= text.length() + 1; blockSize++) {
+			LineReader in = reader(text, 16);
+			List<String> res = new ArrayList<>();
+			LineReader block;
+			while ((block = in.nextBlock(blockSize)) != null) {
+				List<String> blockLines = readAll(block);
+				assertFalse(blockLines.isEmpty());
+				res.addAll(blockLines);
+			}
+			assertEquals(Arrays.asList(lines), res);
+			assertNull(in.nextBlock(blockSize));
+			assertEquals(text.getBytes(StandardCharsets.UTF_8).length, in.position());
+		}
+		// mixed reading of lines and blocks
+		LineReader in = reader(text, 16);
+		assertTrue(in.next());
+		assertEquals(lines[0], in.toString());
+		assertEquals(Arrays.asList(lines[1], lines[2]), readAll(in.nextBlock(19)));
+		assertTrue(in.next());
+		assertEquals(lines[3], in.toString());
+	}
+}
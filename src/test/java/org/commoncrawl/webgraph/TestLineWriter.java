@@ -0,0 +1,125 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestLineWriter {
+
+	@TempDir
+	Path tempDir;
+
+	static final String[] names = { "", "com.example", "de.bücher", "jp.日本", "b😀",
+			"unpaired\ud83d", "unpaired\ude00x" };
+
+	static final long[] numbers = { 0, 7, -7, 10, 99, 100, 2147483648L, Long.MAX_VALUE, Long.MIN_VALUE,
+			Long.MIN_VALUE + 1 };
+
+	@Test
+	void testPrint() {
+		for (int bufferSize : new int[] { 1, 32, 33, 64, LineWriter.DEFAULT_BUFFER_SIZE }) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			PrintStream ps = new PrintStream(expected, false, StandardCharsets.UTF_8);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			LineWriter out = new LineWriter(bytes, bufferSize);
+			for (String name : names) {
+				for (long number : numbers) {
+					ps.print(number);
+					ps.print('\t');
+					ps.print((float) number / 3);
+					ps.print('\t');
+					ps.print((double) number / 3);
+					ps.print('ü');
+					ps.println(name);
+					out.print(number);
+					out.print('\t');
+					out.print((float) number / 3);
+					out.print('\t');
+					out.print((double) number / 3);
+					out.print('ü');
+					out.println(name);
+				}
+				out.print(name, 1, Math.max(1, name.length()));
+				out.println();
+				ps.println(name.substring(Math.min(1, name.length())));
+			}
+			ps.flush();
+			out.flush();
+			assertArrayEquals(expected.toByteArray(), bytes.toByteArray(), "buffer size " + bufferSize);
+		}
+	}
+
+	@Test
+	void testGzip() throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			lines.add(i + "\tcom.example.höst" + i);
+		}
+		Path file = tempDir.resolve("lines.txt.gz");
+		try (LineWriter out = LineWriter.open(file.toString(), 3)) {
+			for (int i = 0; i < lines.size(); i++) {
+				out.println(lines.get(i));
+				if (i == 12345) {
+					// completes a gzip member
+					out.flush();
+				}
+			}
+		}
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			assertEquals(String.join("\n", lines) + "\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		try (Stream<String> in = MultiPartInput.lines(file.toString())) {
+			assertEquals(lines, in.collect(Collectors.toList()));
+		}
+
+		// empty output is still valid gzip
+		Path empty = tempDir.resolve("empty.txt.gz");
+		LineWriter.open(empty.toString(), 2).close();
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(empty))) {
+			assertEquals(0, in.readAllBytes().length);
+		}
+	}
+
+	@Test
+	void testBinary() throws IOException {
+		for (String name : new String[] { "doubles.bin", "doubles.bin.gz" }) {
+			Path file = tempDir.resolve(name);
+			try (DataOutputStream out = new DataOutputStream(LineWriter.open(file.toString()))) {
+				for (int i = 0; i < 10000; i++) {
+					out.writeDouble(i / 7.0);
+				}
+			}
+			InputStream is = Files.newInputStream(file);
+			if (name.endsWith(".gz")) {
+				is = new GZIPInputStream(is);
+			}
+			try (DataInputStream in = new DataInputStream(is)) {
+				for (int i = 0; i < 10000; i++) {
+					assertEquals(i / 7.0, in.readDouble());
+				}
+				assertEquals(-1, in.read());
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+
+public class TestMappedArray {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testReadBinIO() throws IOException {
+		String floats = tempDir.resolve("values.bin").toString();
+		String doubles = tempDir.resolve("values.ranks").toString();
+		float[] f = new float[1000];
+		double[] d = new double[1000];
+		for (int i = 0; i < f.length; i++) {
+			f[i] = i / 7.0f;
+			d[i] = -i / 3.0;
+		}
+		BinIO.storeFloats(f, floats);
+		BinIO.storeDoubles(d, doubles);
+		// small segments (64 bytes) to test the segmentation
+		for (int segmentShift : new int[] { 6, MappedArray.DEFAULT_SEGMENT_SHIFT }) {
+			try (MappedArray mf = MappedArray.map(floats, MappedArray.Type.FLOAT, segmentShift);
+					MappedArray md = MappedArray.map(doubles, MappedArray.Type.DOUBLE, segmentShift)) {
+				assertEquals(f.length, mf.length());
+				assertEquals(d.length, md.length());
+				for (int i = 0; i < f.length; i++) {
+					assertEquals(f[i], mf.getFloat(i));
+					assertEquals(d[i], md.getDouble(i));
+				}
+			}
+		}
+	}
+
+	@Test
+	void testWrite() throws IOException {
+		String ints = tempDir.resolve("ints.bin").toString();
+		String longs = tempDir.resolve("longs.bin").toString();
+		int[] expectedInts = new int[100];
+		long[] expectedLongs = new long[100];
+		try (MappedArray mi = MappedArray.create(ints, MappedArray.Type.INT, 100, 6);
+				MappedArray ml = MappedArray.create(longs, MappedArray.Type.LONG, 100, 6)) {
+			for (int i = 99; i >= 0; i -= 2) {
+				mi.setInt(i, -i);
+				ml.setLong(i, (long) i << 40);
+				expectedInts[i] = -i;
+				expectedLongs[i] = (long) i << 40;
+			}
+		}
+		assertEquals(400, Files.size(Path.of(ints)));
+		assertArrayEquals(expectedInts, BinIO.loadInts(ints));
+		assertArrayEquals(expectedLongs, BinIO.loadLongs(longs));
+	}
+
+	@Test
+	void testInvalidSize() throws IOException {
+		String file = tempDir.resolve("values.bin").toString();
+		BinIO.storeFloats(new float[3], file);
+		assertThrows(IOException.class, () -> MappedArray.map(file, MappedArray.Type.DOUBLE));
+	}
+}
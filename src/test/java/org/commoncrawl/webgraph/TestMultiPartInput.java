@@ -0,0 +1,136 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestMultiPartInput {
+
+	@TempDir
+	Path tempDir;
+
+	Path partsDir;
+	List<String> expected = new ArrayList<>();
+
+	private static void writeGzip(Path file, List<String> lines, int members) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			// write the lines as multiple concatenated gzip members
+			int start = 0;
+			for (int m = 0; m < members; m++) {
+				int end = (m == members - 1) ? lines.size() : Math.min(lines.size(), start + lines.size() / members);
+				GZIPOutputStream gzip = new GZIPOutputStream(out);
+				for (String line : lines.subList(start, end)) {
+					gzip.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+				}
+				gzip.finish();
+				start = end;
+			}
+		}
+	}
+
+	@BeforeEach
+	void init() throws IOException {
+		partsDir = Files.createDirectory(tempDir.resolve("parts"));
+		int id = 0;
+		for (int part = 0; part < 12; part++) {
+			List<String> lines = new ArrayList<>();
+			// part 3 is empty, part 5 spans multiple blocks
+			int n = part == 3 ? 0 : (part == 5 ? 20000 : (part * 7 + 1));
+			for (int i = 0; i < n; i++) {
+				lines.add(id++ + "\tcom.example.höst" + i);
+			}
+			writeGzip(partsDir.resolve(String.format("part-%05d.gz", part)), lines, (part % 3) + 1);
+			expected.addAll(lines);
+		}
+		Files.write(partsDir.resolve("_SUCCESS"), List.of("not an input part"));
+	}
+
+	private List<String> read(String input, int threads) throws IOException {
+		try (Stream<String> lines = MultiPartInput.lines(input, threads)) {
+			return lines.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	void testDirectory() throws IOException {
+		for (int threads : new int[] { 1, 2, 4, 16 }) {
+			assertEquals(expected, read(partsDir.toString(), threads));
+		}
+	}
+
+	@Test
+	void testGlob() throws IOException {
+		assertEquals(expected, read(partsDir.resolve("*.gz").toString(), 3));
+		assertEquals(expected.subList(0, 1), read(partsDir.resolve("part-00000.g?").toString(), 3));
+		assertThrows(IOException.class, () -> read(partsDir.resolve("*.txt").toString(), 3));
+	}
+
+	@Test
+	void testSingleFile() throws IOException {
+		Path gzipped = tempDir.resolve("vertices.txt.gz");
+		writeGzip(gzipped, expected, 2);
+		assertEquals(expected, read(gzipped.toString(), 2));
+		assertFalse(MultiPartInput.isPlainFile(gzipped.toString()));
+
+		Path plain = tempDir.resolve("vertices.txt");
+		Files.write(plain, expected, StandardCharsets.UTF_8);
+		assertEquals(expected, read(plain.toString(), 2));
+		assertTrue(MultiPartInput.isPlainFile(plain.toString()));
+		assertFalse(MultiPartInput.isPlainFile(partsDir.toString()));
+	}
+
+	@Test
+	void testMissingInput() {
+		assertThrows(IOException.class, () -> read(tempDir.resolve("missing.txt").toString(), 2));
+	}
+
+	@Test
+	void testReader() throws IOException {
+		for (int threads : new int[] { 1, 3 }) {
+			List<String> lines = new ArrayList<>();
+			try (LineReader in = MultiPartInput.reader(partsDir.toString(), threads)) {
+				while (in.next()) {
+					lines.add(in.toString());
+				}
+			}
+			assertEquals(expected, lines);
+		}
+	}
+
+	@Test
+	void testMissingLineTerminator() throws IOException {
+		Path dir = Files.createDirectory(tempDir.resolve("unterminated"));
+		Files.write(dir.resolve("part-00000"), "0\ta\n1\tb".getBytes(StandardCharsets.UTF_8));
+		Files.write(dir.resolve("part-00001"), "2\tc".getBytes(StandardCharsets.UTF_8));
+		Files.write(dir.resolve("part-00002"), "3\td\n".getBytes(StandardCharsets.UTF_8));
+		assertEquals(List.of("0\ta", "1\tb", "2\tc", "3\td"), read(dir.toString(), 2));
+	}
+
+	@Test
+	void testCloseEarly() throws IOException {
+		try (Stream<String> lines = MultiPartInput.lines(partsDir.toString(), 4)) {
+			assertEquals(expected.subList(0, 100), lines.limit(100).collect(Collectors.toList()));
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import crawlercommons.domains.EffectiveTldFinder;
+
+public class TestPublicSuffixTrie {
+
+	protected static Logger LOG = LoggerFactory.getLogger(TestPublicSuffixTrie.class);
+
+	static final Pattern ASCII_LOWER_CASE_HOST = Pattern.compile("[a-z0-9_-]+(?:\\.[a-z0-9_-]+)*");
+
+	static PublicSuffixTrie trie;
+	static List<String> hosts = new ArrayList<>();
+
+	static final String[] prefixes = { //
+			"", //
+			"example.", //
+			"www.example.", //
+			"a.b-c.d_e.", //
+			"city.", //
+			"www.", //
+			"xn--bcher-kva.", //
+			"a123456789012345678901234567890123456789012345678901234567890ab.", // 63 chars
+			"a123456789012345678901234567890123456789012345678901234567890abc.", // 64 chars
+			"Example.", //
+			"www..example.", //
+			".example.", //
+			"bücher.", //
+	};
+
+	static final String[] otherHosts = { //
+			"", //
+			".", //
+			"localhost", //
+			"example.com.", //
+			"example..com", //
+			"192.168.0.1", //
+			"example.invalid", //
+			"www.example.COM", //
+			"bücher.example.com", //
+	};
+
+	@BeforeAll
+	static void init() {
+		trie = PublicSuffixTrie.getInstance();
+		for (String suffix : EffectiveTldFinder.getEffectiveTLDs().keySet()) {
+			for (String prefix : prefixes) {
+				hosts.add(prefix + suffix);
+			}
+		}
+		for (String host : otherHosts) {
+			hosts.add(host);
+		}
+	}
+
+	private String getRegisteredDomain(String host, boolean privateDomains) {
+		String revHost = HostToDomainGraph.reverseHost(host);
+		int length = trie.getRegisteredDomainLength(revHost, privateDomains);
+		if (length == PublicSuffixTrie.FALLBACK) {
+			return null;
+		} else if (length == PublicSuffixTrie.NO_DOMAIN) {
+			return "";
+		}
+		return revHost.substring(0, length);
+	}
+
+	private void testEquivalence(boolean privateDomains) {
+		int fallback = 0, fallbackAsciiLowerCase = 0, asciiLowerCase = 0;
+		for (String host : hosts) {
+			if (!HostToDomainGraph.reverseHost(HostToDomainGraph.reverseHost(host)).equals(host)) {
+				// not a valid input: reversing a host name is not invertible
+				continue;
+			}
+			boolean isAsciiLowerCase = ASCII_LOWER_CASE_HOST.matcher(host).matches();
+			if (isAsciiLowerCase) {
+				asciiLowerCase++;
+			}
+			String revDomain = getRegisteredDomain(host, privateDomains);
+			if (revDomain == null) {
+				fallback++;
+				if (isAsciiLowerCase) {
+					fallbackAsciiLowerCase++;
+				}
+				continue;
+			}
+			String expected = EffectiveTldFinder.getAssignedDomain(host, true, !privateDomains);
+			if (expected == null) {
+				assertEquals("", revDomain, "No registered domain expected for host " + host);
+			} else {
+				assertEquals(HostToDomainGraph.reverseHost(expected), revDomain, "Registered domain of " + host);
+			}
+		}
+		LOG.info("Checked {} host names ({} private domains), fallback for {} host names ({} of {} lowercase ASCII)",
+				hosts.size(), (privateDomains ? "including" : "excluding"), fallback, fallbackAsciiLowerCase,
+				asciiLowerCase);
+		// only host names below exception rules require the fallback
+		assertTrue(fallbackAsciiLowerCase < (asciiLowerCase / 100));
+	}
+
+	@Test
+	void testEquivalenceIcannDomains() {
+		testEquivalence(false);
+	}
+
+	@Test
+	void testEquivalencePrivateDomains() {
+		testEquivalence(true);
+	}
+
+	@Test
+	void testRegisteredDomain() {
+		assertEquals("com.example", getRegisteredDomain("www.example.com", false));
+		assertEquals("com.example", getRegisteredDomain("example.com", false));
+		assertEquals("uk.co.example", getRegisteredDomain("www.example.co.uk", false));
+		assertEquals("", getRegisteredDomain("co.uk", false));
+		assertEquals("", getRegisteredDomain("com", false));
+		assertEquals("com.blogspot", getRegisteredDomain("example.blogspot.com", false));
+		assertEquals("com.blogspot.example", getRegisteredDomain("www.example.blogspot.com", true));
+		// wildcard rule *.ck
+		assertEquals("ck.example.www", getRegisteredDomain("www.example.ck", false));
+		assertEquals("", getRegisteredDomain("example.ck", false));
+		// exception rule !www.ck
+		assertEquals(null, getRegisteredDomain("www.ck", false));
+		// upper-case characters
+		assertEquals(null, getRegisteredDomain("www.Example.com", false));
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+
+public class TestRadixRanker {
+
+	@TempDir
+	Path tempDir;
+
+	static final int[] sizes = { 0, 1, 2, 17, 1000, 300000 };
+
+	static final double[] specialValues = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE, Float.MAX_VALUE, -1.0, 1.0 };
+
+	/**
+	 * Rank by a comparison sort: higher values first, ties (including 0.0 and
+	 * -0.0) ordered by node ID, NaN last.
+	 */
+	private static int[] expectedRanks(int length, Comparator<Integer> byValue) {
+		int[] sorted = IntStream.range(0, length).boxed().sorted(byValue.thenComparing(Comparator.naturalOrder()))
+				.mapToInt(Integer::intValue).toArray();
+		int[] ranks = new int[length];
+		for (int i = 0; i < length; i++) {
+			ranks[sorted[i]] = i + 1;
+		}
+		return ranks;
+	}
+
+	private static int compareDescending(double a, double b) {
+		if (Double.isNaN(a) || Double.isNaN(b)) {
+			return Boolean.compare(Double.isNaN(a), Double.isNaN(b));
+		}
+		return a < b ? 1 : (a > b ? -1 : 0);
+	}
+
+	private static double randomValue(Random random, int i) {
+		switch (random.nextInt(4)) {
+		case 0:
+			// many ties
+			return random.nextInt(10);
+		case 1:
+			return specialValues[random.nextInt(specialValues.length)];
+		case 2:
+			// page rank-like small values
+			return 1.0 / (1 + random.nextInt(1000000)) / (1 + i);
+		default:
+			return random.nextGaussian() * 1e6;
+		}
+	}
+
+	@Test
+	void testFloatRanks() {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			float[] values = new float[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = (float) randomValue(random, i);
+			}
+			int[] ranks = new int[size];
+			RadixRanker.assignRanks(values, ranks);
+			assertArrayEquals(expectedRanks(size, (a, b) -> compareDescending(values[a], values[b])), ranks,
+					"size " + size);
+		}
+	}
+
+	@Test
+	void testDoubleRanks() {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			double[] values = new double[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = randomValue(random, i);
+			}
+			int[] ranks = new int[size];
+			RadixRanker.assignRanks(values, ranks);
+			assertArrayEquals(expectedRanks(size, (a, b) -> compareDescending(values[a], values[b])), ranks,
+					"size " + size);
+		}
+	}
+
+	@Test
+	void testBigArrays() {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			float[] hc = new float[size];
+			double[] pr = new double[size];
+			for (int i = 0; i < size; i++) {
+				hc[i] = (float) randomValue(random, i);
+				pr[i] = randomValue(random, i);
+			}
+			int[] expected = new int[size];
+			long[][] ranks = LongBigArrays.newBigArray(size);
+			RadixRanker.assignRanks(hc, expected);
+			RadixRanker.assignRanks(BigArrays.wrap(hc), ranks);
+			for (int i = 0; i < size; i++) {
+				assertEquals(expected[i], BigArrays.get(ranks, i), "size " + size);
+			}
+			RadixRanker.assignRanks(pr, expected);
+			RadixRanker.assignRanks(BigArrays.wrap(pr), ranks);
+			for (int i = 0; i < size; i++) {
+				assertEquals(expected[i], BigArrays.get(ranks, i), "size " + size);
+			}
+		}
+	}
+
+	@Test
+	void testMappedArrays() throws IOException {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			float[] hc = new float[size];
+			double[] pr = new double[size];
+			for (int i = 0; i < size; i++) {
+				hc[i] = (float) randomValue(random, i);
+				pr[i] = randomValue(random, i);
+			}
+			String hcFile = tempDir.resolve("hc.bin").toString();
+			String prFile = tempDir.resolve("pr.bin").toString();
+			BinIO.storeFloats(hc, hcFile);
+			BinIO.storeDoubles(pr, prFile);
+			int[] expected = new int[size];
+			RadixRanker.assignRanks(hc, expected);
+			try (MappedArray values = MappedArray.map(hcFile, MappedArray.Type.FLOAT);
+					MappedArray ranks = MappedArray.create(tempDir.resolve("hc.pos").toString(), MappedArray.Type.INT,
+							size)) {
+				RadixRanker.assignRanks(values, ranks);
+				for (int i = 0; i < size; i++) {
+					assertEquals(expected[i], ranks.getInt(i), "size " + size);
+				}
+			}
+			RadixRanker.assignRanks(pr, expected);
+			try (MappedArray values = MappedArray.map(prFile, MappedArray.Type.DOUBLE);
+					MappedArray ranks = MappedArray.create(tempDir.resolve("pr.pos").toString(),
+							MappedArray.Type.LONG, size)) {
+				RadixRanker.assignRanks(values, ranks);
+				for (int i = 0; i < size; i++) {
+					assertEquals(expected[i], ranks.getLong(i), "size " + size);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testConstantValues() {
+		// all radix passes are skipped, ranks follow the node IDs
+		double[] values = new double[200000];
+		int[] ranks = new int[values.length];
+		RadixRanker.assignRanks(values, ranks);
+		assertArrayEquals(IntStream.rangeClosed(1, values.length).toArray(), ranks);
+	}
+}
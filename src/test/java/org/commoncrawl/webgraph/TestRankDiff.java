@@ -0,0 +1,100 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TestRankDiff {
+
+	private static LineReader reader(String... lines) {
+		return LineReader.of(Arrays.asList(lines).iterator());
+	}
+
+	@Test
+	void testJoin() throws IOException {
+		// IDs need not follow the name order, optional fields are ignored
+		LineReader oldVertices = reader("0\tcom.a", "1\tcom.b\t7", "2\tcom.c", "", "3\tde.bücher");
+		LineReader newVertices = reader("5\tcom.a", "3\tcom.aa", "4\tcom.c\t9", "0\tde.bücher", "1\torg.x");
+		List<String> joined = new ArrayList<>();
+		long common = VertexMergeJoin.join(oldVertices, newVertices, (oldId, newId, name, from, to) -> joined
+				.add(oldId + " " + newId + " " + new String(name, from, to - from, StandardCharsets.UTF_8)));
+		assertEquals(3, common);
+		assertArrayEquals(new String[] { "0 5 com.a", "-1 3 com.aa", "1 -1 com.b", "2 4 com.c", "3 0 de.bücher",
+				"-1 1 org.x" }, joined.toArray(new String[0]));
+	}
+
+	@Test
+	void testNotSorted() {
+		assertThrows(IOException.class, () -> VertexMergeJoin.join(reader("0\tcom.b", "1\tcom.a"),
+				reader("0\tcom.a"), (oldId, newId, name, from, to) -> {
+				}));
+		assertThrows(IOException.class, () -> VertexMergeJoin.join(reader("0\tcom.a"),
+				reader("0\tcom.a", "1\tcom.a"), (oldId, newId, name, from, to) -> {
+				}));
+	}
+
+	@Test
+	void testDiff() throws IOException {
+		LineReader oldVertices = reader("0\tcom.a", "1\tcom.b", "2\tcom.c", "3\tcom.d");
+		LineReader newVertices = reader("0\tcom.a", "1\tcom.c", "2\tcom.d", "3\tcom.e");
+		long[] oldRanks = { 2, 4, 1, 3 };
+		long[] newRanks = { 1, 4, 2, 3 };
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		RankDiff.Summary summary = new RankDiff(new long[] { 1, 2, 4 }).diff(oldVertices, id -> oldRanks[(int) id],
+				newVertices, id -> newRanks[(int) id], new LineWriter(bytes));
+		assertArrayEquals(new String[] { "2\t1\t1\tcom.a", "4\t-\t-\tcom.b", "1\t4\t-3\tcom.c", "3\t2\t1\tcom.d",
+				"-\t3\t-\tcom.e" }, new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+		assertEquals(4, summary.oldVertices());
+		assertEquals(4, summary.newVertices());
+		assertEquals(3, summary.common());
+		assertEquals(1, summary.appeared());
+		assertEquals(1, summary.disappeared());
+		assertEquals(0, summary.unchanged());
+		assertEquals(2, summary.movedUp());
+		assertEquals(1, summary.movedDown());
+		assertEquals(5.0 / 3, summary.meanAbsoluteDelta(), 1e-12);
+		// old ranks (2, 1, 3), new ranks (1, 4, 2) of com.a, com.c, com.d
+		assertEquals(-0.6546536707079772, summary.rankCorrelation(), 1e-12);
+		assertEquals(0, summary.topOverlap(0));
+		assertEquals(1, summary.topOverlap(1));
+		assertEquals(3, summary.topOverlap(2));
+	}
+
+	@Test
+	void testRankCorrelation() {
+		Random random = new Random(42);
+		int n = 10000;
+		long[] x = new long[n];
+		long[] y = new long[n];
+		RankDiff.Summary summary = new RankDiff.Summary(RankDiff.DEFAULT_TOP_N);
+		for (int i = 0; i < n; i++) {
+			x[i] = 1_000_000_000L + random.nextInt(n);
+			y[i] = x[i] + random.nextInt(n / 2);
+			summary.add(x[i], y[i]);
+		}
+		// two-pass reference
+		double mx = Arrays.stream(x).average().getAsDouble();
+		double my = Arrays.stream(y).average().getAsDouble();
+		double sxy = 0, sxx = 0, syy = 0;
+		for (int i = 0; i < n; i++) {
+			sxy += (x[i] - mx) * (y[i] - my);
+			sxx += (x[i] - mx) * (x[i] - mx);
+			syy += (y[i] - my) * (y[i] - my);
+		}
+		assertEquals(sxy / Math.sqrt(sxx * syy), summary.rankCorrelation(), 1e-9);
+	}
+}
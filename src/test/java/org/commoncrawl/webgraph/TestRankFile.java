@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestRankFile {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testWriteRead() throws IOException {
+		String ranksFile = tempDir.resolve("test-ranks.bin").toString();
+		String idsFile = tempDir.resolve("test-ranked-ids.bin").toString();
+		int n = 100;
+		// small segments (64 bytes) to test the segmentation behind the header
+		try (RankFile ranks = RankFile.create(ranksFile, RankFile.Kind.RANK_BY_ID, n, 6);
+				RankFile ids = RankFile.create(idsFile, RankFile.Kind.ID_BY_RANK, n, 6)) {
+			for (int id = 0; id < n; id++) {
+				long rank = n - id;
+				ranks.set(id, rank);
+				ids.set(rank - 1, id);
+			}
+		}
+		assertEquals(RankFile.HEADER_SIZE + 4 * n, Files.size(Path.of(ranksFile)));
+		try (RankFile ranks = RankFile.open(ranksFile, 6); RankFile ids = RankFile.open(idsFile, 6)) {
+			assertEquals(RankFile.Kind.RANK_BY_ID, ranks.kind());
+			assertEquals(RankFile.Kind.ID_BY_RANK, ids.kind());
+			assertEquals(n, ranks.length());
+			for (int id = 0; id < n; id++) {
+				assertEquals(n - id, ranks.rank(id));
+				assertEquals(id, ids.id(ranks.rank(id)));
+			}
+			assertArrayEquals(new long[] { 99, 98, 97 }, ids.ids(1, 3));
+			assertArrayEquals(new long[] { 1, 0 }, ids.ids(99, 1000));
+			assertArrayEquals(new long[0], ids.ids(50, 49));
+			assertThrows(IllegalStateException.class, () -> ranks.id(1));
+			assertThrows(IllegalStateException.class, () -> ids.rank(0));
+		}
+	}
+
+	@Test
+	void testInvalidFiles() throws IOException {
+		Path file = tempDir.resolve("test-ranks.bin");
+		// no header
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> RankFile.open(file.toString()));
+		Files.write(file, new byte[4]);
+		assertThrows(IOException.class, () -> RankFile.open(file.toString()));
+		// length in header does not match the file size
+		try (RankFile ranks = RankFile.create(file.toString(), RankFile.Kind.RANK_BY_ID, 10)) {
+			ranks.set(0, 1);
+		}
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+		assertThrows(IOException.class, () -> RankFile.open(file.toString()));
+	}
+}
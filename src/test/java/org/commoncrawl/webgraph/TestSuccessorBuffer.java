@@ -0,0 +1,86 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestSuccessorBuffer {
+
+	/* successor -> count per source */
+	private static TreeMap<Integer, TreeMap<Integer, Integer>> addRandomArcs(SuccessorBuffer buffer, int numArcs,
+			int numNodes) {
+		TreeMap<Integer, TreeMap<Integer, Integer>> expected = new TreeMap<>();
+		Random random = new Random(42);
+		for (int i = 0; i < numArcs; i++) {
+			int source = random.nextInt(numNodes);
+			int target = random.nextInt(numNodes);
+			buffer.add(source, target);
+			expected.computeIfAbsent(source, k -> new TreeMap<>()).merge(target, 1, Integer::sum);
+		}
+		return expected;
+	}
+
+	private static long countFiles(Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	void testSpillAndMerge(@TempDir Path tempDir) throws IOException {
+		for (boolean countArcs : new boolean[] { false, true }) {
+			for (long maxArcsInMemory : new long[] { 1, 7, 100, Long.MAX_VALUE }) {
+				try (SuccessorBuffer buffer = new SuccessorBuffer()) {
+					buffer.setCountArcs(countArcs);
+					buffer.setMaxArcsInMemory(maxArcsInMemory, tempDir);
+					TreeMap<Integer, TreeMap<Integer, Integer>> expected = addRandomArcs(buffer, 2000, 50);
+					// runs are merged if the limit is reached
+					assertTrue(countFiles(tempDir) <= 256);
+					if (maxArcsInMemory == 1) {
+						assertTrue(buffer.numRuns() > 256);
+					}
+					for (int source = 0; source < 50; source++) {
+						int[] succ = buffer.take(source);
+						Map<Integer, Integer> exp = expected.getOrDefault(source, new TreeMap<>());
+						assertArrayEquals(exp.keySet().stream().mapToInt(Integer::intValue).toArray(), succ,
+								"successors of " + source);
+						if (countArcs) {
+							assertArrayEquals(exp.values().stream().mapToInt(Integer::intValue).toArray(),
+									buffer.counts(), "counts of successors of " + source);
+						}
+					}
+					assertTrue(buffer.isEmpty());
+				}
+				assertEquals(0, countFiles(tempDir), "Temporary files not removed");
+			}
+		}
+	}
+
+	@Test
+	void testNotTakenInOrder(@TempDir Path tempDir) throws IOException {
+		try (SuccessorBuffer buffer = new SuccessorBuffer()) {
+			buffer.setMaxArcsInMemory(2, tempDir);
+			buffer.add(1, 2);
+			buffer.add(3, 4);
+			// spilled, node 1 must be taken first
+			assertThrows(IllegalStateException.class, () -> buffer.take(3));
+		}
+		assertEquals(0, countFiles(tempDir), "Temporary files not removed");
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ * Copyright (C) 2026 Common Crawl and contributors
+ */
+package org.commoncrawl.webgraph;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TestTopRanks {
+
+	static final int[] sizes = { 0, 1, 17, 1000, 200000 };
+
+	static final int[] ks = { 0, 1, 10, 999, 1000, 5000 };
+
+	private static double[] randomValues(Random random, int size) {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			switch (random.nextInt(4)) {
+			case 0:
+				// many ties
+				values[i] = random.nextInt(10);
+				break;
+			case 1:
+				values[i] = TestRadixRanker.specialValues[random.nextInt(TestRadixRanker.specialValues.length)];
+				break;
+			default:
+				values[i] = random.nextGaussian();
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * @return node IDs ordered by rank, using {@link RadixRanker}
+	 */
+	private static long[] nodesByRank(double[] values, int[] ranks) {
+		RadixRanker.assignRanks(values, ranks);
+		long[] nodes = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			nodes[ranks[i] - 1] = i;
+		}
+		return nodes;
+	}
+
+	@Test
+	void testSelect() {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			double[] values = randomValues(random, size);
+			long[] expected = nodesByRank(values, new int[size]);
+			for (int k : ks) {
+				int n = Math.min(k, size);
+				long[] top = TopRanks.select(size, i -> values[(int) i], k);
+				assertArrayEquals(java.util.Arrays.copyOf(expected, n), top, "size " + size + ", k " + k);
+				// force refinement of the prefix over all key bits
+				top = TopRanks.select(size, i -> values[(int) i], k, 1);
+				assertArrayEquals(java.util.Arrays.copyOf(expected, n), top, "size " + size + ", k " + k);
+			}
+		}
+	}
+
+	@Test
+	void testRanks() {
+		Random random = new Random(42);
+		for (int size : sizes) {
+			double[] values = randomValues(random, size);
+			int[] ranks = new int[size];
+			RadixRanker.assignRanks(values, ranks);
+			long[] ids = random.longs(Math.min(size, 500), 0, Math.max(1, size)).distinct().toArray();
+			if (size == 0) {
+				ids = new long[0];
+			}
+			long[] expected = new long[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				expected[i] = ranks[(int) ids[i]];
+			}
+			assertArrayEquals(expected, TopRanks.ranks(size, i -> values[(int) i], ids), "size " + size);
+		}
+	}
+}